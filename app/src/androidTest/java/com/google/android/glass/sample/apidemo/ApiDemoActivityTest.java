@@ -16,8 +16,8 @@
 
 package com.google.android.glass.sample.apidemo;
 
-import com.google.android.glass.sample.apidemo.card.CardsActivity;
-import com.google.android.glass.sample.apidemo.theming.ThemingActivity;
+import com.google.android.glass.sample.apidemo.card.CardBuilderActivity;
+import com.google.android.glass.sample.apidemo.theming.TextAppearanceActivity;
 import com.google.android.glass.sample.apidemo.touchpad.SelectGestureDemoActivity;
 
 import android.app.Activity;
@@ -44,11 +44,11 @@ public class ApiDemoActivityTest extends ActivityInstrumentationTestCase2<ApiDem
     protected void setUp() throws Exception {
         super.setUp();
         mCardsActivityMonitor = new Instrumentation.ActivityMonitor(
-            CardsActivity.class.getName(), null, false);
+            CardBuilderActivity.class.getName(), null, false);
         mDetectorActivityMonitor = new Instrumentation.ActivityMonitor(
             SelectGestureDemoActivity.class.getName(), null, false);
         mThemingActivityMonitor = new Instrumentation.ActivityMonitor(
-            ThemingActivity.class.getName(), null, false);
+            TextAppearanceActivity.class.getName(), null, false);
         getInstrumentation().addMonitor(mCardsActivityMonitor);
         getInstrumentation().addMonitor(mDetectorActivityMonitor);
         getInstrumentation().addMonitor(mThemingActivityMonitor);
@@ -60,7 +60,7 @@ public class ApiDemoActivityTest extends ActivityInstrumentationTestCase2<ApiDem
     }
 
     /**
-     * Tests if the "Cards" API demo can be started when the card was tapped.
+     * Tests if the "CardBuilder" API demo can be started when the card was tapped.
      */
     public void testTapFirstCard() throws Exception {
          final ApiDemoActivity activity = getActivity();
@@ -70,7 +70,8 @@ public class ApiDemoActivityTest extends ActivityInstrumentationTestCase2<ApiDem
               @Override
               public void run() {
                   activity.getScroller().performItemClick(null /* not used */,
-                          ApiDemoActivity.CARD_BUILDER, -1 /* not used */);
+                          DemoRegistry.indexOf(DemoRegistry.API_DEMOS, CardBuilderActivity.class),
+                          -1 /* not used */);
               }
          });
 
@@ -90,7 +91,8 @@ public class ApiDemoActivityTest extends ActivityInstrumentationTestCase2<ApiDem
              @Override
              public void run() {
                  activity.getScroller().performItemClick(null /* not used */,
-                         ApiDemoActivity.GESTURE_DETECTOR, -1 /* not used */);
+                         DemoRegistry.indexOf(DemoRegistry.API_DEMOS,
+                                 SelectGestureDemoActivity.class), -1 /* not used */);
              }
         });
 
@@ -100,7 +102,7 @@ public class ApiDemoActivityTest extends ActivityInstrumentationTestCase2<ApiDem
    }
 
     /**
-     * Tests if the "Theming" API demo can be started when the card was tapped.
+     * Tests if the "Text appearance" API demo can be started when the card was tapped.
      */
     public void testTapThirdCard() throws Exception {
         final ApiDemoActivity activity = getActivity();
@@ -110,7 +112,8 @@ public class ApiDemoActivityTest extends ActivityInstrumentationTestCase2<ApiDem
              @Override
              public void run() {
                  activity.getScroller().performItemClick(null /* not used */,
-                         ApiDemoActivity.THEMING, -1 /* not used */);
+                         DemoRegistry.indexOf(DemoRegistry.API_DEMOS, TextAppearanceActivity.class),
+                         -1 /* not used */);
              }
         });
 
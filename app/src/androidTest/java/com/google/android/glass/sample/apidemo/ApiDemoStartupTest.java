@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo;
+
+import com.google.android.glass.sample.apidemo.metrics.StartupReport;
+
+import android.os.SystemClock;
+import android.test.ActivityInstrumentationTestCase2;
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Startup benchmark for {@link ApiDemoActivity}, which launches it repeatedly and reports the
+ * times recorded in the {@link StartupReport}. Only the first launch of a test run can be cold.
+ */
+@LargeTest
+public class ApiDemoStartupTest extends ActivityInstrumentationTestCase2<ApiDemoActivity> {
+
+    private static final String TAG = ApiDemoStartupTest.class.getSimpleName();
+
+    private static final int LAUNCH_COUNT = 20;
+    private static final long TIMEOUT_MILLIS = 5 * 1000;
+
+    public ApiDemoStartupTest() {
+        super(ApiDemoActivity.class);
+    }
+
+    /**
+     * Tests that all the cards are eventually added after the first frame.
+     */
+    public void testDeferredCards() throws Exception {
+        int entryCount = StartupReport.getEntries().size();
+        ApiDemoActivity activity = getActivity();
+        waitForEntries(entryCount + 1);
+        getInstrumentation().waitForIdleSync();
+
+        assertEquals(DemoRegistry.API_DEMOS.size(),
+                activity.getScroller().getAdapter().getCount());
+    }
+
+    /**
+     * Launches the activity {@link #LAUNCH_COUNT} times and reports the median and maximum times
+     * to the first frame and to the complete deck.
+     */
+    public void testStartupBenchmark() throws Exception {
+        long[] firstFrameMillis = new long[LAUNCH_COUNT];
+        long[] fullyDrawnMillis = new long[LAUNCH_COUNT];
+        for (int i = 0; i < LAUNCH_COUNT; i++) {
+            int entryCount = StartupReport.getEntries().size();
+            getActivity();
+            List<StartupReport.Entry> entries = waitForEntries(entryCount + 1);
+            StartupReport.Entry entry = entries.get(entries.size() - 1);
+            firstFrameMillis[i] = entry.firstFrameMillis - entry.createMillis;
+            fullyDrawnMillis[i] = entry.fullyDrawnMillis - entry.createMillis;
+            if (entry.cold) {
+                Log.i(TAG, "Cold start: " + entry);
+            }
+
+            getActivity().finish();
+            setActivity(null);
+            getInstrumentation().waitForIdleSync();
+        }
+
+        Arrays.sort(firstFrameMillis);
+        Arrays.sort(fullyDrawnMillis);
+        Log.i(TAG, String.format("%d starts: first frame median %d ms, max %d ms; "
+                + "fully drawn median %d ms, max %d ms", LAUNCH_COUNT,
+                firstFrameMillis[LAUNCH_COUNT / 2], firstFrameMillis[LAUNCH_COUNT - 1],
+                fullyDrawnMillis[LAUNCH_COUNT / 2], fullyDrawnMillis[LAUNCH_COUNT - 1]));
+    }
+
+    /** Waits until the report holds at least the specified number of starts. */
+    private List<StartupReport.Entry> waitForEntries(int count) throws Exception {
+        long deadline = SystemClock.uptimeMillis() + TIMEOUT_MILLIS;
+        List<StartupReport.Entry> entries = StartupReport.getEntries();
+        while (entries.size() < count) {
+            assertTrue("Start was not recorded", SystemClock.uptimeMillis() < deadline);
+            Thread.sleep(10);
+            entries = StartupReport.getEntries();
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo;
+
+import android.os.Looper;
+import android.os.SystemClock;
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for {@link FrameSampler}.
+ */
+@LargeTest
+public class FrameSamplerTest extends InstrumentationTestCase {
+
+    private static final String TAG = FrameSamplerTest.class.getSimpleName();
+
+    private static final int REQUEST_COUNT = 1000 * 1000;
+
+    /** Shortest vsync period the bound on the frame callbacks allows for. */
+    private static final long MIN_FRAME_MILLIS = 16;
+
+    private final AtomicLong mState = new AtomicLong();
+    private volatile long mLastSample = -1;
+    private volatile int mSampleCount;
+    private volatile boolean mMonotonic = true;
+
+    private final FrameSampler mSampler = new FrameSampler(Looper.getMainLooper(),
+            new FrameSampler.Callback() {
+                @Override
+                public void onFrame(long frameTimeNanos) {
+                    long sample = mState.get();
+                    mMonotonic &= sample >= mLastSample;
+                    mLastSample = sample;
+                    mSampleCount++;
+                }
+            });
+
+    /**
+     * Makes a million requests from a background thread and checks that at most one frame
+     * callback was posted per frame, and that the last one saw the final state.
+     */
+    public void testMillionRequests() throws Exception {
+        long startMillis = SystemClock.uptimeMillis();
+        Thread worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 1; i <= REQUEST_COUNT; i++) {
+                    mState.set(i);
+                    mSampler.request();
+                }
+            }
+        });
+        worker.start();
+        worker.join();
+        waitForSample(REQUEST_COUNT);
+        long elapsedMillis = SystemClock.uptimeMillis() - startMillis;
+
+        int frameCount = mSampler.getFrameCount();
+        Log.i(TAG, String.format("%d requests in %d ms: %d frames posted, %d samples",
+                REQUEST_COUNT, elapsedMillis, frameCount, mSampleCount));
+        assertTrue("Too many posts: " + frameCount,
+                frameCount <= elapsedMillis / MIN_FRAME_MILLIS + 2);
+        assertTrue(mMonotonic);
+    }
+
+    /**
+     * Tests that a cancelled sampler does not call back, even for a frame already requested.
+     */
+    public void testCancel() throws Exception {
+        mSampler.request();
+        mSampler.cancel();
+        mSampler.request();
+        Thread.sleep(5 * MIN_FRAME_MILLIS);
+        getInstrumentation().waitForIdleSync();
+
+        assertTrue(mSampler.isCancelled());
+        assertEquals(0, mSampleCount);
+    }
+
+    private void waitForSample(long sample) throws Exception {
+        long deadlineMillis = SystemClock.uptimeMillis() + 5000;
+        while (mLastSample != sample) {
+            assertTrue("State never sampled: " + sample,
+                    SystemClock.uptimeMillis() < deadlineMillis);
+            Thread.sleep(MIN_FRAME_MILLIS);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo;
+
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * A {@link Scheduler} on a manual clock, for tests: tasks run on the calling thread as the test
+ * advances the clock, and frame callbacks as it runs frames.
+ */
+public class ManualScheduler implements Scheduler {
+
+    /** A pending task, run in order of due time, then of posting. */
+    private static final class Task {
+        final Runnable runnable;
+        final long dueMillis;
+
+        Task(Runnable runnable, long dueMillis) {
+            this.runnable = runnable;
+            this.dueMillis = dueMillis;
+        }
+    }
+
+    private final ArrayList<Task> mTasks = new ArrayList<Task>();
+    private final ArrayList<Choreographer.FrameCallback> mFrameCallbacks =
+            new ArrayList<Choreographer.FrameCallback>();
+
+    private long mNowMillis;
+
+    @Override
+    public long uptimeMillis() {
+        return mNowMillis;
+    }
+
+    @Override
+    public boolean isCurrentThread() {
+        return true;
+    }
+
+    @Override
+    public void post(Runnable task) {
+        postDelayed(task, 0);
+    }
+
+    @Override
+    public void postDelayed(Runnable task, long delayMillis) {
+        mTasks.add(new Task(task, mNowMillis + Math.max(0, delayMillis)));
+    }
+
+    @Override
+    public void removeCallbacks(Runnable task) {
+        for (int i = mTasks.size() - 1; i >= 0; i--) {
+            if (mTasks.get(i).runnable == task) {
+                mTasks.remove(i);
+            }
+        }
+    }
+
+    @Override
+    public void postFrameCallback(Choreographer.FrameCallback callback) {
+        mFrameCallbacks.add(callback);
+    }
+
+    /** Advances the clock by the specified time, running the tasks that fall due on the way. */
+    public void advance(long millis) {
+        long targetMillis = mNowMillis + millis;
+        Task next;
+        while ((next = nextTask(targetMillis)) != null) {
+            mTasks.remove(next);
+            mNowMillis = next.dueMillis;
+            next.runnable.run();
+        }
+        mNowMillis = targetMillis;
+    }
+
+    /** Calls back the frame callbacks posted so far with the specified frame time. */
+    public void doFrame(long frameTimeNanos) {
+        ArrayList<Choreographer.FrameCallback> callbacks =
+                new ArrayList<Choreographer.FrameCallback>(mFrameCallbacks);
+        mFrameCallbacks.clear();
+        for (Choreographer.FrameCallback callback : callbacks) {
+            callback.doFrame(frameTimeNanos);
+        }
+    }
+
+    /** Returns the first task due by the specified time, or {@code null} if there is none. */
+    private Task nextTask(long byMillis) {
+        Task next = null;
+        for (Task task : mTasks) {
+            // Tasks are kept in posting order, so the first of equal due times comes first.
+            if (task.dueMillis <= byMillis && (next == null || task.dueMillis < next.dueMillis)) {
+                next = task;
+            }
+        }
+        return next;
+    }
+}
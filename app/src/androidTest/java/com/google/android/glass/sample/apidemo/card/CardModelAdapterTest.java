@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import com.google.android.glass.sample.apidemo.R;
+import com.google.android.glass.widget.CardBuilder;
+
+import android.os.SystemClock;
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.View;
+import android.widget.AdapterView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests and benchmarks for {@link CardModelAdapter}.
+ */
+@LargeTest
+public class CardModelAdapterTest extends AndroidTestCase {
+
+    private static final String TAG = CardModelAdapterTest.class.getSimpleName();
+
+    private static final int CARD_COUNT = 10000;
+
+    private static final CardBuilder.Layout[] LAYOUTS = {
+        CardBuilder.Layout.TEXT,
+        CardBuilder.Layout.COLUMNS,
+        CardBuilder.Layout.CAPTION,
+        CardBuilder.Layout.AUTHOR,
+    };
+
+    private List<CardModel> mCards;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mCards = new ArrayList<CardModel>(CARD_COUNT);
+        for (int i = 0; i < CARD_COUNT; i++) {
+            mCards.add(new CardModel.Builder(LAYOUTS[i % LAYOUTS.length])
+                    .setText("Card " + i)
+                    .setFootnote(R.string.text_card_footnote)
+                    .setIcon(R.drawable.ic_avatar_70)
+                    .build());
+        }
+    }
+
+    /**
+     * Tests that positions are looked up by identity.
+     */
+    public void testGetPosition() throws Exception {
+        CardModelAdapter adapter = new CardModelAdapter(getContext(), mCards);
+
+        assertEquals(0, adapter.getPosition(mCards.get(0)));
+        assertEquals(CARD_COUNT - 1, adapter.getPosition(mCards.get(CARD_COUNT - 1)));
+        assertEquals(AdapterView.INVALID_POSITION, adapter.getPosition(
+                new CardModel.Builder(CardBuilder.Layout.TEXT).build()));
+    }
+
+    /**
+     * Scrolls through all cards, recycling views per view type, and reports the heap growth and
+     * the {@code getView} latency.
+     */
+    public void testScrollBenchmark() throws Exception {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        long heapBeforeBytes = runtime.totalMemory() - runtime.freeMemory();
+
+        CardModelAdapter adapter = new CardModelAdapter(getContext(), mCards);
+        SparseArray<View> scrapViews = new SparseArray<View>();
+        long totalNanos = 0;
+        long maxNanos = 0;
+
+        for (int position = 0; position < adapter.getCount(); position++) {
+            int viewType = adapter.getItemViewType(position);
+            long startNanos = SystemClock.elapsedRealtimeNanos();
+            View view = adapter.getView(position, scrapViews.get(viewType), null);
+            long elapsedNanos = SystemClock.elapsedRealtimeNanos() - startNanos;
+
+            assertNotNull(view);
+            scrapViews.put(viewType, view);
+            totalNanos += elapsedNanos;
+            maxNanos = Math.max(maxNanos, elapsedNanos);
+        }
+
+        runtime.gc();
+        long heapAfterBytes = runtime.totalMemory() - runtime.freeMemory();
+
+        Log.i(TAG, String.format("Scrolled %d cards: getView mean %d us, max %d us, heap %+d KB",
+                CARD_COUNT, totalNanos / CARD_COUNT / 1000, maxNanos / 1000,
+                (heapAfterBytes - heapBeforeBytes) / 1024));
+        assertTrue("Only one view per type should have been kept", scrapViews.size()
+                <= adapter.getViewTypeCount());
+    }
+}
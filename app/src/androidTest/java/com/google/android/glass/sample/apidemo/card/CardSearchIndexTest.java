@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import android.os.SystemClock;
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Unit tests and benchmarks for {@link CardSearchIndex}.
+ */
+@LargeTest
+public class CardSearchIndexTest extends TestCase {
+
+    private static final String TAG = CardSearchIndexTest.class.getSimpleName();
+
+    private static final int CARD_COUNT = 100000;
+    private static final int VOCABULARY_SIZE = 5000;
+    private static final int WORDS_PER_CARD = 8;
+    private static final int QUERY_COUNT = 1000;
+
+    private final Random mRandom = new Random(42);
+
+    /**
+     * Tests that every word of a query must prefix a word of the matching cards, ignoring case.
+     */
+    public void testPrefixQueries() throws Exception {
+        CardSearchIndex index = new CardSearchIndex();
+        index.add(0, "Hello, World");
+        index.add(1, "world peace");
+        index.add(1, "Peace");
+        index.add(3, "Helium 42");
+
+        assertTrue(Arrays.equals(new int[] { 0, 1 }, index.search("WOR")));
+        assertTrue(Arrays.equals(new int[] { 0, 3 }, index.search("hel")));
+        assertTrue(Arrays.equals(new int[] { 0 }, index.search("he wo")));
+        assertTrue(Arrays.equals(new int[] { 3 }, index.search("4")));
+        assertEquals(0, index.search("").length);
+        assertEquals(0, index.search("hello peace").length);
+        assertEquals(4, index.getCardCount());
+    }
+
+    /**
+     * Tests that table rows are found on the card showing them.
+     */
+    public void testTableRows() throws Exception {
+        SimpleTable table = new SimpleTable.Builder()
+                .add(0, "Water", "8 oz")
+                .add(0, "Eggs", "2")
+                .add(0, "Ground beef", "4 oz")
+                .build();
+
+        CardSearchIndex index = CardSearchIndex.forTable(table, 2);
+
+        assertTrue(Arrays.equals(new int[] { 0, 1 }, index.search("oz")));
+        assertTrue(Arrays.equals(new int[] { 1 }, index.search("beef")));
+    }
+
+    /**
+     * Tests that cards cannot be added out of order, which would leave posting lists unsorted.
+     */
+    public void testAddOutOfOrder() throws Exception {
+        CardSearchIndex index = new CardSearchIndex();
+        index.add(2, "two");
+        try {
+            index.add(1, "one");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    /**
+     * Indexes 100k cards and reports the build time, the size of the index and the latency of
+     * two-letter prefix queries.
+     */
+    public void testBenchmark() throws Exception {
+        String[] vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < VOCABULARY_SIZE; i++) {
+            vocabulary[i] = Long.toString(mRandom.nextLong() & 0xffffffffffL, 36);
+        }
+
+        CardSearchIndex index = new CardSearchIndex();
+        StringBuilder text = new StringBuilder();
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        for (int card = 0; card < CARD_COUNT; card++) {
+            text.setLength(0);
+            for (int i = 0; i < WORDS_PER_CARD; i++) {
+                text.append(vocabulary[mRandom.nextInt(VOCABULARY_SIZE)]).append(' ');
+            }
+            index.add(card, text);
+        }
+        long buildNanos = SystemClock.elapsedRealtimeNanos() - startNanos;
+
+        long hitCount = 0;
+        startNanos = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            hitCount += index.search(vocabulary[mRandom.nextInt(VOCABULARY_SIZE)].substring(0, 2))
+                    .length;
+        }
+        long queryNanos = SystemClock.elapsedRealtimeNanos() - startNanos;
+
+        assertEquals(CARD_COUNT, index.getCardCount());
+        Log.i(TAG, String.format("%d cards, %d words, %d postings: build %d ms, "
+                + "query %d us for %d hits on average", CARD_COUNT, index.getWordCount(),
+                index.getPostingCount(), buildNanos / 1000000, queryNanos / QUERY_COUNT / 1000,
+                hitCount / QUERY_COUNT));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import com.google.android.glass.sample.apidemo.R;
+
+import android.os.SystemClock;
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests and benchmarks for {@link EmbeddedCardLayoutAdapter}.
+ */
+@LargeTest
+public class EmbeddedCardLayoutAdapterTest extends AndroidTestCase {
+
+    private static final String TAG = EmbeddedCardLayoutAdapterTest.class.getSimpleName();
+
+    private static final int ITEM_COUNT = 10000;
+
+    private static final int[] ICONS = {
+        R.drawable.ic_circle_blue,
+        R.drawable.ic_circle_green,
+        R.drawable.ic_circle_red,
+        R.drawable.ic_circle_yellow,
+    };
+
+    private List<SimpleTableItem> mItems;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mItems = new ArrayList<SimpleTableItem>(ITEM_COUNT);
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            mItems.add(new SimpleTableItem(ICONS[i % ICONS.length], "Item " + i, "#" + i));
+        }
+    }
+
+    /**
+     * Tests that the last card only shows the remaining items.
+     */
+    public void testCountWithRemainder() throws Exception {
+        EmbeddedCardLayoutAdapter adapter =
+                new EmbeddedCardLayoutAdapter(getContext(), mItems.subList(0, 9), 4);
+
+        assertEquals(3, adapter.getCount());
+    }
+
+    /**
+     * Binds every card of the table into a single recycled view and reports the time spent per
+     * card.
+     */
+    public void testBindBenchmark() throws Exception {
+        for (int itemsPerCard = 2; itemsPerCard <= 6; itemsPerCard += 2) {
+            EmbeddedCardLayoutAdapter adapter =
+                    new EmbeddedCardLayoutAdapter(getContext(), mItems, itemsPerCard);
+            View view = adapter.getView(0, null, null);
+
+            long startNanos = SystemClock.elapsedRealtimeNanos();
+            for (int position = 0; position < adapter.getCount(); position++) {
+                assertSame(view, adapter.getView(position, view, null));
+            }
+            long elapsedNanos = SystemClock.elapsedRealtimeNanos() - startNanos;
+
+            Log.i(TAG, String.format("%d items per card: bind %d us per card",
+                    itemsPerCard, elapsedNanos / adapter.getCount() / 1000));
+        }
+    }
+}
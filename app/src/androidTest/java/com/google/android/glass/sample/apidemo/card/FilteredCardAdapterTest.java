@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import com.google.android.glass.widget.CardScrollAdapter;
+
+import android.database.DataSetObserver;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AdapterView;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link FilteredCardAdapter}.
+ */
+@SmallTest
+public class FilteredCardAdapterTest extends TestCase {
+
+    private static final int SOURCE_COUNT = 10;
+
+    private int mChangeCount;
+    private int mInvalidationCount;
+
+    private final CardScrollAdapter mSource = new CardScrollAdapter() {
+
+        @Override
+        public int getCount() {
+            return SOURCE_COUNT;
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return position;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            return convertView;
+        }
+
+        @Override
+        public int getPosition(Object item) {
+            return item instanceof Integer ? (Integer) item : AdapterView.INVALID_POSITION;
+        }
+    };
+
+    private final DataSetObserver mObserver = new DataSetObserver() {
+
+        @Override
+        public void onChanged() {
+            mChangeCount++;
+        }
+
+        @Override
+        public void onInvalidated() {
+            mInvalidationCount++;
+        }
+    };
+
+    /**
+     * Tests that cards and positions are mapped to the source.
+     */
+    public void testPositions() throws Exception {
+        FilteredCardAdapter adapter = new FilteredCardAdapter(mSource, new int[] {2, 5, 7});
+
+        assertEquals(3, adapter.getCount());
+        assertEquals(5, adapter.getItem(1));
+        assertEquals(7, adapter.getSourcePosition(2));
+        assertEquals(2, adapter.getPosition(7));
+        assertEquals(AdapterView.INVALID_POSITION, adapter.getPosition(3));
+    }
+
+    /**
+     * Tests that changes of the source reach the observers of the adapter, only while they are
+     * registered.
+     */
+    public void testForwardsChanges() throws Exception {
+        FilteredCardAdapter adapter = new FilteredCardAdapter(mSource, new int[] {2, 5, 7});
+        mSource.notifyDataSetChanged();
+        adapter.registerDataSetObserver(mObserver);
+
+        mSource.notifyDataSetChanged();
+        mSource.notifyDataSetInvalidated();
+        assertEquals(1, mChangeCount);
+        assertEquals(1, mInvalidationCount);
+
+        adapter.unregisterDataSetObserver(mObserver);
+        mSource.notifyDataSetChanged();
+        assertEquals(1, mChangeCount);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import android.os.SystemClock;
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests and benchmarks for {@link ListDiff} and {@link MutationBatch} applied to a
+ * {@link ChunkedList}.
+ */
+@LargeTest
+public class ListDiffTest extends TestCase {
+
+    private static final String TAG = ListDiffTest.class.getSimpleName();
+
+    private static final int CARD_COUNT = 50000;
+    private static final int BURST_COUNT = 100;
+    private static final int MAX_EDITS_PER_BURST = 20;
+    private static final int MAX_DIFF_EDITS = 1000;
+
+    private final Random mRandom = new Random(42);
+
+    /**
+     * Tests that applying the computed edits to the old list yields the new list.
+     */
+    public void testEditsTransformOldListIntoNewList() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            List<Object> oldList = createList(mRandom.nextInt(200));
+            List<Object> newList = createBurst(oldList);
+
+            ChunkedList<Object> list = new ChunkedList<Object>(oldList);
+            apply(ListDiff.compute(oldList, newList, MAX_DIFF_EDITS), list, newList);
+
+            assertEquals(newList, list);
+        }
+    }
+
+    /**
+     * Tests that a single insertion or deletion is reported as such.
+     */
+    public void testSingleEdit() throws Exception {
+        List<Object> oldList = createList(10);
+        List<Object> newList = new ArrayList<Object>(oldList);
+        newList.remove(4);
+
+        List<ListDiff.Edit> edits = ListDiff.compute(oldList, newList, MAX_DIFF_EDITS);
+
+        assertEquals(1, edits.size());
+        assertFalse(edits.get(0).insertion);
+        assertEquals(4, edits.get(0).position);
+    }
+
+    /**
+     * Tests that a batch applied to a list yields the same content as its mutations applied one
+     * by one, and reports edits at their positions in the whole list.
+     */
+    public void testMutationBatch() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            List<Object> expected = createList(mRandom.nextInt(200));
+            ChunkedList<Object> list = new ChunkedList<Object>(expected);
+            MutationBatch<Object> batch = new MutationBatch<Object>(list.size());
+            record(createBurst(expected.size()), batch, expected);
+
+            assertNotNull(batch.applyTo(list, MAX_DIFF_EDITS));
+            assertEquals(expected, list);
+        }
+
+        List<Object> list = createList(100);
+        Object inserted = new Object();
+        List<ListDiff.Edit> edits = new MutationBatch<Object>(list.size())
+                .insert(60, inserted)
+                .move(10, 10)
+                .applyTo(list, MAX_DIFF_EDITS);
+        assertEquals(1, edits.size());
+        assertTrue(edits.get(0).insertion);
+        assertEquals(60, edits.get(0).position);
+        assertSame(inserted, list.get(60));
+    }
+
+    /**
+     * Records random bursts of insertions, deletions and moves on a large deck and applies them
+     * as {@code CardScrollViewActivity} does, reporting the time spent per burst.
+     */
+    public void testEditBurstBenchmark() throws Exception {
+        List<Object> expected = createList(CARD_COUNT);
+        ChunkedList<Object> list = new ChunkedList<Object>(expected);
+        long batchNanos = 0;
+
+        for (int i = 0; i < BURST_COUNT; i++) {
+            List<int[]> burst = createBurst(expected.size());
+            List<Object> elements = createList(burst.size());
+
+            long startNanos = SystemClock.elapsedRealtimeNanos();
+            MutationBatch<Object> batch = new MutationBatch<Object>(list.size());
+            for (int j = 0; j < burst.size(); j++) {
+                record(burst.get(j), elements.get(j), batch);
+            }
+            batch.applyTo(list, MAX_DIFF_EDITS);
+            batchNanos += SystemClock.elapsedRealtimeNanos() - startNanos;
+
+            for (int j = 0; j < burst.size(); j++) {
+                apply(burst.get(j), elements.get(j), expected);
+            }
+        }
+
+        assertEquals(expected, list);
+        Log.i(TAG, String.format("%d bursts on %d cards: %d us per burst",
+                BURST_COUNT, CARD_COUNT, batchNanos / BURST_COUNT / 1000));
+    }
+
+    private static List<Object> createList(int size) {
+        List<Object> list = new ArrayList<Object>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(new Object());
+        }
+        return list;
+    }
+
+    /** Returns a copy of the list with a random burst of insertions, deletions and moves. */
+    private List<Object> createBurst(List<Object> list) {
+        List<Object> result = new ArrayList<Object>(list);
+        for (int[] mutation : createBurst(list.size())) {
+            apply(mutation, new Object(), result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a random burst of mutations for a list of the specified size, each one being the
+     * operation, 0 to insert, 1 to delete and 2 to move, then its positions.
+     */
+    private List<int[]> createBurst(int size) {
+        int editCount = 1 + mRandom.nextInt(MAX_EDITS_PER_BURST);
+        List<int[]> burst = new ArrayList<int[]>(editCount);
+        for (int i = 0; i < editCount; i++) {
+            int operation = size == 0 ? 0 : mRandom.nextInt(3);
+            if (operation == 0) {
+                burst.add(new int[] {0, mRandom.nextInt(size + 1), 0});
+                size++;
+            } else if (operation == 1) {
+                burst.add(new int[] {1, mRandom.nextInt(size), 0});
+                size--;
+            } else {
+                burst.add(new int[] {2, mRandom.nextInt(size), mRandom.nextInt(size)});
+            }
+        }
+        return burst;
+    }
+
+    private static void record(List<int[]> burst, MutationBatch<Object> batch,
+            List<Object> list) {
+        for (int[] mutation : burst) {
+            Object element = new Object();
+            record(mutation, element, batch);
+            apply(mutation, element, list);
+        }
+    }
+
+    private static void record(int[] mutation, Object element, MutationBatch<Object> batch) {
+        if (mutation[0] == 0) {
+            batch.insert(mutation[1], element);
+        } else if (mutation[0] == 1) {
+            batch.delete(mutation[1]);
+        } else {
+            batch.move(mutation[1], mutation[2]);
+        }
+    }
+
+    private static void apply(int[] mutation, Object element, List<Object> list) {
+        if (mutation[0] == 0) {
+            list.add(mutation[1], element);
+        } else if (mutation[0] == 1) {
+            list.remove(mutation[1]);
+        } else {
+            list.add(mutation[2], list.remove(mutation[1]));
+        }
+    }
+
+    private static void apply(List<ListDiff.Edit> edits, List<Object> list, List<Object> newList) {
+        for (ListDiff.Edit edit : edits) {
+            if (edit.insertion) {
+                list.add(edit.position, newList.get(edit.newIndex));
+            } else {
+                list.remove(edit.position);
+            }
+        }
+    }
+}
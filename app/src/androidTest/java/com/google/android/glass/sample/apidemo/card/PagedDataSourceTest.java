@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.test.suitebuilder.annotation.MediumTest;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link PagedDataSource}.
+ * <p>
+ * The data source is created and used on a {@link HandlerThread}, since it delivers pages through
+ * the looper of the thread that created it.
+ */
+@MediumTest
+public class PagedDataSourceTest extends TestCase {
+
+    private static final String TAG = PagedDataSourceTest.class.getSimpleName();
+
+    private static final int ITEM_COUNT = 100;
+    private static final int PAGE_SIZE = 10;
+    private static final int MAX_PAGES = 3;
+
+    /** Offsets of the pages loaded by the loader, in order. */
+    private final BlockingQueue<Integer> mLoadedOffsets = new LinkedBlockingQueue<Integer>();
+
+    /** Offsets of the pages delivered to the listener, in order. */
+    private final BlockingQueue<Integer> mDeliveredOffsets = new LinkedBlockingQueue<Integer>();
+
+    /** Offset of a page the loader returns one item short, once, or -1. */
+    private volatile int mShortPageOffset = -1;
+
+    private HandlerThread mThread;
+    private Handler mHandler;
+    private PagedDataSource<Integer> mDataSource;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mThread = new HandlerThread(TAG);
+        mThread.start();
+        mHandler = new Handler(mThread.getLooper());
+        runOnThread(new Runnable() {
+            @Override
+            public void run() {
+                mDataSource = new PagedDataSource<Integer>(new PagedDataSource.Loader<Integer>() {
+                    @Override
+                    public int getCount() {
+                        return ITEM_COUNT;
+                    }
+
+                    @Override
+                    public List<Integer> loadPage(int offset, int limit) {
+                        mLoadedOffsets.add(offset);
+                        if (offset == mShortPageOffset) {
+                            mShortPageOffset = -1;
+                            limit--;
+                        }
+                        List<Integer> items = new ArrayList<Integer>(limit);
+                        for (int i = offset; i < offset + limit; i++) {
+                            items.add(i);
+                        }
+                        return items;
+                    }
+                }, PAGE_SIZE, MAX_PAGES);
+                mDataSource.setListener(new PagedDataSource.Listener() {
+                    @Override
+                    public void onPageLoaded(int offset, int count) {
+                        mDeliveredOffsets.add(offset);
+                    }
+                });
+            }
+        });
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        runOnThread(new Runnable() {
+            @Override
+            public void run() {
+                mDataSource.close();
+            }
+        });
+        mThread.quit();
+        super.tearDown();
+    }
+
+    /**
+     * Tests that an item is missing until its page is delivered, and loaded only once.
+     */
+    public void testGetItem() throws Exception {
+        assertNull(getItem(15));
+        assertNull(getItem(16));
+        assertEquals(10, takeDelivered());
+
+        assertEquals(Integer.valueOf(15), getItem(15));
+        assertEquals(Integer.valueOf(19), getItem(19));
+        assertEquals(1, mLoadedOffsets.size());
+    }
+
+    /**
+     * Tests that a page with fewer items than asked for is not delivered, and loaded again the
+     * next time it is requested.
+     */
+    public void testShortPage() throws Exception {
+        mShortPageOffset = 20;
+        assertNull(getItem(29));
+        assertEquals(Integer.valueOf(20), mLoadedOffsets.poll(1, TimeUnit.SECONDS));
+        assertNull(mDeliveredOffsets.poll(100, TimeUnit.MILLISECONDS));
+
+        assertNull(getItem(29));
+        assertEquals(20, takeDelivered());
+        assertEquals(Integer.valueOf(29), getItem(29));
+    }
+
+    /**
+     * Tests that the page of the position is loaded first, then the neighbor page closest to the
+     * position, and that nothing is loaded out of range.
+     */
+    public void testPrefetchAround() throws Exception {
+        prefetchAround(27);
+        assertEquals(20, takeDelivered());
+        assertEquals(30, takeDelivered());
+        assertEquals(10, takeDelivered());
+
+        prefetchAround(2);
+        assertEquals(0, takeDelivered());
+        prefetchAround(ITEM_COUNT - 1);
+        assertEquals(90, takeDelivered());
+        assertEquals(80, takeDelivered());
+        assertNull(mDeliveredOffsets.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Tests that the least recently used page is evicted once the budget is exceeded.
+     */
+    public void testEviction() throws Exception {
+        for (int position = 0; position < MAX_PAGES * PAGE_SIZE; position += PAGE_SIZE) {
+            getItem(position);
+            takeDelivered();
+        }
+        // Touches the first page, so that the second one is the least recently used.
+        assertNotNull(getItem(0));
+
+        getItem(MAX_PAGES * PAGE_SIZE);
+        takeDelivered();
+        assertNotNull(getItem(0));
+        assertNull(getItem(PAGE_SIZE));
+        assertEquals(PAGE_SIZE, takeDelivered());
+    }
+
+    /**
+     * Tests that pages are neither loaded nor delivered once the data source is closed.
+     */
+    public void testClose() throws Exception {
+        runOnThread(new Runnable() {
+            @Override
+            public void run() {
+                mDataSource.close();
+            }
+        });
+        assertNull(getItem(0));
+        assertNull(mDeliveredOffsets.poll(100, TimeUnit.MILLISECONDS));
+        assertTrue(mLoadedOffsets.isEmpty());
+    }
+
+    private Integer getItem(final int position) throws Exception {
+        final Integer[] item = new Integer[1];
+        runOnThread(new Runnable() {
+            @Override
+            public void run() {
+                item[0] = mDataSource.getItem(position);
+            }
+        });
+        return item[0];
+    }
+
+    private void prefetchAround(final int position) throws Exception {
+        runOnThread(new Runnable() {
+            @Override
+            public void run() {
+                mDataSource.prefetchAround(position);
+            }
+        });
+    }
+
+    private int takeDelivered() throws Exception {
+        Integer offset = mDeliveredOffsets.poll(1, TimeUnit.SECONDS);
+        assertNotNull("No page delivered", offset);
+        return offset;
+    }
+
+    private void runOnThread(final Runnable runnable) throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                runnable.run();
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import com.google.android.glass.sample.apidemo.R;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests and benchmarks for {@link SimpleTableFile}.
+ * <p>
+ * The table is opened and read on a {@link HandlerThread}, since it notifies its listener through
+ * the looper of the thread that opened it.
+ */
+@LargeTest
+public class SimpleTableFileTest extends AndroidTestCase {
+
+    private static final String TAG = SimpleTableFileTest.class.getSimpleName();
+
+    private static final long LARGE_FILE_BYTES = 100L * 1024 * 1024;
+
+    private HandlerThread mThread;
+    private Handler mHandler;
+    private File mFile;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mThread = new HandlerThread(TAG);
+        mThread.start();
+        mHandler = new Handler(mThread.getLooper());
+        mFile = new File(getContext().getCacheDir(), "simple_table_test");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mThread.quit();
+        mFile.delete();
+        super.tearDown();
+    }
+
+    /**
+     * Tests that quoted CSV fields are unescaped and that the header is skipped.
+     */
+    public void testCsv() throws Exception {
+        write("icon,primary,secondary\r\n"
+                + "ic_circle_blue,\"Water, \"\"still\"\"\",8 oz\r\n"
+                + "\r\n"
+                + "ic_circle_red,Crème brûlée\n");
+
+        TableReader reader = new TableReader();
+        reader.open();
+
+        assertEquals(2, reader.size);
+        assertEquals(R.drawable.ic_circle_blue, reader.iconResIds[0]);
+        assertEquals("Water, \"still\"", reader.primaryTexts[0]);
+        assertEquals("8 oz", reader.secondaryTexts[0]);
+        assertEquals(R.drawable.ic_circle_red, reader.iconResIds[1]);
+        assertEquals("Crème brûlée", reader.primaryTexts[1]);
+        assertEquals("", reader.secondaryTexts[1]);
+    }
+
+    /**
+     * Tests that JSON objects are read whatever the order of their members, skipping unknown ones.
+     */
+    public void testJson() throws Exception {
+        write("[{\"secondary\": \"8 oz\", \"extra\": {\"a\": [1, \"}\"]},"
+                + " \"icon\": \"ic_circle_blue\", \"primary\": \"Water \\\"still\\\"\"},\n"
+                + " {\"icon\": \"ic_circle_red\", \"primary\": \"\\u00e9t\\u00e9\"}]");
+
+        TableReader reader = new TableReader();
+        reader.open();
+
+        assertEquals(2, reader.size);
+        assertEquals(R.drawable.ic_circle_blue, reader.iconResIds[0]);
+        assertEquals("Water \"still\"", reader.primaryTexts[0]);
+        assertEquals("8 oz", reader.secondaryTexts[0]);
+        assertEquals(R.drawable.ic_circle_red, reader.iconResIds[1]);
+        assertEquals("été", reader.primaryTexts[1]);
+        assertEquals("", reader.secondaryTexts[1]);
+    }
+
+    /**
+     * Tests that bytes that are not valid UTF-8, including sequences cut by the end of a field or
+     * of the file, are replaced with U+FFFD.
+     */
+    public void testMalformedUtf8() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write("icon,primary,secondary\n".getBytes("UTF-8"));
+        // A lead byte cut by the separator, then a continuation byte without one.
+        out.write("ic_circle_blue,a".getBytes("UTF-8"));
+        out.write(new byte[] {(byte) 0xc3, ',', (byte) 0x80, 'b', '\n'});
+        // A byte that never starts a sequence, then a sequence cut by the end of the file.
+        out.write("ic_circle_red,c".getBytes("UTF-8"));
+        out.write(new byte[] {(byte) 0xff, ',', (byte) 0xf0, (byte) 0x9f});
+        write(out.toByteArray());
+
+        TableReader reader = new TableReader();
+        reader.open();
+
+        assertEquals(2, reader.size);
+        assertEquals("a\ufffd", reader.primaryTexts[0]);
+        assertEquals("\ufffdb", reader.secondaryTexts[0]);
+        assertEquals("c\ufffd", reader.primaryTexts[1]);
+        assertEquals("\ufffd", reader.secondaryTexts[1]);
+    }
+
+    /**
+     * Opens a 100 MB file and reports the time until the first card can be shown, the time to
+     * index the whole file and the heap held by the index.
+     */
+    public void testLargeFileBenchmark() throws Exception {
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(mFile), 64 * 1024);
+        try {
+            out.write("icon,primary,secondary\n".getBytes());
+            for (long bytes = 0, i = 0; bytes < LARGE_FILE_BYTES; i++) {
+                byte[] row = ("ic_circle_green,Item number " + i + "," + i + " units\n").getBytes();
+                out.write(row);
+                bytes += row.length;
+            }
+        } finally {
+            out.close();
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        long heapBeforeBytes = runtime.totalMemory() - runtime.freeMemory();
+
+        final CountDownLatch firstRows = new CountDownLatch(1);
+        final CountDownLatch complete = new CountDownLatch(1);
+        final SimpleTableFile[] table = new SimpleTableFile[1];
+        final long startNanos = SystemClock.elapsedRealtimeNanos();
+        final long[] firstRowsNanos = new long[1];
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    table[0] = SimpleTableFile.open(
+                            getContext().getResources(), getContext().getPackageName(), mFile);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+                table[0].setListener(new SimpleTableFile.Listener() {
+                    @Override
+                    public void onRowsIndexed(int rowCount, boolean isComplete) {
+                        if (firstRows.getCount() > 0
+                                && rowCount >= EmbeddedCardLayoutAdapter.DEFAULT_ITEMS_PER_CARD) {
+                            // Read the rows of the first card as the adapter would.
+                            char[] buffer = new char[64];
+                            for (int i = 0; i < EmbeddedCardLayoutAdapter.DEFAULT_ITEMS_PER_CARD;
+                                    i++) {
+                                table[0].getIconResId(i);
+                                table[0].decodeText(SimpleTable.PRIMARY_TEXT, i, buffer);
+                                table[0].decodeText(SimpleTable.SECONDARY_TEXT, i, buffer);
+                            }
+                            firstRowsNanos[0] = SystemClock.elapsedRealtimeNanos() - startNanos;
+                            firstRows.countDown();
+                        }
+                        if (isComplete) {
+                            complete.countDown();
+                        }
+                    }
+                });
+            }
+        });
+
+        assertTrue(firstRows.await(1, TimeUnit.SECONDS));
+        assertTrue(complete.await(60, TimeUnit.SECONDS));
+        long completeNanos = SystemClock.elapsedRealtimeNanos() - startNanos;
+        runtime.gc();
+        long heapBytes = runtime.totalMemory() - runtime.freeMemory() - heapBeforeBytes;
+
+        final int[] size = new int[1];
+        final CountDownLatch closed = new CountDownLatch(1);
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                size[0] = table[0].size();
+                table[0].close();
+                closed.countDown();
+            }
+        });
+        closed.await();
+
+        Log.i(TAG, String.format("%d MB, %d rows: first card %d ms, indexed %d ms, heap %d KB",
+                mFile.length() / 1024 / 1024, size[0], firstRowsNanos[0] / 1000000,
+                completeNanos / 1000000, heapBytes / 1024));
+    }
+
+    private void write(String contents) throws Exception {
+        write(contents.getBytes("UTF-8"));
+    }
+
+    private void write(byte[] contents) throws Exception {
+        OutputStream out = new FileOutputStream(mFile);
+        try {
+            out.write(contents);
+        } finally {
+            out.close();
+        }
+    }
+
+    /** Opens the test file on the handler thread and reads all of its rows once indexed. */
+    private class TableReader implements Runnable, SimpleTableFile.Listener {
+
+        private final CountDownLatch mComplete = new CountDownLatch(1);
+        private SimpleTableFile mTable;
+        private Exception mException;
+
+        int size;
+        int[] iconResIds;
+        String[] primaryTexts;
+        String[] secondaryTexts;
+
+        void open() throws Exception {
+            mHandler.post(this);
+            assertTrue(mComplete.await(10, TimeUnit.SECONDS));
+            if (mException != null) {
+                throw mException;
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                mTable = SimpleTableFile.open(
+                        getContext().getResources(), getContext().getPackageName(), mFile);
+                mTable.setListener(this);
+            } catch (Exception e) {
+                mException = e;
+                mComplete.countDown();
+            }
+        }
+
+        @Override
+        public void onRowsIndexed(int rowCount, boolean complete) {
+            if (!complete) {
+                return;
+            }
+            size = rowCount;
+            iconResIds = new int[size];
+            primaryTexts = new String[size];
+            secondaryTexts = new String[size];
+            for (int i = 0; i < size; i++) {
+                iconResIds[i] = mTable.getIconResId(i);
+                primaryTexts[i] = readText(SimpleTable.PRIMARY_TEXT, i);
+                secondaryTexts[i] = readText(SimpleTable.SECONDARY_TEXT, i);
+            }
+            mTable.close();
+            mComplete.countDown();
+        }
+
+        private String readText(int column, int row) {
+            char[] buffer = new char[mTable.getTextCapacity(column, row)];
+            return new String(buffer, 0, mTable.decodeText(column, row, buffer));
+        }
+    }
+}
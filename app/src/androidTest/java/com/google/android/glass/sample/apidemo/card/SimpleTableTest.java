@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import android.os.SystemClock;
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests and benchmarks for {@link SimpleTable}.
+ */
+@LargeTest
+public class SimpleTableTest extends TestCase {
+
+    private static final String TAG = SimpleTableTest.class.getSimpleName();
+
+    private static final int ROW_COUNT = 200000;
+
+    /**
+     * Tests that text, including characters outside of ASCII and the BMP, is decoded as it was
+     * added.
+     */
+    public void testDecodeText() throws Exception {
+        String[] texts = { "Water", "Crème brûlée", "日本", "😀", "" };
+        SimpleTable.Builder builder = new SimpleTable.Builder(1);
+        for (int i = 0; i < texts.length; i++) {
+            builder.add(i, texts[i], texts[texts.length - 1 - i]);
+        }
+        SimpleTable table = builder.build();
+
+        for (int i = 0; i < texts.length; i++) {
+            char[] buffer = new char[table.getTextCapacity(SimpleTable.PRIMARY_TEXT, i)];
+            int length = table.decodeText(SimpleTable.PRIMARY_TEXT, i, buffer);
+            assertEquals(texts[i], new String(buffer, 0, length));
+            assertEquals(texts[texts.length - 1 - i],
+                    table.getText(SimpleTable.SECONDARY_TEXT, i));
+            assertEquals(i, table.getIconResId(i));
+        }
+    }
+
+    /**
+     * Tests that bytes that are not valid UTF-8, including sequences cut by the end of a row, are
+     * replaced with U+FFFD without reading the text of the next row.
+     */
+    public void testMalformedUtf8() throws Exception {
+        // A lead byte cut by the end of the row, then a continuation byte without one.
+        byte[] primary = {'a', (byte) 0xc3, (byte) 0x80, 'b'};
+        // A byte that never starts a sequence, then a sequence cut by the end of the row.
+        byte[] secondary = {'c', (byte) 0xff, (byte) 0xf0, (byte) 0x9f};
+        SimpleTable table = new SimpleTable.Builder(2)
+                .add(0, primary, 0, 2, primary, 2, 2)
+                .add(1, secondary, 0, 2, secondary, 2, 2)
+                .build();
+
+        assertEquals("a\ufffd", decode(table, SimpleTable.PRIMARY_TEXT, 0));
+        assertEquals("\ufffdb", decode(table, SimpleTable.SECONDARY_TEXT, 0));
+        assertEquals("c\ufffd", decode(table, SimpleTable.PRIMARY_TEXT, 1));
+        assertEquals("\ufffd", decode(table, SimpleTable.SECONDARY_TEXT, 1));
+    }
+
+    /**
+     * Compares the heap used by a table and by the equivalent list of {@link SimpleTableItem}s,
+     * and the time it takes to read every row of each.
+     */
+    public void testMemoryBenchmark() throws Exception {
+        Runtime runtime = Runtime.getRuntime();
+
+        runtime.gc();
+        long heapBeforeBytes = runtime.totalMemory() - runtime.freeMemory();
+        List<SimpleTableItem> items = new ArrayList<SimpleTableItem>(ROW_COUNT);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            items.add(new SimpleTableItem(i, "Item number " + i, i + " units"));
+        }
+        runtime.gc();
+        long listBytes = runtime.totalMemory() - runtime.freeMemory() - heapBeforeBytes;
+
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        int checksum = 0;
+        for (int i = 0; i < ROW_COUNT; i++) {
+            SimpleTableItem item = items.get(i);
+            checksum += item.iconResId + item.primaryText.length() + item.secondaryText.length();
+        }
+        long listReadNanos = SystemClock.elapsedRealtimeNanos() - startNanos;
+
+        SimpleTable.Builder builder = new SimpleTable.Builder(ROW_COUNT);
+        for (SimpleTableItem item : items) {
+            builder.add(item.iconResId, item.primaryText, item.secondaryText);
+        }
+        items = null;
+        runtime.gc();
+        heapBeforeBytes = runtime.totalMemory() - runtime.freeMemory();
+        SimpleTable table = builder.build();
+        builder = null;
+        runtime.gc();
+        long tableBytes = runtime.totalMemory() - runtime.freeMemory() - heapBeforeBytes;
+
+        char[] buffer = new char[64];
+        startNanos = SystemClock.elapsedRealtimeNanos();
+        int tableChecksum = 0;
+        for (int i = 0; i < ROW_COUNT; i++) {
+            tableChecksum += table.getIconResId(i)
+                    + table.decodeText(SimpleTable.PRIMARY_TEXT, i, buffer)
+                    + table.decodeText(SimpleTable.SECONDARY_TEXT, i, buffer);
+        }
+        long tableReadNanos = SystemClock.elapsedRealtimeNanos() - startNanos;
+
+        assertEquals(checksum, tableChecksum);
+        Log.i(TAG, String.format("%d rows: list %d KB read in %d ms, table %d KB read in %d ms",
+                ROW_COUNT, listBytes / 1024, listReadNanos / 1000000,
+                tableBytes / 1024, tableReadNanos / 1000000));
+    }
+
+    private static String decode(SimpleTable table, int column, int row) {
+        char[] buffer = new char[table.getTextCapacity(column, row)];
+        return new String(buffer, 0, table.decodeText(column, row, buffer));
+    }
+}
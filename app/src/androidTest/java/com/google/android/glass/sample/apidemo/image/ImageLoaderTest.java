@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.image;
+
+import com.google.android.glass.sample.apidemo.R;
+
+import android.graphics.Bitmap;
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.MediumTest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for the bitmap reuse of {@link ImageLoader}.
+ * <p>
+ * The memory cache holds a single byte, so that every image is evicted as soon as it is decoded.
+ */
+@MediumTest
+public class ImageLoaderTest extends AndroidTestCase {
+
+    private static final int SIZE = 64;
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private ImageLoader mLoader;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mLoader = new ImageLoader(getContext().getResources(), 1 /* appVersion */,
+                1 /* maxCacheBytes */, null /* diskCache */);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mLoader.shutdown();
+        super.tearDown();
+    }
+
+    /**
+     * Tests that an acquired bitmap stays pinned once evicted, then is decoded into again once
+     * released.
+     */
+    public void testReleasedBitmapIsReused() throws Exception {
+        Bitmap first = load(R.drawable.codemonkey1, true /* acquire */);
+        assertSame(first, mLoader.acquire(R.drawable.codemonkey1, SIZE, SIZE));
+        mLoader.release(first);
+        assertSame(first, mLoader.acquire(R.drawable.codemonkey1, SIZE, SIZE));
+        mLoader.release(first);
+        mLoader.release(first);
+
+        assertNull(mLoader.acquire(R.drawable.codemonkey1, SIZE, SIZE));
+        assertSame(first, load(R.drawable.codemonkey1, true /* acquire */));
+    }
+
+    /**
+     * Tests that a bitmap is not decoded into while acquired.
+     */
+    public void testAcquiredBitmapIsNotReused() throws Exception {
+        Bitmap first = load(R.drawable.codemonkey1, true /* acquire */);
+        Bitmap second = load(R.drawable.codemonkey2, true /* acquire */);
+
+        assertNotSame(first, second);
+        assertFalse(first.isRecycled());
+    }
+
+    /**
+     * Tests that a bitmap handed out by {@link ImageLoader#load} is never decoded into.
+     */
+    public void testSharedBitmapIsNotReused() throws Exception {
+        Bitmap first = load(R.drawable.codemonkey1, false /* acquire */);
+        Bitmap second = load(R.drawable.codemonkey2, true /* acquire */);
+
+        assertNotSame(first, second);
+    }
+
+    private Bitmap load(int resId, boolean acquire) throws Exception {
+        final Bitmap[] loaded = new Bitmap[1];
+        final CountDownLatch done = new CountDownLatch(1);
+        ImageLoader.Callback callback = new ImageLoader.Callback() {
+            @Override
+            public void onImageLoaded(int resId, Bitmap bitmap) {
+                loaded[0] = bitmap;
+                done.countDown();
+            }
+        };
+        if (acquire) {
+            mLoader.acquireAsync(resId, SIZE, SIZE, callback);
+        } else {
+            mLoader.load(resId, SIZE, SIZE, callback);
+        }
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertNotNull(loaded[0]);
+        return loaded[0];
+    }
+}
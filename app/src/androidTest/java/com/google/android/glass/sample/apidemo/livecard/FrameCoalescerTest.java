@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.livecard;
+
+import android.os.Looper;
+import android.os.SystemClock;
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link FrameCoalescer}. How often values are rendered is up to its
+ * {@link com.google.android.glass.sample.apidemo.FrameSampler}, tested on its own.
+ */
+@LargeTest
+public class FrameCoalescerTest extends InstrumentationTestCase {
+
+    private static final int POST_COUNT = 1000;
+
+    /** How often the rendered value is polled. */
+    private static final long POLL_MILLIS = 10;
+
+    private FrameCoalescer<Integer> mCoalescer;
+    private volatile int mLastValue = -1;
+    private volatile boolean mMonotonic = true;
+    private volatile boolean mOnMainThread;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mCoalescer = new FrameCoalescer<Integer>("test",
+                        new FrameCoalescer.Renderer<Integer>() {
+                            @Override
+                            public void render(Integer value) {
+                                mOnMainThread |= Looper.myLooper() == Looper.getMainLooper();
+                                mMonotonic &= value > mLastValue;
+                                mLastValue = value;
+                            }
+                        });
+            }
+        });
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mCoalescer.cancel();
+            }
+        });
+        super.tearDown();
+    }
+
+    /**
+     * Tests that values posted from a background thread are rendered in order on the render
+     * thread, ending with the last one, and that the skipped ones are still counted.
+     */
+    public void testRendersLatest() throws Exception {
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < POST_COUNT; i++) {
+                    mCoalescer.post(i);
+                }
+            }
+        });
+        producer.start();
+        producer.join();
+        waitForValue(POST_COUNT - 1);
+
+        assertEquals(POST_COUNT, mCoalescer.getPostCount());
+        assertTrue(mCoalescer.getRenderCount() <= POST_COUNT);
+        assertTrue(mMonotonic);
+        assertFalse(mOnMainThread);
+    }
+
+    /**
+     * Tests that nothing is rendered while paused, that producers wait for the resume, and that
+     * the latest value is rendered then.
+     */
+    public void testPause() throws Exception {
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mCoalescer.setPaused(true);
+            }
+        });
+        mCoalescer.post(1);
+        mCoalescer.post(2);
+
+        final CountDownLatch resumed = new CountDownLatch(1);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mCoalescer.awaitResumed();
+                    resumed.countDown();
+                } catch (InterruptedException e) {
+                    // The test fails on its own.
+                }
+            }
+        });
+        producer.start();
+        assertFalse(resumed.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(-1, mLastValue);
+
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mCoalescer.setPaused(false);
+            }
+        });
+        assertTrue(resumed.await(1, TimeUnit.SECONDS));
+        waitForValue(2);
+    }
+
+    private void waitForValue(int value) throws Exception {
+        long deadlineMillis = SystemClock.uptimeMillis() + 5000;
+        while (mLastValue != value) {
+            assertTrue("Value never rendered: " + value,
+                    SystemClock.uptimeMillis() < deadlineMillis);
+            Thread.sleep(POLL_MILLIS);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.metrics;
+
+import android.test.suitebuilder.annotation.SmallTest;
+import android.widget.AdapterView;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for the frame counting of {@link FrameMonitor}.
+ */
+@SmallTest
+public class FrameMonitorTest extends TestCase {
+
+    /** Vsync period at 60 fps. */
+    private static final long FRAME_NANOS = 1000 * 1000 * 1000 / 60;
+
+    private FrameMonitor mMonitor;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mMonitor = new FrameMonitor("test", null /* summaryFile */, null /* cardScroller */);
+    }
+
+    /**
+     * Tests that frames are counted against the missed vsyncs, ignoring jitter.
+     */
+    public void testThresholds() throws Exception {
+        // On time, with jitter.
+        mMonitor.onFrame(FRAME_NANOS, 0, 0);
+        mMonitor.onFrame(FRAME_NANOS + 2000000, 0, 0);
+        // One vsync missed.
+        mMonitor.onFrame(2 * FRAME_NANOS, 0, 0);
+        mMonitor.onFrame(2 * FRAME_NANOS - 2000000, 0, 0);
+        // Two and three vsyncs missed.
+        mMonitor.onFrame(3 * FRAME_NANOS, 0, 0);
+        mMonitor.onFrame(4 * FRAME_NANOS, 0, 0);
+
+        assertEquals(6, mMonitor.getFrameCount());
+        assertEquals(4, mMonitor.getJankCount());
+        assertEquals(2, mMonitor.getSevereJankCount());
+    }
+
+    /**
+     * Tests that frames are attributed to the selected card and its view type, and only counted
+     * globally when no card is selected.
+     */
+    public void testAttribution() throws Exception {
+        mMonitor.onFrame(FRAME_NANOS, 1, 3);
+        mMonitor.onFrame(3 * FRAME_NANOS, 1, 3);
+        mMonitor.onFrame(2 * FRAME_NANOS, 2, 5);
+        mMonitor.onFrame(3 * FRAME_NANOS, AdapterView.INVALID_POSITION, 0);
+
+        FrameMonitor.CardStats first = mMonitor.getCardStats(1);
+        assertEquals(3, first.viewType);
+        assertEquals(2, first.frameCount);
+        assertEquals(1, first.jankCount);
+        assertEquals(1, first.severeJankCount);
+        assertEquals(3 * FRAME_NANOS, first.maxFrameNanos);
+
+        FrameMonitor.CardStats second = mMonitor.getCardStats(2);
+        assertEquals(5, second.viewType);
+        assertEquals(1, second.frameCount);
+        assertEquals(1, second.jankCount);
+        assertEquals(0, second.severeJankCount);
+
+        assertNull(mMonitor.getCardStats(0));
+        assertEquals(4, mMonitor.getFrameCount());
+        assertEquals(3, mMonitor.getJankCount());
+        assertEquals(2, mMonitor.getSevereJankCount());
+    }
+
+    /**
+     * Tests that a window is summarized and cleared once its frames add up to
+     * {@link FrameMonitor#WINDOW_MILLIS}, while the totals keep counting.
+     */
+    public void testWindow() throws Exception {
+        long windowNanos = FrameMonitor.WINDOW_MILLIS * 1000 * 1000;
+        long frameCount = windowNanos / FRAME_NANOS;
+        for (long i = 0; i < frameCount; i++) {
+            mMonitor.onFrame(FRAME_NANOS, 0, 0);
+        }
+        assertEquals(frameCount, mMonitor.getCardStats(0).frameCount);
+
+        mMonitor.onFrame(FRAME_NANOS, 0, 0);
+        assertNull(mMonitor.getCardStats(0));
+        assertEquals(frameCount + 1, mMonitor.getFrameCount());
+    }
+}
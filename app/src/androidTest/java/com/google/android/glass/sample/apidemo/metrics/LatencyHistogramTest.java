@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.metrics;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link LatencyHistogram}.
+ */
+@SmallTest
+public class LatencyHistogramTest extends TestCase {
+
+    /**
+     * Tests that latencies fall in the buckets of their power of two.
+     */
+    public void testBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(3);
+        histogram.record(4);
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE / 2);
+
+        assertEquals(2, histogram.getCountInBucket(0));
+        assertEquals(1, histogram.getCountInBucket(1));
+        assertEquals(1, histogram.getCountInBucket(2));
+        assertEquals(1, histogram.getCountInBucket(3));
+        assertEquals(1, histogram.getCountInBucket(histogram.getBucketCount() - 1));
+        assertEquals(6, histogram.getCount());
+    }
+
+    /**
+     * Tests that percentiles are bounded by their bucket and by the largest latency.
+     */
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileMillis(50));
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(1, histogram.getMinMillis());
+        assertEquals(50, histogram.getMeanMillis());
+        assertEquals(64, histogram.getPercentileMillis(50));
+        assertEquals(100, histogram.getPercentileMillis(90));
+        assertEquals(100, histogram.getMaxMillis());
+    }
+
+    /**
+     * Tests that merging adds the latencies of the other histogram.
+     */
+    public void testMerge() {
+        LatencyHistogram first = new LatencyHistogram();
+        first.record(10);
+        LatencyHistogram second = new LatencyHistogram();
+        second.record(2);
+        second.record(30);
+        first.merge(second);
+
+        assertEquals(3, first.getCount());
+        assertEquals(2, first.getMinMillis());
+        assertEquals(30, first.getMaxMillis());
+        assertEquals(14, first.getMeanMillis());
+
+        first.clear();
+        assertEquals(0, first.getCount());
+        assertEquals(0, first.getMinMillis());
+    }
+}
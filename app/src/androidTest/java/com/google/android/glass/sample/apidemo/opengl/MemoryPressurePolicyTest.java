@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.opengl;
+
+import com.google.android.glass.sample.apidemo.ManualScheduler;
+import com.google.android.glass.sample.apidemo.opengl.MemoryPressurePolicy.Tier;
+
+import android.content.ComponentCallbacks2;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for {@link MemoryPressurePolicy}, simulating the trim levels the system reports on a
+ * {@link ManualScheduler}.
+ */
+@SmallTest
+public class MemoryPressurePolicyTest extends TestCase {
+
+    private final List<Tier> mChanges = new ArrayList<Tier>();
+    private ManualScheduler mScheduler;
+    private MemoryPressurePolicy mPolicy;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mScheduler = new ManualScheduler();
+        mPolicy = new MemoryPressurePolicy(new MemoryPressurePolicy.Listener() {
+            @Override
+            public void onTierChanged(Tier tier) {
+                mChanges.add(tier);
+            }
+        }, mScheduler);
+    }
+
+    /**
+     * Tests the tier of every trim level.
+     */
+    public void testTrimLevels() throws Exception {
+        assertEquals(Tier.FULL,
+                MemoryPressurePolicy.getTier(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE));
+        assertEquals(Tier.REDUCED,
+                MemoryPressurePolicy.getTier(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW));
+        assertEquals(Tier.MINIMAL,
+                MemoryPressurePolicy.getTier(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL));
+        assertEquals(Tier.FULL,
+                MemoryPressurePolicy.getTier(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN));
+        assertEquals(Tier.REDUCED,
+                MemoryPressurePolicy.getTier(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND));
+        assertEquals(Tier.MINIMAL,
+                MemoryPressurePolicy.getTier(ComponentCallbacks2.TRIM_MEMORY_MODERATE));
+        assertEquals(Tier.MINIMAL,
+                MemoryPressurePolicy.getTier(ComponentCallbacks2.TRIM_MEMORY_COMPLETE));
+    }
+
+    /**
+     * Tests that trims only raise the tier, and that recovery lowers it one step at a time once
+     * no trim was reported for the delay.
+     */
+    public void testEscalationAndRecovery() throws Exception {
+        mPolicy.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertEquals(Tier.FULL, mPolicy.getTier());
+
+        mPolicy.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        mPolicy.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+        mScheduler.advance(MemoryPressurePolicy.RECOVERY_DELAY_MILLIS - 1);
+        // A milder level does not lower the tier while memory is still short.
+        mPolicy.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        assertEquals(Tier.MINIMAL, mPolicy.getTier());
+
+        mScheduler.advance(MemoryPressurePolicy.RECOVERY_DELAY_MILLIS - 1);
+        assertEquals(Tier.MINIMAL, mPolicy.getTier());
+        mScheduler.advance(1);
+        assertEquals(Tier.REDUCED, mPolicy.getTier());
+        mScheduler.advance(2 * MemoryPressurePolicy.RECOVERY_DELAY_MILLIS);
+        assertEquals(Tier.FULL, mPolicy.getTier());
+
+        assertEquals(Arrays.asList(Tier.REDUCED, Tier.MINIMAL, Tier.REDUCED, Tier.FULL),
+                mChanges);
+    }
+
+    /**
+     * Tests that a low memory report goes straight to the minimal tier.
+     */
+    public void testLowMemory() throws Exception {
+        mPolicy.onLowMemory();
+        assertEquals(Tier.MINIMAL, mPolicy.getTier());
+        assertEquals(Arrays.asList(Tier.MINIMAL), mChanges);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.slider;
+
+import com.google.android.glass.sample.apidemo.ManualScheduler;
+
+import android.animation.ObjectAnimator;
+import android.os.SystemClock;
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+import android.view.animation.AccelerateDecelerateInterpolator;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests and benchmarks for {@link FloatAnimation} and {@link AnimationTicker}.
+ */
+@LargeTest
+public class FloatAnimationTest extends TestCase {
+
+    private static final String TAG = FloatAnimationTest.class.getSimpleName();
+
+    private static final int ANIMATION_COUNT = 100;
+    private static final int FRAME_COUNT = 300;
+    private static final long DURATION_MILLIS = 5000;
+    private static final long FRAME_NANOS = 1000 * 1000 * 1000 / 60;
+
+    /** Frame time of the first frame; frame times are never zero. */
+    private static final long START_NANOS = 1000 * 1000 * 1000;
+
+    /** A property animated both by reflection and by a typed setter. */
+    public static class Target implements FloatAnimation.Setter {
+        private float mPosition;
+
+        public void setPosition(float position) {
+            mPosition = position;
+        }
+
+        @Override
+        public void set(float value) {
+            mPosition = value;
+        }
+    }
+
+    /**
+     * Tests that the table of the interpolator stays close to the interpolator it samples.
+     */
+    public void testLookupInterpolator() throws Exception {
+        AccelerateDecelerateInterpolator source = new AccelerateDecelerateInterpolator();
+        for (int i = 0; i <= 1000; i++) {
+            float input = i / 1000f;
+            assertEquals(source.getInterpolation(input),
+                    LookupInterpolator.ACCELERATE_DECELERATE.getInterpolation(input), 1e-4f);
+        }
+        assertEquals(0f, LookupInterpolator.ACCELERATE_DECELERATE.getInterpolation(-1f));
+        assertEquals(1f, LookupInterpolator.ACCELERATE_DECELERATE.getInterpolation(2f), 1e-6f);
+    }
+
+    /**
+     * Tests that animations start on their first frame, end on time, and are restarted in place.
+     */
+    public void testTicker() throws Exception {
+        ManualScheduler scheduler = new ManualScheduler();
+        AnimationTicker ticker = new AnimationTicker(scheduler);
+        final Target target = new Target();
+        final int[] endCount = new int[1];
+        FloatAnimation animation = new FloatAnimation(target)
+                .setInterpolator(LookupInterpolator.LINEAR)
+                .setDuration(100)
+                .setListener(new FloatAnimation.Listener() {
+                    @Override
+                    public void onAnimationEnd(FloatAnimation animation) {
+                        endCount[0]++;
+                    }
+                });
+
+        animation.start(0, 10, ticker);
+        animation.start(0, 10, ticker);
+        assertEquals(1, ticker.getAnimationCount());
+
+        scheduler.doFrame(START_NANOS);
+        assertEquals(0f, target.mPosition);
+        scheduler.doFrame(START_NANOS + 50 * 1000 * 1000);
+        assertEquals(5f, target.mPosition, 1e-4f);
+        scheduler.doFrame(START_NANOS + 200 * 1000 * 1000);
+        assertEquals(10f, target.mPosition);
+        assertEquals(1, endCount[0]);
+        assertFalse(animation.isRunning());
+        assertEquals(0, ticker.getAnimationCount());
+
+        animation.start(10, 0, ticker);
+        animation.cancel();
+        scheduler.doFrame(START_NANOS);
+        assertEquals(10f, target.mPosition);
+        assertEquals(1, endCount[0]);
+        assertEquals(0, ticker.getAnimationCount());
+    }
+
+    /**
+     * Runs {@link #ANIMATION_COUNT} concurrent animations for {@link #FRAME_COUNT} frames, with
+     * the shared ticker and with object animators, and reports the mean cost of a frame.
+     */
+    public void testFrameBenchmark() throws Exception {
+        Target[] targets = new Target[ANIMATION_COUNT];
+        for (int i = 0; i < ANIMATION_COUNT; i++) {
+            targets[i] = new Target();
+        }
+
+        ManualScheduler scheduler = new ManualScheduler();
+        AnimationTicker ticker = new AnimationTicker(scheduler);
+        for (int i = 0; i < ANIMATION_COUNT; i++) {
+            new FloatAnimation(targets[i]).setDuration(DURATION_MILLIS).start(0, 5, ticker);
+        }
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        for (int frame = 0; frame < FRAME_COUNT; frame++) {
+            scheduler.doFrame(START_NANOS + frame * FRAME_NANOS);
+        }
+        long tickerNanos = SystemClock.elapsedRealtimeNanos() - startNanos;
+        assertEquals(ANIMATION_COUNT, ticker.getAnimationCount());
+
+        ObjectAnimator[] animators = new ObjectAnimator[ANIMATION_COUNT];
+        for (int i = 0; i < ANIMATION_COUNT; i++) {
+            animators[i] = ObjectAnimator.ofFloat(targets[i], "position", 0, 5)
+                    .setDuration(DURATION_MILLIS);
+        }
+        startNanos = SystemClock.elapsedRealtimeNanos();
+        for (int frame = 0; frame < FRAME_COUNT; frame++) {
+            long playTimeMillis = frame * FRAME_NANOS / 1000 / 1000;
+            for (int i = 0; i < ANIMATION_COUNT; i++) {
+                animators[i].setCurrentPlayTime(playTimeMillis);
+            }
+        }
+        long animatorNanos = SystemClock.elapsedRealtimeNanos() - startNanos;
+
+        Log.i(TAG, String.format("%d animations: ticker %d us per frame, object animators %d us "
+                + "per frame", ANIMATION_COUNT, tickerNanos / FRAME_COUNT / 1000,
+                animatorNanos / FRAME_COUNT / 1000));
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.slider;
+
+import android.os.Looper;
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.MediumTest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link GracePeriodExecutor}.
+ */
+@MediumTest
+public class GracePeriodExecutorTest extends InstrumentationTestCase {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    /** Records what happened to it; its preparation waits until it is released. */
+    private static final class TestAction implements GracePeriodExecutor.Action<String> {
+        final CountDownLatch released = new CountDownLatch(1);
+        final CountDownLatch prepared = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile String committed;
+        volatile String rolledBack;
+        volatile boolean committedOnMainThread;
+
+        @Override
+        public String prepare() throws Exception {
+            assertTrue(released.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            prepared.countDown();
+            return "prepared";
+        }
+
+        @Override
+        public void commit(String value) {
+            committedOnMainThread = Looper.myLooper() == Looper.getMainLooper();
+            committed = value;
+            done.countDown();
+        }
+
+        @Override
+        public void rollback(String value) {
+            rolledBack = value;
+            done.countDown();
+        }
+    }
+
+    private ExecutorService mWorker;
+    private GracePeriodExecutor mExecutor;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mWorker = Executors.newSingleThreadExecutor();
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mExecutor = new GracePeriodExecutor(mWorker);
+            }
+        });
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mWorker.shutdownNow();
+        super.tearDown();
+    }
+
+    /**
+     * Tests that a prepared action is committed immediately when the grace period ends.
+     */
+    public void testCommitPrepared() throws Exception {
+        final TestAction action = new TestAction();
+        stage(action);
+        action.released.countDown();
+        assertTrue(action.prepared.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        // Let the worker leave the preparation.
+        mWorker.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }).get();
+
+        // The commit must have happened within the call, not in a later message.
+        endGracePeriod(true);
+        assertEquals("prepared", action.committed);
+        assertTrue(action.committedOnMainThread);
+        assertNull(action.rolledBack);
+    }
+
+    /**
+     * Tests that an action is committed on the main thread once prepared if the grace period
+     * ends first.
+     */
+    public void testCommitWhilePreparing() throws Exception {
+        TestAction action = new TestAction();
+        stage(action);
+        endGracePeriod(true);
+        action.released.countDown();
+
+        assertTrue(action.done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals("prepared", action.committed);
+        assertTrue(action.committedOnMainThread);
+        assertNull(action.rolledBack);
+    }
+
+    /**
+     * Tests that an action is rolled back once prepared if the grace period is cancelled first.
+     */
+    public void testRollbackWhilePreparing() throws Exception {
+        TestAction action = new TestAction();
+        stage(action);
+        endGracePeriod(false);
+        action.released.countDown();
+
+        assertTrue(action.done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals("prepared", action.rolledBack);
+        assertNull(action.committed);
+    }
+
+    /**
+     * Tests that staging an action rolls back the one staged before.
+     */
+    public void testStageRollsBackPrevious() throws Exception {
+        TestAction first = new TestAction();
+        TestAction second = new TestAction();
+        stage(first);
+        stage(second);
+        first.released.countDown();
+        second.released.countDown();
+        endGracePeriod(true);
+
+        assertTrue(first.done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(second.done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals("prepared", first.rolledBack);
+        assertNull(first.committed);
+        assertEquals("prepared", second.committed);
+    }
+
+    private void stage(final TestAction action) {
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mExecutor.stage(action);
+            }
+        });
+    }
+
+    /** Ends or cancels the grace period on the main thread. */
+    private void endGracePeriod(final boolean commit) {
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                if (commit) {
+                    mExecutor.commit();
+                } else {
+                    mExecutor.rollback();
+                }
+            }
+        });
+    }
+}
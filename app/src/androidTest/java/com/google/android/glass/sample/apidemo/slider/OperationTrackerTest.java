@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.slider;
+
+import com.google.android.glass.sample.apidemo.ManualScheduler;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link OperationTracker}, run on a {@link ManualScheduler}.
+ */
+@SmallTest
+public class OperationTrackerTest extends TestCase {
+
+    private ManualScheduler mScheduler;
+    private int mShowCount;
+    private boolean mShown;
+    private OperationTracker mTracker;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mScheduler = new ManualScheduler();
+        mTracker = new OperationTracker(null /* slider */, null /* exportFile */, mScheduler) {
+            @Override
+            void showSlider() {
+                mShowCount++;
+                mShown = true;
+            }
+
+            @Override
+            void hideSlider() {
+                mShown = false;
+            }
+        };
+    }
+
+    /**
+     * Tests that an operation finishing before the delay never shows the slider.
+     */
+    public void testFastOperation() throws Exception {
+        OperationTracker.Operation operation = mTracker.begin("fast");
+        advance(OperationTracker.SHOW_DELAY_MILLIS - 1);
+        operation.finish();
+        advance(1);
+
+        assertEquals(0, mShowCount);
+        assertEquals(1, mTracker.getHistogram("fast").getCount());
+        assertEquals(OperationTracker.SHOW_DELAY_MILLIS - 1,
+                mTracker.getHistogram("fast").getMaxMillis());
+    }
+
+    /**
+     * Tests that the slider shows once an operation has run for the delay, and hides once it
+     * finishes.
+     */
+    public void testSlowOperation() throws Exception {
+        OperationTracker.Operation operation = mTracker.begin("slow");
+        advance(OperationTracker.SHOW_DELAY_MILLIS - 1);
+        assertFalse(mShown);
+        advance(1);
+        assertTrue(mShown);
+        assertTrue(mTracker.isSliderShown());
+
+        operation.finish();
+        assertFalse(mShown);
+        assertFalse(mTracker.isSliderShown());
+        assertEquals(1, mShowCount);
+    }
+
+    /**
+     * Tests that the delay restarts from the oldest running operation when one finishes.
+     */
+    public void testOverlappingOperations() throws Exception {
+        OperationTracker.Operation first = mTracker.begin("first");
+        advance(200);
+        mTracker.begin("second");
+        advance(50);
+        first.finish();
+
+        advance(OperationTracker.SHOW_DELAY_MILLIS - 51);
+        assertFalse(mShown);
+        advance(1);
+        assertTrue(mShown);
+    }
+
+    /**
+     * Tests that an operation is reported as stalled once per stretch without heartbeats, at the
+     * first check past the timeout.
+     */
+    public void testStall() throws Exception {
+        OperationTracker.Operation operation = mTracker.begin("stalling");
+        advance(OperationTracker.STALL_TIMEOUT_MILLIS);
+        assertFalse(operation.isStalled());
+        advance(OperationTracker.STALL_CHECK_MILLIS);
+        assertTrue(operation.isStalled());
+        advance(OperationTracker.STALL_TIMEOUT_MILLIS);
+        assertEquals(1, mTracker.getStallCount("stalling"));
+
+        operation.heartbeat();
+        advance(OperationTracker.STALL_CHECK_MILLIS);
+        assertFalse(operation.isStalled());
+        advance(OperationTracker.STALL_TIMEOUT_MILLIS);
+        assertTrue(operation.isStalled());
+        assertEquals(2, mTracker.getStallCount("stalling"));
+
+        operation.finish();
+        assertEquals(2, mTracker.getStallCount("stalling"));
+    }
+
+    /**
+     * Tests that releasing the tracker hides the slider and drops the running operations.
+     */
+    public void testRelease() throws Exception {
+        OperationTracker.Operation operation = mTracker.begin("released");
+        advance(OperationTracker.SHOW_DELAY_MILLIS);
+        assertTrue(mShown);
+
+        mTracker.release();
+        assertFalse(mShown);
+        operation.finish();
+        assertNull(mTracker.getHistogram("released"));
+    }
+
+    private void advance(long millis) {
+        mScheduler.advance(millis);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.slider;
+
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link ProgressBridge}. How often progress is reported is up to its
+ * {@link com.google.android.glass.sample.apidemo.FrameSampler}, tested on its own.
+ */
+@LargeTest
+public class ProgressBridgeTest extends InstrumentationTestCase {
+
+    private ProgressBridge mBridge;
+    private long mLastProgress;
+    private int mReportCount;
+
+    /**
+     * Tests that a job with nothing to do completes once its final progress is set.
+     */
+    public void testEmptyJob() throws Exception {
+        final CountDownLatch completed = new CountDownLatch(1);
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mBridge = new ProgressBridge(0, new ProgressBridge.Listener() {
+                    @Override
+                    public void onProgress(long progress, long max) {
+                        mLastProgress = progress;
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        completed.countDown();
+                    }
+                });
+            }
+        });
+
+        mBridge.set(mBridge.getMax());
+        assertTrue("Progress never completed", completed.await(5, TimeUnit.SECONDS));
+        assertEquals(0, mLastProgress);
+    }
+
+    /**
+     * Tests that a cancelled bridge tells the work to stop and reports nothing more.
+     */
+    public void testCancel() throws Exception {
+        final CountDownLatch completed = new CountDownLatch(1);
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mBridge = new ProgressBridge(1, new ProgressBridge.Listener() {
+                    @Override
+                    public void onProgress(long progress, long max) {
+                        mReportCount++;
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        completed.countDown();
+                    }
+                });
+                mBridge.cancel();
+            }
+        });
+
+        assertTrue(mBridge.isCancelled());
+        mBridge.set(1);
+        assertFalse(completed.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(0, mReportCount);
+    }
+}
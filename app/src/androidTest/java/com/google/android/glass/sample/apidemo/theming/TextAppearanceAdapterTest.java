@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.theming;
+
+import com.google.android.glass.sample.apidemo.R;
+
+import android.content.res.Resources;
+import android.os.AsyncTask;
+import android.os.SystemClock;
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+import android.view.View;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests and benchmarks for {@link TextAppearanceAdapter}.
+ */
+@LargeTest
+public class TextAppearanceAdapterTest extends AndroidTestCase {
+
+    private static final String TAG = TextAppearanceAdapterTest.class.getSimpleName();
+
+    private static final int MEASURE_COUNT = 1000;
+
+    private int mCardWidth;
+    private int mCardHeight;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Resources resources = getContext().getResources();
+        mCardWidth = resources.getDimensionPixelSize(R.dimen.card_width);
+        mCardHeight = resources.getDimensionPixelSize(R.dimen.card_height);
+    }
+
+    /**
+     * Tests that every layout has its own view type.
+     */
+    public void testViewTypes() throws Exception {
+        TextAppearanceAdapter adapter = new TextAppearanceAdapter(getContext());
+        Set<Integer> viewTypes = new HashSet<Integer>();
+        for (int position = 0; position < adapter.getCount(); position++) {
+            int viewType = adapter.getItemViewType(position);
+            assertTrue(viewType < adapter.getViewTypeCount());
+            viewTypes.add(viewType);
+        }
+
+        assertEquals(adapter.getCount(), viewTypes.size());
+    }
+
+    /**
+     * Tests that measuring the cards only uses the layouts built in the background.
+     */
+    public void testPrefetchedLayouts() throws Exception {
+        TextAppearanceAdapter adapter = new TextAppearanceAdapter(getContext());
+        waitForPrefetch();
+        for (int position = 0; position < adapter.getCount(); position++) {
+            measure(adapter.getView(position, null, null));
+        }
+
+        TextLayoutCache layoutCache = adapter.getLayoutCache();
+        assertEquals(0, layoutCache.getMissCount());
+        assertEquals(2 * adapter.getCount(), layoutCache.getHitCount());
+    }
+
+    /**
+     * Tests that the cached layout of an all caps view is that of the transformed text.
+     */
+    public void testAllCaps() throws Exception {
+        TextLayoutCache layoutCache = new TextLayoutCache(getContext());
+        CachedTextView view = newCachedTextView(layoutCache);
+        view.setAllCaps(true);
+        measure(view);
+        assertEquals(1, layoutCache.getMissCount());
+
+        int appearance = view.getTextAppearance();
+        int width = mCardWidth - view.getPaddingLeft() - view.getPaddingRight();
+        layoutCache.get("GLASS", appearance, width);
+        assertEquals(1, layoutCache.getHitCount());
+    }
+
+    /**
+     * Tests that a view with an attribute the cached layouts ignore lays its text out as a
+     * {@link TextView}.
+     */
+    public void testIgnoredAttributeFallsBack() throws Exception {
+        TextLayoutCache layoutCache = new TextLayoutCache(getContext());
+        CachedTextView view = newCachedTextView(layoutCache);
+        view.setMaxLines(1);
+        measure(view);
+
+        assertEquals(0, layoutCache.getMissCount());
+        assertEquals(0, layoutCache.getHitCount());
+        assertNotNull(view.getLayout());
+    }
+
+    /**
+     * Measures new cards {@link #MEASURE_COUNT} times, with text views laying their text out in
+     * the measure pass and with cached text views, and reports the mean measure times.
+     */
+    public void testMeasureBenchmark() throws Exception {
+        TextAppearanceAdapter adapter = new TextAppearanceAdapter(getContext());
+        waitForPrefetch();
+        int cardMargin = getContext().getResources().getDimensionPixelSize(R.dimen.card_margin);
+
+        long textViewNanos = 0;
+        long cachedNanos = 0;
+        for (int i = 0; i < MEASURE_COUNT; i++) {
+            int position = i % adapter.getCount();
+
+            View cachedCard = adapter.getView(position, null, null);
+            long startNanos = SystemClock.elapsedRealtimeNanos();
+            measure(cachedCard);
+            cachedNanos += SystemClock.elapsedRealtimeNanos() - startNanos;
+
+            View textViewCard = newTextViewCard((LinearLayout) cachedCard, cardMargin);
+            startNanos = SystemClock.elapsedRealtimeNanos();
+            measure(textViewCard);
+            textViewNanos += SystemClock.elapsedRealtimeNanos() - startNanos;
+        }
+
+        Log.i(TAG, String.format("Measured %d cards: text views %d us, cached layouts %d us",
+                MEASURE_COUNT, textViewNanos / MEASURE_COUNT / 1000,
+                cachedNanos / MEASURE_COUNT / 1000));
+    }
+
+    /** Returns a card showing the texts of the specified card with text views. */
+    private View newTextViewCard(LinearLayout cachedCard, int cardMargin) {
+        LinearLayout card = new LinearLayout(getContext());
+        card.setOrientation(LinearLayout.VERTICAL);
+        card.setPadding(cardMargin, cardMargin, cardMargin, cardMargin);
+        for (int i = 0; i < cachedCard.getChildCount(); i++) {
+            CachedTextView cachedText = (CachedTextView) cachedCard.getChildAt(i);
+            TextView text = new TextView(getContext());
+            text.setTextAppearance(getContext(), cachedText.getTextAppearance());
+            text.setText(cachedText.getText());
+            card.addView(text, new LinearLayout.LayoutParams(
+                    LinearLayout.LayoutParams.MATCH_PARENT,
+                    LinearLayout.LayoutParams.WRAP_CONTENT));
+        }
+        return card;
+    }
+
+    private CachedTextView newCachedTextView(TextLayoutCache layoutCache) {
+        CachedTextView view = new CachedTextView(getContext(), null);
+        view.setText("Glass");
+        view.setLayoutCache(layoutCache);
+        return view;
+    }
+
+    private void measure(View card) {
+        card.measure(View.MeasureSpec.makeMeasureSpec(mCardWidth, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(mCardHeight, View.MeasureSpec.AT_MOST));
+    }
+
+    /** Waits for the layouts prefetched so far, which are built by the serial executor. */
+    private static void waitForPrefetch() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        AsyncTask.SERIAL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+}
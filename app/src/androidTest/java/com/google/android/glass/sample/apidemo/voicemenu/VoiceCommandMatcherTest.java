@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.voicemenu;
+
+import android.os.SystemClock;
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+/**
+ * Unit tests and benchmarks for {@link VoiceCommandMatcher}.
+ */
+@LargeTest
+public class VoiceCommandMatcherTest extends TestCase {
+
+    private static final String TAG = VoiceCommandMatcherTest.class.getSimpleName();
+
+    private static final int COMMAND_COUNT = 50000;
+    private static final int QUERY_COUNT = 1000;
+
+    private final Random mRandom = new Random(42);
+
+    /**
+     * Tests that text matches the closest phrase within the maximum distance, ignoring case and
+     * punctuation.
+     */
+    public void testMatch() throws Exception {
+        VoiceCommandMatcher matcher = new VoiceCommandMatcher(2);
+        matcher.add("Pick a designer", 1);
+        matcher.add("Pick a coder 1", 2);
+        matcher.add("Pick a coder 2", 3);
+
+        VoiceCommandMatcher.Match match = matcher.match("pick a designer");
+        assertEquals(1, match.getCommandId());
+        assertEquals(0, match.getDistance());
+        assertEquals(1f, match.getScore(), 0f);
+
+        match = matcher.match("pik a desiner");
+        assertEquals(1, match.getCommandId());
+        assertEquals(2, match.getDistance());
+
+        assertEquals(3, matcher.match("PICK A CODER, 2!").getCommandId());
+        assertNull(matcher.match("pick the designer"));
+        assertNull(matcher.match("..."));
+    }
+
+    /**
+     * Tests that phrases only differing by case or punctuation replace each other.
+     */
+    public void testReplace() throws Exception {
+        VoiceCommandMatcher matcher = new VoiceCommandMatcher(0);
+        matcher.add("Pick a coder", 1);
+        matcher.add("pick a  coder!", 2);
+
+        assertEquals(1, matcher.getCommandCount());
+        assertEquals(2, matcher.match("Pick a coder").getCommandId());
+    }
+
+    /**
+     * Compiles 50k commands and reports the build time, the size of the trie and the latency of
+     * matching them with one recognition error.
+     */
+    public void testBenchmark() throws Exception {
+        String[] phrases = new String[COMMAND_COUNT];
+        VoiceCommandMatcher matcher = new VoiceCommandMatcher(2);
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < COMMAND_COUNT; i++) {
+            phrases[i] = "show " + Long.toString(mRandom.nextLong() & 0xffffffffL, 36) + " "
+                    + Long.toString(mRandom.nextLong() & 0xffffffL, 36);
+            matcher.add(phrases[i], i);
+        }
+        long buildNanos = SystemClock.elapsedRealtimeNanos() - startNanos;
+
+        int matchCount = 0;
+        startNanos = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            int command = mRandom.nextInt(COMMAND_COUNT);
+            char[] text = phrases[command].toCharArray();
+            text[5 + mRandom.nextInt(text.length - 5)] = (char) ('a' + mRandom.nextInt(26));
+            VoiceCommandMatcher.Match match = matcher.match(new String(text));
+            if (match != null && match.getCommandId() == command) {
+                matchCount++;
+            }
+        }
+        long matchNanos = SystemClock.elapsedRealtimeNanos() - startNanos;
+
+        assertEquals(COMMAND_COUNT, matcher.getCommandCount());
+        // A replaced character rarely turns a phrase into another one.
+        assertTrue(matchCount > QUERY_COUNT * 99 / 100);
+        Log.i(TAG, String.format("%d commands, %d nodes: build %d ms, match %d us, %d/%d matched",
+                COMMAND_COUNT, matcher.getNodeCount(), buildNanos / 1000000,
+                matchNanos / QUERY_COUNT / 1000, matchCount, QUERY_COUNT));
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.voicemenu;
+
+import com.google.android.glass.sample.apidemo.ManualScheduler;
+import com.google.android.glass.sample.apidemo.R;
+
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.view.Menu;
+import android.view.MenuInflater;
+import android.view.View;
+import android.widget.PopupMenu;
+
+/**
+ * Unit tests for {@link VoiceMenuState}, run on a {@link ManualScheduler} with the window
+ * replaced by a counter.
+ */
+@SmallTest
+public class VoiceMenuStateTest extends AndroidTestCase {
+
+    private ManualScheduler mScheduler;
+    private int mPanelInvalidationCount;
+    private VoiceMenuState mState;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mScheduler = new ManualScheduler();
+        mState = new VoiceMenuState(null /* window */, new MenuInflater(getContext()),
+                R.menu.voice_menu, mScheduler) {
+            @Override
+            void invalidatePanel() {
+                mPanelInvalidationCount++;
+            }
+        };
+    }
+
+    /**
+     * Tests that the menu resource is inflated once, and later menus are rebuilt with the same
+     * items and sub menus.
+     */
+    public void testCreateMenu() throws Exception {
+        Menu inflated = newMenu();
+        assertTrue(mState.onCreatePanelMenu(inflated));
+        assertEquals(1, mState.getInflationCount());
+        assertEquals(0, mState.getRebuildCount());
+
+        Menu rebuilt = newMenu();
+        assertTrue(mState.onCreatePanelMenu(rebuilt));
+        assertEquals(1, mState.getInflationCount());
+        assertEquals(1, mState.getRebuildCount());
+
+        assertEquals(inflated.size(), rebuilt.size());
+        for (int i = 0; i < inflated.size(); i++) {
+            assertEquals(inflated.getItem(i).getItemId(), rebuilt.getItem(i).getItemId());
+            assertEquals(inflated.getItem(i).getTitle(), rebuilt.getItem(i).getTitle());
+        }
+        assertTrue(rebuilt.findItem(R.id.menu_coder).hasSubMenu());
+        assertEquals(inflated.findItem(R.id.menu_coder).getSubMenu().size(),
+                rebuilt.findItem(R.id.menu_coder).getSubMenu().size());
+    }
+
+    /**
+     * Tests that preparing the panel applies the enabled state and the hidden items, including
+     * after a rebuild which shows every item again.
+     */
+    public void testPreparePanel() throws Exception {
+        Menu menu = newMenu();
+        mState.onCreatePanelMenu(menu);
+        mState.setItemVisible(R.id.menu_designer, false);
+        assertTrue(mState.onPreparePanel(menu));
+        assertFalse(menu.findItem(R.id.menu_designer).isVisible());
+
+        mState.setItemVisible(R.id.menu_designer, true);
+        mState.setEnabled(false);
+        assertFalse(mState.onPreparePanel(menu));
+        assertTrue(menu.findItem(R.id.menu_designer).isVisible());
+
+        mState.setItemVisible(R.id.menu_product, false);
+        mState.onPreparePanel(menu);
+        menu = newMenu();
+        mState.onCreatePanelMenu(menu);
+        mState.onPreparePanel(menu);
+        assertFalse(menu.findItem(R.id.menu_product).isVisible());
+    }
+
+    /**
+     * Tests that the panel is only invalidated if the state differs from what it was prepared
+     * with.
+     */
+    public void testInvalidation() throws Exception {
+        Menu menu = newMenu();
+        mState.onCreatePanelMenu(menu);
+        mState.onPreparePanel(menu);
+
+        mState.setEnabled(false);
+        mScheduler.advance(VoiceMenuState.DEBOUNCE_MILLIS - 1);
+        assertEquals(0, mState.getInvalidationCount());
+        mScheduler.advance(1);
+        assertEquals(1, mState.getInvalidationCount());
+        assertEquals(1, mPanelInvalidationCount);
+        mState.onPreparePanel(menu);
+
+        // A double tap goes back to the state the panel shows.
+        mState.setEnabled(true);
+        mState.setEnabled(false);
+        mState.setItemVisible(R.id.menu_designer, false);
+        mState.setItemVisible(R.id.menu_designer, true);
+        mScheduler.advance(VoiceMenuState.DEBOUNCE_MILLIS);
+        assertEquals(1, mState.getInvalidationCount());
+        assertEquals(1, mState.getSkippedInvalidationCount());
+        assertEquals(1, mPanelInvalidationCount);
+    }
+
+    /**
+     * Tests that ending a session resets the counts.
+     */
+    public void testEndSession() throws Exception {
+        mState.onCreatePanelMenu(newMenu());
+        mState.onCreatePanelMenu(newMenu());
+        mState.setEnabled(false);
+        mScheduler.advance(VoiceMenuState.DEBOUNCE_MILLIS);
+
+        mState.endSession();
+        assertEquals(0, mState.getInflationCount());
+        assertEquals(0, mState.getRebuildCount());
+        assertEquals(0, mState.getInvalidationCount());
+        assertEquals(0, mState.getSkippedInvalidationCount());
+    }
+
+    private Menu newMenu() {
+        return new PopupMenu(getContext(), new View(getContext())).getMenu();
+    }
+}
@@ -16,34 +16,25 @@
 
 package com.google.android.glass.sample.apidemo;
 
-import com.google.android.glass.media.Sounds;
 import com.google.android.glass.sample.apidemo.card.CardAdapter;
-import com.google.android.glass.sample.apidemo.card.CardBuilderActivity;
-import com.google.android.glass.sample.apidemo.card.CardScrollViewActivity;
-import com.google.android.glass.sample.apidemo.card.EmbeddedCardLayoutActivity;
-import com.google.android.glass.sample.apidemo.opengl.OpenGlService;
-import com.google.android.glass.sample.apidemo.slider.SliderActivity;
-import com.google.android.glass.sample.apidemo.theming.TextAppearanceActivity;
-import com.google.android.glass.sample.apidemo.touchpad.SelectGestureDemoActivity;
-import com.google.android.glass.sample.apidemo.voicemenu.VoiceMenuActivity;
+import com.google.android.glass.sample.apidemo.metrics.FrameMonitor;
+import com.google.android.glass.sample.apidemo.metrics.StartupReport;
 import com.google.android.glass.widget.CardBuilder;
 import com.google.android.glass.widget.CardScrollAdapter;
 import com.google.android.glass.widget.CardScrollView;
 
 import android.app.Activity;
-import android.content.Context;
-import android.content.Intent;
-import android.media.AudioManager;
 import android.os.Bundle;
-import android.util.Log;
-import android.view.View;
-import android.widget.AdapterView;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.ViewTreeObserver;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Creates a card scroll view with examples of different GDK APIs.
+ * Creates a card scroll view with examples of different GDK APIs, as listed in
+ * {@link DemoRegistry#API_DEMOS}.
  *
  * <ol>
  * <li> CardBuilder API
@@ -53,24 +44,33 @@ import java.util.List;
  * <li> OpenGL LiveCard
  * <li> VoiceMenu
  * </ol>
+ *
+ * Only the first card is built before the first frame; the others are added once the main thread
+ * is idle, and the start is recorded in the {@link StartupReport}.
  */
 public class ApiDemoActivity extends Activity {
 
-    private static final String TAG = ApiDemoActivity.class.getSimpleName();
-
-    // Index of api demo cards.
-    // Visible for testing.
-    static final int CARD_BUILDER = 0;
-    static final int CARD_BUILDER_EMBEDDED_LAYOUT = 1;
-    static final int CARD_SCROLL_VIEW = 2;
-    static final int GESTURE_DETECTOR = 3;
-    static final int TEXT_APPEARANCE = 4;
-    static final int OPENGL = 5;
-    static final int VOICE_MENU = 6;
-    static final int SLIDER = 7;
+    private static final List<Demo> DEMOS = DemoRegistry.API_DEMOS;
 
+    private final List<CardBuilder> mCards = new ArrayList<CardBuilder>(DEMOS.size());
     private CardScrollAdapter mAdapter;
     private CardScrollView mCardScroller;
+    private FrameMonitor mFrameMonitor;
+    private StartupReport.Trace mStartupTrace;
+
+    /** Adds the cards that were not needed for the first frame. */
+    private final MessageQueue.IdleHandler mDeferredCardsHandler = new MessageQueue.IdleHandler() {
+
+        @Override
+        public boolean queueIdle() {
+            while (mCards.size() < DEMOS.size()) {
+                mCards.add(DEMOS.get(mCards.size()).newCard(ApiDemoActivity.this));
+            }
+            mAdapter.notifyDataSetChanged();
+            mStartupTrace.onFullyDrawn();
+            return false;
+        }
+    };
 
     // Visible for testing.
     CardScrollView getScroller() {
@@ -80,106 +80,47 @@ public class ApiDemoActivity extends Activity {
     @Override
     protected void onCreate(Bundle bundle) {
         super.onCreate(bundle);
+        mStartupTrace = StartupReport.begin(this);
 
-        mAdapter = new CardAdapter(createCards(this));
+        // Only the first card is visible, the others are added after the first frame.
+        mCards.add(DEMOS.get(0).newCard(this));
+        mAdapter = new CardAdapter(mCards);
         mCardScroller = new CardScrollView(this);
+        mFrameMonitor = new FrameMonitor(this, mCardScroller);
         mCardScroller.setAdapter(mAdapter);
         setContentView(mCardScroller);
-        setCardScrollerListener();
+        new DemoLauncher(this, DEMOS).attach(mCardScroller);
+
+        mStartupTrace.watchFirstFrame(mCardScroller);
+        mCardScroller.getViewTreeObserver().addOnPreDrawListener(
+                new ViewTreeObserver.OnPreDrawListener() {
+                    @Override
+                    public boolean onPreDraw() {
+                        // The main thread becomes idle once the first frame is drawn.
+                        mCardScroller.getViewTreeObserver().removeOnPreDrawListener(this);
+                        Looper.myQueue().addIdleHandler(mDeferredCardsHandler);
+                        return true;
+                    }
+                });
     }
 
-    /**
-     * Create list of API demo cards.
-     */
-    private List<CardBuilder> createCards(Context context) {
-        ArrayList<CardBuilder> cards = new ArrayList<CardBuilder>();
-        cards.add(CARD_BUILDER, new CardBuilder(context, CardBuilder.Layout.TEXT)
-                .setText(R.string.text_card_builder));
-        cards.add(CARD_BUILDER_EMBEDDED_LAYOUT, new CardBuilder(context, CardBuilder.Layout.TEXT)
-                .setText(R.string.text_card_builder_embedded_layout));
-        cards.add(CARD_SCROLL_VIEW, new CardBuilder(context, CardBuilder.Layout.TEXT)
-                .setText(R.string.text_card_scroll_view));
-        cards.add(GESTURE_DETECTOR, new CardBuilder(context, CardBuilder.Layout.TEXT)
-                .setText(R.string.text_gesture_detector));
-        cards.add(TEXT_APPEARANCE, new CardBuilder(context, CardBuilder.Layout.TEXT)
-                .setText(R.string.text_text_appearance));
-        cards.add(OPENGL, new CardBuilder(context, CardBuilder.Layout.TEXT)
-                .setText(R.string.text_opengl));
-        cards.add(VOICE_MENU, new CardBuilder(context, CardBuilder.Layout.TEXT)
-                .setText(R.string.text_voice_menu));
-        cards.add(SLIDER, new CardBuilder(context, CardBuilder.Layout.TEXT)
-                .setText(R.string.text_slider));
-        return cards;
+    @Override
+    protected void onDestroy() {
+        Looper.myQueue().removeIdleHandler(mDeferredCardsHandler);
+        super.onDestroy();
     }
 
     @Override
     protected void onResume() {
         super.onResume();
         mCardScroller.activate();
+        mFrameMonitor.start();
     }
 
     @Override
     protected void onPause() {
+        mFrameMonitor.stop();
         mCardScroller.deactivate();
         super.onPause();
     }
-
-    /**
-     * Different type of activities can be shown, when tapped on a card.
-     */
-    private void setCardScrollerListener() {
-        mCardScroller.setOnItemClickListener(new AdapterView.OnItemClickListener() {
-
-            @Override
-            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-                Log.d(TAG, "Clicked view at position " + position + ", row-id " + id);
-                int soundEffect = Sounds.TAP;
-                switch (position) {
-                    case CARD_BUILDER:
-                        startActivity(new Intent(ApiDemoActivity.this, CardBuilderActivity.class));
-                        break;
-
-                    case CARD_BUILDER_EMBEDDED_LAYOUT:
-                        startActivity(new Intent(
-                                ApiDemoActivity.this, EmbeddedCardLayoutActivity.class));
-                        break;
-
-                    case CARD_SCROLL_VIEW:
-                        startActivity(new Intent(ApiDemoActivity.this,
-                                CardScrollViewActivity.class));
-                        break;
-
-                    case GESTURE_DETECTOR:
-                        startActivity(new Intent(ApiDemoActivity.this,
-                                SelectGestureDemoActivity.class));
-                        break;
-
-                    case TEXT_APPEARANCE:
-                        startActivity(new Intent(ApiDemoActivity.this,
-                                TextAppearanceActivity.class));
-                        break;
-
-                    case OPENGL:
-                        startService(new Intent(ApiDemoActivity.this, OpenGlService.class));
-                        break;
-
-                    case VOICE_MENU:
-                        startActivity(new Intent(ApiDemoActivity.this, VoiceMenuActivity.class));
-                        break;
-
-                    case SLIDER:
-                        startActivity(new Intent(ApiDemoActivity.this, SliderActivity.class));
-                        break;
-
-                    default:
-                        soundEffect = Sounds.ERROR;
-                        Log.d(TAG, "Don't show anything");
-                }
-
-                // Play sound.
-                AudioManager am = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
-                am.playSoundEffect(soundEffect);
-            }
-        });
-    }
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo;
+
+import com.google.android.glass.sample.apidemo.metrics.LaunchTracer;
+import com.google.android.glass.sample.apidemo.metrics.StartupReport;
+
+import android.app.Application;
+
+/**
+ * Application of the API demos, which records when the process starts and traces the launches
+ * of the demos.
+ */
+public class ApiDemoApplication extends Application {
+
+    public ApiDemoApplication() {
+        // The application is the first component created in the process.
+        StartupReport.onProcessStart();
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        LaunchTracer.install(this);
+    }
+}
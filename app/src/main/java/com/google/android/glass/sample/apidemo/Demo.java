@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo;
+
+import com.google.android.glass.widget.CardBuilder;
+
+import android.app.Activity;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Describes a demo shown as a card in a list of demos, and the component it starts when tapped.
+ */
+public final class Demo {
+
+    /** The kind of component a demo starts. */
+    public enum Kind {
+        ACTIVITY,
+        SERVICE
+    }
+
+    /** The text shown on the card of the demo. */
+    public final int textResId;
+
+    /** The class of the component the demo starts. */
+    public final Class<?> componentClass;
+
+    /** The fully qualified name of {@link #componentClass}. */
+    public final String className;
+
+    /** The kind of component the demo starts. */
+    public final Kind kind;
+
+    private Demo(int textResId, Class<?> componentClass, Kind kind) {
+        this.textResId = textResId;
+        this.componentClass = componentClass;
+        this.className = componentClass.getName();
+        this.kind = kind;
+    }
+
+    /** Returns a demo starting the specified activity. */
+    public static Demo activity(int textResId, Class<? extends Activity> activityClass) {
+        return new Demo(textResId, activityClass, Kind.ACTIVITY);
+    }
+
+    /** Returns a demo starting the specified service. */
+    public static Demo service(int textResId, Class<? extends Service> serviceClass) {
+        return new Demo(textResId, serviceClass, Kind.SERVICE);
+    }
+
+    /** Returns a new card for this demo. */
+    public CardBuilder newCard(Context context) {
+        return new CardBuilder(context, CardBuilder.Layout.TEXT).setText(textResId);
+    }
+
+    /** Starts the component of this demo. */
+    public void start(Context context) {
+        Intent intent = new Intent(context, componentClass);
+        if (kind == Kind.SERVICE) {
+            context.startService(intent);
+        } else {
+            context.startActivity(intent);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo;
+
+import com.google.android.glass.media.Sounds;
+import com.google.android.glass.sample.apidemo.metrics.LaunchTracer;
+import com.google.android.glass.widget.CardScrollView;
+
+import android.app.Activity;
+import android.content.Context;
+import android.media.AudioManager;
+import android.util.Log;
+import android.view.View;
+import android.widget.AdapterView;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Starts the demo of the card tapped in a card scroll view showing a list of {@link Demo}s.
+ * <p>
+ * The class of the demo on the selected card, which is the most likely to be started next, is
+ * resolved on a background thread ahead of the tap. It is not initialized there, so that static
+ * initializers, which may expect the main thread, still run on it.
+ */
+public class DemoLauncher {
+
+    private static final String TAG = DemoLauncher.class.getSimpleName();
+
+    /** Loads demo classes in the background, shared by all the launchers. */
+    private static final ExecutorService sPrewarmExecutor = Executors.newSingleThreadExecutor();
+
+    /** Names of the classes already loaded or being loaded. */
+    private static final Set<String> sPrewarmedClasses =
+            Collections.synchronizedSet(new HashSet<String>());
+
+    private final Activity mActivity;
+    private final List<Demo> mDemos;
+    private final AudioManager mAudioManager;
+
+    /**
+     * Initializes a new launcher starting the specified demos from the specified activity, and
+     * playing a sound on each tap.
+     */
+    public DemoLauncher(Activity activity, List<Demo> demos) {
+        this(activity, demos, true /* playSounds */);
+    }
+
+    /**
+     * Initializes a new launcher starting the specified demos from the specified activity, and
+     * playing a sound on each tap only if {@code playSounds} is {@code true}.
+     */
+    public DemoLauncher(Activity activity, List<Demo> demos, boolean playSounds) {
+        mActivity = activity;
+        mDemos = demos;
+        mAudioManager = playSounds
+                ? (AudioManager) activity.getSystemService(Context.AUDIO_SERVICE) : null;
+    }
+
+    /**
+     * Sets the listeners of the specified card scroll view to start the demo of the tapped card
+     * and prewarm the one of the selected card.
+     */
+    public void attach(CardScrollView cardScroller) {
+        cardScroller.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+
+            @Override
+            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                Log.d(TAG, "Clicked view at position " + position + ", row-id " + id);
+                start(position);
+            }
+        });
+        cardScroller.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                prewarm(position);
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+    }
+
+    /** Starts the demo at the specified position. */
+    public void start(int position) {
+        if (position < 0 || position >= mDemos.size()) {
+            Log.d(TAG, "Don't show anything");
+            playSoundEffect(Sounds.ERROR);
+            return;
+        }
+        Demo demo = mDemos.get(position);
+        LaunchTracer.onClick(demo.className);
+        demo.start(mActivity);
+        LaunchTracer.onStart(demo.className);
+        playSoundEffect(Sounds.TAP);
+    }
+
+    /** Loads the class of the demo at the specified position in the background. */
+    public void prewarm(int position) {
+        if (position < 0 || position >= mDemos.size()) {
+            return;
+        }
+        final String className = mDemos.get(position).className;
+        if (!sPrewarmedClasses.add(className)) {
+            return;
+        }
+        final ClassLoader classLoader = mActivity.getClassLoader();
+        sPrewarmExecutor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    Class.forName(className, false, classLoader);
+                } catch (ClassNotFoundException e) {
+                    Log.w(TAG, "Failed to prewarm " + className, e);
+                }
+            }
+        });
+    }
+
+    private void playSoundEffect(int effectType) {
+        if (mAudioManager != null) {
+            mAudioManager.playSoundEffect(effectType);
+        }
+    }
+}
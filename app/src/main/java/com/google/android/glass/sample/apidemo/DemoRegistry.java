@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo;
+
+import com.google.android.glass.sample.apidemo.card.CardBuilderActivity;
+import com.google.android.glass.sample.apidemo.card.CardScrollViewActivity;
+import com.google.android.glass.sample.apidemo.card.EmbeddedCardLayoutActivity;
+import com.google.android.glass.sample.apidemo.card.PagedFeedActivity;
+import com.google.android.glass.sample.apidemo.livecard.DataLiveCardService;
+import com.google.android.glass.sample.apidemo.opengl.OpenGlService;
+import com.google.android.glass.sample.apidemo.slider.SliderActivity;
+import com.google.android.glass.sample.apidemo.theming.TextAppearanceActivity;
+import com.google.android.glass.sample.apidemo.touchpad.ContinuousGesturesActivity;
+import com.google.android.glass.sample.apidemo.touchpad.DiscreteGesturesActivity;
+import com.google.android.glass.sample.apidemo.touchpad.SelectGestureDemoActivity;
+import com.google.android.glass.sample.apidemo.voicemenu.VoiceMenuActivity;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lists the demos of the app, in the order their cards are shown. Adding a demo only takes adding
+ * its entry here.
+ * <p>
+ * Components are referenced by class literal, so that renaming or removing one fails the build
+ * rather than the tap on its card.
+ */
+public final class DemoRegistry {
+
+    /** The demos started from {@link ApiDemoActivity}. */
+    public static final List<Demo> API_DEMOS = Collections.unmodifiableList(Arrays.asList(
+            Demo.activity(R.string.text_card_builder, CardBuilderActivity.class),
+            Demo.activity(R.string.text_card_builder_embedded_layout,
+                    EmbeddedCardLayoutActivity.class),
+            Demo.activity(R.string.text_card_scroll_view, CardScrollViewActivity.class),
+            Demo.activity(R.string.text_paged_feed, PagedFeedActivity.class),
+            Demo.activity(R.string.text_gesture_detector, SelectGestureDemoActivity.class),
+            Demo.activity(R.string.text_text_appearance, TextAppearanceActivity.class),
+            Demo.service(R.string.text_opengl, OpenGlService.class),
+            Demo.service(R.string.text_data_live_card, DataLiveCardService.class),
+            Demo.activity(R.string.text_voice_menu, VoiceMenuActivity.class),
+            Demo.activity(R.string.text_slider, SliderActivity.class)));
+
+    /** The demos started from {@link SelectGestureDemoActivity}. */
+    public static final List<Demo> GESTURE_DEMOS = Collections.unmodifiableList(Arrays.asList(
+            Demo.activity(R.string.discrete_gestures, DiscreteGesturesActivity.class),
+            Demo.activity(R.string.continuous_gestures, ContinuousGesturesActivity.class)));
+
+    private DemoRegistry() {
+    }
+
+    /**
+     * Returns the position of the demo starting the specified component, or -1 if there is none.
+     */
+    public static int indexOf(List<Demo> demos, Class<?> componentClass) {
+        for (int i = 0; i < demos.size(); i++) {
+            if (demos.get(i).componentClass == componentClass) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
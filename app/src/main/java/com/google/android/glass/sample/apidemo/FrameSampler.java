@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Turns requests made from any thread, at any rate, into at most one callback per frame on the
+ * thread of a {@link Looper}, where the callback samples whatever state the requests were about.
+ * <p>
+ * The first request after a frame posts a single {@link Choreographer} frame callback; the
+ * requests made until that frame cost no post at all. The request is cleared before the callback
+ * runs, so that a request made while sampling gets another frame.
+ */
+public class FrameSampler {
+
+    /** Samples the state on the thread of the looper, at most once per frame. */
+    public interface Callback {
+        void onFrame(long frameTimeNanos);
+    }
+
+    private final Handler mHandler;
+    private final Callback mCallback;
+
+    private final AtomicBoolean mFrameRequested = new AtomicBoolean();
+    private final AtomicInteger mFrameCount = new AtomicInteger();
+
+    private volatile boolean mCancelled;
+
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mFrameRequested.set(false);
+            if (!mCancelled) {
+                mCallback.onFrame(frameTimeNanos);
+            }
+        }
+    };
+
+    /** Posts the frame callback to the choreographer of the looper, which is per thread. */
+    private final Runnable mPostFrameCallback = new Runnable() {
+
+        @Override
+        public void run() {
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    };
+
+    /** Initializes a new sampler calling back on the thread of the specified looper. */
+    public FrameSampler(Looper looper, Callback callback) {
+        mHandler = new Handler(looper);
+        mCallback = callback;
+    }
+
+    /** Asks for a callback at the next frame, unless one is asked for already; on any thread. */
+    public void request() {
+        if (!mCancelled && mFrameRequested.compareAndSet(false, true)) {
+            mFrameCount.incrementAndGet();
+            mHandler.post(mPostFrameCallback);
+        }
+    }
+
+    /** Returns how many frame callbacks were posted. */
+    public int getFrameCount() {
+        return mFrameCount.get();
+    }
+
+    /** Stops calling back for good, including for a frame already requested; on any thread. */
+    public void cancel() {
+        mCancelled = true;
+        mHandler.removeCallbacks(mPostFrameCallback);
+    }
+
+    /** Returns whether the sampler was cancelled. */
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+/**
+ * A {@link Scheduler} running its tasks on the thread of a {@link Looper}, with the
+ * {@link Choreographer} of that thread.
+ */
+public class HandlerScheduler implements Scheduler {
+
+    private static final HandlerScheduler sMain = new HandlerScheduler(Looper.getMainLooper());
+
+    private final Handler mHandler;
+
+    /** Returns the scheduler of the main thread. */
+    public static HandlerScheduler getMain() {
+        return sMain;
+    }
+
+    /** Initializes a new scheduler running its tasks on the thread of the specified looper. */
+    public HandlerScheduler(Looper looper) {
+        mHandler = new Handler(looper);
+    }
+
+    @Override
+    public long uptimeMillis() {
+        return SystemClock.uptimeMillis();
+    }
+
+    @Override
+    public boolean isCurrentThread() {
+        return Looper.myLooper() == mHandler.getLooper();
+    }
+
+    @Override
+    public void post(Runnable task) {
+        mHandler.post(task);
+    }
+
+    @Override
+    public void postDelayed(Runnable task, long delayMillis) {
+        mHandler.postDelayed(task, delayMillis);
+    }
+
+    @Override
+    public void removeCallbacks(Runnable task) {
+        mHandler.removeCallbacks(task);
+    }
+
+    @Override
+    public void postFrameCallback(Choreographer.FrameCallback callback) {
+        // The choreographer is per thread; this is the one of the looper.
+        Choreographer.getInstance().postFrameCallback(callback);
+    }
+}
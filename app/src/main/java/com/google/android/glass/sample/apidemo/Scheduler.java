@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo;
+
+import android.view.Choreographer;
+
+/**
+ * The clock and the message queue of a thread, through which the demos schedule what they do
+ * later, so that tests can run them on a manual clock instead.
+ * <p>
+ * {@link HandlerScheduler} runs on a {@link android.os.Looper}.
+ */
+public interface Scheduler {
+
+    /** Returns the current time, in the time base of {@code SystemClock.uptimeMillis}. */
+    long uptimeMillis();
+
+    /** Returns whether the calling thread is the one the tasks run on. */
+    boolean isCurrentThread();
+
+    /** Runs the specified task soon; called on any thread. */
+    void post(Runnable task);
+
+    /** Runs the specified task after the specified delay; called on any thread. */
+    void postDelayed(Runnable task, long delayMillis);
+
+    /** Removes the pending runs of the specified task; called on any thread. */
+    void removeCallbacks(Runnable task);
+
+    /** Calls back at the next frame; called on the thread the tasks run on. */
+    void postFrameCallback(Choreographer.FrameCallback callback);
+}
@@ -17,131 +17,196 @@
 package com.google.android.glass.sample.apidemo.card;
 
 import com.google.android.glass.sample.apidemo.R;
+import com.google.android.glass.sample.apidemo.image.ImageLoader;
+import com.google.android.glass.sample.apidemo.metrics.FrameMonitor;
 import com.google.android.glass.widget.CardBuilder;
 import com.google.android.glass.widget.CardScrollView;
 
 import android.app.Activity;
-import android.content.Context;
+import android.content.Intent;
 import android.os.Bundle;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.AdapterView;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Creates a card scroll view with examples of different image layout cards.
+ * Creates a card scroll view with examples of different image layout cards. Tapping with two
+ * fingers searches the deck by voice.
+ * <p>
+ * The cards next to the selected one are prerendered unless {@link #EXTRA_PRERENDER} is
+ * {@code false}, which is useful to compare the frame time of the first swipe.
  */
 public final class CardBuilderActivity extends Activity {
 
+    /** Optional boolean telling whether to prerender cards, {@code true} by default. */
+    public static final String EXTRA_PRERENDER = "prerender";
+
     private CardScrollView mCardScroller;
+    private FrameMonitor mFrameMonitor;
+    private ImageLoader mImageLoader;
+    private PrerenderingCardAdapter mAdapter;
+    private CardSearchController mSearchController;
 
     @Override
     protected void onCreate(Bundle bundle) {
         super.onCreate(bundle);
+        mImageLoader = ImageLoader.getInstance(this);
+
+        List<CardModel> cards = createCards();
         mCardScroller = new CardScrollView(this);
-        mCardScroller.setAdapter(new CardAdapter(createCards(this)));
+        mFrameMonitor = new FrameMonitor(this, mCardScroller);
+        CardModelAdapter cardAdapter = new CardModelAdapter(this, cards, mImageLoader);
+        mAdapter = new PrerenderingCardAdapter(cardAdapter, mCardScroller,
+                getIntent().getBooleanExtra(EXTRA_PRERENDER, true));
+        mCardScroller.setAdapter(mAdapter);
+        // Results show live cards: snapshots are only drawn around the selection of the deck.
+        mSearchController = new CardSearchController(this, mCardScroller, mAdapter, cardAdapter,
+                CardSearchIndex.forCards(getResources(), cards));
+        mCardScroller.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+            @Override
+            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                mSearchController.onItemClick(position);
+            }
+        });
         setContentView(mCardScroller);
     }
 
+    @Override
+    public boolean dispatchGenericMotionEvent(MotionEvent event) {
+        return mSearchController.onMotionEvent(event) || super.dispatchGenericMotionEvent(event);
+    }
+
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        if (!mSearchController.onActivityResult(requestCode, resultCode, data)) {
+            super.onActivityResult(requestCode, resultCode, data);
+        }
+    }
+
+    @Override
+    public void onBackPressed() {
+        if (!mSearchController.onBackPressed()) {
+            super.onBackPressed();
+        }
+    }
+
     /**
      * Creates list of cards that showcase different type of {@link CardBuilder} API.
      */
-    private List<CardBuilder> createCards(Context context) {
-        ArrayList<CardBuilder> cards = new ArrayList<CardBuilder>();
+    private List<CardModel> createCards() {
+        ArrayList<CardModel> cards = new ArrayList<CardModel>();
 
         // Add cards that demonstrate TEXT layouts.
-        cards.add(new CardBuilder(context, CardBuilder.Layout.TEXT)
+        cards.add(new CardModel.Builder(CardBuilder.Layout.TEXT)
                 .setText(R.string.text_card_text_not_fixed)
                 .setFootnote(R.string.text_card_footnote)
                 .setTimestamp(R.string.text_card_timestamp)
-                .setAttributionIcon(R.drawable.ic_smile));
-        cards.add(createCardWithImages(context, CardBuilder.Layout.TEXT)
+                .setAttributionIcon(R.drawable.ic_smile)
+                .build());
+        cards.add(createCardWithImages(CardBuilder.Layout.TEXT)
                 .setText(R.string.text_card_text_with_images)
                 .setFootnote(R.string.text_card_footnote)
                 .setTimestamp(R.string.text_card_timestamp)
-                .setAttributionIcon(R.drawable.ic_smile));
-        cards.add(new CardBuilder(context, CardBuilder.Layout.TEXT_FIXED)
+                .setAttributionIcon(R.drawable.ic_smile)
+                .build());
+        cards.add(new CardModel.Builder(CardBuilder.Layout.TEXT_FIXED)
                 .setText(R.string.text_card_text_fixed)
                 .setFootnote(R.string.text_card_footnote)
                 .setTimestamp(R.string.text_card_timestamp)
-                .setAttributionIcon(R.drawable.ic_smile));
-        cards.add(new CardBuilder(context, CardBuilder.Layout.TEXT)
+                .setAttributionIcon(R.drawable.ic_smile)
+                .build());
+        cards.add(new CardModel.Builder(CardBuilder.Layout.TEXT)
                 .setText(R.string.text_card_text_stack_indicator)
                 .showStackIndicator(true)
-                .setAttributionIcon(R.drawable.ic_smile));
+                .setAttributionIcon(R.drawable.ic_smile)
+                .build());
 
         // Add cards that demonstrate COLUMNS layouts.
-        cards.add(createCardWithImages(context, CardBuilder.Layout.COLUMNS)
+        cards.add(createCardWithImages(CardBuilder.Layout.COLUMNS)
                 .setText(R.string.text_card_columns_not_fixed)
                 .setFootnote(R.string.text_card_footnote)
                 .setTimestamp(R.string.text_card_timestamp)
-                .setAttributionIcon(R.drawable.ic_smile));
-        cards.add(new CardBuilder(context, CardBuilder.Layout.COLUMNS)
+                .setAttributionIcon(R.drawable.ic_smile)
+                .build());
+        cards.add(new CardModel.Builder(CardBuilder.Layout.COLUMNS)
                 .setText(R.string.text_card_columns_with_icon)
                 .setIcon(R.drawable.ic_wifi_150)
                 .setFootnote(R.string.text_card_footnote)
                 .setTimestamp(R.string.text_card_timestamp)
-                .setAttributionIcon(R.drawable.ic_smile));
-        cards.add(createCardWithImages(context, CardBuilder.Layout.COLUMNS)
+                .setAttributionIcon(R.drawable.ic_smile)
+                .build());
+        cards.add(createCardWithImages(CardBuilder.Layout.COLUMNS)
                 .setText(R.string.text_card_columns_fixed)
                 .setFootnote(R.string.text_card_footnote)
                 .setTimestamp(R.string.text_card_timestamp)
-                .setAttributionIcon(R.drawable.ic_smile));
+                .setAttributionIcon(R.drawable.ic_smile)
+                .build());
 
         // Add cards that demonstrate CAPTION layouts.
-        cards.add(new CardBuilder(context, CardBuilder.Layout.CAPTION)
+        cards.add(new CardModel.Builder(CardBuilder.Layout.CAPTION)
                 .addImage(R.drawable.beach)
                 .setText(R.string.text_card_caption)
                 .setFootnote(R.string.text_card_footnote)
                 .setTimestamp(R.string.text_card_timestamp)
-                .setAttributionIcon(R.drawable.ic_smile));
-        cards.add(new CardBuilder(context, CardBuilder.Layout.CAPTION)
+                .setAttributionIcon(R.drawable.ic_smile)
+                .build());
+        cards.add(new CardModel.Builder(CardBuilder.Layout.CAPTION)
                 .addImage(R.drawable.beach)
                 .setText(R.string.text_card_caption_with_icon)
                 .setIcon(R.drawable.ic_avatar_70)
                 .setFootnote(R.string.text_card_footnote)
                 .setTimestamp(R.string.text_card_timestamp)
-                .setAttributionIcon(R.drawable.ic_smile));
+                .setAttributionIcon(R.drawable.ic_smile)
+                .build());
 
         // Add cards that demonstrate TITLE layouts.
-        cards.add(new CardBuilder(context, CardBuilder.Layout.TITLE)
+        cards.add(new CardModel.Builder(CardBuilder.Layout.TITLE)
                 .addImage(R.drawable.beach)
-                .setText(R.string.text_card_title));
-        cards.add(new CardBuilder(context, CardBuilder.Layout.TITLE)
+                .setText(R.string.text_card_title)
+                .build());
+        cards.add(new CardModel.Builder(CardBuilder.Layout.TITLE)
                 .addImage(R.drawable.beach)
                 .setText(R.string.text_card_title_icon)
-                .setIcon(R.drawable.ic_phone_50));
+                .setIcon(R.drawable.ic_phone_50)
+                .build());
 
         // Add cards that demonstrate MENU layouts.
-        cards.add(new CardBuilder(context, CardBuilder.Layout.MENU)
+        cards.add(new CardModel.Builder(CardBuilder.Layout.MENU)
                 .setText(R.string.text_card_menu)
                 .setFootnote(R.string.text_card_menu_description)
-                .setIcon(R.drawable.ic_phone_50));
+                .setIcon(R.drawable.ic_phone_50)
+                .build());
 
         // Add cards that demonstrate ALERT layouts.
-        cards.add(new CardBuilder(context, CardBuilder.Layout.ALERT)
+        cards.add(new CardModel.Builder(CardBuilder.Layout.ALERT)
                 .setText(R.string.text_card_alert)
                 .setFootnote(R.string.text_card_alert_description)
-                .setIcon(R.drawable.ic_warning_150));
+                .setIcon(R.drawable.ic_warning_150)
+                .build());
 
         // Add cards that demonstrate AUTHOR layouts.
-        cards.add(new CardBuilder(context, CardBuilder.Layout.AUTHOR)
+        cards.add(new CardModel.Builder(CardBuilder.Layout.AUTHOR)
                 .setText(R.string.text_card_author_text)
                 .setIcon(R.drawable.ic_avatar_70)
                 .setHeading(R.string.text_card_author_heading)
                 .setSubheading(R.string.text_card_author_subheading)
                 .setFootnote(R.string.text_card_footnote)
                 .setTimestamp(R.string.text_card_timestamp)
-                .setAttributionIcon(R.drawable.ic_smile));
+                .setAttributionIcon(R.drawable.ic_smile)
+                .build());
 
         return cards;
     }
 
     /**
-     * Returns a new {@link CardBuilder} with the specified layout and adds five images to it for
-     * the mosaic.
+     * Returns a new {@link CardModel.Builder} with the specified layout and adds eight images to
+     * it for the mosaic.
      */
-    private static CardBuilder createCardWithImages(Context context, CardBuilder.Layout layout) {
-        CardBuilder card = new CardBuilder(context, layout);
+    private static CardModel.Builder createCardWithImages(CardBuilder.Layout layout) {
+        CardModel.Builder card = new CardModel.Builder(layout);
         card.addImage(R.drawable.codemonkey1);
         card.addImage(R.drawable.codemonkey2);
         card.addImage(R.drawable.codemonkey3);
@@ -157,11 +222,20 @@ public final class CardBuilderActivity extends Activity {
     protected void onResume() {
         super.onResume();
         mCardScroller.activate();
+        mFrameMonitor.start();
     }
 
     @Override
     protected void onPause() {
+        mFrameMonitor.stop();
         mCardScroller.deactivate();
         super.onPause();
     }
+
+    @Override
+    protected void onDestroy() {
+        mAdapter.release();
+        mImageLoader.logStats();
+        super.onDestroy();
+    }
 }
@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import com.google.android.glass.sample.apidemo.R;
+import com.google.android.glass.widget.CardBuilder;
+
+import android.content.Context;
+import android.content.res.Resources;
+
+/**
+ * Immutable description of the content of a card.
+ * <p>
+ * Unlike a {@link CardBuilder}, a {@code CardModel} holds no {@link Context} and no view state, so
+ * large decks can be described up front and only turned into views by {@link CardModelAdapter}
+ * when a card is actually shown.
+ */
+public final class CardModel {
+
+    /** Value used for resource IDs that were not set. */
+    static final int NO_RESOURCE = 0;
+
+    private static final int[] NO_IMAGES = new int[0];
+
+    /** The layout of the card. */
+    public final CardBuilder.Layout layout;
+
+    private final int mTextResId;
+    private final CharSequence mText;
+    private final int mFootnoteResId;
+    private final CharSequence mFootnote;
+    private final int mTimestampResId;
+    private final CharSequence mTimestamp;
+    private final int mHeadingResId;
+    private final CharSequence mHeading;
+    private final int mSubheadingResId;
+    private final CharSequence mSubheading;
+    private final int mIconResId;
+    private final int mAttributionIconResId;
+    private final int mEmbeddedLayoutResId;
+    private final int[] mImageResIds;
+    private final boolean mShowStackIndicator;
+
+    private CardModel(Builder builder) {
+        layout = builder.mLayout;
+        mTextResId = builder.mTextResId;
+        mText = builder.mText;
+        mFootnoteResId = builder.mFootnoteResId;
+        mFootnote = builder.mFootnote;
+        mTimestampResId = builder.mTimestampResId;
+        mTimestamp = builder.mTimestamp;
+        mHeadingResId = builder.mHeadingResId;
+        mHeading = builder.mHeading;
+        mSubheadingResId = builder.mSubheadingResId;
+        mSubheading = builder.mSubheading;
+        mIconResId = builder.mIconResId;
+        mAttributionIconResId = builder.mAttributionIconResId;
+        mEmbeddedLayoutResId = builder.mEmbeddedLayoutResId;
+        mImageResIds = builder.mImageResIds;
+        mShowStackIndicator = builder.mShowStackIndicator;
+    }
+
+    /** Returns the main text of the card, or {@code null} if none was set. */
+    public CharSequence getText(Resources resources) {
+        return mTextResId != NO_RESOURCE ? resources.getText(mTextResId) : mText;
+    }
+
+    /** Returns the footnote of the card, or {@code null} if none was set. */
+    public CharSequence getFootnote(Resources resources) {
+        return mFootnoteResId != NO_RESOURCE ? resources.getText(mFootnoteResId) : mFootnote;
+    }
+
+    /** Returns the embedded layout resource ID, or {@code 0} if none was set. */
+    public int getEmbeddedLayoutResId() {
+        return mEmbeddedLayoutResId;
+    }
+
+    /** Returns the number of images in the card mosaic. */
+    public int getImageCount() {
+        return mImageResIds.length;
+    }
+
+    /** Returns the drawable resource ID of the image at the specified mosaic index. */
+    public int getImageResId(int index) {
+        return mImageResIds[index];
+    }
+
+    /**
+     * Returns a new {@link CardBuilder} populated with the content of this card, except for the
+     * mosaic images which callers add themselves so they can choose how they are decoded.
+     */
+    CardBuilder newCardBuilderWithoutImages(Context context) {
+        CardBuilder card = new CardBuilder(context, layout);
+        if (mEmbeddedLayoutResId != NO_RESOURCE) {
+            card.setEmbeddedLayout(mEmbeddedLayoutResId);
+        }
+        if (mTextResId != NO_RESOURCE) {
+            card.setText(mTextResId);
+        } else if (mText != null) {
+            card.setText(mText);
+        }
+        if (mFootnoteResId != NO_RESOURCE) {
+            card.setFootnote(mFootnoteResId);
+        } else if (mFootnote != null) {
+            card.setFootnote(mFootnote);
+        }
+        if (mTimestampResId != NO_RESOURCE) {
+            card.setTimestamp(mTimestampResId);
+        } else if (mTimestamp != null) {
+            card.setTimestamp(mTimestamp);
+        }
+        if (mHeadingResId != NO_RESOURCE) {
+            card.setHeading(mHeadingResId);
+        } else if (mHeading != null) {
+            card.setHeading(mHeading);
+        }
+        if (mSubheadingResId != NO_RESOURCE) {
+            card.setSubheading(mSubheadingResId);
+        } else if (mSubheading != null) {
+            card.setSubheading(mSubheading);
+        }
+        if (mIconResId != NO_RESOURCE) {
+            card.setIcon(mIconResId);
+        }
+        if (mAttributionIconResId != NO_RESOURCE) {
+            card.setAttributionIcon(mAttributionIconResId);
+        }
+        if (mShowStackIndicator) {
+            card.showStackIndicator(true);
+        }
+        return card;
+    }
+
+    /** Returns a new {@link CardBuilder} populated with the content of this card. */
+    public CardBuilder newCardBuilder(Context context) {
+        CardBuilder card = newCardBuilderWithoutImages(context);
+        for (int imageResId : mImageResIds) {
+            card.addImage(imageResId);
+        }
+        return card;
+    }
+
+    /**
+     * Computes the approximate size of a tile in the image mosaic of a card, in pixels, assuming
+     * the images are laid out in a grid as square as possible.
+     *
+     * @param outSize receives the width and height of a tile
+     */
+    public static void computeImageTileSize(
+            Resources resources, CardBuilder.Layout layout, int imageCount, int[] outSize) {
+        int mosaicWidth = resources.getDimensionPixelSize(R.dimen.card_width);
+        int mosaicHeight = resources.getDimensionPixelSize(R.dimen.card_height);
+        if (layout == CardBuilder.Layout.COLUMNS || layout == CardBuilder.Layout.COLUMNS_FIXED) {
+            mosaicWidth = resources.getDimensionPixelSize(R.dimen.card_columns_mosaic_width);
+        }
+
+        int longSide = (int) Math.ceil(Math.sqrt(imageCount));
+        int shortSide = (int) Math.ceil((double) imageCount / longSide);
+        if (mosaicWidth >= mosaicHeight) {
+            outSize[0] = mosaicWidth / longSide;
+            outSize[1] = mosaicHeight / shortSide;
+        } else {
+            outSize[0] = mosaicWidth / shortSide;
+            outSize[1] = mosaicHeight / longSide;
+        }
+    }
+
+    /**
+     * Builds {@link CardModel} instances. Setters mirror the ones of {@link CardBuilder} so that
+     * existing card definitions can be converted line by line.
+     */
+    public static final class Builder {
+
+        private final CardBuilder.Layout mLayout;
+
+        private int mTextResId;
+        private CharSequence mText;
+        private int mFootnoteResId;
+        private CharSequence mFootnote;
+        private int mTimestampResId;
+        private CharSequence mTimestamp;
+        private int mHeadingResId;
+        private CharSequence mHeading;
+        private int mSubheadingResId;
+        private CharSequence mSubheading;
+        private int mIconResId;
+        private int mAttributionIconResId;
+        private int mEmbeddedLayoutResId;
+        private int[] mImageResIds = NO_IMAGES;
+        private boolean mShowStackIndicator;
+
+        public Builder(CardBuilder.Layout layout) {
+            mLayout = layout;
+        }
+
+        public Builder setText(int resId) {
+            mTextResId = resId;
+            mText = null;
+            return this;
+        }
+
+        public Builder setText(CharSequence text) {
+            mText = text;
+            mTextResId = NO_RESOURCE;
+            return this;
+        }
+
+        public Builder setFootnote(int resId) {
+            mFootnoteResId = resId;
+            mFootnote = null;
+            return this;
+        }
+
+        public Builder setFootnote(CharSequence footnote) {
+            mFootnote = footnote;
+            mFootnoteResId = NO_RESOURCE;
+            return this;
+        }
+
+        public Builder setTimestamp(int resId) {
+            mTimestampResId = resId;
+            mTimestamp = null;
+            return this;
+        }
+
+        public Builder setTimestamp(CharSequence timestamp) {
+            mTimestamp = timestamp;
+            mTimestampResId = NO_RESOURCE;
+            return this;
+        }
+
+        public Builder setHeading(int resId) {
+            mHeadingResId = resId;
+            mHeading = null;
+            return this;
+        }
+
+        public Builder setHeading(CharSequence heading) {
+            mHeading = heading;
+            mHeadingResId = NO_RESOURCE;
+            return this;
+        }
+
+        public Builder setSubheading(int resId) {
+            mSubheadingResId = resId;
+            mSubheading = null;
+            return this;
+        }
+
+        public Builder setSubheading(CharSequence subheading) {
+            mSubheading = subheading;
+            mSubheadingResId = NO_RESOURCE;
+            return this;
+        }
+
+        public Builder setIcon(int resId) {
+            mIconResId = resId;
+            return this;
+        }
+
+        public Builder setAttributionIcon(int resId) {
+            mAttributionIconResId = resId;
+            return this;
+        }
+
+        public Builder setEmbeddedLayout(int layoutResId) {
+            mEmbeddedLayoutResId = layoutResId;
+            return this;
+        }
+
+        public Builder showStackIndicator(boolean visible) {
+            mShowStackIndicator = visible;
+            return this;
+        }
+
+        /** Adds an image to the card mosaic. */
+        public Builder addImage(int resId) {
+            int[] imageResIds = new int[mImageResIds.length + 1];
+            System.arraycopy(mImageResIds, 0, imageResIds, 0, mImageResIds.length);
+            imageResIds[mImageResIds.length] = resId;
+            mImageResIds = imageResIds;
+            return this;
+        }
+
+        public CardModel build() {
+            return new CardModel(this);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import com.google.android.glass.sample.apidemo.R;
+import com.google.android.glass.sample.apidemo.image.ImageLoader;
+import com.google.android.glass.widget.CardBuilder;
+import com.google.android.glass.widget.CardScrollAdapter;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AdapterView;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Adapter class that handles a list of {@link CardModel}s.
+ * <p>
+ * A {@link CardBuilder} is only created for a card when its view is requested, and the view it
+ * produces is recycled through {@code convertView} among cards of the same view type.
+ * <p>
+ * When given an {@link ImageLoader}, mosaic images are decoded in the background at the size of
+ * a mosaic tile; tiles that are not decoded yet show a placeholder and the cards are refreshed as
+ * the images arrive. The images are acquired from the loader for as long as a view shows them, so
+ * that the loader neither reuses nor loses them while on screen, and those that arrive are held
+ * until the cards refreshed for them are bound. Otherwise, a memory cache too small for the cards
+ * on screen could evict each image before its card is bound, and refresh the cards forever.
+ */
+public class CardModelAdapter extends CardScrollAdapter {
+
+    private final Context mContext;
+    private final List<CardModel> mCards;
+
+    /** Maps each card to its position, by identity. */
+    private final Map<CardModel, Integer> mPositions;
+
+    private final CardViewTypes mViewTypes;
+    private final ImageLoader mImageLoader;
+    private final Drawable mImagePlaceholder;
+    private final Handler mHandler = new Handler();
+    private final int[] mTileSize = new int[2];
+
+    /** Images acquired by the views showing them, released when the views are rebound. */
+    private final Map<View, Bitmap[]> mShownImages = new WeakHashMap<View, Bitmap[]>();
+
+    private boolean mRefreshPending;
+
+    /** Whether a view was bound since the last refresh. */
+    private boolean mBoundSinceRefresh;
+
+    /** Images acquired as they arrived since the last refresh, and those refreshed for. */
+    private ArrayList<Bitmap> mArrivedImages = new ArrayList<Bitmap>();
+    private ArrayList<Bitmap> mRefreshedImages = new ArrayList<Bitmap>();
+
+    /** Refreshes the cards at most once per message loop iteration as images arrive. */
+    private final ImageLoader.Callback mImageCallback = new ImageLoader.Callback() {
+
+        @Override
+        public void onImageLoaded(int resId, Bitmap bitmap) {
+            if (bitmap == null) {
+                // The placeholder stays.
+                return;
+            }
+            mArrivedImages.add(bitmap);
+            if (!mRefreshPending) {
+                mRefreshPending = true;
+                mHandler.post(mRefreshRunnable);
+            }
+        }
+    };
+
+    private final Runnable mRefreshRunnable = new Runnable() {
+
+        @Override
+        public void run() {
+            mRefreshPending = false;
+            // The images of the previous refresh are held until its cards were bound.
+            if (mBoundSinceRefresh) {
+                for (Bitmap bitmap : mRefreshedImages) {
+                    mImageLoader.release(bitmap);
+                }
+                mRefreshedImages.clear();
+            }
+            mRefreshedImages.addAll(mArrivedImages);
+            mArrivedImages.clear();
+            mBoundSinceRefresh = false;
+            notifyDataSetChanged();
+        }
+    };
+
+    /** Initializes a new adapter that decodes mosaic images synchronously. */
+    public CardModelAdapter(Context context, List<CardModel> cards) {
+        this(context, cards, null);
+    }
+
+    /**
+     * Initializes a new adapter that decodes mosaic images with the specified loader, or
+     * synchronously if it is {@code null}.
+     */
+    public CardModelAdapter(Context context, List<CardModel> cards, ImageLoader imageLoader) {
+        mContext = context;
+        mCards = cards;
+        mViewTypes = new CardViewTypes(context);
+        mImageLoader = imageLoader;
+        mImagePlaceholder = new ColorDrawable(
+                context.getResources().getColor(R.color.image_placeholder));
+        mPositions = new IdentityHashMap<CardModel, Integer>(cards.size());
+        for (int i = 0; i < cards.size(); i++) {
+            mPositions.put(cards.get(i), i);
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return mCards.size();
+    }
+
+    @Override
+    public CardModel getItem(int position) {
+        return mCards.get(position);
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        CardModel card = getItem(position);
+        if (mImageLoader == null) {
+            return card.newCardBuilder(mContext).getView(convertView, parent);
+        }
+        if (card.getImageCount() == 0) {
+            releaseImages(convertView);
+            return card.newCardBuilder(mContext).getView(convertView, parent);
+        }
+
+        CardBuilder builder = card.newCardBuilderWithoutImages(mContext);
+        CardModel.computeImageTileSize(
+                mContext.getResources(), card.layout, card.getImageCount(), mTileSize);
+        Bitmap[] shown = new Bitmap[card.getImageCount()];
+        for (int i = 0; i < card.getImageCount(); i++) {
+            int resId = card.getImageResId(i);
+            shown[i] = mImageLoader.acquire(resId, mTileSize[0], mTileSize[1]);
+            if (shown[i] != null) {
+                builder.addImage(shown[i]);
+            } else {
+                builder.addImage(mImagePlaceholder);
+                mImageLoader.acquireAsync(resId, mTileSize[0], mTileSize[1], mImageCallback);
+            }
+        }
+        mBoundSinceRefresh = true;
+
+        // The new images are acquired before the previous ones are released, as they often are
+        // the same.
+        View view = builder.getView(convertView, parent);
+        releaseImages(convertView);
+        releaseImages(view);
+        mShownImages.put(view, shown);
+        return view;
+    }
+
+    /** Releases the images shown by the specified view, if any. */
+    private void releaseImages(View view) {
+        Bitmap[] shown = view != null ? mShownImages.remove(view) : null;
+        for (int i = 0; shown != null && i < shown.length; i++) {
+            if (shown[i] != null) {
+                mImageLoader.release(shown[i]);
+            }
+        }
+    }
+
+    @Override
+    public int getViewTypeCount() {
+        return CardBuilder.getViewTypeCount();
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return mViewTypes.get(getItem(position));
+    }
+
+    @Override
+    public int getPosition(Object item) {
+        Integer position = mPositions.get(item);
+        return position != null ? position : AdapterView.INVALID_POSITION;
+    }
+}
@@ -18,17 +18,23 @@ package com.google.android.glass.sample.apidemo.card;
 
 import com.google.android.glass.media.Sounds;
 import com.google.android.glass.sample.apidemo.R;
+import com.google.android.glass.sample.apidemo.image.ImageLoader;
+import com.google.android.glass.sample.apidemo.metrics.FrameMonitor;
 import com.google.android.glass.widget.CardBuilder;
+import com.google.android.glass.widget.CardScrollAdapter;
 import com.google.android.glass.widget.CardScrollView;
 
 import android.app.Activity;
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
 import android.media.AudioManager;
 import android.os.Bundle;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.AdapterView;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
@@ -37,6 +43,9 @@ import java.util.Random;
  */
 public final class CardScrollViewActivity extends Activity {
 
+    /** Number of edits above which a batch replaces the whole content without animation. */
+    private static final int MAX_DIFF_EDITS = 1000;
+
     /** Actions associated with cards. */
     private enum Action {
         DELETION_HERE(R.string.text_card_tap_to_delete, R.drawable.codemonkey1),
@@ -57,49 +66,143 @@ public final class CardScrollViewActivity extends Activity {
         }
     }
 
+    /** A card and the action associated with it. */
+    private static final class Entry {
+
+        final CardBuilder card;
+        final Action action;
+
+        Entry(CardBuilder card, Action action) {
+            this.card = card;
+            this.action = action;
+        }
+    }
+
+    /**
+     * A set of insertions, deletions and moves of cards, applied to the adapter at once by
+     * {@link #commit}. Positions refer to the content of the batch after the previous mutations
+     * of the batch.
+     */
+    private final class Batch {
+
+        private final MutationBatch<Entry> mMutations;
+
+        Batch(int size) {
+            mMutations = new MutationBatch<Entry>(size);
+        }
+
+        /** Inserts a new card with the given action. */
+        Batch insert(int position, Action action) {
+            mMutations.insert(position, new Entry(createCard(action), action));
+            return this;
+        }
+
+        /** Deletes the card at the given position. */
+        Batch delete(int position) {
+            mMutations.delete(position);
+            return this;
+        }
+
+        /** Moves a card to another position. */
+        Batch move(int fromPosition, int toPosition) {
+            mMutations.move(fromPosition, toPosition);
+            return this;
+        }
+    }
+
     /**
      * Adapter class that handles list of cards with associated actions and
      * allows for mutations without notifying the adapter of the data change yet
      * (through method {@link #notifyDataSetChanged}). Useful to demonstrate
      * mutation animations.
+     * <p>
+     * Mutations are recorded by a {@link MutationBatch} and applied as the minimal set
+     * of insertions and deletions over the range of cards they touch, on a
+     * {@link ChunkedList} so that each of them only moves a few cards around even in
+     * large decks.
      */
-    private final class CardAdapterWithMutations extends CardAdapter {
+    private final class CardAdapterWithMutations extends CardScrollAdapter {
+
+        private final ChunkedList<Entry> mEntries = new ChunkedList<Entry>();
+
+        @Override
+        public int getCount() {
+            return mEntries.size();
+        }
 
-        private final List<Action> mActions;
+        @Override
+        public Object getItem(int position) {
+            return mEntries.get(position).card;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            return mEntries.get(position).card.getView(convertView, parent);
+        }
 
-        public CardAdapterWithMutations() {
-            super(new ArrayList<CardBuilder>());
-            mActions = new ArrayList<Action>();
+        @Override
+        public int getViewTypeCount() {
+            return CardBuilder.getViewTypeCount();
         }
 
-        /** Inserts a card into the adapter, without notifying. */
-        public void insertCardWithoutNotification(int position, CardBuilder card, Action action) {
-            mCards.add(position, card);
-            mActions.add(position, action);
+        @Override
+        public int getItemViewType(int position) {
+            return mEntries.get(position).card.getItemViewType();
         }
 
-        /** Deletes card from the adapter, without notifying. */
-        public void deleteCardWithoutNotification(int position) {
-            mCards.remove(position);
-            mActions.remove(position);
+        @Override
+        public int getPosition(Object item) {
+            for (int i = 0; i < mEntries.size(); i++) {
+                if (getItem(i).equals(item)) {
+                    return i;
+                }
+            }
+            return AdapterView.INVALID_POSITION;
+        }
+
+        /** Returns a new batch of mutations starting from the current content. */
+        public Batch newBatch() {
+            return new Batch(mEntries.size());
+        }
+
+        /**
+         * Applies the mutations of the batch to the content of the adapter, without
+         * notifying.
+         *
+         * @return the edits that were applied, or {@code null} if there were too many
+         *         and the changed cards were replaced as a whole
+         */
+        public List<ListDiff.Edit> applyWithoutNotification(Batch batch) {
+            return batch.mMutations.applyTo(mEntries, MAX_DIFF_EDITS);
         }
 
         /** Returns the action associated with the card at position. */
         public Action getActionAt(int position) {
-            return mActions.get(position);
+            return mEntries.get(position).action;
         }
     }
 
     private final Random mRandom = new Random();
 
+    private final int[] mImageSize = new int[2];
+
     private CardScrollView mCardScroller;
+    private FrameMonitor mFrameMonitor;
     private CardAdapterWithMutations mAdapter;
+    private ImageLoader mImageLoader;
+    private Drawable mImagePlaceholder;
 
     @Override
     protected void onCreate(Bundle bundle) {
         super.onCreate(bundle);
 
+        mImageLoader = ImageLoader.getInstance(this);
+        mImagePlaceholder = new ColorDrawable(getResources().getColor(R.color.image_placeholder));
+        CardModel.computeImageTileSize(
+                getResources(), CardBuilder.Layout.COLUMNS, 1 /* imageCount */, mImageSize);
+
         mCardScroller = new CardScrollView(this);
+        mFrameMonitor = new FrameMonitor(this, mCardScroller);
         setupAdapter();
         setupClickListener();
         setContentView(mCardScroller);
@@ -112,13 +215,11 @@ public final class CardScrollViewActivity extends Activity {
         mAdapter = new CardAdapterWithMutations();
 
         // Insert initial cards, one of each kind.
+        Batch batch = mAdapter.newBatch();
         for (int i = 0; i < 8; i++) {
-            int position = i;
-            Action action = Action.values()[i];
-            CardBuilder card = new CardBuilder(this, CardBuilder.Layout.COLUMNS);
-            card.setText(action.textId).addImage(action.imageId);
-            mAdapter.insertCardWithoutNotification(position, card, action);
+            batch.insert(i, Action.values()[i]);
         }
+        mAdapter.applyWithoutNotification(batch);
 
         // Setting adapter notifies the card scroller of new content.
         mCardScroller.setAdapter(mAdapter);
@@ -175,11 +276,7 @@ public final class CardScrollViewActivity extends Activity {
      * (the card scroller will animate the old card from view).
      */
     private void deleteCard(int position) {
-        // Delete card in the adapter, but don't call notifyDataSetChanged() yet.
-        // Instead, request proper animation for deleted card from card scroller,
-        // which will notify the adapter at the right time during the animation.
-        mAdapter.deleteCardWithoutNotification(position);
-        mCardScroller.animate(position, CardScrollView.Animation.DELETION);
+        commit(mAdapter.newBatch().delete(position));
     }
 
     /** Navigates to card at given position. */
@@ -192,24 +289,69 @@ public final class CardScrollViewActivity extends Activity {
      * (the card scroller will animate to the new card).
      */
     private void insertNewCard(int position) {
-        // Insert new card in the adapter, but don't call notifyDataSetChanged()
-        // yet. Instead, request proper animation to inserted card from card scroller,
-        // which will notify the adapter at the right time during the animation.
-        CardBuilder card = new CardBuilder(this, CardBuilder.Layout.COLUMNS);
-        Action action = Action.values()[mRandom.nextInt(8)];
-        card.setText(action.textId).addImage(action.imageId);
-        mAdapter.insertCardWithoutNotification(position, card, action);
-        mCardScroller.animate(position, CardScrollView.Animation.INSERTION);
+        commit(mAdapter.newBatch().insert(position, Action.values()[mRandom.nextInt(8)]));
+    }
+
+    /**
+     * Applies a batch of mutations to the adapter and animates the change with a
+     * single request to the card scroller.
+     */
+    private void commit(Batch batch) {
+        // Update the adapter, but don't call notifyDataSetChanged() yet. Instead,
+        // request proper animation from card scroller, which will notify the adapter
+        // at the right time during the animation.
+        List<ListDiff.Edit> edits = mAdapter.applyWithoutNotification(batch);
+        if (edits != null && edits.isEmpty()) {
+            return;
+        }
+        if (edits != null && edits.size() == 1) {
+            ListDiff.Edit edit = edits.get(0);
+            mCardScroller.animate(edit.position, edit.insertion
+                    ? CardScrollView.Animation.INSERTION : CardScrollView.Animation.DELETION);
+        } else {
+            // The card scroller animates a single change at a time, so larger batches
+            // are shown at once.
+            mAdapter.notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Creates a card for the given action. Its image comes from the shared image cache, so cards
+     * with the same action do not decode it again; if it is not decoded yet, the card shows a
+     * placeholder until it is loaded in the background.
+     */
+    private CardBuilder createCard(Action action) {
+        final CardBuilder card = new CardBuilder(this, CardBuilder.Layout.COLUMNS);
+        card.setText(action.textId);
+        Bitmap image = mImageLoader.get(action.imageId, mImageSize[0], mImageSize[1]);
+        if (image != null) {
+            return card.addImage(image);
+        }
+        card.addImage(mImagePlaceholder);
+        mImageLoader.load(action.imageId, mImageSize[0], mImageSize[1],
+                new ImageLoader.Callback() {
+                    @Override
+                    public void onImageLoaded(int resId, Bitmap bitmap) {
+                        if (bitmap != null) {
+                            card.clearImages();
+                            card.addImage(bitmap);
+                            mAdapter.notifyDataSetChanged();
+                        }
+                    }
+                });
+        return card;
     }
 
     @Override
     protected void onResume() {
         super.onResume();
         mCardScroller.activate();
+        mFrameMonitor.start();
     }
 
     @Override
     protected void onPause() {
+        mFrameMonitor.stop();
         mCardScroller.deactivate();
         super.onPause();
     }
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import com.google.android.glass.media.Sounds;
+import com.google.android.glass.sample.apidemo.R;
+import com.google.android.glass.touchpad.Gesture;
+import com.google.android.glass.touchpad.GestureDetector;
+import com.google.android.glass.widget.CardScrollAdapter;
+import com.google.android.glass.widget.CardScrollView;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+import android.media.AudioManager;
+import android.os.SystemClock;
+import android.speech.RecognizerIntent;
+import android.util.Log;
+import android.view.MotionEvent;
+
+import java.util.List;
+
+/**
+ * Lets users of a card scroll view find cards by voice.
+ * <p>
+ * {@link #startSearch} asks for a query with the speech recognizer, and the cards matching it in a
+ * {@link CardSearchIndex} replace the deck. Tapping one of them goes back to the whole deck, at
+ * the position of that card; so does going back from the results. A search is started by a
+ * two-finger tap, as seen by {@link #onMotionEvent}, so that plain taps keep their meaning.
+ */
+class CardSearchController {
+
+    private static final String TAG = CardSearchController.class.getSimpleName();
+
+    /** Request code of the speech recognizer activity, which activities forward results of. */
+    static final int SPEECH_REQUEST = 1;
+
+    private final Activity mActivity;
+    private final CardScrollView mCardScroller;
+    private final CardScrollAdapter mAdapter;
+    private final CardScrollAdapter mResultsSource;
+    private final CardSearchIndex mIndex;
+    private final AudioManager mAudioManager;
+    private final GestureDetector mGestureDetector;
+
+    private FilteredCardAdapter mResultsAdapter;
+
+    CardSearchController(Activity activity, CardScrollView cardScroller,
+            CardScrollAdapter adapter, CardSearchIndex index) {
+        this(activity, cardScroller, adapter, adapter, index);
+    }
+
+    /**
+     * Initializes a controller that shows {@code adapter} as the deck, but builds the results
+     * from {@code resultsSource}, which holds the same cards. Used when the deck adapter wraps
+     * another one, such as a {@link PrerenderingCardAdapter} whose snapshots only exist for the
+     * cards around the selection of the deck.
+     */
+    CardSearchController(Activity activity, CardScrollView cardScroller,
+            CardScrollAdapter adapter, CardScrollAdapter resultsSource, CardSearchIndex index) {
+        mActivity = activity;
+        mCardScroller = cardScroller;
+        mAdapter = adapter;
+        mResultsSource = resultsSource;
+        mIndex = index;
+        mAudioManager = (AudioManager) activity.getSystemService(Context.AUDIO_SERVICE);
+        mGestureDetector = new GestureDetector(activity).setBaseListener(
+                new GestureDetector.BaseListener() {
+                    @Override
+                    public boolean onGesture(Gesture gesture) {
+                        if (gesture == Gesture.TWO_TAP) {
+                            startSearch();
+                            return true;
+                        }
+                        return false;
+                    }
+                });
+    }
+
+    /**
+     * Handles a motion event of the touchpad, returning {@code true} if it completed a two-finger
+     * tap, which started a search. Activities call this from
+     * {@link Activity#dispatchGenericMotionEvent}, before the card scroller sees the event.
+     */
+    boolean onMotionEvent(MotionEvent event) {
+        return mGestureDetector.onMotionEvent(event);
+    }
+
+    /** Starts the speech recognizer to get a query. */
+    void startSearch() {
+        mAudioManager.playSoundEffect(Sounds.TAP);
+        Intent intent = new Intent(RecognizerIntent.ACTION_RECOGNIZE_SPEECH)
+                .putExtra(RecognizerIntent.EXTRA_PROMPT,
+                        mActivity.getString(R.string.text_card_search_prompt));
+        mActivity.startActivityForResult(intent, SPEECH_REQUEST);
+    }
+
+    /**
+     * Handles the result of the speech recognizer, returning {@code false} if it is not meant for
+     * this controller.
+     */
+    boolean onActivityResult(int requestCode, int resultCode, Intent data) {
+        if (requestCode != SPEECH_REQUEST) {
+            return false;
+        }
+        if (resultCode == Activity.RESULT_OK && data != null) {
+            List<String> results = data.getStringArrayListExtra(RecognizerIntent.EXTRA_RESULTS);
+            if (results != null && !results.isEmpty()) {
+                search(results.get(0));
+            }
+        }
+        return true;
+    }
+
+    /** Shows the cards matching the specified query, if any. */
+    void search(CharSequence query) {
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        int[] positions = mIndex.search(query);
+        Log.d(TAG, String.format("\"%s\": %d cards in %d us", query, positions.length,
+                (SystemClock.elapsedRealtimeNanos() - startNanos) / 1000));
+
+        if (positions.length == 0) {
+            mAudioManager.playSoundEffect(Sounds.DISALLOWED);
+            return;
+        }
+        mAudioManager.playSoundEffect(Sounds.SUCCESS);
+        mResultsAdapter = new FilteredCardAdapter(mResultsSource, positions);
+        mCardScroller.setAdapter(mResultsAdapter);
+        mCardScroller.setSelection(0);
+    }
+
+    /**
+     * Handles a tap on a card, returning {@code true} if it was one of the results, in which case
+     * the whole deck is shown again at its position.
+     */
+    boolean onItemClick(int position) {
+        if (mResultsAdapter == null) {
+            return false;
+        }
+        mAudioManager.playSoundEffect(Sounds.TAP);
+        showDeck(mResultsAdapter.getSourcePosition(position));
+        return true;
+    }
+
+    /**
+     * Handles the back gesture, returning {@code true} if results were being shown, in which case
+     * the whole deck is shown again at the position of the current result.
+     */
+    boolean onBackPressed() {
+        if (mResultsAdapter == null) {
+            return false;
+        }
+        mAudioManager.playSoundEffect(Sounds.DISMISSED);
+        int position = Math.max(0, mCardScroller.getSelectedItemPosition());
+        showDeck(mResultsAdapter.getSourcePosition(position));
+        return true;
+    }
+
+    private void showDeck(int position) {
+        mResultsAdapter = null;
+        mCardScroller.setAdapter(mAdapter);
+        mCardScroller.setSelection(position);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import android.content.res.Resources;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-memory inverted index over the text of the cards of a deck, answering prefix queries with
+ * the positions of the matching cards.
+ * <p>
+ * Text is split into lowercase words of letters and digits, and each word maps to the sorted list
+ * of the cards containing it. Words are kept sorted so that the words starting with a prefix form
+ * a contiguous range. A query matches the cards containing, for each of its words, a word starting
+ * with it.
+ * <p>
+ * The index is built incrementally: text is added card by card, in increasing card order, for
+ * example as cards are appended to a deck.
+ */
+public class CardSearchIndex {
+
+    private static final int[] NO_CARDS = new int[0];
+
+    /** Sorted positions of the cards containing a word. */
+    private static final class Postings {
+
+        int[] cards = new int[2];
+        int size;
+
+        void add(int card) {
+            if (size > 0 && cards[size - 1] == card) {
+                return;
+            }
+            if (size == cards.length) {
+                cards = Arrays.copyOf(cards, size * 2);
+            }
+            cards[size++] = card;
+        }
+    }
+
+    private final TreeMap<String, Postings> mPostings = new TreeMap<String, Postings>();
+    private final StringBuilder mWord = new StringBuilder();
+    private int mCardCount;
+    private int mPostingCount;
+
+    /** Returns an index over the text and footnote of the specified cards. */
+    public static CardSearchIndex forCards(Resources resources, List<CardModel> cards) {
+        CardSearchIndex index = new CardSearchIndex();
+        for (int i = 0; i < cards.size(); i++) {
+            index.addCard(i, resources, cards.get(i));
+        }
+        return index;
+    }
+
+    /**
+     * Returns an index over the rows of the specified table, as shown by an
+     * {@link EmbeddedCardLayoutAdapter} with the specified number of items per card.
+     */
+    public static CardSearchIndex forTable(SimpleTableRows table, int itemsPerCard) {
+        CardSearchIndex index = new CardSearchIndex();
+        index.addTableRows(table, 0, table.size(), itemsPerCard);
+        return index;
+    }
+
+    /** Returns the number of cards indexed so far, which is one more than the last card added. */
+    public int getCardCount() {
+        return mCardCount;
+    }
+
+    /** Returns the number of distinct words in the index. */
+    public int getWordCount() {
+        return mPostings.size();
+    }
+
+    /** Returns the number of card positions stored across all the words of the index. */
+    public int getPostingCount() {
+        return mPostingCount;
+    }
+
+    /** Indexes the text and footnote of the card at the specified position. */
+    public void addCard(int card, Resources resources, CardModel model) {
+        add(card, model.getText(resources));
+        add(card, model.getFootnote(resources));
+    }
+
+    /**
+     * Indexes the text of the table rows in {@code [fromRow, toRow)}, each on the card an
+     * {@link EmbeddedCardLayoutAdapter} with the specified number of items per card shows it on.
+     */
+    public void addTableRows(SimpleTableRows table, int fromRow, int toRow, int itemsPerCard) {
+        char[] buffer = new char[64];
+        for (int row = fromRow; row < toRow; row++) {
+            for (int column = SimpleTable.PRIMARY_TEXT; column <= SimpleTable.SECONDARY_TEXT;
+                    column++) {
+                int capacity = table.getTextCapacity(column, row);
+                if (buffer.length < capacity) {
+                    buffer = new char[Math.max(capacity, buffer.length * 2)];
+                }
+                int length = table.decodeText(column, row, buffer);
+                add(row / itemsPerCard, CharBuffer.wrap(buffer, 0, length));
+            }
+        }
+    }
+
+    /**
+     * Indexes text shown on the card at the specified position, which must not be lower than the
+     * position of any card added before.
+     */
+    public void add(int card, CharSequence text) {
+        if (card < mCardCount - 1) {
+            throw new IllegalArgumentException(
+                    "Cards must be added in order, got " + card + " after " + (mCardCount - 1));
+        }
+        mCardCount = card + 1;
+        if (text == null) {
+            return;
+        }
+
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                mWord.append(Character.toLowerCase(c));
+            } else if (mWord.length() > 0) {
+                String word = mWord.toString();
+                mWord.setLength(0);
+                Postings postings = mPostings.get(word);
+                if (postings == null) {
+                    postings = new Postings();
+                    mPostings.put(word, postings);
+                }
+                int size = postings.size;
+                postings.add(card);
+                mPostingCount += postings.size - size;
+            }
+        }
+    }
+
+    /**
+     * Returns the sorted positions of the cards matching the specified query, each word of which
+     * is a prefix of a word of the card. An empty query matches no card.
+     */
+    public int[] search(CharSequence query) {
+        BitSet result = null;
+        int length = query.length();
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? query.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                mWord.append(Character.toLowerCase(c));
+            } else if (mWord.length() > 0) {
+                String prefix = mWord.toString();
+                mWord.setLength(0);
+                BitSet matches = searchPrefix(prefix);
+                if (result == null) {
+                    result = matches;
+                } else {
+                    result.and(matches);
+                }
+                if (result.isEmpty()) {
+                    return NO_CARDS;
+                }
+            }
+        }
+        if (result == null) {
+            return NO_CARDS;
+        }
+
+        int[] cards = new int[result.cardinality()];
+        for (int i = 0, card = result.nextSetBit(0); card >= 0;
+                i++, card = result.nextSetBit(card + 1)) {
+            cards[i] = card;
+        }
+        return cards;
+    }
+
+    /** Returns the cards containing a word starting with the specified prefix. */
+    private BitSet searchPrefix(String prefix) {
+        BitSet matches = new BitSet(mCardCount);
+        // Every word starting with the prefix sorts before the prefix followed by the last char.
+        String end = prefix + Character.MAX_VALUE;
+        for (Map.Entry<String, Postings> entry
+                : mPostings.subMap(prefix, true, end, false).entrySet()) {
+            Postings postings = entry.getValue();
+            for (int i = 0; i < postings.size; i++) {
+                matches.set(postings.cards[i]);
+            }
+        }
+        return matches;
+    }
+}
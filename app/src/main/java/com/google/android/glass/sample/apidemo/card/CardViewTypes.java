@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import com.google.android.glass.widget.CardBuilder;
+
+import android.content.Context;
+import android.util.SparseIntArray;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Computes the {@link CardBuilder} view type of {@link CardModel}s without building a
+ * {@link CardBuilder} for each of them.
+ */
+final class CardViewTypes {
+
+    private final Context mContext;
+
+    /** View types of the non-embedded layouts, computed on first use. */
+    private final Map<CardBuilder.Layout, Integer> mLayoutViewTypes =
+            new EnumMap<CardBuilder.Layout, Integer>(CardBuilder.Layout.class);
+
+    /** View types of embedded layouts keyed by layout resource ID, computed on first use. */
+    private final SparseIntArray mEmbeddedViewTypes = new SparseIntArray();
+
+    CardViewTypes(Context context) {
+        mContext = context;
+    }
+
+    /** Returns the view type of the views built for the specified card. */
+    int get(CardModel card) {
+        int embeddedLayoutResId = card.getEmbeddedLayoutResId();
+        if (embeddedLayoutResId != CardModel.NO_RESOURCE) {
+            int viewType = mEmbeddedViewTypes.get(embeddedLayoutResId, -1);
+            if (viewType == -1) {
+                viewType = new CardBuilder(mContext, card.layout)
+                        .setEmbeddedLayout(embeddedLayoutResId)
+                        .getItemViewType();
+                mEmbeddedViewTypes.put(embeddedLayoutResId, viewType);
+            }
+            return viewType;
+        }
+
+        Integer viewType = mLayoutViewTypes.get(card.layout);
+        if (viewType == null) {
+            viewType = new CardBuilder(mContext, card.layout).getItemViewType();
+            mLayoutViewTypes.put(card.layout, viewType);
+        }
+        return viewType;
+    }
+}
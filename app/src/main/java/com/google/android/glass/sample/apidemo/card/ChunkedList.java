@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * List stored as a sequence of small arrays, so that inserting or removing an element only moves
+ * the elements of one chunk instead of the whole tail of the list.
+ * <p>
+ * Chunks hold at most {@link #MAX_CHUNK_SIZE} elements and a Fenwick tree over their sizes finds
+ * the chunk holding a position in O(log n). The tree is rebuilt, in time linear in the number of
+ * chunks, only when a chunk is split or dropped.
+ */
+final class ChunkedList<T> extends AbstractList<T> implements RandomAccess {
+
+    /** Maximum number of elements in a chunk. */
+    static final int MAX_CHUNK_SIZE = 64;
+
+    private final ArrayList<Object[]> mChunks = new ArrayList<Object[]>();
+    private int[] mChunkSizes = new int[0];
+
+    /** Fenwick tree over {@link #mChunkSizes}, indexed from 1. */
+    private int[] mTree = new int[1];
+
+    private int mSize;
+
+    ChunkedList() {
+    }
+
+    ChunkedList(Collection<? extends T> elements) {
+        addAll(elements);
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int position) {
+        checkPosition(position, mSize);
+        int chunk = findChunk(position);
+        return (T) mChunks.get(chunk)[position - offsetOf(chunk)];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T set(int position, T element) {
+        checkPosition(position, mSize);
+        int chunk = findChunk(position);
+        Object[] elements = mChunks.get(chunk);
+        int index = position - offsetOf(chunk);
+        T previous = (T) elements[index];
+        elements[index] = element;
+        return previous;
+    }
+
+    @Override
+    public void add(int position, T element) {
+        checkPosition(position, mSize + 1);
+        modCount++;
+
+        if (mChunks.isEmpty()) {
+            mChunks.add(new Object[MAX_CHUNK_SIZE]);
+            mChunkSizes = new int[] { 0 };
+            rebuildTree();
+        }
+
+        // Appending goes to the last chunk, anything else to the chunk holding the position.
+        int chunk = position == mSize ? mChunks.size() - 1 : findChunk(position);
+        int index = position - offsetOf(chunk);
+        if (mChunkSizes[chunk] == MAX_CHUNK_SIZE) {
+            splitChunk(chunk);
+            if (index > MAX_CHUNK_SIZE / 2) {
+                chunk++;
+                index -= MAX_CHUNK_SIZE / 2;
+            }
+        }
+
+        Object[] elements = mChunks.get(chunk);
+        System.arraycopy(elements, index, elements, index + 1, mChunkSizes[chunk] - index);
+        elements[index] = element;
+        mChunkSizes[chunk]++;
+        updateTree(chunk, 1);
+        mSize++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T remove(int position) {
+        checkPosition(position, mSize);
+        modCount++;
+
+        int chunk = findChunk(position);
+        int index = position - offsetOf(chunk);
+        Object[] elements = mChunks.get(chunk);
+        T removed = (T) elements[index];
+        int size = mChunkSizes[chunk];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        elements[size - 1] = null;
+        mChunkSizes[chunk]--;
+        mSize--;
+
+        if (mChunkSizes[chunk] == 0) {
+            removeChunk(chunk);
+        } else {
+            updateTree(chunk, -1);
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        modCount++;
+        mChunks.clear();
+        mChunkSizes = new int[0];
+        mTree = new int[1];
+        mSize = 0;
+    }
+
+    /** Returns the index of the chunk holding the specified position. */
+    private int findChunk(int position) {
+        // Descend the Fenwick tree to find the last chunk whose offset is <= position.
+        int chunk = 0;
+        int remaining = position;
+        for (int step = Integer.highestOneBit(mChunkSizes.length); step > 0; step >>= 1) {
+            int next = chunk + step;
+            if (next <= mChunkSizes.length && mTree[next] <= remaining) {
+                chunk = next;
+                remaining -= mTree[next];
+            }
+        }
+        return chunk;
+    }
+
+    /** Returns the position of the first element of the specified chunk. */
+    private int offsetOf(int chunk) {
+        int offset = 0;
+        for (int i = chunk; i > 0; i -= i & -i) {
+            offset += mTree[i];
+        }
+        return offset;
+    }
+
+    private void updateTree(int chunk, int delta) {
+        for (int i = chunk + 1; i < mTree.length; i += i & -i) {
+            mTree[i] += delta;
+        }
+    }
+
+    private void rebuildTree() {
+        mTree = new int[mChunkSizes.length + 1];
+        for (int i = 1; i < mTree.length; i++) {
+            mTree[i] += mChunkSizes[i - 1];
+            int parent = i + (i & -i);
+            if (parent < mTree.length) {
+                mTree[parent] += mTree[i];
+            }
+        }
+    }
+
+    /** Moves the upper half of a full chunk into a new chunk right after it. */
+    private void splitChunk(int chunk) {
+        int half = MAX_CHUNK_SIZE / 2;
+        Object[] elements = mChunks.get(chunk);
+        Object[] upper = new Object[MAX_CHUNK_SIZE];
+        System.arraycopy(elements, half, upper, 0, MAX_CHUNK_SIZE - half);
+        for (int i = half; i < MAX_CHUNK_SIZE; i++) {
+            elements[i] = null;
+        }
+        mChunks.add(chunk + 1, upper);
+
+        int[] sizes = new int[mChunkSizes.length + 1];
+        System.arraycopy(mChunkSizes, 0, sizes, 0, chunk);
+        sizes[chunk] = half;
+        sizes[chunk + 1] = MAX_CHUNK_SIZE - half;
+        System.arraycopy(mChunkSizes, chunk + 1, sizes, chunk + 2,
+                mChunkSizes.length - chunk - 1);
+        mChunkSizes = sizes;
+        rebuildTree();
+    }
+
+    private void removeChunk(int chunk) {
+        mChunks.remove(chunk);
+        int[] sizes = new int[mChunkSizes.length - 1];
+        System.arraycopy(mChunkSizes, 0, sizes, 0, chunk);
+        System.arraycopy(mChunkSizes, chunk + 1, sizes, chunk, sizes.length - chunk);
+        mChunkSizes = sizes;
+        rebuildTree();
+    }
+
+    private static void checkPosition(int position, int limit) {
+        if (position < 0 || position >= limit) {
+            throw new IndexOutOfBoundsException("Position " + position + ", limit " + limit);
+        }
+    }
+}
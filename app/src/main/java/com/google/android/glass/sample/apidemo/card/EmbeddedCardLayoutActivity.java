@@ -17,55 +17,160 @@
 package com.google.android.glass.sample.apidemo.card;
 
 import com.google.android.glass.sample.apidemo.R;
+import com.google.android.glass.sample.apidemo.metrics.FrameMonitor;
 import com.google.android.glass.widget.CardScrollView;
 
 import android.app.Activity;
+import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.AdapterView;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.File;
+import java.io.IOException;
 
 /**
  * Creates a card scroll view that shows an example of using a custom embedded layout in a
  * {@code CardBuilder}.
+ * <p>
+ * The rows are read from the CSV or JSON file named by {@link #EXTRA_TABLE_PATH} if set, or else
+ * from {@code simple_table.csv} or {@code simple_table.json} in the external files directory of
+ * the app if one exists; see {@link SimpleTableFile} for the format. Sample rows are shown
+ * otherwise, and tapping with two fingers searches them by voice; files are not searchable since
+ * indexing their text would take memory proportional to their size.
  */
 public final class EmbeddedCardLayoutActivity extends Activity {
 
+    private static final String TAG = EmbeddedCardLayoutActivity.class.getSimpleName();
+
+    /** Optional path of the file holding the rows of the table. */
+    public static final String EXTRA_TABLE_PATH = "table_path";
+
+    private static final String[] DEFAULT_TABLE_FILE_NAMES = {
+        "simple_table.csv", "simple_table.json",
+    };
+
     private CardScrollView mCardScroller;
+    private FrameMonitor mFrameMonitor;
+    private SimpleTableFile mTableFile;
+    private CardSearchController mSearchController;
 
     @Override
     protected void onCreate(Bundle bundle) {
         super.onCreate(bundle);
         mCardScroller = new CardScrollView(this);
-        mCardScroller.setAdapter(new EmbeddedCardLayoutAdapter(this, createItems()));
+        mFrameMonitor = new FrameMonitor(this, mCardScroller);
+        mTableFile = openTableFile();
+        if (mTableFile != null) {
+            final EmbeddedCardLayoutAdapter adapter = new EmbeddedCardLayoutAdapter(
+                    this, mTableFile, EmbeddedCardLayoutAdapter.DEFAULT_ITEMS_PER_CARD);
+            mTableFile.setListener(new SimpleTableFile.Listener() {
+                @Override
+                public void onRowsIndexed(int rowCount, boolean complete) {
+                    adapter.notifyDataSetChanged();
+                }
+            });
+            mCardScroller.setAdapter(adapter);
+        } else {
+            SimpleTable items = createItems();
+            EmbeddedCardLayoutAdapter adapter = new EmbeddedCardLayoutAdapter(
+                    this, items, EmbeddedCardLayoutAdapter.DEFAULT_ITEMS_PER_CARD);
+            mCardScroller.setAdapter(adapter);
+            mSearchController = new CardSearchController(this, mCardScroller, adapter,
+                    CardSearchIndex.forTable(
+                            items, EmbeddedCardLayoutAdapter.DEFAULT_ITEMS_PER_CARD));
+            mCardScroller.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+                @Override
+                public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                    mSearchController.onItemClick(position);
+                }
+            });
+        }
         setContentView(mCardScroller);
     }
 
+    @Override
+    public boolean dispatchGenericMotionEvent(MotionEvent event) {
+        return (mSearchController != null && mSearchController.onMotionEvent(event))
+                || super.dispatchGenericMotionEvent(event);
+    }
+
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        if (mSearchController == null
+                || !mSearchController.onActivityResult(requestCode, resultCode, data)) {
+            super.onActivityResult(requestCode, resultCode, data);
+        }
+    }
+
+    @Override
+    public void onBackPressed() {
+        if (mSearchController == null || !mSearchController.onBackPressed()) {
+            super.onBackPressed();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (mTableFile != null) {
+            mTableFile.close();
+        }
+        super.onDestroy();
+    }
+
+    /** Opens the file holding the rows of the table, or returns {@code null} if there is none. */
+    private SimpleTableFile openTableFile() {
+        File file = null;
+        String path = getIntent().getStringExtra(EXTRA_TABLE_PATH);
+        if (path != null) {
+            file = new File(path);
+        } else {
+            File dir = getExternalFilesDir(null);
+            for (int i = 0; dir != null && i < DEFAULT_TABLE_FILE_NAMES.length; i++) {
+                File candidate = new File(dir, DEFAULT_TABLE_FILE_NAMES[i]);
+                if (candidate.isFile()) {
+                    file = candidate;
+                    break;
+                }
+            }
+        }
+        if (file == null) {
+            return null;
+        }
+        try {
+            return SimpleTableFile.open(getResources(), getPackageName(), file);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to open table file " + file, e);
+            return null;
+        }
+    }
+
     /** Creates some sample items that will be displayed on cards in the card scroll view. */
-    private List<SimpleTableItem> createItems() {
-        ArrayList<SimpleTableItem> items = new ArrayList<SimpleTableItem>();
-
-        items.add(new SimpleTableItem(R.drawable.ic_circle_blue, "Water", "8 oz"));
-        items.add(new SimpleTableItem(R.drawable.ic_circle_yellow, "Eggs, large", "2"));
-        items.add(new SimpleTableItem(R.drawable.ic_circle_red, "Ground beef", "4 oz"));
-        items.add(new SimpleTableItem(R.drawable.ic_circle_green, "Brussel sprouts", "1 cup"));
-        items.add(new SimpleTableItem(R.drawable.ic_circle_green, "Celery", "1 stalk"));
-        items.add(new SimpleTableItem(R.drawable.ic_circle_red, "Beef jerky", "8 strips"));
-        items.add(new SimpleTableItem(R.drawable.ic_circle_yellow, "Almonds", "3 handfuls"));
-        items.add(new SimpleTableItem(
-                R.drawable.ic_circle_red, "Strawberry fruit leather", "2.5 miles"));
-
-        return items;
+    private SimpleTable createItems() {
+        return new SimpleTable.Builder()
+                .add(R.drawable.ic_circle_blue, "Water", "8 oz")
+                .add(R.drawable.ic_circle_yellow, "Eggs, large", "2")
+                .add(R.drawable.ic_circle_red, "Ground beef", "4 oz")
+                .add(R.drawable.ic_circle_green, "Brussel sprouts", "1 cup")
+                .add(R.drawable.ic_circle_green, "Celery", "1 stalk")
+                .add(R.drawable.ic_circle_red, "Beef jerky", "8 strips")
+                .add(R.drawable.ic_circle_yellow, "Almonds", "3 handfuls")
+                .add(R.drawable.ic_circle_red, "Strawberry fruit leather", "2.5 miles")
+                .build();
     }
 
     @Override
     protected void onResume() {
         super.onResume();
         mCardScroller.activate();
+        mFrameMonitor.start();
     }
 
     @Override
     protected void onPause() {
+        mFrameMonitor.stop();
         mCardScroller.deactivate();
         super.onPause();
     }
@@ -21,22 +21,30 @@ import com.google.android.glass.widget.CardBuilder;
 import com.google.android.glass.widget.CardScrollAdapter;
 
 import android.content.Context;
+import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.AdapterView;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Populates views in a {@code CardScrollView} with cards built from custom embedded layouts to
  * represent items in a simple table.
+ * <p>
+ * The card around the table is only built once per view: recycled views keep references to their
+ * rows in a {@link ViewHolder}, and only the rows whose item changed are bound again. Items are
+ * read from a {@link SimpleTableRows} into buffers owned by the views, so binding a card does not
+ * allocate, and only the rows of the cards being shown are read, so the table can be backed by a
+ * large {@link SimpleTableFile}.
  */
 public class EmbeddedCardLayoutAdapter extends CardScrollAdapter {
 
-    /** The maximum number of items that fit on a card. */
-    private static final int ITEMS_PER_CARD = 4;
+    /** The default number of items shown on a card, which is what the embedded layout holds. */
+    public static final int DEFAULT_ITEMS_PER_CARD = 4;
 
     /** Index of the {@link ImageView} containing the icon in a table row. */
     private static final int IMAGE_VIEW_INDEX = 0;
@@ -47,13 +55,74 @@ public class EmbeddedCardLayoutAdapter extends CardScrollAdapter {
     /** Index of the {@link TextView} containing the secondary text in a table row. */
     private static final int SECONDARY_TEXT_VIEW_INDEX = 2;
 
+    /** Caches the views of the table rows of a card and the items bound to them. */
+    private static final class ViewHolder {
+
+        final ViewGroup[] rowViews;
+        final ImageView[] imageViews;
+        final TextView[] primaryTextViews;
+        final TextView[] secondaryTextViews;
+
+        /** Text buffers owned by the text views, which keep referencing them once set. */
+        final char[][] primaryTextBuffers;
+        final char[][] secondaryTextBuffers;
+
+        /** Index of the item bound to each row, or -1. */
+        final int[] boundItems;
+
+        /** Icon bound to each row, or 0. */
+        final int[] boundIconResIds;
+
+        ViewHolder(ViewGroup tableView, int rowCount) {
+            rowViews = new ViewGroup[rowCount];
+            imageViews = new ImageView[rowCount];
+            primaryTextViews = new TextView[rowCount];
+            secondaryTextViews = new TextView[rowCount];
+            primaryTextBuffers = new char[rowCount][];
+            secondaryTextBuffers = new char[rowCount][];
+            boundItems = new int[rowCount];
+            boundIconResIds = new int[rowCount];
+            Arrays.fill(boundItems, -1);
+            for (int i = 0; i < rowCount; i++) {
+                ViewGroup rowView = (ViewGroup) tableView.getChildAt(i);
+                rowViews[i] = rowView;
+                imageViews[i] = (ImageView) rowView.getChildAt(IMAGE_VIEW_INDEX);
+                primaryTextViews[i] = (TextView) rowView.getChildAt(PRIMARY_TEXT_VIEW_INDEX);
+                secondaryTextViews[i] = (TextView) rowView.getChildAt(SECONDARY_TEXT_VIEW_INDEX);
+            }
+        }
+    }
+
     private final Context mContext;
-    private final List<SimpleTableItem> mItems;
+    private final SimpleTableRows mItems;
+    private final int mItemsPerCard;
 
     /** Initializes a new adapter with the specified context and list of items. */
     public EmbeddedCardLayoutAdapter(Context context, List<SimpleTableItem> items) {
+        this(context, SimpleTable.copyOf(items), DEFAULT_ITEMS_PER_CARD);
+    }
+
+    /**
+     * Initializes a new adapter with the specified context and list of items, showing the
+     * specified number of items on each card.
+     */
+    public EmbeddedCardLayoutAdapter(Context context, List<SimpleTableItem> items,
+            int itemsPerCard) {
+        this(context, SimpleTable.copyOf(items), itemsPerCard);
+    }
+
+    /**
+     * Initializes a new adapter with the specified context and table, showing the specified number
+     * of items on each card. {@link #notifyDataSetChanged} must be called when rows are added to
+     * the table.
+     */
+    public EmbeddedCardLayoutAdapter(Context context, SimpleTableRows items, int itemsPerCard) {
+        if (itemsPerCard <= 0) {
+            throw new IllegalArgumentException("Invalid number of items per card " + itemsPerCard);
+        }
         mContext = context;
         mItems = items;
+        mItemsPerCard = itemsPerCard;
     }
 
     @Override
@@ -68,9 +137,9 @@ public class EmbeddedCardLayoutAdapter extends CardScrollAdapter {
 
     @Override
     public int getCount() {
-        // Compute the number of cards needed to display the items with 4 per card (rounding up to
-        // capture the remainder).
-        return (int) Math.ceil((double) mItems.size() / ITEMS_PER_CARD);
+        // Compute the number of cards needed to display the items (rounding up to capture the
+        // remainder).
+        return (mItems.size() + mItemsPerCard - 1) / mItemsPerCard;
     }
 
     @Override
@@ -85,49 +154,90 @@ public class EmbeddedCardLayoutAdapter extends CardScrollAdapter {
 
     @Override
     public View getView(int position, View convertView, ViewGroup parent) {
-        CardBuilder card = new CardBuilder(mContext, CardBuilder.Layout.EMBED_INSIDE)
-            .setEmbeddedLayout(R.layout.simple_table)
-            .setFootnote(R.string.text_card_embedded_footnote)
-            .setTimestamp(R.string.text_card_embedded_timestamp);
-        View view = card.getView(convertView, parent);
-
-        // Get a reference to an embedded view from the custom layout and then manipulate it.
-        ViewGroup tableView = (ViewGroup) view.findViewById(R.id.simple_table);
-        populateTableRows(position, tableView);
+        View view = convertView;
+        // The tag is keyed so that it does not conflict with any tag set by CardBuilder.
+        ViewHolder holder =
+                view != null ? (ViewHolder) view.getTag(R.id.embedded_card_view_holder) : null;
+        if (holder == null) {
+            CardBuilder card = new CardBuilder(mContext, CardBuilder.Layout.EMBED_INSIDE)
+                .setEmbeddedLayout(R.layout.simple_table)
+                .setFootnote(R.string.text_card_embedded_footnote)
+                .setTimestamp(R.string.text_card_embedded_timestamp);
+            view = card.getView(null, parent);
+
+            // Get a reference to an embedded view from the custom layout and then manipulate it.
+            ViewGroup tableView = (ViewGroup) view.findViewById(R.id.simple_table);
+            addMissingRows(tableView);
+            holder = new ViewHolder(tableView, mItemsPerCard);
+            view.setTag(R.id.embedded_card_view_holder, holder);
+        }
 
+        populateTableRows(position, holder);
         return view;
     }
 
+    /** Adds rows to the table if the embedded layout has fewer than the number of items. */
+    private void addMissingRows(ViewGroup tableView) {
+        LayoutInflater inflater = LayoutInflater.from(mContext);
+        while (tableView.getChildCount() < mItemsPerCard) {
+            inflater.inflate(R.layout.simple_table_row, tableView);
+        }
+        // Hide the rows the layout has in excess.
+        for (int i = mItemsPerCard; i < tableView.getChildCount(); i++) {
+            tableView.getChildAt(i).setVisibility(View.GONE);
+        }
+    }
+
     /** Populates all of the rows in the card at the specified position. */
-    private void populateTableRows(int position, ViewGroup tableView) {
-        int startItemIndex = position * ITEMS_PER_CARD;
-        int endItemIndex = Math.min(startItemIndex + ITEMS_PER_CARD, mItems.size());
+    private void populateTableRows(int position, ViewHolder holder) {
+        int startItemIndex = position * mItemsPerCard;
+        int endItemIndex = Math.min(startItemIndex + mItemsPerCard, mItems.size());
 
-        for (int i = 0; i < ITEMS_PER_CARD; i++) {
+        for (int i = 0; i < mItemsPerCard; i++) {
             int itemIndex = startItemIndex + i;
-            ViewGroup rowView = (ViewGroup) tableView.getChildAt(i);
 
-            // The layout contains four fixed rows, so we need to hide the later ones if there are
-            // not four items on this card. We need to make sure to update the visibility in both
-            // cases though if the card has been recycled.
+            // The layout contains a fixed number of rows, so we need to hide the later ones if
+            // there are fewer items on this card. We need to make sure to update the visibility in
+            // both cases though if the card has been recycled.
             if (itemIndex < endItemIndex) {
-                SimpleTableItem item = mItems.get(itemIndex);
-                populateTableRow(item, rowView);
-                rowView.setVisibility(View.VISIBLE);
+                if (holder.boundItems[i] != itemIndex) {
+                    populateTableRow(itemIndex, holder, i);
+                }
+                holder.rowViews[i].setVisibility(View.VISIBLE);
             } else {
-                rowView.setVisibility(View.INVISIBLE);
+                holder.rowViews[i].setVisibility(View.INVISIBLE);
             }
         }
     }
 
     /** Populates a row in the table with the specified item data. */
-    private void populateTableRow(SimpleTableItem item, ViewGroup rowView) {
-        ImageView imageView = (ImageView) rowView.getChildAt(IMAGE_VIEW_INDEX);
-        TextView primaryTextView = (TextView) rowView.getChildAt(PRIMARY_TEXT_VIEW_INDEX);
-        TextView secondaryTextView = (TextView) rowView.getChildAt(SECONDARY_TEXT_VIEW_INDEX);
-
-        imageView.setImageResource(item.iconResId);
-        primaryTextView.setText(item.primaryText);
-        secondaryTextView.setText(item.secondaryText);
+    private void populateTableRow(int itemIndex, ViewHolder holder, int row) {
+        int iconResId = mItems.getIconResId(itemIndex);
+        if (holder.boundIconResIds[row] != iconResId) {
+            holder.imageViews[row].setImageResource(iconResId);
+            holder.boundIconResIds[row] = iconResId;
+        }
+
+        holder.primaryTextBuffers[row] = ensureCapacity(holder.primaryTextBuffers[row],
+                mItems.getTextCapacity(SimpleTable.PRIMARY_TEXT, itemIndex));
+        int length = mItems.decodeText(
+                SimpleTable.PRIMARY_TEXT, itemIndex, holder.primaryTextBuffers[row]);
+        holder.primaryTextViews[row].setText(holder.primaryTextBuffers[row], 0, length);
+
+        holder.secondaryTextBuffers[row] = ensureCapacity(holder.secondaryTextBuffers[row],
+                mItems.getTextCapacity(SimpleTable.SECONDARY_TEXT, itemIndex));
+        length = mItems.decodeText(
+                SimpleTable.SECONDARY_TEXT, itemIndex, holder.secondaryTextBuffers[row]);
+        holder.secondaryTextViews[row].setText(holder.secondaryTextBuffers[row], 0, length);
+
+        holder.boundItems[row] = itemIndex;
+    }
+
+    /** Returns the buffer if it holds at least {@code capacity} chars, or a larger one. */
+    private static char[] ensureCapacity(char[] buffer, int capacity) {
+        if (buffer != null && buffer.length >= capacity) {
+            return buffer;
+        }
+        return new char[Math.max(capacity, buffer != null ? buffer.length * 2 : 16)];
     }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import com.google.android.glass.widget.CardScrollAdapter;
+
+import android.database.DataSetObserver;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AdapterView;
+
+import java.util.Arrays;
+
+/**
+ * Shows a subset of the cards of another adapter, such as the results of a
+ * {@link CardSearchIndex} query. Views are created by the source adapter, and recycled among the
+ * same view types.
+ * <p>
+ * Changes of the source, such as images arriving after its cards were shown, are forwarded to the
+ * observers of this adapter while it has any. The positions are kept, so the source is expected
+ * to refresh its cards rather than add or remove some.
+ */
+public class FilteredCardAdapter extends CardScrollAdapter {
+
+    private final CardScrollAdapter mSource;
+    private final int[] mPositions;
+    private int mObserverCount;
+
+    private final DataSetObserver mSourceObserver = new DataSetObserver() {
+
+        @Override
+        public void onChanged() {
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public void onInvalidated() {
+            notifyDataSetInvalidated();
+        }
+    };
+
+    /**
+     * Initializes a new adapter showing the cards of {@code source} at the specified positions,
+     * which must be sorted.
+     */
+    public FilteredCardAdapter(CardScrollAdapter source, int[] positions) {
+        mSource = source;
+        mPositions = positions;
+    }
+
+    /** Returns the adapter the cards are taken from. */
+    public CardScrollAdapter getSource() {
+        return mSource;
+    }
+
+    /** Returns the position in the source adapter of the card at the specified position. */
+    public int getSourcePosition(int position) {
+        return mPositions[position];
+    }
+
+    @Override
+    public void registerDataSetObserver(DataSetObserver observer) {
+        super.registerDataSetObserver(observer);
+        // The source only holds on to this adapter while something observes it.
+        if (mObserverCount++ == 0) {
+            mSource.registerDataSetObserver(mSourceObserver);
+        }
+    }
+
+    @Override
+    public void unregisterDataSetObserver(DataSetObserver observer) {
+        super.unregisterDataSetObserver(observer);
+        if (--mObserverCount == 0) {
+            mSource.unregisterDataSetObserver(mSourceObserver);
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return mPositions.length;
+    }
+
+    @Override
+    public Object getItem(int position) {
+        return mSource.getItem(mPositions[position]);
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        return mSource.getView(mPositions[position], convertView, parent);
+    }
+
+    @Override
+    public int getViewTypeCount() {
+        return mSource.getViewTypeCount();
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return mSource.getItemViewType(mPositions[position]);
+    }
+
+    @Override
+    public int getPosition(Object item) {
+        int sourcePosition = mSource.getPosition(item);
+        if (sourcePosition == AdapterView.INVALID_POSITION) {
+            return AdapterView.INVALID_POSITION;
+        }
+        int position = Arrays.binarySearch(mPositions, sourcePosition);
+        return position >= 0 ? position : AdapterView.INVALID_POSITION;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Computes the shortest sequence of insertions and deletions turning one list into another, with
+ * Myers' O((N + M) D) algorithm. Elements are compared by identity.
+ * <p>
+ * The common prefix and suffix are skipped first, so the cost only depends on the size of the
+ * region that actually changed.
+ */
+final class ListDiff {
+
+    /** A single insertion or deletion. */
+    static final class Edit {
+
+        /** Whether this edit inserts {@link #newIndex} or deletes {@link #oldIndex}. */
+        final boolean insertion;
+
+        /**
+         * Position of the edit in the list being transformed, once all the previous edits have
+         * been applied.
+         */
+        final int position;
+
+        /** Index of the deleted element in the old list, or -1 for insertions. */
+        final int oldIndex;
+
+        /** Index of the inserted element in the new list, or -1 for deletions. */
+        final int newIndex;
+
+        Edit(boolean insertion, int position, int oldIndex, int newIndex) {
+            this.insertion = insertion;
+            this.position = position;
+            this.oldIndex = oldIndex;
+            this.newIndex = newIndex;
+        }
+    }
+
+    private ListDiff() {
+    }
+
+    /**
+     * Returns the edits turning {@code oldList} into {@code newList}, in the order they must be
+     * applied, or {@code null} if more than {@code maxEdits} edits are needed.
+     */
+    static List<Edit> compute(List<?> oldList, List<?> newList, int maxEdits) {
+        int oldSize = oldList.size();
+        int newSize = newList.size();
+
+        int prefix = 0;
+        while (prefix < oldSize && prefix < newSize
+                && oldList.get(prefix) == newList.get(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < oldSize - prefix && suffix < newSize - prefix
+                && oldList.get(oldSize - 1 - suffix) == newList.get(newSize - 1 - suffix)) {
+            suffix++;
+        }
+
+        int n = oldSize - prefix - suffix;
+        int m = newSize - prefix - suffix;
+        if (n == 0 && m == 0) {
+            return Collections.emptyList();
+        }
+        if (n + m > maxEdits && Math.abs(n - m) > maxEdits) {
+            return null;
+        }
+
+        // Forward pass, remembering the furthest reaching x of each diagonal k for every d. Only
+        // the diagonals in [-d, d] are kept for d, since the others cannot be reached yet.
+        int max = Math.min(n + m, maxEdits);
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        List<int[]> trace = new ArrayList<int[]>();
+        int editCount = -1;
+        for (int d = 0; d <= max && editCount < 0; d++) {
+            int[] diagonals = new int[2 * d + 1];
+            System.arraycopy(v, offset - d, diagonals, 0, diagonals.length);
+            trace.add(diagonals);
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+                    x = v[offset + k + 1];
+                } else {
+                    x = v[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m
+                        && oldList.get(prefix + x) == newList.get(prefix + y)) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    editCount = d;
+                    break;
+                }
+            }
+        }
+        if (editCount < 0) {
+            return null;
+        }
+
+        // Backtrack from the end to recover the edits, which come out in reverse order.
+        ArrayList<Edit> reversed = new ArrayList<Edit>(editCount);
+        int x = n;
+        int y = m;
+        for (int d = editCount; d > 0; d--) {
+            // The diagonals kept for d start at -d.
+            int[] previous = trace.get(d);
+            int k = x - y;
+            int previousK;
+            if (k == -d || (k != d && previous[d + k - 1] < previous[d + k + 1])) {
+                previousK = k + 1;
+            } else {
+                previousK = k - 1;
+            }
+            int previousX = previous[d + previousK];
+            int previousY = previousX - previousK;
+            while (x > previousX && y > previousY) {
+                x--;
+                y--;
+            }
+            if (previousK == k + 1) {
+                // Moved down: newList[previousY] was inserted.
+                reversed.add(new Edit(true, 0, -1, prefix + previousY));
+            } else {
+                // Moved right: oldList[previousX] was deleted.
+                reversed.add(new Edit(false, 0, prefix + previousX, -1));
+            }
+            x = previousX;
+            y = previousY;
+        }
+
+        // Compute the position of each edit in the list as it is being transformed: the elements
+        // before an edit are the new elements up to newIndex, or the ones that survive from the
+        // old list up to oldIndex.
+        ArrayList<Edit> edits = new ArrayList<Edit>(reversed.size());
+        int shift = 0;
+        for (int i = reversed.size() - 1; i >= 0; i--) {
+            Edit edit = reversed.get(i);
+            if (edit.insertion) {
+                edits.add(new Edit(true, edit.newIndex, -1, edit.newIndex));
+                shift++;
+            } else {
+                edits.add(new Edit(false, edit.oldIndex + shift, edit.oldIndex, -1));
+                shift--;
+            }
+        }
+        return edits;
+    }
+}
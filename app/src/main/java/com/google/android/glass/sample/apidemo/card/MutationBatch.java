@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A set of insertions, deletions and moves recorded against a list of known size, and applied to
+ * it at once by {@link #applyTo} as the minimal set of insertions and deletions.
+ * <p>
+ * Positions refer to the content of the list after the previous mutations of the batch. Recording
+ * a mutation only remembers it, along with the range of positions touched so far; applying the
+ * batch copies and diffs that range alone, so the cost of a batch depends on how far apart its
+ * mutations are rather than on the size of the list. A batch is applied once.
+ */
+final class MutationBatch<T> {
+
+    private static final int INSERTION = 0;
+    private static final int DELETION = 1;
+    private static final int MOVE = 2;
+
+    /** A recorded mutation; {@code toPosition} is only used by moves. */
+    private static final class Mutation<T> {
+
+        final int type;
+        final int position;
+        final int toPosition;
+        final T element;
+
+        Mutation(int type, int position, int toPosition, T element) {
+            this.type = type;
+            this.position = position;
+            this.toPosition = toPosition;
+            this.element = element;
+        }
+    }
+
+    private final ArrayList<Mutation<T>> mMutations = new ArrayList<Mutation<T>>();
+    private final int mInitialSize;
+    private int mSize;
+
+    /** Number of leading elements that no mutation touched. */
+    private int mPrefix = Integer.MAX_VALUE;
+
+    /** Number of trailing elements that no mutation touched. */
+    private int mSuffix = Integer.MAX_VALUE;
+
+    /** Initializes an empty batch for a list of the specified size. */
+    MutationBatch(int size) {
+        mInitialSize = size;
+        mSize = size;
+    }
+
+    /** Inserts an element at the specified position. */
+    MutationBatch<T> insert(int position, T element) {
+        checkPosition(position, mSize + 1);
+        record(new Mutation<T>(INSERTION, position, position, element), position,
+                mSize - position);
+        mSize++;
+        return this;
+    }
+
+    /** Deletes the element at the specified position. */
+    MutationBatch<T> delete(int position) {
+        checkPosition(position, mSize);
+        record(new Mutation<T>(DELETION, position, position, null), position,
+                mSize - position - 1);
+        mSize--;
+        return this;
+    }
+
+    /** Moves an element to another position. */
+    MutationBatch<T> move(int fromPosition, int toPosition) {
+        checkPosition(fromPosition, mSize);
+        checkPosition(toPosition, mSize);
+        record(new Mutation<T>(MOVE, fromPosition, toPosition, null),
+                Math.min(fromPosition, toPosition),
+                mSize - 1 - Math.max(fromPosition, toPosition));
+        return this;
+    }
+
+    /**
+     * Applies the batch to the specified list, which must be the one it was recorded against.
+     *
+     * @return the edits that were applied, with their positions in the whole list, or
+     *         {@code null} if there were more than {@code maxEdits} and the touched range was
+     *         replaced as a whole
+     */
+    List<ListDiff.Edit> applyTo(List<T> list, int maxEdits) {
+        if (list.size() != mInitialSize) {
+            throw new IllegalStateException(
+                    "Batch recorded for " + mInitialSize + " elements, list has " + list.size());
+        }
+        if (mMutations.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        int start = mPrefix;
+        ArrayList<T> oldRange = new ArrayList<T>(list.subList(start, mInitialSize - mSuffix));
+        ArrayList<T> newRange = new ArrayList<T>(oldRange);
+        for (Mutation<T> mutation : mMutations) {
+            int position = mutation.position - start;
+            switch (mutation.type) {
+                case INSERTION:
+                    newRange.add(position, mutation.element);
+                    break;
+                case DELETION:
+                    newRange.remove(position);
+                    break;
+                default:
+                    newRange.add(mutation.toPosition - start, newRange.remove(position));
+                    break;
+            }
+        }
+
+        List<ListDiff.Edit> edits = ListDiff.compute(oldRange, newRange, maxEdits);
+        if (edits == null) {
+            for (int i = 0; i < oldRange.size(); i++) {
+                list.remove(start);
+            }
+            list.addAll(start, newRange);
+            return null;
+        }
+        ArrayList<ListDiff.Edit> applied = new ArrayList<ListDiff.Edit>(edits.size());
+        for (ListDiff.Edit edit : edits) {
+            int position = start + edit.position;
+            if (edit.insertion) {
+                list.add(position, newRange.get(edit.newIndex));
+                applied.add(new ListDiff.Edit(true, position, -1, start + edit.newIndex));
+            } else {
+                list.remove(position);
+                applied.add(new ListDiff.Edit(false, position, start + edit.oldIndex, -1));
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Records a mutation leaving the specified numbers of leading and trailing elements of the
+     * list as it is at that point untouched.
+     */
+    private void record(Mutation<T> mutation, int prefix, int suffix) {
+        mMutations.add(mutation);
+        // Untouched leading and trailing elements are those of the original list, since no
+        // previous mutation moved them either.
+        mPrefix = Math.min(mPrefix, prefix);
+        mSuffix = Math.min(mSuffix, suffix);
+    }
+
+    private static void checkPosition(int position, int limit) {
+        if (position < 0 || position >= limit) {
+            throw new IndexOutOfBoundsException("Position " + position + ", limit " + limit);
+        }
+    }
+}
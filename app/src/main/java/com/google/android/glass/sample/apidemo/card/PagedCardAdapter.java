@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import com.google.android.glass.sample.apidemo.R;
+import com.google.android.glass.widget.CardBuilder;
+import com.google.android.glass.widget.CardScrollAdapter;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AdapterView;
+
+/**
+ * Adapter class that displays cards from a {@link PagedDataSource}.
+ * <p>
+ * Cards whose page is still loading are shown as a placeholder card. Every time a card view is
+ * requested the pages around it are prefetched, so the neighbors of the card shown by the
+ * {@code CardScrollView} are usually loaded before the user swipes to them.
+ */
+public class PagedCardAdapter extends CardScrollAdapter {
+
+    /** Card displayed while the content of a card is loading. */
+    private static final CardModel PLACEHOLDER = new CardModel.Builder(CardBuilder.Layout.TEXT)
+            .setText(R.string.text_card_loading)
+            .build();
+
+    private final Context mContext;
+    private final PagedDataSource<CardModel> mDataSource;
+    private final CardViewTypes mViewTypes;
+
+    public PagedCardAdapter(Context context, PagedDataSource<CardModel> dataSource) {
+        mContext = context;
+        mDataSource = dataSource;
+        mViewTypes = new CardViewTypes(context);
+        mDataSource.setListener(new PagedDataSource.Listener() {
+
+            @Override
+            public void onPageLoaded(int offset, int count) {
+                notifyDataSetChanged();
+            }
+        });
+    }
+
+    @Override
+    public int getCount() {
+        return mDataSource.getCount();
+    }
+
+    /** Returns the card at the specified position, or a placeholder if it is still loading. */
+    @Override
+    public CardModel getItem(int position) {
+        CardModel card = mDataSource.getItem(position);
+        return card != null ? card : PLACEHOLDER;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        mDataSource.prefetchAround(position);
+        return getItem(position).newCardBuilder(mContext).getView(convertView, parent);
+    }
+
+    @Override
+    public int getViewTypeCount() {
+        return CardBuilder.getViewTypeCount();
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return mViewTypes.get(getItem(position));
+    }
+
+    @Override
+    public int getPosition(Object item) {
+        // Only a window of the cards is in memory, so cards cannot be looked up.
+        return AdapterView.INVALID_POSITION;
+    }
+}
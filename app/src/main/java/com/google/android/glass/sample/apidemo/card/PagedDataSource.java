@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.SparseArray;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Holds a window of a large data set in memory, loading it in fixed-size pages on a background
+ * thread.
+ * <p>
+ * Items are requested with {@link #getItem}, which returns {@code null} while the page holding the
+ * item is still loading; the {@link Listener} is notified once it arrives. At most
+ * {@code maxPages} pages are kept, the least recently used ones being evicted first, so memory
+ * usage does not depend on the size of the data set.
+ * <p>
+ * Except for {@link Loader#loadPage}, every method is called on the thread that created the data
+ * source, which must have a {@link Looper}.
+ */
+public class PagedDataSource<T> {
+
+    private static final String TAG = PagedDataSource.class.getSimpleName();
+
+    /** Loads the pages of the data set. */
+    public interface Loader<T> {
+
+        /**
+         * Returns the total number of items in the data set. Called once, on the thread that
+         * created the data source, so it should not do any heavy work.
+         */
+        int getCount();
+
+        /**
+         * Returns the items in {@code [offset, offset + limit)}. Called on a background thread. A
+         * page with another number of items is dropped as failed, and loaded again the next time
+         * it is requested.
+         */
+        List<T> loadPage(int offset, int limit);
+    }
+
+    /** Gets notified when pages finish loading. */
+    public interface Listener {
+
+        /** Called when the items in {@code [offset, offset + count)} become available. */
+        void onPageLoaded(int offset, int count);
+    }
+
+    private final Loader<T> mLoader;
+    private final int mPageSize;
+    private final Handler mHandler = new Handler();
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+
+    /** Loaded pages by page index, in least recently used order. */
+    private final LinkedHashMap<Integer, List<T>> mPages;
+
+    /** Pages that have been submitted to the executor and not delivered yet. */
+    private final SparseArray<Boolean> mPagesInFlight = new SparseArray<Boolean>();
+
+    private Listener mListener;
+    private int mCount = -1;
+    private boolean mClosed;
+
+    /**
+     * Initializes a new data source.
+     *
+     * @param loader loads the pages of the data set
+     * @param pageSize number of items in a page
+     * @param maxPages maximum number of pages held in memory, at least 3 so that the previous,
+     *        current and next pages all fit
+     */
+    public PagedDataSource(Loader<T> loader, int pageSize, final int maxPages) {
+        if (pageSize <= 0 || maxPages < 3) {
+            throw new IllegalArgumentException(
+                    "Invalid page size " + pageSize + " or page budget " + maxPages);
+        }
+        mLoader = loader;
+        mPageSize = pageSize;
+        mPages = new LinkedHashMap<Integer, List<T>>(maxPages + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    /** Sets the listener notified when pages finish loading. */
+    public void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    /** Returns the number of items in the data set. */
+    public int getCount() {
+        if (mCount < 0) {
+            mCount = mLoader.getCount();
+        }
+        return mCount;
+    }
+
+    /** Returns the number of items in a page. */
+    public int getPageSize() {
+        return mPageSize;
+    }
+
+    /**
+     * Returns the item at the specified position, or {@code null} if its page is not loaded yet,
+     * in which case it is requested.
+     */
+    public T getItem(int position) {
+        int page = position / mPageSize;
+        List<T> items = mPages.get(page);
+        if (items == null) {
+            requestPage(page);
+            return null;
+        }
+        return items.get(position - page * mPageSize);
+    }
+
+    /**
+     * Requests the pages around the specified position, which usually is the position of the card
+     * currently shown, so that swiping to either neighbor does not hit a placeholder.
+     */
+    public void prefetchAround(int position) {
+        int page = position / mPageSize;
+        int offset = position - page * mPageSize;
+
+        // The current page goes first so that it is loaded first.
+        requestPage(page);
+        if (offset >= mPageSize / 2) {
+            requestPage(page + 1);
+            requestPage(page - 1);
+        } else {
+            requestPage(page - 1);
+            requestPage(page + 1);
+        }
+    }
+
+    /** Stops loading pages and releases all loaded items. */
+    public void close() {
+        mClosed = true;
+        mExecutor.shutdownNow();
+        mHandler.removeCallbacksAndMessages(null);
+        mPages.clear();
+        mPagesInFlight.clear();
+    }
+
+    private void requestPage(final int page) {
+        final int offset = page * mPageSize;
+        if (mClosed || page < 0 || offset >= getCount()
+                || mPages.containsKey(page) || mPagesInFlight.get(page) != null) {
+            return;
+        }
+        final int limit = Math.min(mPageSize, getCount() - offset);
+        mPagesInFlight.put(page, Boolean.TRUE);
+        mExecutor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                List<T> loaded;
+                try {
+                    loaded = mLoader.loadPage(offset, limit);
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Failed to load page " + page, e);
+                    loaded = null;
+                }
+                // Items are looked up by their position in the page, which must be full.
+                if (loaded != null && loaded.size() != limit) {
+                    Log.e(TAG, String.format("Page %d has %d items instead of %d", page,
+                            loaded.size(), limit));
+                    loaded = null;
+                }
+                final List<T> items = loaded;
+                mHandler.post(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        if (items != null) {
+                            onPageLoaded(page, offset, items);
+                        } else {
+                            // Failed pages are loaded again the next time they are requested.
+                            mPagesInFlight.remove(page);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void onPageLoaded(int page, int offset, List<T> items) {
+        mPagesInFlight.remove(page);
+        if (mClosed) {
+            return;
+        }
+        mPages.put(page, items);
+        if (mListener != null) {
+            mListener.onPageLoaded(offset, items.size());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import com.google.android.glass.sample.apidemo.R;
+import com.google.android.glass.sample.apidemo.metrics.FrameMonitor;
+import com.google.android.glass.widget.CardBuilder;
+import com.google.android.glass.widget.CardScrollView;
+
+import android.app.Activity;
+import android.content.res.Resources;
+import android.os.Bundle;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates a feed of {@link #ITEM_COUNT} cards that are loaded in pages by a
+ * {@link PagedDataSource}, so that only a few pages around the card shown are held in memory.
+ */
+public final class PagedFeedActivity extends Activity {
+
+    /** Number of items in the feed. */
+    private static final int ITEM_COUNT = 100 * 1000;
+
+    private static final int PAGE_SIZE = 20;
+    private static final int MAX_PAGES = 5;
+
+    /** Time a page takes to load, like a query to a database would. */
+    private static final long PAGE_LOAD_MILLIS = 100;
+
+    private CardScrollView mCardScroller;
+    private FrameMonitor mFrameMonitor;
+    private PagedDataSource<CardModel> mDataSource;
+
+    /** Builds the cards of the feed on the loading thread. */
+    private static final class FeedLoader implements PagedDataSource.Loader<CardModel> {
+
+        private final Resources mResources;
+
+        FeedLoader(Resources resources) {
+            mResources = resources;
+        }
+
+        @Override
+        public int getCount() {
+            return ITEM_COUNT;
+        }
+
+        @Override
+        public List<CardModel> loadPage(int offset, int limit) {
+            SystemClock.sleep(PAGE_LOAD_MILLIS);
+            List<CardModel> cards = new ArrayList<CardModel>(limit);
+            for (int i = offset; i < offset + limit; i++) {
+                cards.add(new CardModel.Builder(CardBuilder.Layout.TEXT)
+                        .setText(mResources.getString(R.string.text_paged_feed_item, i + 1))
+                        .setFootnote(mResources.getString(
+                                R.string.text_paged_feed_page, i / PAGE_SIZE + 1))
+                        .build());
+            }
+            return cards;
+        }
+    }
+
+    @Override
+    protected void onCreate(Bundle bundle) {
+        super.onCreate(bundle);
+
+        mDataSource = new PagedDataSource<CardModel>(
+                new FeedLoader(getResources()), PAGE_SIZE, MAX_PAGES);
+        mCardScroller = new CardScrollView(this);
+        mFrameMonitor = new FrameMonitor(this, mCardScroller);
+        mCardScroller.setAdapter(new PagedCardAdapter(this, mDataSource));
+        setContentView(mCardScroller);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        mCardScroller.activate();
+        mFrameMonitor.start();
+    }
+
+    @Override
+    protected void onPause() {
+        mFrameMonitor.stop();
+        mCardScroller.deactivate();
+        super.onPause();
+    }
+
+    @Override
+    protected void onDestroy() {
+        mDataSource.close();
+        super.onDestroy();
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import com.google.android.glass.sample.apidemo.R;
+import com.google.android.glass.widget.CardScrollAdapter;
+import com.google.android.glass.widget.CardScrollView;
+
+import android.content.res.Resources;
+import android.database.DataSetObserver;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
+import android.view.Choreographer;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AdapterView;
+import android.widget.ImageView;
+
+import java.util.ArrayList;
+import java.util.WeakHashMap;
+
+/**
+ * Wraps another adapter to prerender the cards around the selected one into bitmaps while the
+ * main thread is idle, so that swiping to a card with a complex layout does not drop frames.
+ * <p>
+ * When the card scroll view asks for a card that has been prerendered, it gets an
+ * {@link ImageView} showing the snapshot, which costs nothing to create. The live view replaces
+ * the snapshot once the card is selected and the main thread is idle again. Snapshots are drawn
+ * into a small pool of bitmaps the size of a card, which are reused as the selection moves; a
+ * bitmap only goes back to the pool once the view showing it has been bound to another snapshot.
+ * When the content of the cards changes, their snapshots keep being shown until they are drawn
+ * again.
+ * <p>
+ * The adapter listens to the selection of the card scroll view, and logs the frame time of the
+ * first swipe so that it can be compared with and without prerendering.
+ */
+public class PrerenderingCardAdapter extends CardScrollAdapter {
+
+    private static final String TAG = PrerenderingCardAdapter.class.getSimpleName();
+
+    /** How far from the selected card cards are prerendered. */
+    private static final int PRERENDER_DISTANCE = 2;
+
+    /** Enough bitmaps for every card within {@link #PRERENDER_DISTANCE} of the selection. */
+    private static final int MAX_POOLED_BITMAPS = 2 * PRERENDER_DISTANCE + 1;
+
+    private final CardScrollAdapter mSource;
+    private final CardScrollView mCardScroller;
+    private final boolean mEnabled;
+    private final int mCardWidth;
+    private final int mCardHeight;
+
+    /** Snapshots by card position. */
+    private final SparseArray<Bitmap> mSnapshots = new SparseArray<Bitmap>();
+
+    /** Positions whose snapshot is out of date, shown until it is drawn again. */
+    private final SparseBooleanArray mStaleSnapshots = new SparseBooleanArray();
+
+    /** Bitmaps that are neither holding a snapshot nor shown by a view. */
+    private final ArrayList<Bitmap> mBitmapPool = new ArrayList<Bitmap>();
+
+    /** Number of snapshot views showing each bitmap, dropped with views that are not reused. */
+    private final WeakHashMap<Bitmap, Integer> mShowingCounts =
+            new WeakHashMap<Bitmap, Integer>();
+
+    /** A view of each source view type, recycled to prerender cards. */
+    private final SparseArray<View> mScrapViews = new SparseArray<View>();
+
+    private int mSourceCount;
+    private int mSelectedPosition = AdapterView.INVALID_POSITION;
+    private boolean mIdleHandlerQueued;
+    private boolean mReplaceSnapshots;
+    private boolean mSnapshotsRedrawn;
+
+    private boolean mSwiped;
+    private long mFirstSwipeStartNanos;
+    private long mFirstSwipeGetViewNanos;
+
+    /** Prerenders one card each time the main thread becomes idle, until none is left. */
+    private final MessageQueue.IdleHandler mIdleHandler = new MessageQueue.IdleHandler() {
+
+        @Override
+        public boolean queueIdle() {
+            if (mReplaceSnapshots) {
+                mReplaceSnapshots = false;
+                releaseSnapshot(mSnapshots.indexOfKey(mSelectedPosition));
+                notifyDataSetChanged();
+                return true;
+            }
+            mIdleHandlerQueued = prerenderNextCard();
+            if (!mIdleHandlerQueued && mSnapshotsRedrawn) {
+                // Shows the snapshots drawn again in place of the stale ones.
+                mSnapshotsRedrawn = false;
+                notifyDataSetChanged();
+            }
+            return mIdleHandlerQueued;
+        }
+    };
+
+    /** Marks the snapshots stale, or drops them if cards moved, before forwarding the change. */
+    private final DataSetObserver mSourceObserver = new DataSetObserver() {
+
+        @Override
+        public void onChanged() {
+            int count = mSource.getCount();
+            if (count != mSourceCount) {
+                mSourceCount = count;
+                releaseSnapshotsOutside(0, -1);
+            } else {
+                // Such as an image that arrived: the snapshots are close enough until redrawn.
+                for (int i = 0; i < mSnapshots.size(); i++) {
+                    mStaleSnapshots.put(mSnapshots.keyAt(i), true);
+                }
+            }
+            notifyDataSetChanged();
+            scheduleIdleWork();
+        }
+
+        @Override
+        public void onInvalidated() {
+            mSourceCount = mSource.getCount();
+            releaseSnapshotsOutside(0, -1);
+            notifyDataSetInvalidated();
+        }
+    };
+
+    /**
+     * Initializes a new adapter showing the cards of {@code source} in the specified card scroll
+     * view, which it sets its {@link AdapterView.OnItemSelectedListener} on. If {@code enabled} is
+     * {@code false}, cards are not prerendered, but the first swipe is still measured.
+     */
+    public PrerenderingCardAdapter(CardScrollAdapter source, CardScrollView cardScroller,
+            boolean enabled) {
+        mSource = source;
+        mCardScroller = cardScroller;
+        mEnabled = enabled;
+        Resources resources = cardScroller.getResources();
+        mCardWidth = resources.getDimensionPixelSize(R.dimen.card_width);
+        mCardHeight = resources.getDimensionPixelSize(R.dimen.card_height);
+        mSourceCount = source.getCount();
+
+        source.registerDataSetObserver(mSourceObserver);
+        cardScroller.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                // The card scroll view may be showing another adapter, such as search results.
+                if (mCardScroller.getAdapter() == PrerenderingCardAdapter.this) {
+                    onCardSelected(position);
+                }
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+    }
+
+    @Override
+    public int getCount() {
+        return mSource.getCount();
+    }
+
+    @Override
+    public Object getItem(int position) {
+        return mSource.getItem(position);
+    }
+
+    @Override
+    public int getPosition(Object item) {
+        return mSource.getPosition(item);
+    }
+
+    @Override
+    public int getViewTypeCount() {
+        // One more type for the snapshots.
+        return mSource.getViewTypeCount() + 1;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        if (mSnapshots.get(position) != null) {
+            return mSource.getViewTypeCount();
+        }
+        return mSource.getItemViewType(position);
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        boolean measure = isFirstSwipe(position);
+        long startNanos = measure ? SystemClock.elapsedRealtimeNanos() : 0;
+
+        View view;
+        Bitmap snapshot = mSnapshots.get(position);
+        if (snapshot != null) {
+            ImageView imageView;
+            Bitmap previous = null;
+            if (convertView instanceof ImageView) {
+                imageView = (ImageView) convertView;
+                previous = (Bitmap) imageView.getTag();
+            } else {
+                imageView = new ImageView(mCardScroller.getContext());
+            }
+            imageView.setImageBitmap(snapshot);
+            imageView.setTag(snapshot);
+            mShowingCounts.put(snapshot, getShowingCount(snapshot) + 1);
+            if (previous != null) {
+                onSnapshotHidden(previous);
+            }
+            view = imageView;
+        } else {
+            view = mSource.getView(position, convertView, parent);
+        }
+
+        if (measure) {
+            measureFirstSwipe(startNanos, snapshot != null);
+        }
+        return view;
+    }
+
+    /** Releases the bitmaps of the snapshots. The adapter must not be used afterwards. */
+    public void release() {
+        Looper.myQueue().removeIdleHandler(mIdleHandler);
+        mIdleHandlerQueued = false;
+        mSource.unregisterDataSetObserver(mSourceObserver);
+        releaseSnapshotsOutside(0, -1);
+        for (Bitmap bitmap : mBitmapPool) {
+            bitmap.recycle();
+        }
+        mBitmapPool.clear();
+        // The bitmaps still shown are left to the garbage collector.
+        mShowingCounts.clear();
+        mScrapViews.clear();
+    }
+
+    private void onCardSelected(int position) {
+        if (mSelectedPosition != AdapterView.INVALID_POSITION && position != mSelectedPosition) {
+            mSwiped = true;
+        }
+        mSelectedPosition = position;
+        if (!mEnabled) {
+            return;
+        }
+        // Free the bitmaps of the cards that went out of reach, and replace the snapshot of the
+        // selected card with its live view.
+        releaseSnapshotsOutside(position - PRERENDER_DISTANCE, position + PRERENDER_DISTANCE);
+        mReplaceSnapshots = mSnapshots.get(position) != null;
+        scheduleIdleWork();
+    }
+
+    private void scheduleIdleWork() {
+        if (mEnabled && !mIdleHandlerQueued) {
+            mIdleHandlerQueued = true;
+            Looper.myQueue().addIdleHandler(mIdleHandler);
+        }
+    }
+
+    /**
+     * Prerenders the closest card to the selection that has no snapshot yet, returning whether
+     * more cards are left to prerender.
+     */
+    private boolean prerenderNextCard() {
+        if (mSelectedPosition == AdapterView.INVALID_POSITION) {
+            return false;
+        }
+        for (int distance = 1; distance <= PRERENDER_DISTANCE; distance++) {
+            for (int sign = 1; sign >= -1; sign -= 2) {
+                int position = mSelectedPosition + sign * distance;
+                if (position >= 0 && position < mSource.getCount()
+                        && (mSnapshots.get(position) == null || mStaleSnapshots.get(position))) {
+                    prerender(position);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Draws the card at the specified position into a pooled bitmap, replacing a stale one. */
+    private void prerender(int position) {
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        int viewType = mSource.getItemViewType(position);
+        View view = mSource.getView(position, mScrapViews.get(viewType), mCardScroller);
+        mScrapViews.put(viewType, view);
+
+        view.measure(View.MeasureSpec.makeMeasureSpec(mCardWidth, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(mCardHeight, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, mCardWidth, mCardHeight);
+
+        Bitmap bitmap = mBitmapPool.isEmpty()
+                ? Bitmap.createBitmap(mCardWidth, mCardHeight, Bitmap.Config.ARGB_8888)
+                : mBitmapPool.remove(mBitmapPool.size() - 1);
+        bitmap.eraseColor(Color.BLACK);
+        view.draw(new Canvas(bitmap));
+        int index = mSnapshots.indexOfKey(position);
+        if (index >= 0) {
+            releaseSnapshot(index);
+            mSnapshotsRedrawn = true;
+        }
+        mSnapshots.put(position, bitmap);
+
+        Log.v(TAG, String.format("Prerendered card %d in %d us",
+                position, (SystemClock.elapsedRealtimeNanos() - startNanos) / 1000));
+    }
+
+    /**
+     * Releases the snapshots outside of {@code [from, to]}, or all of them if the range is empty.
+     */
+    private void releaseSnapshotsOutside(int from, int to) {
+        for (int i = mSnapshots.size() - 1; i >= 0; i--) {
+            int position = mSnapshots.keyAt(i);
+            if (position < from || position > to || from > to) {
+                releaseSnapshot(i);
+            }
+        }
+    }
+
+    /**
+     * Drops the snapshot at the specified index, if any, and returns its bitmap to the pool unless
+     * a view still shows it.
+     */
+    private void releaseSnapshot(int index) {
+        if (index < 0) {
+            return;
+        }
+        Bitmap bitmap = mSnapshots.valueAt(index);
+        mStaleSnapshots.delete(mSnapshots.keyAt(index));
+        mSnapshots.removeAt(index);
+        if (getShowingCount(bitmap) == 0) {
+            poolBitmap(bitmap);
+        }
+    }
+
+    /** Called when a view stops showing a bitmap, to pool it once nothing uses it anymore. */
+    private void onSnapshotHidden(Bitmap bitmap) {
+        int count = getShowingCount(bitmap) - 1;
+        if (count > 0) {
+            mShowingCounts.put(bitmap, count);
+            return;
+        }
+        mShowingCounts.remove(bitmap);
+        if (mSnapshots.indexOfValue(bitmap) < 0) {
+            poolBitmap(bitmap);
+        }
+    }
+
+    private int getShowingCount(Bitmap bitmap) {
+        Integer count = mShowingCounts.get(bitmap);
+        return count != null ? count : 0;
+    }
+
+    /** Keeps a bitmap that no view shows for the next snapshot, if the pool is not full. */
+    private void poolBitmap(Bitmap bitmap) {
+        if (mBitmapPool.size() < MAX_POOLED_BITMAPS) {
+            mBitmapPool.add(bitmap);
+        } else {
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * Returns whether a view is requested for the first time after the first swipe, which is
+     * when the card scroll view builds the card that just came within reach.
+     */
+    private boolean isFirstSwipe(int position) {
+        return mSwiped && mFirstSwipeStartNanos == 0 && position != mSelectedPosition;
+    }
+
+    /**
+     * Measures the frame in which the first swipe asked for a card: the time spent getting its
+     * view and the time until the next frame starts.
+     */
+    private void measureFirstSwipe(long startNanos, final boolean fromSnapshot) {
+        mFirstSwipeStartNanos = startNanos;
+        mFirstSwipeGetViewNanos = SystemClock.elapsedRealtimeNanos() - startNanos;
+        Choreographer.getInstance().postFrameCallback(new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                long frameNanos = SystemClock.elapsedRealtimeNanos() - mFirstSwipeStartNanos;
+                Log.i(TAG, String.format(
+                        "First swipe (prerendering %s, %s): getView %d us, frame %d us",
+                        mEnabled ? "on" : "off", fromSnapshot ? "snapshot" : "live view",
+                        mFirstSwipeGetViewNanos / 1000, frameNanos / 1000));
+            }
+        });
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Column-oriented storage of the rows of a simple table, which are converted into views by
+ * {@link EmbeddedCardLayoutAdapter}.
+ * <p>
+ * Instead of one {@link SimpleTableItem} per row, icons are kept in an {@code int[]} and each text
+ * column is a single UTF-8 byte array indexed by row offsets, so large tables take a fraction of
+ * the memory and reading a row allocates nothing: text is decoded into caller-provided buffers.
+ */
+public final class SimpleTable implements SimpleTableRows {
+
+    /** Column holding the primary text of the rows. */
+    public static final int PRIMARY_TEXT = 0;
+
+    /** Column holding the secondary text of the rows. */
+    public static final int SECONDARY_TEXT = 1;
+
+    private static final int COLUMN_COUNT = 2;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** Stands for the bytes of a text that are not valid UTF-8. */
+    static final char REPLACEMENT_CHARACTER = '\ufffd';
+
+    /** Smallest code point of a UTF-8 sequence by number of continuation bytes. */
+    static final int[] MIN_CODE_POINTS = {0, 0x80, 0x800, 0x10000};
+
+    private final int mSize;
+    private final int[] mIconResIds;
+
+    /** UTF-8 bytes of each text column. */
+    private final byte[][] mTextBytes;
+
+    /** Offsets of the text of each row in each text column, with one extra trailing offset. */
+    private final int[][] mTextOffsets;
+
+    private SimpleTable(Builder builder) {
+        mSize = builder.mSize;
+        mIconResIds = Arrays.copyOf(builder.mIconResIds, mSize);
+        mTextBytes = new byte[COLUMN_COUNT][];
+        mTextOffsets = new int[COLUMN_COUNT][];
+        for (int column = 0; column < COLUMN_COUNT; column++) {
+            mTextOffsets[column] = Arrays.copyOf(builder.mTextOffsets[column], mSize + 1);
+            mTextBytes[column] = Arrays.copyOf(
+                    builder.mTextBytes[column], mTextOffsets[column][mSize]);
+        }
+    }
+
+    /** Returns a table holding the specified items. */
+    public static SimpleTable copyOf(List<SimpleTableItem> items) {
+        Builder builder = new Builder(items.size());
+        for (SimpleTableItem item : items) {
+            builder.add(item.iconResId, item.primaryText, item.secondaryText);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public int getIconResId(int row) {
+        return mIconResIds[row];
+    }
+
+    @Override
+    public int getTextCapacity(int column, int row) {
+        int[] offsets = mTextOffsets[column];
+        return offsets[row + 1] - offsets[row];
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Bytes that are not valid UTF-8, which {@link Builder#add} does not check, are replaced with
+     * U+FFFD, so that no row reads past its own text.
+     */
+    @Override
+    public int decodeText(int column, int row, char[] buffer) {
+        byte[] bytes = mTextBytes[column];
+        int[] offsets = mTextOffsets[column];
+        int end = offsets[row + 1];
+        int length = 0;
+        for (int i = offsets[row]; i < end; ) {
+            int b = bytes[i++] & 0xff;
+            if (b < 0x80) {
+                buffer[length++] = (char) b;
+            } else {
+                int count = b >= 0xf0 ? 3 : (b >= 0xe0 ? 2 : 1);
+                int codePoint = b & (0x3f >> count);
+                // A continuation byte or a lead byte past U+10FFFF starts no sequence.
+                boolean valid = b >= 0xc0 && b < 0xf5;
+                for (int j = 0; j < count && valid; j++) {
+                    int c = i < end ? bytes[i] & 0xff : 0;
+                    valid = (c & 0xc0) == 0x80;
+                    if (valid) {
+                        codePoint = (codePoint << 6) | (c & 0x3f);
+                        i++;
+                    }
+                }
+                if (valid && codePoint >= MIN_CODE_POINTS[count]
+                        && codePoint <= Character.MAX_CODE_POINT
+                        && (codePoint < Character.MIN_SURROGATE
+                                || codePoint > Character.MAX_SURROGATE)) {
+                    length += Character.toChars(codePoint, buffer, length);
+                } else {
+                    // The bytes read so far are replaced, and the next one starts over.
+                    buffer[length++] = REPLACEMENT_CHARACTER;
+                }
+            }
+        }
+        return length;
+    }
+
+    /** Returns the text of the specified column and row. Allocates, unlike {@link #decodeText}. */
+    public String getText(int column, int row) {
+        int[] offsets = mTextOffsets[column];
+        return new String(mTextBytes[column], offsets[row], offsets[row + 1] - offsets[row], UTF_8);
+    }
+
+    /** Returns the specified row as a new {@link SimpleTableItem}. */
+    public SimpleTableItem getItem(int row) {
+        return new SimpleTableItem(getIconResId(row),
+                getText(PRIMARY_TEXT, row), getText(SECONDARY_TEXT, row));
+    }
+
+    /** Builds {@link SimpleTable} instances row by row. */
+    public static final class Builder {
+
+        private int mSize;
+        private int[] mIconResIds;
+        private final byte[][] mTextBytes = new byte[COLUMN_COUNT][];
+        private final int[][] mTextOffsets = new int[COLUMN_COUNT][];
+
+        public Builder() {
+            this(16);
+        }
+
+        /** Initializes a new builder with room for the specified number of rows. */
+        public Builder(int expectedRowCount) {
+            int capacity = Math.max(1, expectedRowCount);
+            mIconResIds = new int[capacity];
+            for (int column = 0; column < COLUMN_COUNT; column++) {
+                mTextBytes[column] = new byte[capacity * 16];
+                mTextOffsets[column] = new int[capacity + 1];
+            }
+        }
+
+        /** Appends a row. */
+        public Builder add(int iconResId, CharSequence primaryText, CharSequence secondaryText) {
+            byte[] primary = primaryText.toString().getBytes(UTF_8);
+            byte[] secondary = secondaryText.toString().getBytes(UTF_8);
+            return add(iconResId, primary, 0, primary.length, secondary, 0, secondary.length);
+        }
+
+        /**
+         * Appends a row whose text is already encoded in UTF-8. Bytes that are not valid UTF-8
+         * are kept and decode to U+FFFD.
+         */
+        public Builder add(int iconResId, byte[] primary, int primaryOffset, int primaryLength,
+                byte[] secondary, int secondaryOffset, int secondaryLength) {
+            if (mSize == mIconResIds.length) {
+                int capacity = mSize * 2;
+                mIconResIds = Arrays.copyOf(mIconResIds, capacity);
+                for (int column = 0; column < COLUMN_COUNT; column++) {
+                    mTextOffsets[column] = Arrays.copyOf(mTextOffsets[column], capacity + 1);
+                }
+            }
+            mIconResIds[mSize] = iconResId;
+            appendText(PRIMARY_TEXT, primary, primaryOffset, primaryLength);
+            appendText(SECONDARY_TEXT, secondary, secondaryOffset, secondaryLength);
+            mSize++;
+            return this;
+        }
+
+        public SimpleTable build() {
+            return new SimpleTable(this);
+        }
+
+        private void appendText(int column, byte[] text, int offset, int length) {
+            int start = mTextOffsets[column][mSize];
+            int end = start + length;
+            if (end > mTextBytes[column].length) {
+                mTextBytes[column] =
+                        Arrays.copyOf(mTextBytes[column], Math.max(end, start * 2));
+            }
+            System.arraycopy(text, offset, mTextBytes[column], start, length);
+            mTextOffsets[column][mSize + 1] = end;
+        }
+    }
+}
@@ -0,0 +1,569 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+import android.content.res.Resources;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A simple table read directly from a memory-mapped CSV or JSON file, so that opening a large
+ * data set takes constant time and memory.
+ * <p>
+ * A CSV file starts with a header line, which is skipped, followed by one {@code icon,primary,
+ * secondary} row per line; fields may be quoted as in RFC 4180. A JSON file holds an array (or a
+ * sequence) of {@code {"icon": ..., "primary": ..., "secondary": ...}} objects. The icon is the
+ * name of a drawable resource.
+ * <p>
+ * The file is indexed in one pass on a background thread, which only remembers the offset of one
+ * row in {@link #CHECKPOINT_INTERVAL}: the other rows are found by scanning forward from the
+ * closest checkpoint when they are read. Rows become readable as soon as they are indexed, and the
+ * {@link Listener} is notified as {@link #size} grows. Except for the indexing, every method is
+ * called on the thread that opened the file, which must have a {@link android.os.Looper}.
+ */
+public class SimpleTableFile implements SimpleTableRows {
+
+    private static final String TAG = SimpleTableFile.class.getSimpleName();
+
+    /** Gets notified while the file is being indexed. */
+    public interface Listener {
+
+        /**
+         * Called when more rows are available, and a last time with {@code complete} set once the
+         * whole file has been indexed.
+         */
+        void onRowsIndexed(int rowCount, boolean complete);
+    }
+
+    /** Number of rows between two remembered row offsets. */
+    private static final int CHECKPOINT_INTERVAL = 64;
+
+    /** Minimum time between two notifications of the listener while indexing. */
+    private static final long PUBLISH_INTERVAL_MILLIS = 100;
+
+    private static final byte[][] JSON_KEYS = {
+        "icon".getBytes(), "primary".getBytes(), "secondary".getBytes(),
+    };
+
+    /** How a field is escaped, which {@link #decodeField} needs to know. */
+    private static final int ESCAPE_NONE = 0;
+    private static final int ESCAPE_CSV = 1;
+    private static final int ESCAPE_JSON = 2;
+
+    private final Resources mResources;
+    private final String mPackageName;
+    private final RandomAccessFile mFile;
+    private final ByteBuffer mBuffer;
+    private final boolean mJson;
+    private final Handler mHandler = new Handler();
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+
+    /** Icon resource IDs by drawable name. */
+    private final Map<String, Integer> mIconResIds = new HashMap<String, Integer>();
+
+    /** Offsets of every {@link #CHECKPOINT_INTERVAL}-th row, published by the indexing thread. */
+    private int[] mCheckpoints = new int[0];
+    private int mRowCount;
+    private volatile boolean mClosed;
+    private Listener mListener;
+
+    /** The last row located, to read rows of the same card without scanning again. */
+    private int mCachedRow = -1;
+    private int mCachedRowOffset;
+
+    /** Start, end and escape mode of the last field located. */
+    private final int[] mField = new int[3];
+
+    private char[] mIconBuffer = new char[32];
+
+    private SimpleTableFile(Resources resources, String packageName, File file)
+            throws IOException {
+        mResources = resources;
+        mPackageName = packageName;
+        mFile = new RandomAccessFile(file, "r");
+        FileChannel channel = mFile.getChannel();
+        if (channel.size() > Integer.MAX_VALUE) {
+            mFile.close();
+            throw new IOException("File too large: " + file);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        mBuffer = buffer;
+        // Tell JSON from CSV by the first character of the file.
+        int first = skipWhitespace(buffer, 0);
+        byte firstByte = first < buffer.limit() ? buffer.get(first) : 0;
+        mJson = firstByte == '[' || firstByte == '{';
+    }
+
+    /**
+     * Opens the specified file and starts indexing it. The drawables named in the file are looked
+     * up in the resources of {@code packageName}.
+     */
+    public static SimpleTableFile open(Resources resources, String packageName, File file)
+            throws IOException {
+        final SimpleTableFile table = new SimpleTableFile(resources, packageName, file);
+        // The indexing thread scans its own view of the file, which does not share any state.
+        final ByteBuffer buffer = table.mBuffer.duplicate();
+        table.mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                table.index(buffer);
+            }
+        });
+        return table;
+    }
+
+    /** Sets the listener notified while the file is being indexed. */
+    public void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    /** Stops indexing and releases the file. */
+    public void close() {
+        mClosed = true;
+        mExecutor.shutdownNow();
+        mHandler.removeCallbacksAndMessages(null);
+        try {
+            mFile.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to close table file", e);
+        }
+    }
+
+    @Override
+    public int size() {
+        return mRowCount;
+    }
+
+    @Override
+    public int getIconResId(int row) {
+        findField(row, 0);
+        int capacity = mField[1] - mField[0];
+        if (mIconBuffer.length < capacity) {
+            mIconBuffer = new char[capacity];
+        }
+        int length = decodeField(mIconBuffer);
+        if (length == 0) {
+            return 0;
+        }
+        String name = new String(mIconBuffer, 0, length);
+        Integer resId = mIconResIds.get(name);
+        if (resId == null) {
+            resId = mResources.getIdentifier(name, "drawable", mPackageName);
+            mIconResIds.put(name, resId);
+        }
+        return resId;
+    }
+
+    @Override
+    public int getTextCapacity(int column, int row) {
+        findField(row, column + 1);
+        // A char never takes less than one byte, escaped or not.
+        return mField[1] - mField[0];
+    }
+
+    @Override
+    public int decodeText(int column, int row, char[] buffer) {
+        findField(row, column + 1);
+        return decodeField(buffer);
+    }
+
+    /** Indexes the file, publishing the rows found on the thread that opened it. */
+    private void index(ByteBuffer buffer) {
+        long startMillis = SystemClock.uptimeMillis();
+        long lastPublishMillis = startMillis;
+        int[] checkpoints = new int[16];
+        int rowCount = 0;
+        int offset = firstRowStart(buffer);
+        while (offset >= 0) {
+            if (mClosed) {
+                return;
+            }
+            if (rowCount % CHECKPOINT_INTERVAL == 0) {
+                int checkpoint = rowCount / CHECKPOINT_INTERVAL;
+                if (checkpoint == checkpoints.length) {
+                    checkpoints = Arrays.copyOf(checkpoints, checkpoint * 2);
+                }
+                checkpoints[checkpoint] = offset;
+            }
+            rowCount++;
+            offset = nextRowStart(buffer, offset);
+
+            // Publish the first rows right away so that the first card can be shown.
+            long nowMillis = SystemClock.uptimeMillis();
+            if (rowCount == CHECKPOINT_INTERVAL
+                    || nowMillis - lastPublishMillis >= PUBLISH_INTERVAL_MILLIS) {
+                publish(checkpoints, rowCount, false);
+                lastPublishMillis = nowMillis;
+            }
+        }
+        publish(checkpoints, rowCount, true);
+        Log.d(TAG, String.format("Indexed %d rows in %d ms",
+                rowCount, SystemClock.uptimeMillis() - startMillis));
+    }
+
+    /**
+     * Hands the index over to the thread that opened the file. The checkpoints below
+     * {@code rowCount} are never written again, so the array can be shared.
+     */
+    private void publish(final int[] checkpoints, final int rowCount, final boolean complete) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (mClosed) {
+                    return;
+                }
+                mCheckpoints = checkpoints;
+                mRowCount = rowCount;
+                if (mListener != null) {
+                    mListener.onRowsIndexed(rowCount, complete);
+                }
+            }
+        });
+    }
+
+    /** Returns the offset of the specified row, scanning from the closest known row. */
+    private int findRow(int row) {
+        if (row < 0 || row >= mRowCount) {
+            throw new IndexOutOfBoundsException("Invalid row " + row + ", size is " + mRowCount);
+        }
+        int current;
+        int offset;
+        int checkpoint = row / CHECKPOINT_INTERVAL;
+        if (mCachedRow >= 0 && mCachedRow <= row
+                && mCachedRow / CHECKPOINT_INTERVAL == checkpoint) {
+            current = mCachedRow;
+            offset = mCachedRowOffset;
+        } else {
+            current = checkpoint * CHECKPOINT_INTERVAL;
+            offset = mCheckpoints[checkpoint];
+        }
+        while (current < row) {
+            offset = nextRowStart(mBuffer, offset);
+            current++;
+        }
+        mCachedRow = row;
+        mCachedRowOffset = offset;
+        return offset;
+    }
+
+    /** Locates a field of the specified row into {@link #mField}; missing fields are empty. */
+    private void findField(int row, int field) {
+        int offset = findRow(row);
+        if (mJson) {
+            findJsonField(offset, field);
+        } else {
+            findCsvField(offset, field);
+        }
+    }
+
+    private void findCsvField(int offset, int field) {
+        ByteBuffer buffer = mBuffer;
+        int limit = buffer.limit();
+        for (int i = 0; ; i++) {
+            int start;
+            int end;
+            int escape;
+            if (offset < limit && buffer.get(offset) == '"') {
+                start = offset + 1;
+                end = start;
+                while (end < limit) {
+                    if (buffer.get(end) == '"') {
+                        if (end + 1 < limit && buffer.get(end + 1) == '"') {
+                            end += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    end++;
+                }
+                offset = Math.min(end + 1, limit);
+                escape = ESCAPE_CSV;
+            } else {
+                start = offset;
+                end = offset;
+                while (end < limit && !isCsvSeparator(buffer.get(end))) {
+                    end++;
+                }
+                offset = end;
+                escape = ESCAPE_NONE;
+            }
+            if (i == field) {
+                setField(start, end, escape);
+                return;
+            }
+            if (offset >= limit || buffer.get(offset) != ',') {
+                setField(offset, offset, ESCAPE_NONE);
+                return;
+            }
+            offset++;
+        }
+    }
+
+    private void findJsonField(int offset, int field) {
+        ByteBuffer buffer = mBuffer;
+        int limit = buffer.limit();
+        byte[] key = JSON_KEYS[field];
+        // Skip the opening brace.
+        offset++;
+        while (true) {
+            offset = skipWhitespace(buffer, offset);
+            if (offset < limit && buffer.get(offset) == ',') {
+                offset = skipWhitespace(buffer, offset + 1);
+            }
+            if (offset >= limit || buffer.get(offset) != '"') {
+                setField(offset, offset, ESCAPE_NONE);
+                return;
+            }
+            int keyStart = offset + 1;
+            int keyEnd = skipJsonString(buffer, offset) - 1;
+            offset = skipWhitespace(buffer, keyEnd + 1);
+            if (offset < limit && buffer.get(offset) == ':') {
+                offset = skipWhitespace(buffer, offset + 1);
+            }
+            int valueEnd = skipJsonValue(buffer, offset);
+            if (keyEquals(buffer, keyStart, keyEnd, key)) {
+                if (offset < limit && buffer.get(offset) == '"') {
+                    setField(offset + 1, valueEnd - 1, ESCAPE_JSON);
+                } else {
+                    setField(offset, valueEnd, ESCAPE_NONE);
+                }
+                return;
+            }
+            offset = valueEnd;
+        }
+    }
+
+    private void setField(int start, int end, int escape) {
+        mField[0] = start;
+        mField[1] = Math.max(start, end);
+        mField[2] = escape;
+    }
+
+    /** Decodes the UTF-8 text of the field located last into {@code buffer}. */
+    private int decodeField(char[] buffer) {
+        ByteBuffer bytes = mBuffer;
+        int length = 0;
+        int end = mField[1];
+        int escape = mField[2];
+        for (int i = mField[0]; i < end; ) {
+            int b = bytes.get(i++) & 0xff;
+            if (escape == ESCAPE_CSV && b == '"') {
+                // A doubled quote stands for one quote.
+                if (i < end && bytes.get(i) == '"') {
+                    i++;
+                }
+                buffer[length++] = '"';
+            } else if (escape == ESCAPE_JSON && b == '\\' && i < end) {
+                int escaped = bytes.get(i++);
+                switch (escaped) {
+                    case 'b': buffer[length++] = '\b'; break;
+                    case 'f': buffer[length++] = '\f'; break;
+                    case 'n': buffer[length++] = '\n'; break;
+                    case 'r': buffer[length++] = '\r'; break;
+                    case 't': buffer[length++] = '\t'; break;
+                    case 'u': {
+                        int c = 0;
+                        int j = 0;
+                        for (; j < 4 && i < end; j++) {
+                            int digit = Character.digit(bytes.get(i), 16);
+                            if (digit < 0) {
+                                break;
+                            }
+                            c = (c << 4) | digit;
+                            i++;
+                        }
+                        buffer[length++] = j == 4 ? (char) c : SimpleTable.REPLACEMENT_CHARACTER;
+                        break;
+                    }
+                    default: buffer[length++] = (char) escaped; break;
+                }
+            } else if (b < 0x80) {
+                buffer[length++] = (char) b;
+            } else {
+                int count = b >= 0xf0 ? 3 : (b >= 0xe0 ? 2 : 1);
+                int codePoint = b & (0x3f >> count);
+                // A continuation byte or a lead byte past U+10FFFF starts no sequence.
+                boolean valid = b >= 0xc0 && b < 0xf5;
+                for (int j = 0; j < count && valid; j++) {
+                    int c = i < end ? bytes.get(i) & 0xff : 0;
+                    valid = (c & 0xc0) == 0x80;
+                    if (valid) {
+                        codePoint = (codePoint << 6) | (c & 0x3f);
+                        i++;
+                    }
+                }
+                if (valid && codePoint >= SimpleTable.MIN_CODE_POINTS[count]
+                        && codePoint <= Character.MAX_CODE_POINT
+                        && (codePoint < Character.MIN_SURROGATE
+                                || codePoint > Character.MAX_SURROGATE)) {
+                    length += Character.toChars(codePoint, buffer, length);
+                } else {
+                    // The bytes read so far are replaced, and the next one starts over.
+                    buffer[length++] = SimpleTable.REPLACEMENT_CHARACTER;
+                }
+            }
+        }
+        return length;
+    }
+
+    /** Returns the offset of the first row, or -1 if there is none. */
+    private int firstRowStart(ByteBuffer buffer) {
+        if (mJson) {
+            return nextJsonObject(buffer, 0);
+        }
+        // Skip the header line.
+        return skipBlankLines(buffer, skipCsvLine(buffer, 0));
+    }
+
+    /** Returns the offset of the row after the one at {@code offset}, or -1 if there is none. */
+    private int nextRowStart(ByteBuffer buffer, int offset) {
+        if (mJson) {
+            return nextJsonObject(buffer, skipJsonValue(buffer, offset));
+        }
+        return skipBlankLines(buffer, skipCsvLine(buffer, offset));
+    }
+
+    /** Returns the offset following the end of the CSV line at {@code offset}. */
+    private static int skipCsvLine(ByteBuffer buffer, int offset) {
+        int limit = buffer.limit();
+        boolean quoted = false;
+        while (offset < limit) {
+            byte b = buffer.get(offset++);
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                break;
+            }
+        }
+        return offset;
+    }
+
+    private static int skipBlankLines(ByteBuffer buffer, int offset) {
+        int limit = buffer.limit();
+        while (offset < limit && (buffer.get(offset) == '\n' || buffer.get(offset) == '\r')) {
+            offset++;
+        }
+        return offset < limit ? offset : -1;
+    }
+
+    private static boolean isCsvSeparator(byte b) {
+        return b == ',' || b == '\n' || b == '\r';
+    }
+
+    /** Returns the offset of the next object at the top level, or -1 if there is none. */
+    private static int nextJsonObject(ByteBuffer buffer, int offset) {
+        int limit = buffer.limit();
+        while (offset < limit) {
+            byte b = buffer.get(offset);
+            if (b == '{') {
+                return offset;
+            }
+            // Skip the brackets and commas around the objects, and anything unexpected.
+            offset = b == '"' ? skipJsonString(buffer, offset) : offset + 1;
+        }
+        return -1;
+    }
+
+    /** Returns the offset following the JSON value at {@code offset}. */
+    private static int skipJsonValue(ByteBuffer buffer, int offset) {
+        int limit = buffer.limit();
+        if (offset >= limit) {
+            return limit;
+        }
+        byte first = buffer.get(offset);
+        if (first == '"') {
+            return skipJsonString(buffer, offset);
+        }
+        if (first != '{' && first != '[') {
+            while (offset < limit) {
+                byte b = buffer.get(offset);
+                if (b == ',' || b == '}' || b == ']' || isWhitespace(b)) {
+                    break;
+                }
+                offset++;
+            }
+            return offset;
+        }
+        int depth = 0;
+        while (offset < limit) {
+            byte b = buffer.get(offset);
+            if (b == '"') {
+                offset = skipJsonString(buffer, offset);
+                continue;
+            }
+            offset++;
+            if (b == '{' || b == '[') {
+                depth++;
+            } else if ((b == '}' || b == ']') && --depth == 0) {
+                break;
+            }
+        }
+        return offset;
+    }
+
+    /** Returns the offset following the closing quote of the JSON string at {@code offset}. */
+    private static int skipJsonString(ByteBuffer buffer, int offset) {
+        int limit = buffer.limit();
+        offset++;
+        while (offset < limit) {
+            byte b = buffer.get(offset++);
+            if (b == '\\') {
+                offset++;
+            } else if (b == '"') {
+                break;
+            }
+        }
+        return Math.min(offset, limit);
+    }
+
+    private static int skipWhitespace(ByteBuffer buffer, int offset) {
+        int limit = buffer.limit();
+        while (offset < limit && isWhitespace(buffer.get(offset))) {
+            offset++;
+        }
+        return offset;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static boolean keyEquals(ByteBuffer buffer, int start, int end, byte[] key) {
+        if (end - start != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.card;
+
+/**
+ * Read access to the rows of a simple table, which are converted into views by
+ * {@link EmbeddedCardLayoutAdapter}.
+ * <p>
+ * Text is decoded into caller-provided buffers so that rows can be read without allocating.
+ */
+public interface SimpleTableRows {
+
+    /** Returns the number of rows in the table. */
+    int size();
+
+    /** Returns the image resource ID of the specified row. */
+    int getIconResId(int row);
+
+    /**
+     * Returns the maximum number of chars the text of the specified column and row decodes to,
+     * which is the size a buffer passed to {@link #decodeText} needs.
+     */
+    int getTextCapacity(int column, int row);
+
+    /**
+     * Decodes the text of the specified column and row into {@code buffer}, which must hold at
+     * least {@link #getTextCapacity} chars, and returns the number of chars written.
+     */
+    int decodeText(int column, int row, char[] buffer);
+}
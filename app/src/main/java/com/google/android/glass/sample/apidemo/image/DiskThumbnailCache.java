@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.image;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Stores pre-scaled thumbnails as files so that they do not need to be downsampled from the full
+ * size image again, bounded in bytes on disk.
+ * <p>
+ * All methods do disk I/O and must be called on a worker thread.
+ */
+public class DiskThumbnailCache {
+
+    private static final String TAG = DiskThumbnailCache.class.getSimpleName();
+
+    /** Quality used to compress thumbnails without an alpha channel. */
+    private static final int JPEG_QUALITY = 90;
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File mDirectory;
+    private final long mMaxBytes;
+
+    /** Number of bytes on disk, or -1 if the directory has not been scanned yet. */
+    private long mBytes = -1;
+
+    private int mHitCount;
+    private int mMissCount;
+    private int mEvictionCount;
+
+    /**
+     * Initializes a new cache.
+     *
+     * @param directory directory holding the thumbnails, created if needed
+     * @param maxBytes maximum number of bytes the thumbnails may use on disk
+     */
+    public DiskThumbnailCache(File directory, long maxBytes) {
+        mDirectory = directory;
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Decodes the thumbnail stored under the specified key, or returns {@code null} if there is
+     * none.
+     */
+    public synchronized Bitmap get(String key, BitmapFactory.Options options) {
+        File file = new File(mDirectory, key);
+        if (!file.isFile()) {
+            mMissCount++;
+            return null;
+        }
+        Bitmap bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+        if (bitmap == null) {
+            // The file is corrupted, drop it.
+            Log.w(TAG, "Could not decode thumbnail " + key);
+            deleteFile(file);
+            mMissCount++;
+            return null;
+        }
+        // Keep track of recent use for eviction.
+        file.setLastModified(System.currentTimeMillis());
+        mHitCount++;
+        return bitmap;
+    }
+
+    /** Stores a thumbnail under the specified key, evicting older ones if needed. */
+    public synchronized void put(String key, Bitmap bitmap) {
+        ensureScanned();
+
+        File file = new File(mDirectory, key);
+        File tempFile = new File(mDirectory, key + TEMP_SUFFIX);
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(tempFile);
+            if (bitmap.hasAlpha()) {
+                bitmap.compress(Bitmap.CompressFormat.PNG, 0, out);
+            } else {
+                bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+            }
+            out.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write thumbnail " + key, e);
+            tempFile.delete();
+            return;
+        } finally {
+            closeQuietly(out);
+        }
+
+        if (file.exists()) {
+            deleteFile(file);
+        }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            return;
+        }
+        mBytes += file.length();
+        trimToSize();
+    }
+
+    /** Returns the number of lookups that found a thumbnail. */
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    /** Returns the number of lookups that did not find a thumbnail. */
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    /** Returns the number of thumbnails deleted to stay within the size budget. */
+    public synchronized int getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    /** Returns the number of bytes used on disk. */
+    public synchronized long getSize() {
+        ensureScanned();
+        return mBytes;
+    }
+
+    private void ensureScanned() {
+        if (mBytes >= 0) {
+            return;
+        }
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            Log.w(TAG, "Could not create " + mDirectory);
+        }
+        mBytes = 0;
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(TEMP_SUFFIX)) {
+                    file.delete();
+                } else {
+                    mBytes += file.length();
+                }
+            }
+        }
+    }
+
+    /** Deletes the least recently used thumbnails until the cache fits its budget. */
+    private void trimToSize() {
+        if (mBytes <= mMaxBytes) {
+            return;
+        }
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+
+            @Override
+            public int compare(File lhs, File rhs) {
+                long lhsModified = lhs.lastModified();
+                long rhsModified = rhs.lastModified();
+                return lhsModified < rhsModified ? -1 : (lhsModified == rhsModified ? 0 : 1);
+            }
+        });
+        for (int i = 0; i < files.length && mBytes > mMaxBytes; i++) {
+            deleteFile(files[i]);
+            mEvictionCount++;
+        }
+    }
+
+    private void deleteFile(File file) {
+        long length = file.length();
+        if (file.delete() && mBytes >= 0) {
+            mBytes -= length;
+        }
+    }
+
+    private static void closeQuietly(OutputStream out) {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                // Only reached if writing already failed, the file is discarded.
+            }
+        }
+    }
+}
@@ -0,0 +1,625 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.image;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+import android.util.SparseArray;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decodes drawable resources on a pool of worker threads, downsampled to the size they are
+ * displayed at.
+ * <p>
+ * Decoded bitmaps are kept in a memory cache bounded in bytes, backed by an optional
+ * {@link DiskThumbnailCache} holding the downsampled images so that the full size images are only
+ * decoded once.
+ * <p>
+ * Bitmaps evicted from the memory cache are recycled as {@link BitmapFactory.Options#inBitmap}
+ * for later decodes, but only those known to be unused: bitmaps handed out by {@link #acquire} or
+ * {@link #acquireAsync} are counted until they are given back to {@link #release}, and an acquired
+ * bitmap that gets evicted stays pinned, still found by {@link #acquire}, until it is released.
+ * Bitmaps handed out by {@link #get}, {@link #getOrDecode} and {@link #load} may be kept for any
+ * time, so they are never reused.
+ * <p>
+ * Every public method except {@link #shutdown} and the counters must be called on the main
+ * thread, and callbacks are delivered there as well.
+ */
+public class ImageLoader {
+
+    private static final String TAG = ImageLoader.class.getSimpleName();
+
+    /** Maximum number of evicted bitmaps kept for reuse. */
+    private static final int MAX_REUSABLE_BITMAPS = 8;
+
+    /** Fraction of the memory available to the app that the shared memory cache may use. */
+    private static final int SHARED_MEMORY_CACHE_FRACTION = 8;
+
+    /** Size of the disk cache of the shared loader. */
+    private static final long SHARED_DISK_CACHE_BYTES = 8 * 1024 * 1024;
+
+    private static final String SHARED_DISK_CACHE_DIRECTORY = "thumbnails";
+
+    private static ImageLoader sInstance;
+
+    /** Gets notified when an image finishes loading. */
+    public interface Callback {
+
+        /**
+         * Called on the main thread once the image is in the memory cache, or with a
+         * {@code null} bitmap if it could not be decoded.
+         */
+        void onImageLoaded(int resId, Bitmap bitmap);
+    }
+
+    /** A callback waiting for a decode in flight. */
+    private static final class Request {
+
+        final Callback callback;
+
+        /** Whether the bitmap is acquired for the callback, or shared. */
+        final boolean acquire;
+
+        Request(Callback callback, boolean acquire) {
+            this.callback = callback;
+            this.acquire = acquire;
+        }
+    }
+
+    /** Identifies a decoded image by resource ID and target size. */
+    private static final class Key {
+
+        final int resId;
+        final int width;
+        final int height;
+
+        Key(int resId, int width, int height) {
+            this.resId = resId;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return resId == other.resId && width == other.width && height == other.height;
+        }
+
+        @Override
+        public int hashCode() {
+            return (resId * 31 + width) * 31 + height;
+        }
+    }
+
+    private final Resources mResources;
+    private final int mAppVersion;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService mExecutor;
+    private final LruCache<Key, Bitmap> mMemoryCache;
+    private final DiskThumbnailCache mDiskCache;
+
+    /** Callbacks waiting for a decode in flight, only accessed on the main thread. */
+    private final Map<Key, List<Request>> mPendingRequests = new HashMap<Key, List<Request>>();
+
+    /**
+     * Guards the use counts, pinned, shared and reusable bitmaps below, since bitmaps are evicted
+     * by the worker threads as well. Lookups in the memory cache that hand out a bitmap are done
+     * while holding it, so that the bitmap cannot be reused in between.
+     */
+    private final Object mReuseLock = new Object();
+
+    /**
+     * Number of holders of each acquired bitmap. Weak, like the pinned bitmaps, so that a bitmap
+     * whose views were dropped without releasing it is collected rather than leaked.
+     */
+    private final Map<Bitmap, Integer> mUseCounts = new WeakHashMap<Bitmap, Integer>();
+
+    /** Acquired bitmaps that were evicted from the memory cache. */
+    private final Map<Key, WeakReference<Bitmap>> mPinnedBitmaps =
+            new HashMap<Key, WeakReference<Bitmap>>();
+
+    /** Bitmaps handed out without being acquired, which are never reused. */
+    private final Set<Bitmap> mSharedBitmaps =
+            Collections.newSetFromMap(new WeakHashMap<Bitmap, Boolean>());
+
+    /** Unused bitmaps that can be decoded into. */
+    private final List<Bitmap> mReusableBitmaps = new ArrayList<Bitmap>();
+
+    /** Bitmap config of each resource decoded so far, by resource ID. */
+    private final SparseArray<Bitmap.Config> mConfigs = new SparseArray<Bitmap.Config>();
+
+    private final AtomicInteger mDecodeCount = new AtomicInteger();
+    private final AtomicLong mDecodeNanos = new AtomicLong();
+
+    /**
+     * Returns the loader shared by all activities of the app, so that images used on several
+     * screens are only decoded once.
+     */
+    public static synchronized ImageLoader getInstance(Context context) {
+        if (sInstance == null) {
+            Context appContext = context.getApplicationContext();
+            ActivityManager am =
+                    (ActivityManager) appContext.getSystemService(Context.ACTIVITY_SERVICE);
+            int appVersion;
+            try {
+                appVersion = appContext.getPackageManager()
+                        .getPackageInfo(appContext.getPackageName(), 0).versionCode;
+            } catch (PackageManager.NameNotFoundException e) {
+                throw new IllegalStateException("Could not find own package", e);
+            }
+            sInstance = new ImageLoader(appContext.getResources(), appVersion,
+                    am.getMemoryClass() * 1024 * 1024 / SHARED_MEMORY_CACHE_FRACTION,
+                    new DiskThumbnailCache(
+                            new File(appContext.getCacheDir(), SHARED_DISK_CACHE_DIRECTORY),
+                            SHARED_DISK_CACHE_BYTES));
+        }
+        return sInstance;
+    }
+
+    /**
+     * Initializes a new loader.
+     *
+     * @param resources resources the images are decoded from
+     * @param appVersion version code of the app the resources belong to, so that thumbnails of
+     *        resources that changed with an update are not read from the disk cache
+     * @param maxCacheBytes maximum number of bytes held by the decoded images
+     * @param diskCache cache of downsampled images, or {@code null} to always decode the full
+     *        size images
+     */
+    public ImageLoader(Resources resources, int appVersion, int maxCacheBytes,
+            DiskThumbnailCache diskCache) {
+        mResources = resources;
+        mAppVersion = appVersion;
+        mDiskCache = diskCache;
+        mExecutor = Executors.newFixedThreadPool(
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        mMemoryCache = new LruCache<Key, Bitmap>(maxCacheBytes) {
+            @Override
+            protected int sizeOf(Key key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(
+                    boolean evicted, Key key, Bitmap oldValue, Bitmap newValue) {
+                if (oldValue != newValue) {
+                    onRemovedFromCache(key, oldValue);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the image decoded for the specified size if it is in the memory cache, or
+     * {@code null} otherwise.
+     */
+    public Bitmap get(int resId, int width, int height) {
+        synchronized (mReuseLock) {
+            return share(mMemoryCache.get(new Key(resId, width, height)));
+        }
+    }
+
+    /**
+     * Returns the image decoded for the specified size if it is in the memory cache or pinned,
+     * acquired for the caller, or {@code null} otherwise. The caller gives it back to
+     * {@link #release} once nothing shows it anymore.
+     */
+    public Bitmap acquire(int resId, int width, int height) {
+        Key key = new Key(resId, width, height);
+        synchronized (mReuseLock) {
+            Bitmap bitmap = mMemoryCache.get(key);
+            if (bitmap == null) {
+                WeakReference<Bitmap> pinned = mPinnedBitmaps.get(key);
+                bitmap = pinned != null ? pinned.get() : null;
+                if (pinned != null && bitmap == null) {
+                    mPinnedBitmaps.remove(key);
+                }
+            }
+            if (bitmap != null) {
+                retain(bitmap);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * Gives back a bitmap handed out by {@link #acquire} or {@link #acquireAsync}, which may be
+     * reused once all its holders released it and it is not in the memory cache anymore.
+     */
+    public void release(Bitmap bitmap) {
+        synchronized (mReuseLock) {
+            Integer count = mUseCounts.get(bitmap);
+            if (count == null) {
+                return;
+            }
+            if (count > 1) {
+                mUseCounts.put(bitmap, count - 1);
+                return;
+            }
+            mUseCounts.remove(bitmap);
+            Iterator<WeakReference<Bitmap>> iterator = mPinnedBitmaps.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().get() == bitmap) {
+                    iterator.remove();
+                    // It may have been handed out by load() since it was pinned.
+                    if (!mSharedBitmaps.contains(bitmap)) {
+                        addReusableBitmap(bitmap);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the image decoded for the specified size, decoding it on the calling thread if it
+     * is not in the memory cache. Only meant for cards that must be shown right away; the disk
+     * cache is left to the worker threads, so the image is decoded from resources.
+     */
+    public Bitmap getOrDecode(int resId, int width, int height) {
+        Key key = new Key(resId, width, height);
+        Bitmap bitmap = get(resId, width, height);
+        if (bitmap == null) {
+            bitmap = decode(key, false /* useDiskCache */);
+            if (bitmap != null) {
+                synchronized (mReuseLock) {
+                    share(bitmap);
+                }
+                mMemoryCache.put(key, bitmap);
+                writeToDiskAsync(key, bitmap);
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Decodes the specified image in the background, downsampled so that it is not much larger
+     * than {@code width} x {@code height} pixels, and notifies the callback once it is loaded or
+     * failed to. The callback is invoked right away if the image is already in the memory cache.
+     */
+    public void load(int resId, int width, int height, Callback callback) {
+        load(new Key(resId, width, height), new Request(callback, false /* acquire */));
+    }
+
+    /**
+     * Like {@link #load}, but the bitmap passed to the callback is acquired for it, as by
+     * {@link #acquire}, and given back to {@link #release} once nothing shows it anymore.
+     */
+    public void acquireAsync(int resId, int width, int height, Callback callback) {
+        load(new Key(resId, width, height), new Request(callback, true /* acquire */));
+    }
+
+    private void load(final Key key, Request request) {
+        Bitmap bitmap = request.acquire ? acquire(key.resId, key.width, key.height)
+                : get(key.resId, key.width, key.height);
+        if (bitmap != null) {
+            request.callback.onImageLoaded(key.resId, bitmap);
+            return;
+        }
+
+        List<Request> requests = mPendingRequests.get(key);
+        if (requests != null) {
+            requests.add(request);
+            return;
+        }
+        requests = new ArrayList<Request>();
+        requests.add(request);
+        mPendingRequests.put(key, requests);
+
+        mExecutor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                Bitmap bitmap;
+                try {
+                    bitmap = decode(key, true /* useDiskCache */);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Could not decode image " + key.resId, e);
+                    bitmap = null;
+                }
+                final Bitmap decoded = bitmap;
+                if (decoded != null) {
+                    // Held until delivered, since it could be evicted before.
+                    synchronized (mReuseLock) {
+                        retain(decoded);
+                    }
+                    mMemoryCache.put(key, decoded);
+                }
+                mHandler.post(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        deliver(key, decoded);
+                    }
+                });
+            }
+        });
+    }
+
+    /** Returns the number of images decoded so far, from resources or from disk. */
+    public int getDecodeCount() {
+        return mDecodeCount.get();
+    }
+
+    /** Returns the total time spent decoding images, in milliseconds. */
+    public long getDecodeTimeMillis() {
+        return mDecodeNanos.get() / 1000000;
+    }
+
+    /** Returns the number of bytes held by the memory cache. */
+    public int getBytesHeld() {
+        return mMemoryCache.size();
+    }
+
+    /** Returns the number of lookups that found an image in the memory cache. */
+    public int getMemoryHitCount() {
+        return mMemoryCache.hitCount();
+    }
+
+    /** Returns the number of lookups that did not find an image in the memory cache. */
+    public int getMemoryMissCount() {
+        return mMemoryCache.missCount();
+    }
+
+    /** Returns the number of images evicted from the memory cache. */
+    public int getMemoryEvictionCount() {
+        return mMemoryCache.evictionCount();
+    }
+
+    /** Returns the disk cache of the loader, or {@code null} if it has none. */
+    public DiskThumbnailCache getDiskCache() {
+        return mDiskCache;
+    }
+
+    /** Logs the decode time, memory usage and cache counters of the loader. */
+    public void logStats() {
+        Log.i(TAG, String.format("%d decodes in %d ms, %d KB held, memory %d/%d/%d",
+                getDecodeCount(), getDecodeTimeMillis(), getBytesHeld() / 1024,
+                getMemoryHitCount(), getMemoryMissCount(), getMemoryEvictionCount()));
+        if (mDiskCache != null) {
+            Log.i(TAG, String.format("disk hit/miss/eviction %d/%d/%d",
+                    mDiskCache.getHitCount(), mDiskCache.getMissCount(),
+                    mDiskCache.getEvictionCount()));
+        }
+    }
+
+    /** Stops the worker threads and releases the cached images. */
+    public void shutdown() {
+        mExecutor.shutdownNow();
+        mHandler.removeCallbacksAndMessages(null);
+        mPendingRequests.clear();
+        mMemoryCache.evictAll();
+        synchronized (mReuseLock) {
+            mReusableBitmaps.clear();
+        }
+    }
+
+    /** Hands a decoded bitmap, or {@code null}, to the callbacks waiting for it. */
+    private void deliver(Key key, Bitmap bitmap) {
+        List<Request> requests = mPendingRequests.remove(key);
+        if (bitmap != null) {
+            synchronized (mReuseLock) {
+                for (int i = 0; requests != null && i < requests.size(); i++) {
+                    if (requests.get(i).acquire) {
+                        retain(bitmap);
+                    } else {
+                        share(bitmap);
+                    }
+                }
+            }
+            release(bitmap);
+        }
+        for (int i = 0; requests != null && i < requests.size(); i++) {
+            requests.get(i).callback.onImageLoaded(key.resId, bitmap);
+        }
+    }
+
+    /** Counts one more holder of an acquired bitmap; called with {@link #mReuseLock} held. */
+    private void retain(Bitmap bitmap) {
+        Integer count = mUseCounts.get(bitmap);
+        mUseCounts.put(bitmap, count == null ? 1 : count + 1);
+    }
+
+    /**
+     * Marks a bitmap as never to be reused, and returns it; called with {@link #mReuseLock}
+     * held.
+     */
+    private Bitmap share(Bitmap bitmap) {
+        if (bitmap != null) {
+            mSharedBitmaps.add(bitmap);
+        }
+        return bitmap;
+    }
+
+    /** Pins or reuses a bitmap removed from the memory cache, unless it is shared. */
+    private void onRemovedFromCache(Key key, Bitmap bitmap) {
+        synchronized (mReuseLock) {
+            if (mSharedBitmaps.contains(bitmap)) {
+                return;
+            }
+            if (mUseCounts.containsKey(bitmap)) {
+                mPinnedBitmaps.put(key, new WeakReference<Bitmap>(bitmap));
+            } else {
+                addReusableBitmap(bitmap);
+            }
+        }
+    }
+
+    /** Keeps an unused bitmap for reuse; called with {@link #mReuseLock} held. */
+    private void addReusableBitmap(Bitmap bitmap) {
+        if (bitmap.isMutable() && mReusableBitmaps.size() < MAX_REUSABLE_BITMAPS) {
+            mReusableBitmaps.add(bitmap);
+        }
+    }
+
+    /** Removes and returns a reusable bitmap of at least the specified size, if any. */
+    private Bitmap takeReusableBitmap(int byteCount) {
+        synchronized (mReuseLock) {
+            Iterator<Bitmap> iterator = mReusableBitmaps.iterator();
+            while (iterator.hasNext()) {
+                Bitmap candidate = iterator.next();
+                if (candidate.isRecycled()) {
+                    iterator.remove();
+                } else if (candidate.getAllocationByteCount() >= byteCount) {
+                    iterator.remove();
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the name under which the thumbnail for the specified key is stored on disk. The
+     * resource ID and app version are part of it, since an update may give the resource other
+     * content under the same name, or the name to another resource.
+     */
+    private String getDiskKey(Key key) {
+        return mResources.getResourceEntryName(key.resId) + "_" + Integer.toHexString(key.resId)
+                + "_v" + mAppVersion + "_" + key.width + "x" + key.height;
+    }
+
+    /**
+     * Returns the config that images decoded from the specified resource use, whether from
+     * resources or from disk, reading the header of the resource the first time.
+     */
+    private Bitmap.Config getConfig(int resId) {
+        synchronized (mConfigs) {
+            Bitmap.Config config = mConfigs.get(resId);
+            if (config != null) {
+                return config;
+            }
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(mResources, resId, options);
+        // Photos have no alpha channel, so they only need half the memory.
+        Bitmap.Config config = "image/jpeg".equals(options.outMimeType)
+                ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+        synchronized (mConfigs) {
+            mConfigs.put(resId, config);
+        }
+        return config;
+    }
+
+    /**
+     * Decodes an image from the disk cache if possible, or from resources otherwise.
+     *
+     * @param useDiskCache whether to read the disk cache and store images decoded from resources
+     *        in it, on the calling thread
+     */
+    private Bitmap decode(Key key, boolean useDiskCache) {
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        Bitmap bitmap = null;
+
+        if (useDiskCache && mDiskCache != null) {
+            // Decoded like the resource, so that both give the same bitmaps.
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inPreferredConfig = getConfig(key.resId);
+            options.inMutable = true;
+            bitmap = mDiskCache.get(getDiskKey(key), options);
+        }
+
+        if (bitmap == null) {
+            bitmap = decodeResource(key);
+            if (bitmap != null && useDiskCache && mDiskCache != null) {
+                mDiskCache.put(getDiskKey(key), bitmap);
+            }
+        }
+
+        mDecodeCount.incrementAndGet();
+        mDecodeNanos.addAndGet(SystemClock.elapsedRealtimeNanos() - startNanos);
+        return bitmap;
+    }
+
+    /** Decodes a downsampled image from resources. */
+    private Bitmap decodeResource(Key key) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(mResources, key.resId, options);
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = computeSampleSize(
+                options.outWidth, options.outHeight, key.width, key.height);
+        options.inMutable = true;
+        options.inPreferredConfig = getConfig(key.resId);
+        int bytesPerPixel = options.inPreferredConfig == Bitmap.Config.RGB_565 ? 2 : 4;
+        int sampleSize = options.inSampleSize;
+        int byteCount = ((options.outWidth + sampleSize - 1) / sampleSize)
+                * ((options.outHeight + sampleSize - 1) / sampleSize) * bytesPerPixel;
+        options.inBitmap = takeReusableBitmap(byteCount);
+
+        try {
+            return BitmapFactory.decodeResource(mResources, key.resId, options);
+        } catch (IllegalArgumentException e) {
+            // The reused bitmap was not suitable after all, decode into a new one.
+            options.inBitmap = null;
+            return BitmapFactory.decodeResource(mResources, key.resId, options);
+        }
+    }
+
+    private void writeToDiskAsync(final Key key, final Bitmap bitmap) {
+        if (mDiskCache == null) {
+            return;
+        }
+        mExecutor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                mDiskCache.put(getDiskKey(key), bitmap);
+            }
+        });
+    }
+
+    /**
+     * Returns the largest power of two sample size that keeps the decoded image at least as large
+     * as the requested size.
+     */
+    static int computeSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int sampleSize = 1;
+        while (width / (sampleSize * 2) >= reqWidth && height / (sampleSize * 2) >= reqHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.livecard;
+
+import com.google.android.glass.sample.apidemo.R;
+import com.google.android.glass.sample.apidemo.metrics.LatencyHistogram;
+import com.google.android.glass.timeline.DirectRenderingCallback;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.view.SurfaceHolder;
+
+/**
+ * Draws the latest reading of a data {@link com.google.android.glass.timeline.LiveCard} directly
+ * on its surface, along with the update statistics of its {@link FrameCoalescer}.
+ * <p>
+ * Readings are drawn on the render thread of the coalescer, while the surface callbacks come on
+ * the main thread. Rendering is paused while the surface does not exist or the card is not
+ * visible, so that producers stop posting readings nobody sees.
+ */
+public class DataCardRenderer implements DirectRenderingCallback, FrameCoalescer.Renderer<Float> {
+
+    private static final String TAG = DataCardRenderer.class.getSimpleName();
+
+    /** Size of the reading, like {@code textAppearanceLarge}. */
+    private static final float VALUE_TEXT_SIZE = 64;
+
+    /** Size of the statistics, like {@code textAppearanceSmall}. */
+    private static final float STATS_TEXT_SIZE = 24;
+
+    private final FrameCoalescer<Float> mCoalescer;
+    private final Paint mValuePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mStatsPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final int mMargin;
+
+    /** Guards the holder, so that the surface is not drawn once destroyed. */
+    private final Object mSurfaceLock = new Object();
+
+    private SurfaceHolder mHolder;
+    private boolean mRenderingPaused;
+
+    /** Initializes a new renderer; called on the main thread. */
+    public DataCardRenderer(Resources resources) {
+        mCoalescer = new FrameCoalescer<Float>(TAG, this);
+        mCoalescer.setPaused(true);
+        mMargin = resources.getDimensionPixelSize(R.dimen.card_margin);
+        mValuePaint.setColor(Color.WHITE);
+        mValuePaint.setTextSize(VALUE_TEXT_SIZE);
+        mStatsPaint.setColor(Color.GRAY);
+        mStatsPaint.setTextSize(STATS_TEXT_SIZE);
+    }
+
+    /** Returns the coalescer producers post readings to. */
+    public FrameCoalescer<Float> getCoalescer() {
+        return mCoalescer;
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        synchronized (mSurfaceLock) {
+            mHolder = holder;
+        }
+        updatePaused();
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        // Every render draws the whole surface, whatever its size.
+    }
+
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        // Waits for a render in progress, since the surface goes away once this returns.
+        synchronized (mSurfaceLock) {
+            mHolder = null;
+        }
+        updatePaused();
+    }
+
+    @Override
+    public void renderingPaused(SurfaceHolder holder, boolean paused) {
+        mRenderingPaused = paused;
+        updatePaused();
+    }
+
+    @Override
+    public void render(Float value) {
+        synchronized (mSurfaceLock) {
+            if (mHolder != null) {
+                draw(mHolder, value);
+            }
+        }
+    }
+
+    private void draw(SurfaceHolder holder, Float value) {
+        Canvas canvas = holder.lockCanvas();
+        if (canvas == null) {
+            return;
+        }
+        try {
+            canvas.drawColor(Color.BLACK);
+            canvas.drawText(String.format("%.3f", value), mMargin,
+                    mMargin - mValuePaint.ascent(), mValuePaint);
+
+            LatencyHistogram latencies = mCoalescer.getLatencies();
+            float y = canvas.getHeight() - mMargin;
+            canvas.drawText(String.format("update p50 %d ms, p99 %d ms",
+                    latencies.getPercentileMillis(50), latencies.getPercentileMillis(99)),
+                    mMargin, y, mStatsPaint);
+            y -= mStatsPaint.getFontSpacing();
+            canvas.drawText(String.format("%d readings, %d renders",
+                    mCoalescer.getPostCount(), mCoalescer.getRenderCount()),
+                    mMargin, y, mStatsPaint);
+        } finally {
+            holder.unlockCanvasAndPost(canvas);
+        }
+    }
+
+    private void updatePaused() {
+        // Only the main thread writes the holder.
+        mCoalescer.setPaused(mHolder == null || mRenderingPaused);
+    }
+}
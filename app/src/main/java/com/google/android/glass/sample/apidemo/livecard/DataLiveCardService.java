@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.livecard;
+
+import com.google.android.glass.sample.apidemo.metrics.LaunchTracer;
+import com.google.android.glass.sample.apidemo.opengl.MenuActivity;
+import com.google.android.glass.timeline.LiveCard;
+import com.google.android.glass.timeline.LiveCard.PublishMode;
+
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Intent;
+import android.os.IBinder;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Creates a {@link LiveCard} showing readings produced much faster than the display refreshes,
+ * rendered directly on its surface.
+ * <p>
+ * A producer thread posts a simulated sensor reading every {@link #READING_PERIOD_MILLIS} to a
+ * {@link FrameCoalescer}, which renders at most one of them per frame on its own thread, and
+ * blocks the producer while the card is not visible.
+ */
+public class DataLiveCardService extends Service {
+
+    private static final String TAG = DataLiveCardService.class.getSimpleName();
+
+    private static final String LIVE_CARD_TAG = "data";
+
+    /** Request code of the menu action, distinct from the one of the OpenGL card. */
+    private static final int MENU_REQUEST = 1;
+
+    /** Period of the simulated sensor, about 16 times the refresh rate of the display. */
+    private static final long READING_PERIOD_MILLIS = 1;
+
+    private LiveCard mLiveCard;
+    private DataCardRenderer mRenderer;
+    private Thread mProducer;
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        if (mLiveCard == null) {
+            mRenderer = new DataCardRenderer(getResources());
+            mLiveCard = new LiveCard(this, LIVE_CARD_TAG);
+            mLiveCard.setDirectRenderingEnabled(true).getSurfaceHolder().addCallback(mRenderer);
+            mLiveCard.setAction(PendingIntent.getActivity(this, MENU_REQUEST,
+                    new Intent(this, MenuActivity.class)
+                            .putExtra(MenuActivity.EXTRA_SERVICE_CLASS, getClass().getName()),
+                    0));
+            mLiveCard.attach(this);
+            mLiveCard.publish(PublishMode.REVEAL);
+
+            mProducer = new Thread(new Producer(mRenderer.getCoalescer()), TAG);
+            mProducer.start();
+        } else {
+            mLiveCard.navigate();
+        }
+
+        LaunchTracer.onServiceStarted(this);
+        return START_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        if (mLiveCard != null && mLiveCard.isPublished()) {
+            FrameCoalescer<Float> coalescer = mRenderer.getCoalescer();
+            coalescer.cancel();
+            mProducer.interrupt();
+            Log.i(TAG, String.format("%d readings, %d renders, update latency %s",
+                    coalescer.getPostCount(), coalescer.getRenderCount(),
+                    coalescer.getLatencies()));
+
+            mLiveCard.unpublish();
+            mLiveCard = null;
+        }
+        super.onDestroy();
+    }
+
+    /** Posts simulated sensor readings while the card is visible. */
+    private static final class Producer implements Runnable {
+
+        private final FrameCoalescer<Float> mCoalescer;
+
+        Producer(FrameCoalescer<Float> coalescer) {
+            mCoalescer = coalescer;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!mCoalescer.isCancelled()) {
+                    // Stops producing while nobody sees the readings.
+                    mCoalescer.awaitResumed();
+                    mCoalescer.post((float) Math.sin(SystemClock.uptimeMillis() / 1000.0));
+                    Thread.sleep(READING_PERIOD_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                // The service is stopping.
+            }
+        }
+    }
+}
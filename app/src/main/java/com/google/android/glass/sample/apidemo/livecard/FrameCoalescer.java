@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.livecard;
+
+import com.google.android.glass.sample.apidemo.FrameSampler;
+import com.google.android.glass.sample.apidemo.metrics.LatencyHistogram;
+
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Coalesces values produced at any rate into at most one render per frame, on a dedicated render
+ * thread so that drawing never blocks the main thread.
+ * <p>
+ * Producers post values from any thread. A {@link FrameSampler} wakes the render thread at most
+ * once per frame to render the latest value; the values posted in between replace each other.
+ * While paused, typically because the card is not visible, values are kept but not rendered, and
+ * producers can block in {@link #awaitResumed} instead of producing values nobody sees. The latest
+ * value is rendered on resume.
+ * <p>
+ * The latency from posting a value to the end of its rendering is recorded into a
+ * {@link LatencyHistogram}.
+ *
+ * @param <T> the type of the values
+ */
+public class FrameCoalescer<T> {
+
+    /** Renders values on the render thread. */
+    public interface Renderer<T> {
+        void render(T value);
+    }
+
+    /** A value waiting to be rendered. */
+    private static final class Pending<T> {
+        final T value;
+        final long postMillis;
+
+        Pending(T value, long postMillis) {
+            this.value = value;
+            this.postMillis = postMillis;
+        }
+    }
+
+    private final Renderer<T> mRenderer;
+    private final HandlerThread mRenderThread;
+    private final FrameSampler mSampler;
+    private final LatencyHistogram mLatencies = new LatencyHistogram();
+
+    private final AtomicReference<Pending<T>> mPending = new AtomicReference<Pending<T>>();
+    private final AtomicLong mPostCount = new AtomicLong();
+
+    // Written while holding this, which producers wait on while paused.
+    private volatile boolean mPaused;
+    private volatile boolean mCancelled;
+
+    private volatile long mRenderCount;
+
+    /**
+     * Initializes a new coalescer rendering with the specified renderer, on a render thread named
+     * after it.
+     */
+    public FrameCoalescer(String name, Renderer<T> renderer) {
+        mRenderer = renderer;
+        mRenderThread = new HandlerThread(name, Process.THREAD_PRIORITY_DISPLAY);
+        mRenderThread.start();
+        mSampler = new FrameSampler(mRenderThread.getLooper(), new FrameSampler.Callback() {
+            @Override
+            public void onFrame(long frameTimeNanos) {
+                renderPending();
+            }
+        });
+    }
+
+    /** Posts a value to render, replacing any value not rendered yet; called on any thread. */
+    public void post(T value) {
+        if (mCancelled) {
+            return;
+        }
+        mPending.set(new Pending<T>(value, SystemClock.uptimeMillis()));
+        mPostCount.incrementAndGet();
+        if (!mPaused) {
+            mSampler.request();
+        }
+    }
+
+    /** Pauses or resumes rendering; called on the main thread. */
+    public void setPaused(boolean paused) {
+        synchronized (this) {
+            mPaused = paused;
+            notifyAll();
+        }
+        if (!paused && !mCancelled && mPending.get() != null) {
+            mSampler.request();
+        }
+    }
+
+    /** Returns whether rendering is paused. */
+    public boolean isPaused() {
+        return mPaused;
+    }
+
+    /** Blocks the calling producer while rendering is paused, unless it is cancelled. */
+    public synchronized void awaitResumed() throws InterruptedException {
+        while (mPaused && !mCancelled) {
+            wait();
+        }
+    }
+
+    /** Returns the number of values posted. */
+    public long getPostCount() {
+        return mPostCount.get();
+    }
+
+    /** Returns the number of values rendered. */
+    public long getRenderCount() {
+        return mRenderCount;
+    }
+
+    /**
+     * Returns the histogram of the latencies from posting a value to the end of its rendering;
+     * called on the render thread, or once cancelled.
+     */
+    public LatencyHistogram getLatencies() {
+        return mLatencies;
+    }
+
+    /**
+     * Stops rendering for good, dropping the value not rendered yet and releasing the waiting
+     * producers; called on the main thread. Returns once the render thread is done.
+     */
+    public void cancel() {
+        synchronized (this) {
+            mCancelled = true;
+            notifyAll();
+        }
+        mPending.set(null);
+        mSampler.cancel();
+        mRenderThread.quitSafely();
+        try {
+            mRenderThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Returns whether rendering was cancelled. */
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    /** Renders the latest value, if any; called on the render thread. */
+    private void renderPending() {
+        if (mPaused || mCancelled) {
+            return;
+        }
+        Pending<T> pending = mPending.getAndSet(null);
+        if (pending == null) {
+            return;
+        }
+        mRenderer.render(pending.value);
+        mRenderCount++;
+        mLatencies.record(SystemClock.uptimeMillis() - pending.postMillis);
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.metrics;
+
+import com.google.android.glass.widget.CardScrollAdapter;
+import com.google.android.glass.widget.CardScrollView;
+
+import android.app.Activity;
+import android.os.AsyncTask;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.Choreographer;
+import android.view.ViewTreeObserver;
+import android.widget.AdapterView;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Monitors the frames of an activity showing a {@link CardScrollView}, and counts the frames
+ * that missed one or more vsyncs, that is that took longer than 16.6 ms at 60 fps, and those
+ * that missed two or more, taking longer than 33.3 ms.
+ * <p>
+ * Frame intervals are measured with {@link Choreographer} between {@link #start} and
+ * {@link #stop}, which are called where the card scroll view is activated and deactivated. Only
+ * frames in which the card scroll view drew are measured, so that idle vsyncs do not water down
+ * the counts; the frame callback is not posted while nothing draws. Slow frames are attributed to
+ * the card selected when they were drawn and to its view type, which identifies its layout. Every
+ * {@link #WINDOW_MILLIS}, and when the monitor stops, a summary of the window is logged and
+ * appended to {@link #SUMMARY_FILE_NAME} in the files directory of the app, off the main thread.
+ */
+public class FrameMonitor {
+
+    private static final String TAG = FrameMonitor.class.getSimpleName();
+
+    /** Name of the CSV file the summaries are appended to. */
+    public static final String SUMMARY_FILE_NAME = "frame_jank.csv";
+
+    /** Length of the window summarized at once, in milliseconds of monitoring. */
+    public static final long WINDOW_MILLIS = 10 * 1000;
+
+    /** Vsync period at 60 fps. */
+    private static final long FRAME_NANOS = 1000 * 1000 * 1000 / 60;
+
+    /**
+     * Intervals between frames are whole vsync periods, so they are compared against half-periods
+     * to ignore jitter: over 1.5 periods, the frame missed one vsync, over 2.5, two.
+     */
+    static final long JANK_NANOS = FRAME_NANOS * 3 / 2;
+    static final long SEVERE_JANK_NANOS = FRAME_NANOS * 5 / 2;
+
+    /** Frame counts of one card within a window. */
+    static final class CardStats {
+        final int viewType;
+        int frameCount;
+        int jankCount;
+        int severeJankCount;
+        long maxFrameNanos;
+
+        CardStats(int viewType) {
+            this.viewType = viewType;
+        }
+    }
+
+    private final CardScrollView mCardScroller;
+    private final String mName;
+    private final File mSummaryFile;
+
+    /** Stats of the current window, by card position. */
+    private final SparseArray<CardStats> mWindow = new SparseArray<CardStats>();
+
+    private boolean mStarted;
+    private boolean mFrameCallbackPosted;
+    private boolean mDrawn;
+    private long mLastFrameNanos;
+    private long mWindowNanos;
+
+    private long mFrameCount;
+    private long mJankCount;
+    private long mSevereJankCount;
+
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            // Frame callbacks run before the traversal, so the interval since the last frame is
+            // the duration of that frame, which drew if mDrawn is set.
+            mFrameCallbackPosted = false;
+            if (!mStarted) {
+                return;
+            }
+            if (mLastFrameNanos != 0 && mDrawn) {
+                onFrame(frameTimeNanos - mLastFrameNanos);
+            }
+            if (mDrawn) {
+                mDrawn = false;
+                mLastFrameNanos = frameTimeNanos;
+                postFrameCallback();
+            } else {
+                // Idle: wait for the next draw.
+                mLastFrameNanos = 0;
+            }
+        }
+    };
+
+    private final ViewTreeObserver.OnDrawListener mDrawListener =
+            new ViewTreeObserver.OnDrawListener() {
+
+        @Override
+        public void onDraw() {
+            if (mStarted) {
+                mDrawn = true;
+                postFrameCallback();
+            }
+        }
+    };
+
+    /** Initializes a new monitor of the frames of the specified activity and card scroll view. */
+    public FrameMonitor(Activity activity, CardScrollView cardScroller) {
+        this(activity.getClass().getSimpleName(),
+                new File(activity.getFilesDir(), SUMMARY_FILE_NAME), cardScroller);
+    }
+
+    /**
+     * Initializes a new monitor logging its summaries under the specified name and appending them
+     * to the specified file, or to none if it is {@code null}.
+     */
+    FrameMonitor(String name, File summaryFile, CardScrollView cardScroller) {
+        mName = name;
+        mSummaryFile = summaryFile;
+        mCardScroller = cardScroller;
+    }
+
+    /** Starts measuring frames; called after the card scroll view is activated. */
+    public void start() {
+        if (!mStarted) {
+            mStarted = true;
+            mDrawn = false;
+            mLastFrameNanos = 0;
+            mCardScroller.getViewTreeObserver().addOnDrawListener(mDrawListener);
+        }
+    }
+
+    /** Stops measuring frames and writes the summary of the last window. */
+    public void stop() {
+        if (mStarted) {
+            mStarted = false;
+            mCardScroller.getViewTreeObserver().removeOnDrawListener(mDrawListener);
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+            mFrameCallbackPosted = false;
+            flushWindow();
+        }
+    }
+
+    /** Returns the number of frames measured since the monitor was created. */
+    public long getFrameCount() {
+        return mFrameCount;
+    }
+
+    /** Returns the number of frames that missed one or more vsyncs. */
+    public long getJankCount() {
+        return mJankCount;
+    }
+
+    /** Returns the number of frames that missed two or more vsyncs. */
+    public long getSevereJankCount() {
+        return mSevereJankCount;
+    }
+
+    /** Returns the stats of the specified card in the current window, or {@code null}. */
+    CardStats getCardStats(int position) {
+        return mWindow.get(position);
+    }
+
+    private void postFrameCallback() {
+        if (!mFrameCallbackPosted) {
+            mFrameCallbackPosted = true;
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
+
+    private void onFrame(long frameNanos) {
+        int position = mCardScroller.getSelectedItemPosition();
+        CardScrollAdapter adapter = mCardScroller.getAdapter();
+        if (position != AdapterView.INVALID_POSITION && adapter != null
+                && position < adapter.getCount()) {
+            onFrame(frameNanos, position, adapter.getItemViewType(position));
+        } else {
+            onFrame(frameNanos, AdapterView.INVALID_POSITION, 0);
+        }
+    }
+
+    /**
+     * Counts a frame of the specified duration, attributed to the card at the specified position
+     * and of the specified view type, or to none if the position is invalid.
+     */
+    void onFrame(long frameNanos, int position, int viewType) {
+        if (position != AdapterView.INVALID_POSITION) {
+            CardStats stats = mWindow.get(position);
+            if (stats == null) {
+                stats = new CardStats(viewType);
+                mWindow.put(position, stats);
+            }
+            stats.frameCount++;
+            stats.maxFrameNanos = Math.max(stats.maxFrameNanos, frameNanos);
+            if (frameNanos > JANK_NANOS) {
+                stats.jankCount++;
+            }
+            if (frameNanos > SEVERE_JANK_NANOS) {
+                stats.severeJankCount++;
+            }
+        }
+
+        mFrameCount++;
+        if (frameNanos > JANK_NANOS) {
+            mJankCount++;
+        }
+        if (frameNanos > SEVERE_JANK_NANOS) {
+            mSevereJankCount++;
+        }
+
+        mWindowNanos += frameNanos;
+        if (mWindowNanos >= WINDOW_MILLIS * 1000 * 1000) {
+            flushWindow();
+        }
+    }
+
+    /** Logs and writes the summary of the current window, then starts a new one. */
+    private void flushWindow() {
+        mWindowNanos = 0;
+        if (mWindow.size() == 0) {
+            return;
+        }
+
+        final StringBuilder rows = new StringBuilder();
+        int frameCount = 0;
+        int jankCount = 0;
+        int severeJankCount = 0;
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < mWindow.size(); i++) {
+            CardStats stats = mWindow.valueAt(i);
+            frameCount += stats.frameCount;
+            jankCount += stats.jankCount;
+            severeJankCount += stats.severeJankCount;
+            rows.append(String.format("%d,%s,%d,%d,%d,%d,%d,%.1f\n", now, mName,
+                    mWindow.keyAt(i), stats.viewType, stats.frameCount, stats.jankCount,
+                    stats.severeJankCount, stats.maxFrameNanos / 1e6));
+        }
+        mWindow.clear();
+        Log.i(TAG, String.format("%s: %d frames, %d missed 1+ vsync, %d missed 2+ vsyncs",
+                mName, frameCount, jankCount, severeJankCount));
+
+        final File file = mSummaryFile;
+        if (file == null) {
+            return;
+        }
+        AsyncTask.SERIAL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                append(file, rows.toString());
+            }
+        });
+    }
+
+    private static void append(File file, String rows) {
+        boolean exists = file.exists();
+        Writer writer = null;
+        try {
+            writer = new FileWriter(file, true);
+            if (!exists) {
+                writer.write("time,activity,position,view_type,frames,missed_1_vsync,"
+                        + "missed_2_vsyncs,max_frame_ms\n");
+            }
+            writer.write(rows);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write frame summary", e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    // Ignore.
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.metrics;
+
+/**
+ * Histogram of latencies in milliseconds, with buckets of exponentially growing width so that it
+ * takes constant memory whatever the number of samples.
+ * <p>
+ * Bucket {@code i} counts the latencies in {@code [2^(i-1), 2^i)} milliseconds, the first one
+ * counting the latencies under a millisecond and the last one everything above. Percentiles are
+ * estimated as the upper bound of the bucket they fall in, so they are accurate within a factor
+ * of two. Instances are not thread-safe.
+ */
+public class LatencyHistogram {
+
+    /** Number of buckets; the last one starts at about 16 seconds. */
+    private static final int BUCKET_COUNT = 16;
+
+    /** Columns of {@link #appendCsv}. */
+    public static final String CSV_COLUMNS =
+            "count,min_ms,mean_ms,p50_ms,p90_ms,p99_ms,max_ms,buckets";
+
+    private final long[] mCounts = new long[BUCKET_COUNT];
+    private long mCount;
+    private long mSumMillis;
+    private long mMinMillis = Long.MAX_VALUE;
+    private long mMaxMillis;
+
+    /** Records a latency. Negative values are recorded as zero. */
+    public void record(long millis) {
+        millis = Math.max(0, millis);
+        int bucket = millis == 0 ? 0 : 64 - Long.numberOfLeadingZeros(millis);
+        mCounts[Math.min(bucket, BUCKET_COUNT - 1)]++;
+        mCount++;
+        mSumMillis += millis;
+        mMinMillis = Math.min(mMinMillis, millis);
+        mMaxMillis = Math.max(mMaxMillis, millis);
+    }
+
+    /** Adds the latencies recorded by the specified histogram to this one. */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts[i] += other.mCounts[i];
+        }
+        mCount += other.mCount;
+        mSumMillis += other.mSumMillis;
+        mMinMillis = Math.min(mMinMillis, other.mMinMillis);
+        mMaxMillis = Math.max(mMaxMillis, other.mMaxMillis);
+    }
+
+    /** Returns the number of latencies recorded. */
+    public long getCount() {
+        return mCount;
+    }
+
+    /** Returns the smallest latency recorded, or {@code 0} if there is none. */
+    public long getMinMillis() {
+        return mCount > 0 ? mMinMillis : 0;
+    }
+
+    /** Returns the largest latency recorded, or {@code 0} if there is none. */
+    public long getMaxMillis() {
+        return mMaxMillis;
+    }
+
+    /** Returns the mean of the latencies recorded, or {@code 0} if there is none. */
+    public long getMeanMillis() {
+        return mCount > 0 ? mSumMillis / mCount : 0;
+    }
+
+    /**
+     * Returns an upper bound of the specified percentile of the latencies recorded, between
+     * {@code 0} and {@code 100}, never more than the largest latency.
+     */
+    public long getPercentileMillis(double percentile) {
+        long rank = (long) Math.ceil(mCount * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += mCounts[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(getBucketUpperBoundMillis(i), mMaxMillis);
+            }
+        }
+        return mMaxMillis;
+    }
+
+    /** Returns the number of buckets. */
+    public int getBucketCount() {
+        return BUCKET_COUNT;
+    }
+
+    /** Returns the number of latencies in the specified bucket. */
+    public long getCountInBucket(int bucket) {
+        return mCounts[bucket];
+    }
+
+    /** Returns the exclusive upper bound of the specified bucket, in milliseconds. */
+    public long getBucketUpperBoundMillis(int bucket) {
+        return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    /** Forgets all the latencies recorded. */
+    public void clear() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts[i] = 0;
+        }
+        mCount = 0;
+        mSumMillis = 0;
+        mMinMillis = Long.MAX_VALUE;
+        mMaxMillis = 0;
+    }
+
+    /**
+     * Appends the statistics of this histogram to the specified CSV row, in the order of
+     * {@link #CSV_COLUMNS}. The bucket counts are separated by spaces so that they stay in one
+     * column.
+     */
+    public void appendCsv(StringBuilder csv) {
+        csv.append(String.format("%d,%d,%d,%d,%d,%d,%d,", mCount, getMinMillis(),
+                getMeanMillis(), getPercentileMillis(50), getPercentileMillis(90),
+                getPercentileMillis(99), mMaxMillis));
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            csv.append(i > 0 ? " " : "").append(mCounts[i]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d min=%d mean=%d p50=%d p90=%d p99=%d max=%d ms", mCount,
+                getMinMillis(), getMeanMillis(), getPercentileMillis(50), getPercentileMillis(90),
+                getPercentileMillis(99), mMaxMillis);
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.metrics;
+
+import android.app.Activity;
+import android.app.Application;
+import android.app.Service;
+import android.os.AsyncTask;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Choreographer;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Traces how long it takes from a tap on a demo card to the demo showing its first frame.
+ * <p>
+ * A launch is stamped when the card is tapped and when the component is started, then when the
+ * target activity is created and resumed and when its first frame is drawn, which is detected
+ * with {@link Choreographer}. Services are considered shown once they have handled their start
+ * command. The latencies of the launches are aggregated into {@link LatencyHistogram}s per
+ * destination and phase, and the histograms are exported to {@link #EXPORT_FILE_NAME} in the
+ * files directory of the app after each launch, so that they can be pulled for analysis.
+ * <p>
+ * Every method is called on the main thread.
+ */
+public final class LaunchTracer {
+
+    private static final String TAG = LaunchTracer.class.getSimpleName();
+
+    /** Name of the CSV file the histograms are exported to. */
+    public static final String EXPORT_FILE_NAME = "launch_latency.csv";
+
+    /** The phases of a launch, each measured from the tap. */
+    public enum Phase {
+        START,
+        CREATE,
+        RESUME,
+        FIRST_FRAME
+    }
+
+    /** The timestamps of a launch in progress, in milliseconds of uptime. */
+    private static final class Launch {
+        final long clickMillis;
+        final long[] phaseMillis = new long[Phase.values().length];
+
+        Launch(long clickMillis) {
+            this.clickMillis = clickMillis;
+        }
+    }
+
+    /** Launches in progress, by destination class name. */
+    private static final Map<String, Launch> sLaunches = new HashMap<String, Launch>();
+
+    /** Histograms by destination class name, then phase. */
+    private static final Map<String, LatencyHistogram[]> sHistograms =
+            new TreeMap<String, LatencyHistogram[]>();
+
+    private static File sExportFile;
+
+    private LaunchTracer() {
+    }
+
+    /**
+     * Starts tracing the launches of the activities of the specified application, and sets where
+     * the histograms are exported.
+     */
+    public static void install(Application application) {
+        sExportFile = new File(application.getFilesDir(), EXPORT_FILE_NAME);
+        application.registerActivityLifecycleCallbacks(new ActivityTracer());
+    }
+
+    /** Stamps a tap on the card of the specified destination. */
+    public static void onClick(String className) {
+        sLaunches.put(className, new Launch(SystemClock.uptimeMillis()));
+    }
+
+    /** Stamps the call starting the specified destination. */
+    public static void onStart(String className) {
+        stamp(className, Phase.START);
+    }
+
+    /** Stamps the end of the start command of the specified service, which completes its launch. */
+    public static void onServiceStarted(Service service) {
+        String className = service.getClass().getName();
+        stamp(className, Phase.CREATE);
+        stamp(className, Phase.RESUME);
+        stamp(className, Phase.FIRST_FRAME);
+        finish(className);
+    }
+
+    /**
+     * Returns a copy of the histogram of the latencies from the tap to the specified phase of the
+     * launches of the specified destination, or {@code null} if there was none.
+     */
+    public static LatencyHistogram getHistogram(String className, Phase phase) {
+        LatencyHistogram[] histograms = sHistograms.get(className);
+        if (histograms == null) {
+            return null;
+        }
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.merge(histograms[phase.ordinal()]);
+        return copy;
+    }
+
+    private static void stamp(String className, Phase phase) {
+        Launch launch = sLaunches.get(className);
+        if (launch != null && launch.phaseMillis[phase.ordinal()] == 0) {
+            launch.phaseMillis[phase.ordinal()] = SystemClock.uptimeMillis();
+        }
+    }
+
+    private static void finish(String className) {
+        Launch launch = sLaunches.remove(className);
+        if (launch == null) {
+            return;
+        }
+
+        LatencyHistogram[] histograms = sHistograms.get(className);
+        if (histograms == null) {
+            histograms = new LatencyHistogram[Phase.values().length];
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i] = new LatencyHistogram();
+            }
+            sHistograms.put(className, histograms);
+        }
+        StringBuilder message = new StringBuilder(className);
+        for (Phase phase : Phase.values()) {
+            long millis = launch.phaseMillis[phase.ordinal()];
+            if (millis != 0) {
+                histograms[phase.ordinal()].record(millis - launch.clickMillis);
+                message.append(String.format(" %s=%d", phase, millis - launch.clickMillis));
+            }
+        }
+        Log.i(TAG, message.append(" ms").toString());
+        export();
+    }
+
+    /** Writes a snapshot of the histograms to the export file, off the main thread. */
+    private static void export() {
+        if (sExportFile == null) {
+            return;
+        }
+        final File file = sExportFile;
+        final String contents = toCsv();
+        AsyncTask.SERIAL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(file, contents);
+            }
+        });
+    }
+
+    /** Returns the histograms as CSV, one row per destination and phase. */
+    private static String toCsv() {
+        StringBuilder csv = new StringBuilder("destination,phase,")
+                .append(LatencyHistogram.CSV_COLUMNS).append('\n');
+        for (Map.Entry<String, LatencyHistogram[]> entry : sHistograms.entrySet()) {
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram histogram = entry.getValue()[phase.ordinal()];
+                if (histogram.getCount() == 0) {
+                    continue;
+                }
+                csv.append(entry.getKey()).append(',').append(phase).append(',');
+                histogram.appendCsv(csv);
+                csv.append('\n');
+            }
+        }
+        return csv.toString();
+    }
+
+    private static void write(File file, String contents) {
+        Writer writer = null;
+        try {
+            writer = new FileWriter(file);
+            writer.write(contents);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to export launch latencies", e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    // Ignore.
+                }
+            }
+        }
+    }
+
+    /** Stamps the launches of activities as they go through their lifecycle. */
+    private static final class ActivityTracer implements Application.ActivityLifecycleCallbacks {
+
+        private final Handler mHandler = new Handler();
+
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+            stamp(activity.getClass().getName(), Phase.CREATE);
+        }
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+            final String className = activity.getClass().getName();
+            if (!sLaunches.containsKey(className)) {
+                return;
+            }
+            stamp(className, Phase.RESUME);
+            // The first frame is drawn by the traversal of the frame following the resume; a
+            // message posted from the beginning of that frame runs once the frame is done.
+            Choreographer.getInstance().postFrameCallback(new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    mHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            stamp(className, Phase.FIRST_FRAME);
+                            finish(className);
+                        }
+                    });
+                }
+            });
+        }
+
+        @Override
+        public void onActivityStarted(Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+        }
+    }
+}
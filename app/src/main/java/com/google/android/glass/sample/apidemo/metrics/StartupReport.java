@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.metrics;
+
+import android.app.Activity;
+import android.os.AsyncTask;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records how long activities take to start, from the start of the process or the creation of
+ * the activity to its first frame and to the moment its content is complete.
+ * <p>
+ * A start is cold when it is the first one traced in the process, and warm otherwise. Each start
+ * is logged, kept in memory for tests, and appended to {@link #REPORT_FILE_NAME} in the files
+ * directory of the app, off the main thread.
+ */
+public final class StartupReport {
+
+    private static final String TAG = StartupReport.class.getSimpleName();
+
+    /** Name of the CSV file the starts are appended to. */
+    public static final String REPORT_FILE_NAME = "startup_report.csv";
+
+    /** Maximum number of starts kept in memory. */
+    private static final int MAX_ENTRIES = 100;
+
+    /** The timings of one start, in milliseconds of {@link SystemClock#uptimeMillis}. */
+    public static final class Entry {
+
+        /** Name of the activity that started. */
+        public final String name;
+
+        /** Whether this was the first start traced in the process. */
+        public final boolean cold;
+
+        /** When the process started, or {@code 0} if unknown. */
+        public final long processStartMillis;
+
+        /** When {@code onCreate} was called. */
+        public final long createMillis;
+
+        /** When the first frame was drawn. */
+        public final long firstFrameMillis;
+
+        /** When the content was complete. */
+        public final long fullyDrawnMillis;
+
+        Entry(String name, boolean cold, long processStartMillis, long createMillis,
+                long firstFrameMillis, long fullyDrawnMillis) {
+            this.name = name;
+            this.cold = cold;
+            this.processStartMillis = processStartMillis;
+            this.createMillis = createMillis;
+            this.firstFrameMillis = firstFrameMillis;
+            this.fullyDrawnMillis = fullyDrawnMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s start: process to create %d ms, create to first frame %d "
+                    + "ms, create to fully drawn %d ms", cold ? "Cold" : "Warm", name,
+                    processStartMillis != 0 ? createMillis - processStartMillis : -1,
+                    firstFrameMillis - createMillis, fullyDrawnMillis - createMillis);
+        }
+    }
+
+    /** Traces the start of one activity. */
+    public static final class Trace {
+
+        private final Activity mActivity;
+        private final boolean mCold;
+        private final long mCreateMillis;
+        private long mFirstFrameMillis;
+        private long mFullyDrawnMillis;
+
+        private Trace(Activity activity, boolean cold) {
+            mActivity = activity;
+            mCold = cold;
+            mCreateMillis = SystemClock.uptimeMillis();
+        }
+
+        /** Records the first frame in which the specified view is drawn. */
+        public void watchFirstFrame(final View view) {
+            view.getViewTreeObserver().addOnPreDrawListener(
+                    new ViewTreeObserver.OnPreDrawListener() {
+                        @Override
+                        public boolean onPreDraw() {
+                            view.getViewTreeObserver().removeOnPreDrawListener(this);
+                            mFirstFrameMillis = SystemClock.uptimeMillis();
+                            maybeFinish();
+                            return true;
+                        }
+                    });
+        }
+
+        /** Records that the content of the activity is complete. */
+        public void onFullyDrawn() {
+            if (mFullyDrawnMillis == 0) {
+                mFullyDrawnMillis = SystemClock.uptimeMillis();
+                mActivity.reportFullyDrawn();
+                maybeFinish();
+            }
+        }
+
+        private void maybeFinish() {
+            if (mFirstFrameMillis != 0 && mFullyDrawnMillis != 0) {
+                // The content may be complete before the first frame is drawn.
+                add(mActivity, new Entry(mActivity.getClass().getSimpleName(), mCold,
+                        sProcessStartMillis, mCreateMillis, mFirstFrameMillis,
+                        Math.max(mFirstFrameMillis, mFullyDrawnMillis)));
+            }
+        }
+    }
+
+    private static final List<Entry> sEntries = new ArrayList<Entry>();
+    private static long sProcessStartMillis;
+    private static boolean sStarted;
+
+    private StartupReport() {
+    }
+
+    /** Records the start of the process; called as early as possible. */
+    public static void onProcessStart() {
+        sProcessStartMillis = SystemClock.uptimeMillis();
+    }
+
+    /** Starts tracing the start of the specified activity; called from its {@code onCreate}. */
+    public static Trace begin(Activity activity) {
+        Trace trace = new Trace(activity, !sStarted);
+        sStarted = true;
+        return trace;
+    }
+
+    /** Returns the starts recorded so far in this process, oldest first. */
+    public static List<Entry> getEntries() {
+        synchronized (sEntries) {
+            return new ArrayList<Entry>(sEntries);
+        }
+    }
+
+    private static void add(Activity activity, final Entry entry) {
+        Log.i(TAG, entry.toString());
+        synchronized (sEntries) {
+            if (sEntries.size() == MAX_ENTRIES) {
+                sEntries.remove(0);
+            }
+            sEntries.add(entry);
+        }
+
+        final File file = new File(activity.getFilesDir(), REPORT_FILE_NAME);
+        AsyncTask.SERIAL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                append(file, entry);
+            }
+        });
+    }
+
+    private static void append(File file, Entry entry) {
+        boolean exists = file.exists();
+        Writer writer = null;
+        try {
+            writer = new FileWriter(file, true);
+            if (!exists) {
+                writer.write("time,name,kind,process_to_create_ms,create_to_first_frame_ms,"
+                        + "create_to_fully_drawn_ms\n");
+            }
+            writer.write(String.format("%d,%s,%s,%d,%d,%d\n", System.currentTimeMillis(),
+                    entry.name, entry.cold ? "cold" : "warm",
+                    entry.processStartMillis != 0
+                            ? entry.createMillis - entry.processStartMillis : -1,
+                    entry.firstFrameMillis - entry.createMillis,
+                    entry.fullyDrawnMillis - entry.createMillis));
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write startup report", e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    // Ignore.
+                }
+            }
+        }
+    }
+}
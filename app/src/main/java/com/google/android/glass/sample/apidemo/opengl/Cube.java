@@ -98,10 +98,12 @@ public class Cube {
             "}";
 
 
-    private final FloatBuffer mVertexBuffer;
-    private final FloatBuffer mColorBuffer;
-    private final ByteBuffer mIndexBuffer;
+    private FloatBuffer mVertexBuffer;
+    private FloatBuffer mColorBuffer;
+    private ByteBuffer mIndexBuffer;
     private final int mProgram;
+    private final int mVertexShader;
+    private final int mFragmentShader;
     private final int mPositionHandle;
     private final int mColorHandle;
     private final int mMVPMatrixHandle;
@@ -124,10 +126,11 @@ public class Cube {
         mIndexBuffer.put(INDICES);
         mIndexBuffer.position(0);
 
+        mVertexShader = loadShader(GLES20.GL_VERTEX_SHADER, VERTEX_SHADER_CODE);
+        mFragmentShader = loadShader(GLES20.GL_FRAGMENT_SHADER, FRAGMENT_SHADER_CODE);
         mProgram = GLES20.glCreateProgram();
-        GLES20.glAttachShader(mProgram, loadShader(GLES20.GL_VERTEX_SHADER, VERTEX_SHADER_CODE));
-        GLES20.glAttachShader(
-                mProgram, loadShader(GLES20.GL_FRAGMENT_SHADER, FRAGMENT_SHADER_CODE));
+        GLES20.glAttachShader(mProgram, mVertexShader);
+        GLES20.glAttachShader(mProgram, mFragmentShader);
         GLES20.glLinkProgram(mProgram);
 
         mPositionHandle = GLES20.glGetAttribLocation(mProgram, "vPosition");
@@ -166,6 +169,26 @@ public class Cube {
         GLES20.glDisableVertexAttribArray(mColorHandle);
     }
 
+    /**
+     * Drops the vertex buffers of this cube, which must not be drawn afterwards, so that their
+     * memory can be reclaimed before the GL thread gets to {@link #release}. Called on any thread.
+     */
+    public void releaseBuffers() {
+        mVertexBuffer = null;
+        mColorBuffer = null;
+        mIndexBuffer = null;
+    }
+
+    /**
+     * Deletes the program and shaders of this cube, which must not be drawn afterwards. The
+     * vertex buffers are freed once the cube is no longer referenced.
+     */
+    public void release() {
+        GLES20.glDeleteProgram(mProgram);
+        GLES20.glDeleteShader(mVertexShader);
+        GLES20.glDeleteShader(mFragmentShader);
+    }
+
     /** Loads the provided shader in the program. */
     private static int loadShader(int type, String shaderCode){
         int shader = GLES20.glCreateShader(type);
@@ -20,7 +20,9 @@ import com.google.android.glass.timeline.GlRenderer;
 
 import android.opengl.GLES20;
 import android.opengl.Matrix;
+import android.os.Debug;
 import android.os.SystemClock;
+import android.util.Log;
 
 import java.util.concurrent.TimeUnit;
 import javax.microedition.khronos.egl.EGLConfig;
@@ -30,6 +32,8 @@ import javax.microedition.khronos.egl.EGLConfig;
  */
 public class CubeRenderer implements GlRenderer {
 
+    private static final String TAG = CubeRenderer.class.getSimpleName();
+
     /** Rotation increment per frame. */
     private static final float CUBE_ROTATION_INCREMENT = 0.6f;
 
@@ -45,10 +49,25 @@ public class CubeRenderer implements GlRenderer {
     private final float[] mRotationMatrix;
     private final float[] mFinalMVPMatrix;
 
-    private Cube mCube;
     private float mCubeRotation;
     private long mLastUpdateMillis;
 
+    /**
+     * Guards the cube and tiers, since the tier is set on the main thread while the GL thread
+     * draws. The GL thread may not draw again for a long time, such as while the card is in the
+     * background, so memory that can be freed off the GL thread is freed by {@link #setTier}.
+     */
+    private final Object mLock = new Object();
+
+    private Cube mCube;
+
+    /** A cube whose vertex buffers were released, waiting for the GL thread to delete it. */
+    private Cube mReleasedCube;
+
+    /** Tier asked for, whose GL resources are created or released at the next frame. */
+    private MemoryPressurePolicy.Tier mTier = MemoryPressurePolicy.Tier.FULL;
+    private MemoryPressurePolicy.Tier mAppliedTier;
+
     public CubeRenderer() {
         mMVPMatrix = new float[16];
         mProjectionMatrix = new float[16];
@@ -67,7 +86,12 @@ public class CubeRenderer implements GlRenderer {
         GLES20.glClearDepthf(1.0f);
         GLES20.glEnable(GLES20.GL_DEPTH_TEST);
         GLES20.glDepthFunc(GLES20.GL_LEQUAL);
-        mCube = new Cube();
+        // The context is new, so the resources of the tier are created again.
+        synchronized (mLock) {
+            mCube = null;
+            mReleasedCube = null;
+            mAppliedTier = null;
+        }
     }
 
     @Override
@@ -81,20 +105,73 @@ public class CubeRenderer implements GlRenderer {
         Matrix.multiplyMM(mMVPMatrix, 0, mProjectionMatrix, 0, mViewMatrix, 0);
     }
 
+    /**
+     * Sets the resources the renderer may hold; called on any thread. Below
+     * {@link MemoryPressurePolicy.Tier#FULL}, the cube is released and only the background is
+     * drawn, and at {@link MemoryPressurePolicy.Tier#MINIMAL} the shader compiler is released too.
+     * <p>
+     * The vertex buffers of the cube are released right away, and the heap usage is logged once
+     * they are; the GL objects can only be deleted by the GL thread, at the next frame.
+     */
+    public void setTier(MemoryPressurePolicy.Tier tier) {
+        synchronized (mLock) {
+            mTier = tier;
+            if (tier != MemoryPressurePolicy.Tier.FULL && mCube != null) {
+                mCube.releaseBuffers();
+                mReleasedCube = mCube;
+                mCube = null;
+            }
+        }
+        Runtime runtime = Runtime.getRuntime();
+        Log.i(TAG, String.format("Tier %s: java heap %d KB, native heap %d KB", tier,
+                (runtime.totalMemory() - runtime.freeMemory()) / 1024,
+                Debug.getNativeHeapAllocatedSize() / 1024));
+    }
+
     @Override
     public void onDrawFrame() {
-        GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT | GLES20.GL_DEPTH_BUFFER_BIT);
-
-        // Apply the rotation.
-        Matrix.setRotateM(mRotationMatrix, 0, mCubeRotation, 1.0f, 1.0f, 1.0f);
-        // Combine the rotation matrix with the projection and camera view
-        Matrix.multiplyMM(mFinalMVPMatrix, 0, mMVPMatrix, 0, mRotationMatrix, 0);
-
-        // Draw cube.
-        mCube.draw(mFinalMVPMatrix);
+        synchronized (mLock) {
+            applyTier();
+            GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT | GLES20.GL_DEPTH_BUFFER_BIT);
+            if (mCube == null) {
+                // Minimal renderer: the rotation resumes where it stopped once the cube is back.
+                mLastUpdateMillis = 0;
+                return;
+            }
+
+            // Apply the rotation.
+            Matrix.setRotateM(mRotationMatrix, 0, mCubeRotation, 1.0f, 1.0f, 1.0f);
+            // Combine the rotation matrix with the projection and camera view
+            Matrix.multiplyMM(mFinalMVPMatrix, 0, mMVPMatrix, 0, mRotationMatrix, 0);
+
+            // Draw cube.
+            mCube.draw(mFinalMVPMatrix);
+        }
         updateCubeRotation();
     }
 
+    /**
+     * Creates or deletes the GL resources of the tier asked for, if it changed; called on the GL
+     * thread with {@link #mLock} held.
+     */
+    private void applyTier() {
+        if (mReleasedCube != null) {
+            mReleasedCube.release();
+            mReleasedCube = null;
+        }
+        if (mTier == mAppliedTier) {
+            return;
+        }
+        mAppliedTier = mTier;
+        if (mTier == MemoryPressurePolicy.Tier.FULL) {
+            if (mCube == null) {
+                mCube = new Cube();
+            }
+        } else if (mTier == MemoryPressurePolicy.Tier.MINIMAL) {
+            GLES20.glReleaseShaderCompiler();
+        }
+    }
+
     /** Updates the cube rotation. */
     private void updateCubeRotation() {
         if (mLastUpdateMillis != 0) {
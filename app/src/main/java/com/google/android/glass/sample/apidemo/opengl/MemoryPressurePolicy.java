@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.opengl;
+
+import com.google.android.glass.sample.apidemo.HandlerScheduler;
+import com.google.android.glass.sample.apidemo.Scheduler;
+
+import android.content.ComponentCallbacks2;
+import android.util.Log;
+
+/**
+ * Turns the memory trim levels reported to a component into tiers of resource usage.
+ * <p>
+ * A trim level moves to its tier if it is higher than the current one, and never lowers it, since
+ * the system does not report that memory is available again. Instead, once no trim was reported
+ * for {@link #RECOVERY_DELAY_MILLIS}, the tier goes down one step, until it is back to
+ * {@link Tier#FULL}. The heap usage is left for listeners to log once they applied a change, as
+ * {@link CubeRenderer} does. Every method is called on the main thread.
+ */
+public class MemoryPressurePolicy {
+
+    private static final String TAG = MemoryPressurePolicy.class.getSimpleName();
+
+    /** How long without a trim before the tier goes down one step. */
+    public static final long RECOVERY_DELAY_MILLIS = 30 * 1000;
+
+    /** Resources a component may hold, from the most to the fewest. */
+    public enum Tier {
+        /** Everything is held. */
+        FULL,
+        /** Caches and the resources of what is not visible are released. */
+        REDUCED,
+        /** Only what is needed to keep running is held. */
+        MINIMAL
+    }
+
+    /** Gets notified when the tier changes. */
+    public interface Listener {
+        void onTierChanged(Tier tier);
+    }
+
+    private final Listener mListener;
+
+    /** The scheduler recoveries are scheduled on. */
+    private final Scheduler mScheduler;
+
+    private Tier mTier = Tier.FULL;
+
+    private final Runnable mRecovery = new Runnable() {
+
+        @Override
+        public void run() {
+            recover();
+        }
+    };
+
+    /** Initializes a new policy notifying the specified listener of tier changes. */
+    public MemoryPressurePolicy(Listener listener) {
+        this(listener, HandlerScheduler.getMain());
+    }
+
+    /** Initializes a new policy recovering on the specified scheduler. */
+    MemoryPressurePolicy(Listener listener, Scheduler scheduler) {
+        mListener = listener;
+        mScheduler = scheduler;
+    }
+
+    /** Returns the current tier. */
+    public Tier getTier() {
+        return mTier;
+    }
+
+    /** Handles a trim level, as reported by {@link ComponentCallbacks2#onTrimMemory}. */
+    public void onTrimMemory(int level) {
+        Log.d(TAG, "Trim level " + level);
+        raiseTo(getTier(level));
+    }
+
+    /** Handles a low memory report, as by {@link ComponentCallbacks2#onLowMemory}. */
+    public void onLowMemory() {
+        Log.d(TAG, "Low memory");
+        raiseTo(Tier.MINIMAL);
+    }
+
+    /** Goes down one tier, if not at {@link Tier#FULL} already. */
+    public void recover() {
+        if (mTier == Tier.FULL) {
+            return;
+        }
+        setTier(Tier.values()[mTier.ordinal() - 1]);
+        scheduleRecovery();
+    }
+
+    /** Stops recovering; the tier is left as is. */
+    public void release() {
+        mScheduler.removeCallbacks(mRecovery);
+    }
+
+    /** Returns the tier the specified trim level calls for. */
+    static Tier getTier(int level) {
+        switch (level) {
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE:
+            // Hiding the activities of the app does not hide a LiveCard, which is not one of them.
+            case ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN:
+                return Tier.FULL;
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW:
+            case ComponentCallbacks2.TRIM_MEMORY_BACKGROUND:
+                return Tier.REDUCED;
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL:
+            case ComponentCallbacks2.TRIM_MEMORY_MODERATE:
+            case ComponentCallbacks2.TRIM_MEMORY_COMPLETE:
+                return Tier.MINIMAL;
+            default:
+                // Levels added later order like the others.
+                return level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE ? Tier.MINIMAL
+                        : Tier.REDUCED;
+        }
+    }
+
+    private void raiseTo(Tier tier) {
+        if (tier.compareTo(mTier) > 0) {
+            setTier(tier);
+        }
+        // Any trim means memory is still short, so recovery starts over.
+        if (mTier != Tier.FULL) {
+            scheduleRecovery();
+        }
+    }
+
+    private void setTier(Tier tier) {
+        Tier previous = mTier;
+        mTier = tier;
+        Log.i(TAG, previous + " -> " + tier);
+        mListener.onTierChanged(tier);
+    }
+
+    private void scheduleRecovery() {
+        mScheduler.removeCallbacks(mRecovery);
+        mScheduler.postDelayed(mRecovery, RECOVERY_DELAY_MILLIS);
+    }
+}
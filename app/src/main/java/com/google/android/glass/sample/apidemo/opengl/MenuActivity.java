@@ -29,10 +29,14 @@ import android.view.MenuItem;
 import java.lang.Runnable;
 
 /**
- * Activity showing an options menu to stop the {@link OpenGlService}.
+ * Activity showing an options menu to stop a LiveCard service, the {@link OpenGlService} unless
+ * {@link #EXTRA_SERVICE_CLASS} names another one.
  */
 public class MenuActivity extends Activity {
 
+    /** Class name of the service to stop. */
+    public static final String EXTRA_SERVICE_CLASS = "service_class";
+
     private final Handler mHandler = new Handler();
 
     @Override
@@ -60,7 +64,7 @@ public class MenuActivity extends Activity {
 
                     @Override
                     public void run() {
-                        stopService(new Intent(MenuActivity.this, OpenGlService.class));
+                        stopService(getServiceIntent());
                     }
                 });
                 return true;
@@ -74,4 +78,12 @@ public class MenuActivity extends Activity {
         // Nothing else to do, closing the Activity.
         finish();
     }
+
+    private Intent getServiceIntent() {
+        String className = getIntent().getStringExtra(EXTRA_SERVICE_CLASS);
+        if (className == null) {
+            return new Intent(this, OpenGlService.class);
+        }
+        return new Intent().setClassName(this, className);
+    }
 }
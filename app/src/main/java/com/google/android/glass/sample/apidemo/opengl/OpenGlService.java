@@ -16,6 +16,7 @@
 
 package com.google.android.glass.sample.apidemo.opengl;
 
+import com.google.android.glass.sample.apidemo.metrics.LaunchTracer;
 import com.google.android.glass.timeline.LiveCard;
 import com.google.android.glass.timeline.LiveCard.PublishMode;
 
@@ -26,12 +27,29 @@ import android.os.IBinder;
 
 /**
  * Creates a {@link LiveCard} rendering a rotating 3D cube with OpenGL.
+ * <p>
+ * Under memory pressure, the renderer releases its GL resources and only draws the background,
+ * until the {@link MemoryPressurePolicy} recovers.
  */
 public class OpenGlService extends Service {
 
     private static final String LIVE_CARD_TAG = "opengl";
 
     private LiveCard mLiveCard;
+    private CubeRenderer mRenderer;
+    private MemoryPressurePolicy mMemoryPolicy;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        mRenderer = new CubeRenderer();
+        mMemoryPolicy = new MemoryPressurePolicy(new MemoryPressurePolicy.Listener() {
+            @Override
+            public void onTierChanged(MemoryPressurePolicy.Tier tier) {
+                mRenderer.setTier(tier);
+            }
+        });
+    }
 
     @Override
     public IBinder onBind(Intent intent) {
@@ -42,7 +60,7 @@ public class OpenGlService extends Service {
     public int onStartCommand(Intent intent, int flags, int startId) {
         if (mLiveCard == null) {
             mLiveCard = new LiveCard(this, LIVE_CARD_TAG);
-            mLiveCard.setRenderer(new CubeRenderer());
+            mLiveCard.setRenderer(mRenderer);
             mLiveCard.setAction(
                     PendingIntent.getActivity(this, 0, new Intent(this, MenuActivity.class), 0));
             mLiveCard.attach(this);
@@ -51,11 +69,25 @@ public class OpenGlService extends Service {
             mLiveCard.navigate();
         }
 
+        LaunchTracer.onServiceStarted(this);
         return START_STICKY;
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        mMemoryPolicy.onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        mMemoryPolicy.onLowMemory();
+    }
+
     @Override
     public void onDestroy() {
+        mMemoryPolicy.release();
         if (mLiveCard != null && mLiveCard.isPublished()) {
             mLiveCard.unpublish();
             mLiveCard = null;
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.slider;
+
+import com.google.android.glass.sample.apidemo.HandlerScheduler;
+import com.google.android.glass.sample.apidemo.Scheduler;
+
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * Advances all the running {@link FloatAnimation}s of the main thread once per vsync, with a
+ * single {@link Choreographer} frame callback that is only posted while an animation runs.
+ */
+public final class AnimationTicker implements Choreographer.FrameCallback {
+
+    private static AnimationTicker sInstance;
+
+    /** The scheduler frames are requested from. */
+    private final Scheduler mScheduler;
+
+    private final ArrayList<FloatAnimation> mAnimations = new ArrayList<FloatAnimation>();
+    private boolean mFrameScheduled;
+
+    /** Returns the ticker of the main thread; called on the main thread. */
+    public static AnimationTicker getInstance() {
+        if (sInstance == null) {
+            sInstance = new AnimationTicker(HandlerScheduler.getMain());
+        }
+        return sInstance;
+    }
+
+    /** Initializes a new ticker driven by the frames of the specified scheduler. */
+    AnimationTicker(Scheduler scheduler) {
+        mScheduler = scheduler;
+    }
+
+    /** Returns the number of animations being ticked, including those just stopped. */
+    public int getAnimationCount() {
+        return mAnimations.size();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mFrameScheduled = false;
+        tick(frameTimeNanos);
+        if (!mAnimations.isEmpty()) {
+            scheduleFrame();
+        }
+    }
+
+    /**
+     * Advances the running animations to the specified frame time, and forgets those that are
+     * no longer running. Animations started meanwhile are advanced from the next frame.
+     */
+    private void tick(long frameTimeNanos) {
+        int count = mAnimations.size();
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            FloatAnimation animation = mAnimations.get(i);
+            if (animation.isRunning()) {
+                animation.step(frameTimeNanos);
+            }
+            // The animation may have ended, or been cancelled by a listener.
+            if (animation.isRunning()) {
+                mAnimations.set(kept++, animation);
+            } else {
+                animation.onRemoved();
+            }
+        }
+        // Move the animations started during this frame after the kept ones, then truncate.
+        for (int i = count; i < mAnimations.size(); i++) {
+            mAnimations.set(kept++, mAnimations.get(i));
+        }
+        for (int i = mAnimations.size() - 1; i >= kept; i--) {
+            mAnimations.remove(i);
+        }
+    }
+
+    /** Adds an animation, which must not be ticked already. */
+    void add(FloatAnimation animation) {
+        mAnimations.add(animation);
+        scheduleFrame();
+    }
+
+    private void scheduleFrame() {
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            mScheduler.postFrameCallback(this);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.slider;
+
+import android.animation.TimeInterpolator;
+
+/**
+ * Animates a float property through a typed {@link Setter}, on the frames of the shared
+ * {@link AnimationTicker}.
+ * <p>
+ * Unlike an {@code ObjectAnimator}, it finds no setter by reflection and allocates nothing when
+ * it starts or on each frame, so a single instance can be kept and restarted for every slider
+ * shown. Every method is called on the main thread.
+ */
+public class FloatAnimation {
+
+    /** Sets the animated property. */
+    public interface Setter {
+        void set(float value);
+    }
+
+    /** Listens to the end of an animation. */
+    public interface Listener {
+
+        /** Called after the last value was set, unless the animation was cancelled. */
+        void onAnimationEnd(FloatAnimation animation);
+    }
+
+    private final Setter mSetter;
+    private TimeInterpolator mInterpolator = LookupInterpolator.ACCELERATE_DECELERATE;
+    private Listener mListener;
+    private float mFrom;
+    private float mTo;
+    private long mDurationNanos;
+
+    private boolean mRunning;
+    private boolean mTicked;
+    private long mStartNanos;
+
+    /** Initializes a new animation of the property set by the specified setter. */
+    public FloatAnimation(Setter setter) {
+        mSetter = setter;
+    }
+
+    /** Sets the interpolator, {@link LookupInterpolator#ACCELERATE_DECELERATE} by default. */
+    public FloatAnimation setInterpolator(TimeInterpolator interpolator) {
+        mInterpolator = interpolator;
+        return this;
+    }
+
+    /** Sets the listener to the end of the animation. */
+    public FloatAnimation setListener(Listener listener) {
+        mListener = listener;
+        return this;
+    }
+
+    /** Sets the duration of the animation. */
+    public FloatAnimation setDuration(long durationMillis) {
+        mDurationNanos = durationMillis * 1000 * 1000;
+        return this;
+    }
+
+    /** Starts animating between the specified values, restarting if already running. */
+    public void start(float from, float to) {
+        start(from, to, AnimationTicker.getInstance());
+    }
+
+    /** Starts animating between the specified values on the frames of the specified ticker. */
+    void start(float from, float to, AnimationTicker ticker) {
+        mFrom = from;
+        mTo = to;
+        mStartNanos = 0;
+        mRunning = true;
+        if (!mTicked) {
+            mTicked = true;
+            ticker.add(this);
+        }
+    }
+
+    /** Stops the animation where it is, without notifying the listener. */
+    public void cancel() {
+        mRunning = false;
+    }
+
+    /** Returns whether the animation is running. */
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    /** Sets the value of the animation at the specified frame time. */
+    void step(long frameTimeNanos) {
+        if (mStartNanos == 0) {
+            // The first frame starts the animation, as with the platform animators.
+            mStartNanos = frameTimeNanos;
+        }
+        float fraction = mDurationNanos > 0
+                ? Math.min(1f, (float) (frameTimeNanos - mStartNanos) / mDurationNanos) : 1f;
+        mSetter.set(mFrom + (mTo - mFrom) * mInterpolator.getInterpolation(fraction));
+        if (fraction >= 1f) {
+            mRunning = false;
+            if (mListener != null) {
+                mListener.onAnimationEnd(this);
+            }
+        }
+    }
+
+    /** Called when the ticker forgets the animation, after it stopped. */
+    void onRemoved() {
+        mTicked = false;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.slider;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the work confirmed by a {@code Slider.GracePeriod}: the work is prepared on a worker
+ * thread while the grace period runs, then committed as soon as the grace period ends, or rolled
+ * back if it is cancelled.
+ * <p>
+ * Since the slow part of the work is done speculatively, committing usually happens immediately
+ * on the main thread when the grace period ends. If the preparation is not done yet, the commit
+ * happens as soon as it is. One action is staged at a time; staging another one rolls back the
+ * previous one unless it was committed. Every method is called on the main thread.
+ */
+public class GracePeriodExecutor {
+
+    private static final String TAG = GracePeriodExecutor.class.getSimpleName();
+
+    /**
+     * Work confirmed by a grace period.
+     *
+     * @param <T> the type of the result of the preparation
+     */
+    public interface Action<T> {
+
+        /** Prepares the work on the worker thread, without making it visible. */
+        T prepare() throws Exception;
+
+        /** Makes the prepared work visible; called on the main thread, so it must be quick. */
+        void commit(T prepared);
+
+        /** Discards the prepared work; called on the worker thread. */
+        void rollback(T prepared);
+    }
+
+    /** Progress of a staged action. */
+    private enum State {
+        PREPARING,
+        PREPARED,
+        COMMIT_PENDING,
+        ROLLBACK_PENDING,
+        COMMITTED,
+        ROLLED_BACK,
+        FAILED
+    }
+
+    /** An action and the result of its preparation, guarded by itself. */
+    private final class Staged<T> implements Runnable {
+
+        private final Action<T> mAction;
+        private State mState = State.PREPARING;
+        private T mPrepared;
+
+        Staged(Action<T> action) {
+            mAction = action;
+        }
+
+        /** Prepares the action on the worker thread. */
+        @Override
+        public void run() {
+            T prepared = null;
+            boolean failed = false;
+            try {
+                prepared = mAction.prepare();
+            } catch (Exception e) {
+                Log.w(TAG, "Failed to prepare action", e);
+                failed = true;
+            }
+
+            State state;
+            synchronized (this) {
+                mPrepared = prepared;
+                state = mState;
+                if (failed) {
+                    mState = State.FAILED;
+                } else if (state == State.PREPARING) {
+                    mState = State.PREPARED;
+                }
+            }
+            if (failed) {
+                return;
+            }
+            if (state == State.COMMIT_PENDING) {
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        commitPrepared();
+                    }
+                });
+            } else if (state == State.ROLLBACK_PENDING) {
+                rollbackPrepared();
+            }
+        }
+
+        /** Commits the action now if it is prepared, or as soon as it is. */
+        void commit() {
+            synchronized (this) {
+                if (mState == State.PREPARING) {
+                    mState = State.COMMIT_PENDING;
+                    return;
+                }
+                if (mState != State.PREPARED) {
+                    return;
+                }
+            }
+            commitPrepared();
+        }
+
+        /** Rolls the action back now if it is prepared, or as soon as it is. */
+        void rollback() {
+            synchronized (this) {
+                if (mState == State.PREPARING) {
+                    mState = State.ROLLBACK_PENDING;
+                    return;
+                }
+                if (mState != State.PREPARED) {
+                    return;
+                }
+                mState = State.ROLLBACK_PENDING;
+            }
+            mWorker.execute(new Runnable() {
+                @Override
+                public void run() {
+                    rollbackPrepared();
+                }
+            });
+        }
+
+        private void commitPrepared() {
+            synchronized (this) {
+                // Whichever of the commit and the rollback comes first wins.
+                if (mState != State.PREPARED && mState != State.COMMIT_PENDING) {
+                    return;
+                }
+                mState = State.COMMITTED;
+            }
+            mAction.commit(mPrepared);
+        }
+
+        private void rollbackPrepared() {
+            synchronized (this) {
+                mState = State.ROLLED_BACK;
+            }
+            mAction.rollback(mPrepared);
+        }
+    }
+
+    private final Executor mWorker;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private Staged<?> mStaged;
+
+    /** Initializes a new executor preparing actions with the specified worker. */
+    public GracePeriodExecutor(Executor worker) {
+        mWorker = worker;
+    }
+
+    /** Starts preparing an action; called when the grace period starts. */
+    public <T> void stage(Action<T> action) {
+        rollback();
+        Staged<T> staged = new Staged<T>(action);
+        mStaged = staged;
+        mWorker.execute(staged);
+    }
+
+    /** Commits the staged action; called when the grace period ends. */
+    public void commit() {
+        if (mStaged != null) {
+            mStaged.commit();
+            mStaged = null;
+        }
+    }
+
+    /** Rolls the staged action back; called when the grace period is cancelled. */
+    public void rollback() {
+        if (mStaged != null) {
+            mStaged.rollback();
+            mStaged = null;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.slider;
+
+import android.animation.TimeInterpolator;
+import android.view.animation.AccelerateDecelerateInterpolator;
+
+/**
+ * Interpolator reading a table of samples of another interpolator, precomputed once, so that
+ * each frame costs a lookup and a linear interpolation between two samples instead of evaluating
+ * the curve.
+ */
+public class LookupInterpolator implements TimeInterpolator {
+
+    /** Samples per table; enough for the error to stay far below a pixel of a slider. */
+    private static final int SAMPLE_COUNT = 201;
+
+    /** Linear interpolation, which needs no table. */
+    public static final TimeInterpolator LINEAR = new TimeInterpolator() {
+        @Override
+        public float getInterpolation(float input) {
+            return input;
+        }
+    };
+
+    /** Table of the default interpolator of the platform animators. */
+    public static final LookupInterpolator ACCELERATE_DECELERATE =
+            new LookupInterpolator(new AccelerateDecelerateInterpolator());
+
+    private final float[] mSamples;
+
+    /** Initializes a new interpolator sampling the specified one. */
+    public LookupInterpolator(TimeInterpolator source) {
+        mSamples = new float[SAMPLE_COUNT];
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            mSamples[i] = source.getInterpolation((float) i / (SAMPLE_COUNT - 1));
+        }
+    }
+
+    @Override
+    public float getInterpolation(float input) {
+        if (input <= 0) {
+            return mSamples[0];
+        }
+        if (input >= 1) {
+            return mSamples[SAMPLE_COUNT - 1];
+        }
+        float position = input * (SAMPLE_COUNT - 1);
+        int index = (int) position;
+        float fraction = position - index;
+        return mSamples[index] + (mSamples[index + 1] - mSamples[index]) * fraction;
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.slider;
+
+import com.google.android.glass.sample.apidemo.HandlerScheduler;
+import com.google.android.glass.sample.apidemo.Scheduler;
+import com.google.android.glass.sample.apidemo.metrics.LatencyHistogram;
+import com.google.android.glass.widget.Slider;
+
+import android.content.Context;
+import android.os.AsyncTask;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Tracks long operations, showing a {@code Slider.Indeterminate} while one of them runs.
+ * <p>
+ * The slider only shows once an operation has run for {@link #SHOW_DELAY_MILLIS}, so that fast
+ * operations do not flash it. Operations send heartbeats while they make progress; one that
+ * sends none for {@link #STALL_TIMEOUT_MILLIS} is reported as stalled. The latency of each
+ * operation is recorded into a {@link LatencyHistogram} per operation name, with its number of
+ * stalls, and exported to {@link #EXPORT_FILE_NAME} in the files directory of the app after each
+ * operation.
+ * <p>
+ * Operations are begun on the main thread, and send heartbeats and finish from any thread.
+ */
+public class OperationTracker {
+
+    private static final String TAG = OperationTracker.class.getSimpleName();
+
+    /** Name of the CSV file the latencies are exported to. */
+    public static final String EXPORT_FILE_NAME = "operation_latency.csv";
+
+    /** How long an operation runs before the slider shows. */
+    public static final long SHOW_DELAY_MILLIS = 300;
+
+    /** How long an operation can go without a heartbeat before it is reported as stalled. */
+    public static final long STALL_TIMEOUT_MILLIS = 2000;
+
+    /** How often the heartbeats of the running operations are checked. */
+    static final long STALL_CHECK_MILLIS = 500;
+
+    /** An operation being tracked. */
+    public final class Operation {
+
+        private final String mName;
+        private final long mStartMillis;
+        private volatile long mHeartbeatMillis;
+        private boolean mStalled;
+        private boolean mFinished;
+
+        private Operation(String name) {
+            mName = name;
+            mStartMillis = mScheduler.uptimeMillis();
+            mHeartbeatMillis = mStartMillis;
+        }
+
+        /** Returns the name the latencies of the operation are recorded under. */
+        public String getName() {
+            return mName;
+        }
+
+        /** Returns whether the operation is reported as stalled; called on the main thread. */
+        public boolean isStalled() {
+            return mStalled;
+        }
+
+        /** Records that the operation is making progress; called on any thread. */
+        public void heartbeat() {
+            mHeartbeatMillis = mScheduler.uptimeMillis();
+        }
+
+        /** Records the end of the operation; called on any thread. */
+        public void finish() {
+            final long endMillis = mScheduler.uptimeMillis();
+            if (mScheduler.isCurrentThread()) {
+                onFinished(this, endMillis);
+            } else {
+                mScheduler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onFinished(Operation.this, endMillis);
+                    }
+                });
+            }
+        }
+    }
+
+    /** Latencies and stalls of the operations of one name. */
+    private static final class Stats {
+        final LatencyHistogram latencies = new LatencyHistogram();
+        int stallCount;
+    }
+
+    private final Slider mSlider;
+    private final File mExportFile;
+
+    /** The scheduler the checks and the finished operations run on. */
+    private final Scheduler mScheduler;
+
+    private final ArrayList<Operation> mRunning = new ArrayList<Operation>();
+    private final Map<String, Stats> mStats = new TreeMap<String, Stats>();
+
+    private Slider.Indeterminate mIndeterminate;
+    private boolean mSliderShown;
+
+    /** Shows the slider if an operation has run long enough, or checks again later. */
+    private final Runnable mShowRunnable = new Runnable() {
+
+        @Override
+        public void run() {
+            if (mRunning.isEmpty() || mSliderShown) {
+                return;
+            }
+            long remainingMillis = mRunning.get(0).mStartMillis + SHOW_DELAY_MILLIS
+                    - mScheduler.uptimeMillis();
+            if (remainingMillis <= 0) {
+                mSliderShown = true;
+                showSlider();
+            } else {
+                mScheduler.postDelayed(this, remainingMillis);
+            }
+        }
+    };
+
+    /** Reports the operations whose last heartbeat is too old. */
+    private final Runnable mStallCheck = new Runnable() {
+
+        @Override
+        public void run() {
+            long now = mScheduler.uptimeMillis();
+            for (Operation operation : mRunning) {
+                boolean stalled = now - operation.mHeartbeatMillis > STALL_TIMEOUT_MILLIS;
+                if (stalled && !operation.mStalled) {
+                    getStats(operation.mName).stallCount++;
+                    Log.w(TAG, String.format("%s stalled: no heartbeat for %d ms",
+                            operation.mName, now - operation.mHeartbeatMillis));
+                }
+                operation.mStalled = stalled;
+            }
+            if (!mRunning.isEmpty()) {
+                mScheduler.postDelayed(this, STALL_CHECK_MILLIS);
+            }
+        }
+    };
+
+    /**
+     * Initializes a new tracker showing its slider with the specified slider, and exporting the
+     * latencies to the files directory of the specified context.
+     */
+    public OperationTracker(Context context, Slider slider) {
+        this(slider, new File(context.getFilesDir(), EXPORT_FILE_NAME),
+                HandlerScheduler.getMain());
+    }
+
+    /**
+     * Initializes a new tracker exporting the latencies to the specified file, or not at all if it
+     * is {@code null}, and running its checks on the specified scheduler.
+     */
+    OperationTracker(Slider slider, File exportFile, Scheduler scheduler) {
+        mSlider = slider;
+        mExportFile = exportFile;
+        mScheduler = scheduler;
+    }
+
+    /** Begins tracking an operation; called on the main thread. */
+    public Operation begin(String name) {
+        Operation operation = new Operation(name);
+        mRunning.add(operation);
+        if (mRunning.size() == 1) {
+            mScheduler.postDelayed(mShowRunnable, SHOW_DELAY_MILLIS);
+            mScheduler.postDelayed(mStallCheck, STALL_CHECK_MILLIS);
+        }
+        return operation;
+    }
+
+    /** Returns whether the slider is shown. */
+    public boolean isSliderShown() {
+        return mSliderShown;
+    }
+
+    /**
+     * Returns a copy of the histogram of the latencies of the operations of the specified name,
+     * or {@code null} if none finished.
+     */
+    public LatencyHistogram getHistogram(String name) {
+        Stats stats = mStats.get(name);
+        if (stats == null) {
+            return null;
+        }
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.merge(stats.latencies);
+        return copy;
+    }
+
+    /** Returns the number of stalls reported for the operations of the specified name. */
+    public int getStallCount(String name) {
+        Stats stats = mStats.get(name);
+        return stats != null ? stats.stallCount : 0;
+    }
+
+    /** Stops tracking the running operations and hides the slider; called on the main thread. */
+    public void release() {
+        mRunning.clear();
+        stopTracking();
+    }
+
+    /** Shows the indeterminate slider once an operation has run long enough. */
+    void showSlider() {
+        mIndeterminate = mSlider.startIndeterminate();
+    }
+
+    /** Hides the slider shown by {@link #showSlider}. */
+    void hideSlider() {
+        mIndeterminate.hide();
+        mIndeterminate = null;
+    }
+
+    private void onFinished(Operation operation, long endMillis) {
+        if (operation.mFinished || !mRunning.remove(operation)) {
+            return;
+        }
+        operation.mFinished = true;
+        long latencyMillis = endMillis - operation.mStartMillis;
+        getStats(operation.mName).latencies.record(latencyMillis);
+        Log.d(TAG, String.format("%s took %d ms", operation.mName, latencyMillis));
+
+        if (mRunning.isEmpty()) {
+            stopTracking();
+        } else if (!mSliderShown) {
+            // The oldest operation may have changed; reschedule the slider after it.
+            mScheduler.removeCallbacks(mShowRunnable);
+            mShowRunnable.run();
+        }
+        export();
+    }
+
+    /** Stops the checks and hides the slider, once no operation runs. */
+    private void stopTracking() {
+        mScheduler.removeCallbacks(mShowRunnable);
+        mScheduler.removeCallbacks(mStallCheck);
+        if (mSliderShown) {
+            mSliderShown = false;
+            hideSlider();
+        }
+    }
+
+    private Stats getStats(String name) {
+        Stats stats = mStats.get(name);
+        if (stats == null) {
+            stats = new Stats();
+            mStats.put(name, stats);
+        }
+        return stats;
+    }
+
+    /** Writes a snapshot of the latencies to the export file, off the main thread. */
+    private void export() {
+        if (mExportFile == null) {
+            return;
+        }
+        final StringBuilder csv = new StringBuilder("operation,stalls,")
+                .append(LatencyHistogram.CSV_COLUMNS).append('\n');
+        for (Map.Entry<String, Stats> entry : mStats.entrySet()) {
+            csv.append(entry.getKey()).append(',').append(entry.getValue().stallCount)
+                    .append(',');
+            entry.getValue().latencies.appendCsv(csv);
+            csv.append('\n');
+        }
+        final File file = mExportFile;
+        AsyncTask.SERIAL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(file, csv.toString());
+            }
+        });
+    }
+
+    private static void write(File file, String contents) {
+        Writer writer = null;
+        try {
+            writer = new FileWriter(file);
+            writer.write(contents);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to export operation latencies", e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    // Ignore.
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.slider;
+
+import com.google.android.glass.sample.apidemo.FrameSampler;
+
+import android.os.Looper;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Carries the progress of background work to the main thread, typically to a
+ * {@code Slider.Determinate}, at most once per frame.
+ * <p>
+ * Background threads publish progress into an atomic counter as often as they like, and a
+ * {@link FrameSampler} reports the counter to the {@link Listener} on the main thread once per
+ * frame at most.
+ */
+public class ProgressBridge {
+
+    /** Receives the progress on the main thread. */
+    public interface Listener {
+
+        /** Called at most once per frame with the latest progress, between 0 and the maximum. */
+        void onProgress(long progress, long max);
+
+        /** Called once, after the progress reached the maximum was reported. */
+        void onComplete();
+    }
+
+    private final long mMax;
+    private final Listener mListener;
+    private final FrameSampler mSampler;
+
+    private final AtomicLong mProgress = new AtomicLong();
+
+    private boolean mCompleted;
+
+    /**
+     * Initializes a new bridge reporting progress up to the specified maximum to the specified
+     * listener; called on the main thread.
+     */
+    public ProgressBridge(long max, Listener listener) {
+        mMax = max;
+        mListener = listener;
+        mSampler = new FrameSampler(Looper.getMainLooper(), new FrameSampler.Callback() {
+            @Override
+            public void onFrame(long frameTimeNanos) {
+                report();
+            }
+        });
+    }
+
+    /** Adds to the progress; called on any thread. */
+    public void add(long delta) {
+        mProgress.addAndGet(delta);
+        mSampler.request();
+    }
+
+    /** Sets the progress; called on any thread. */
+    public void set(long progress) {
+        mProgress.set(progress);
+        mSampler.request();
+    }
+
+    /** Returns the latest progress published. */
+    public long getProgress() {
+        return mProgress.get();
+    }
+
+    /** Returns the maximum progress. */
+    public long getMax() {
+        return mMax;
+    }
+
+    /** Returns how many frame callbacks were posted to the main thread. */
+    public int getFrameCount() {
+        return mSampler.getFrameCount();
+    }
+
+    /** Stops reporting progress to the listener; called on the main thread. */
+    public void cancel() {
+        mSampler.cancel();
+    }
+
+    /** Returns whether the bridge was cancelled, so that work can stop; called on any thread. */
+    public boolean isCancelled() {
+        return mSampler.isCancelled();
+    }
+
+    private void report() {
+        if (mCompleted) {
+            return;
+        }
+        long progress = Math.min(mProgress.get(), mMax);
+        mListener.onProgress(progress, mMax);
+        if (progress == mMax) {
+            mCompleted = true;
+            mListener.onComplete();
+        }
+    }
+}
@@ -19,6 +19,7 @@ package com.google.android.glass.sample.apidemo.slider;
 import com.google.android.glass.media.Sounds;
 import com.google.android.glass.sample.apidemo.R;
 import com.google.android.glass.sample.apidemo.card.CardAdapter;
+import com.google.android.glass.sample.apidemo.metrics.FrameMonitor;
 import com.google.android.glass.widget.CardBuilder;
 import com.google.android.glass.widget.CardScrollView;
 import com.google.android.glass.widget.Slider;
@@ -27,25 +28,35 @@ import com.google.android.glass.widget.Slider.GracePeriod;
 import com.google.android.glass.widget.Slider.Indeterminate;
 import com.google.android.glass.widget.Slider.Scroller;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.ObjectAnimator;
 import android.app.Activity;
 import android.content.Context;
 import android.media.AudioManager;
+import android.os.AsyncTask;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.View;
 import android.view.WindowManager;
 import android.widget.AdapterView;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.CRC32;
 
 /**
  * An activity that demonstrates the slider API.
  */
 public final class SliderActivity extends Activity {
 
+    private static final String TAG = SliderActivity.class.getSimpleName();
+
     // Index of slider demo cards.
     private static final int SCROLLER = 0;
     private static final int DETERMINATE = 1;
@@ -54,6 +65,49 @@ public final class SliderActivity extends Activity {
 
     private static final int MAX_SLIDER_VALUE = 5;
     private static final long ANIMATION_DURATION_MILLIS = 5000;
+    private static final int COPY_BUFFER_SIZE = 4 * 1024;
+
+    /** How long the checksum is paced to last, so that the indeterminate slider shows. */
+    private static final long CHECKSUM_DURATION_MILLIS = 5000;
+    private static final String GRACE_PERIOD_FILE_NAME = "grace_period.txt";
+
+    /**
+     * Saves the time at which a grace period started into a file once the grace period ends: the
+     * file is written aside while the grace period runs, and renamed into place on commit.
+     */
+    private static final class SaveFileAction implements GracePeriodExecutor.Action<File> {
+
+        private final File mFile;
+        private final long mStartMillis = System.currentTimeMillis();
+
+        SaveFileAction(File file) {
+            mFile = file;
+        }
+
+        @Override
+        public File prepare() throws IOException {
+            File staged = new File(mFile.getPath() + ".tmp");
+            Writer writer = new FileWriter(staged);
+            try {
+                writer.write(String.format("Grace period started at %d\n", mStartMillis));
+            } finally {
+                writer.close();
+            }
+            return staged;
+        }
+
+        @Override
+        public void commit(File staged) {
+            if (!staged.renameTo(mFile)) {
+                Log.w(TAG, "Failed to commit " + mFile);
+            }
+        }
+
+        @Override
+        public void rollback(File staged) {
+            staged.delete();
+        }
+    }
 
     private final GracePeriod.Listener mGracePeriodListener = new GracePeriod.Listener() {
         @Override
@@ -61,6 +115,7 @@ public final class SliderActivity extends Activity {
             // Play a SUCCESS sound to indicate the end of the grace period.
             AudioManager am = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
             am.playSoundEffect(Sounds.SUCCESS);
+            mGracePeriodExecutor.commit();
             mGracePeriod = null;
         }
 
@@ -69,15 +124,34 @@ public final class SliderActivity extends Activity {
             // Play a DIMISS sound to indicate the cancellation of the grace period.
             AudioManager am = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
             am.playSoundEffect(Sounds.DISMISSED);
+            mGracePeriodExecutor.rollback();
             mGracePeriod = null;
         }
     };
 
     private CardScrollView mCardScroller;
+    private FrameMonitor mFrameMonitor;
     private Slider mSlider;
-    private Slider.Indeterminate mIndeterminate;
+    private Slider.Scroller mScroller;
+    private OperationTracker mOperationTracker;
     private Slider.GracePeriod mGracePeriod;
 
+    // The animation is kept and restarted for every scroller shown, and sets the position of the
+    // current one.
+    private final FloatAnimation mScrollerAnimation = new FloatAnimation(
+            new FloatAnimation.Setter() {
+                @Override
+                public void set(float value) {
+                    mScroller.setPosition(value);
+                }
+            }).setDuration(ANIMATION_DURATION_MILLIS);
+
+    private ProgressBridge mProgressBridge;
+
+    // Prepares the work confirmed by the grace period while it runs.
+    private final GracePeriodExecutor mGracePeriodExecutor =
+            new GracePeriodExecutor(AsyncTask.SERIAL_EXECUTOR);
+
     @Override
     protected void onCreate(Bundle bundle) {
         super.onCreate(bundle);
@@ -86,6 +160,7 @@ public final class SliderActivity extends Activity {
         getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
 
         mCardScroller = new CardScrollView(this);
+        mFrameMonitor = new FrameMonitor(this, mCardScroller);
         mCardScroller.setAdapter(new CardAdapter(createCards(this)));
         mCardScroller.setOnItemClickListener(new AdapterView.OnItemClickListener() {
             @Override
@@ -98,6 +173,7 @@ public final class SliderActivity extends Activity {
         });
         setContentView(mCardScroller);
         mSlider = Slider.from(mCardScroller);
+        mOperationTracker = new OperationTracker(this, mSlider);
     }
 
     @Override
@@ -110,14 +186,27 @@ public final class SliderActivity extends Activity {
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        // The grace period will not end if the activity goes away.
+        mGracePeriodExecutor.rollback();
+        if (mProgressBridge != null) {
+            mProgressBridge.cancel();
+        }
+        mOperationTracker.release();
+        super.onDestroy();
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
         mCardScroller.activate();
+        mFrameMonitor.start();
     }
 
     @Override
     protected void onPause() {
+        mFrameMonitor.stop();
         mCardScroller.deactivate();
         super.onPause();
     }
@@ -130,48 +219,142 @@ public final class SliderActivity extends Activity {
     private void processSliderRequest(int position) {
         switch (position) {
             case SCROLLER:
-                Slider.Scroller scroller = mSlider.startScroller(MAX_SLIDER_VALUE, 0);
+                mScroller = mSlider.startScroller(MAX_SLIDER_VALUE, 0);
 
                 // Start an animation showing the different positions of the slider, the slider
                 // automatically hides after a short time of inactivity.
-                ObjectAnimator.ofFloat(scroller, "position", 0, MAX_SLIDER_VALUE)
-                    .setDuration(ANIMATION_DURATION_MILLIS)
-                    .start();
+                mScrollerAnimation.start(0, MAX_SLIDER_VALUE);
                 break;
             case DETERMINATE:
-                final Slider.Determinate determinate =
-                        mSlider.startDeterminate(MAX_SLIDER_VALUE, 0);
-                ObjectAnimator animator = ObjectAnimator.ofFloat(determinate, "position", 0,
-                        MAX_SLIDER_VALUE);
-
-                // Hide the slider when the animation stops.
-                animator.addListener(new AnimatorListenerAdapter() {
-                    @Override
-                    public void onAnimationEnd(Animator animation) {
-                        determinate.hide();
-                    }
-                });
-                // Start an animation showing the different positions of the slider.
-                animator.setDuration(ANIMATION_DURATION_MILLIS)
-                    .start();
+                startDeterminate();
                 break;
             case GRACE_PERIOD:
                 // Start the grace period slider and play a sound when one of the listener method
                 // gets fired.
                 mGracePeriod = mSlider.startGracePeriod(mGracePeriodListener);
+                mGracePeriodExecutor.stage(new SaveFileAction(
+                        new File(getFilesDir(), GRACE_PERIOD_FILE_NAME)));
                 break;
             case INDETERMINATE:
-                // Toggle between showing/hiding the indeterminate slider.
-                if (mIndeterminate != null) {
-                    mIndeterminate.hide();
-                    mIndeterminate = null;
-                } else {
-                    mIndeterminate = mSlider.startIndeterminate();
-                }
+                startChecksum();
                 break;
         }
     }
 
+    /**
+     * Shows a determinate slider with the progress of a real background job: copying the APK of
+     * the app to a file of its own in the cache directory, then deleting the copy. Starting
+     * another job cancels the previous one.
+     */
+    private void startDeterminate() {
+        if (mProgressBridge != null) {
+            mProgressBridge.cancel();
+        }
+        final Slider.Determinate determinate = mSlider.startDeterminate(MAX_SLIDER_VALUE, 0);
+        final File source = new File(getPackageCodePath());
+        final File cacheDir = getCacheDir();
+        final ProgressBridge bridge = new ProgressBridge(source.length(),
+                new ProgressBridge.Listener() {
+                    @Override
+                    public void onProgress(long progress, long max) {
+                        determinate.setPosition(
+                                max > 0 ? (float) progress * MAX_SLIDER_VALUE / max
+                                        : MAX_SLIDER_VALUE);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        // Hide the slider when the job is done.
+                        determinate.hide();
+                    }
+                });
+        mProgressBridge = bridge;
+
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                File copy = null;
+                try {
+                    copy = File.createTempFile("copy", ".apk", cacheDir);
+                    copy(source, copy, bridge);
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to copy " + source, e);
+                } finally {
+                    if (copy != null) {
+                        copy.delete();
+                    }
+                }
+                // Completes the slider even if the copy failed or had nothing to copy.
+                bridge.set(bridge.getMax());
+            }
+        });
+    }
+
+    /**
+     * Computes the checksum of the APK of the app in the background as an operation tracked by
+     * the indeterminate slider, which only shows if the computation takes a while. The read is
+     * throttled to last about {@link #CHECKSUM_DURATION_MILLIS} whatever the size of the APK,
+     * like a slow network or storage would, with a heartbeat for every buffer read.
+     */
+    private void startChecksum() {
+        final OperationTracker.Operation operation = mOperationTracker.begin("checksum");
+        final File source = new File(getPackageCodePath());
+        final long pauseNanos = CHECKSUM_DURATION_MILLIS * 1000000
+                / Math.max(1, source.length() / COPY_BUFFER_SIZE);
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    InputStream in = new FileInputStream(source);
+                    try {
+                        CRC32 checksum = new CRC32();
+                        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                        int count;
+                        while (!isDestroyed() && (count = in.read(buffer)) != -1) {
+                            checksum.update(buffer, 0, count);
+                            operation.heartbeat();
+                            Thread.sleep(pauseNanos / 1000000, (int) (pauseNanos % 1000000));
+                        }
+                        Log.d(TAG, String.format("Checksum of %s: %08x", source,
+                                checksum.getValue()));
+                    } finally {
+                        in.close();
+                    }
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to read " + source, e);
+                } catch (InterruptedException e) {
+                    Log.w(TAG, "Interrupted reading " + source, e);
+                } finally {
+                    operation.finish();
+                }
+            }
+        });
+    }
+
+    /**
+     * Copies a file, publishing the number of bytes copied so far to the specified bridge, until
+     * done or the bridge is cancelled.
+     */
+    private static void copy(File source, File destination, ProgressBridge bridge)
+            throws IOException {
+        InputStream in = new FileInputStream(source);
+        try {
+            OutputStream out = new FileOutputStream(destination);
+            try {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int count;
+                while (!bridge.isCancelled() && (count = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, count);
+                    bridge.add(count);
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
     /**
      * Create a list of cards to display as activity content.
      */
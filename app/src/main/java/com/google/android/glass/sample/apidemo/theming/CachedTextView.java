@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.theming;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.method.TransformationMethod;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.widget.TextView;
+
+/**
+ * A {@link TextView} that measures and draws its text with the {@link StaticLayout} of a
+ * {@link TextLayoutCache}, so that measuring it does not lay the text out again when the layout
+ * is cached.
+ * <p>
+ * Every {@code TextView} attribute is honored. The cached layout is only used when the metrics of
+ * the text paint of the view match those of its text appearance, and none of the attributes that
+ * change how the text is laid out are set: gravity other than top start, ellipsize, lines and
+ * widths limits, line spacing, font padding, compound drawables, a movement method or a hint in
+ * place of the text; otherwise the view lays its text out as a plain {@code TextView}. The cached
+ * layout is drawn with the text paint of the view, so that drawing attributes like the shadow
+ * apply, and transformations like all caps apply to the text it is looked up with.
+ * <p>
+ * The text appearance defaults to {@code ?android:attr/textAppearanceMedium} like a
+ * {@code TextView} on Glass.
+ */
+public class CachedTextView extends TextView {
+
+    /** Attributes read from the layout besides those of {@code TextView}. */
+    private static final int[] ATTRS = {
+        android.R.attr.textAppearance,
+    };
+    private static final int ATTR_TEXT_APPEARANCE = 0;
+
+    private final int mAppearanceResId;
+
+    private TextLayoutCache mLayoutCache;
+
+    /** The cached layout measured last and the text it was looked up with, if it is used. */
+    private StaticLayout mLayout;
+    private CharSequence mLayoutText;
+
+    public CachedTextView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        TypedArray a = context.obtainStyledAttributes(attrs, ATTRS);
+        mAppearanceResId = a.getResourceId(ATTR_TEXT_APPEARANCE, getDefaultAppearance(context));
+        a.recycle();
+    }
+
+    /** Returns the text appearance style of this view. */
+    public int getTextAppearance() {
+        return mAppearanceResId;
+    }
+
+    /** Sets the cache the layout of the text is taken from, typically shared by several views. */
+    public void setLayoutCache(TextLayoutCache layoutCache) {
+        mLayoutCache = layoutCache;
+        mLayout = null;
+        requestLayout();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (mLayoutCache == null) {
+            mLayoutCache = new TextLayoutCache(getContext());
+        }
+        TextPaint appearancePaint = mLayoutCache.getPaint(mAppearanceResId);
+        if (!canUseCachedLayout(appearancePaint)) {
+            mLayout = null;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+
+        CharSequence text = getTransformedText();
+        int horizontalPadding = getPaddingLeft() + getPaddingRight();
+        int width;
+        if (MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.UNSPECIFIED) {
+            width = (int) Math.ceil(Layout.getDesiredWidth(text, appearancePaint));
+        } else {
+            width = MeasureSpec.getSize(widthMeasureSpec) - horizontalPadding;
+        }
+        if (mLayout == null || mLayout.getWidth() != width || !text.equals(mLayoutText)) {
+            mLayout = mLayoutCache.get(text, mAppearanceResId, width);
+            mLayoutText = text;
+        }
+
+        setMeasuredDimension(
+                resolveSize(Math.max(width + horizontalPadding, getSuggestedMinimumWidth()),
+                        widthMeasureSpec),
+                resolveSize(Math.max(mLayout.getHeight() + getPaddingTop() + getPaddingBottom(),
+                        getSuggestedMinimumHeight()), heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mLayout == null) {
+            super.onDraw(canvas);
+            return;
+        }
+        // Layouts are only drawn on the main thread, so the paint of a shared one can be set for
+        // each view: its metrics are the same, only the drawing attributes change.
+        TextPaint paint = mLayout.getPaint();
+        paint.set(getPaint());
+        paint.setColor(getCurrentTextColor());
+        paint.drawableState = getDrawableState();
+        canvas.save();
+        canvas.translate(getPaddingLeft(), getPaddingTop());
+        mLayout.draw(canvas);
+        canvas.restore();
+    }
+
+    @Override
+    public int getBaseline() {
+        if (mLayout == null) {
+            return super.getBaseline();
+        }
+        return getPaddingTop() + mLayout.getLineBaseline(0);
+    }
+
+    /** Returns the text as laid out, after the transformation method of the view if any. */
+    private CharSequence getTransformedText() {
+        TransformationMethod transformation = getTransformationMethod();
+        CharSequence text = getText();
+        return transformation != null ? transformation.getTransformation(text, this) : text;
+    }
+
+    /**
+     * Returns whether a layout built with the specified paint of the text appearance lays the
+     * text out like this view would.
+     */
+    private boolean canUseCachedLayout(TextPaint appearancePaint) {
+        if (getGravity() != (Gravity.TOP | Gravity.START) || getEllipsize() != null
+                || getMaxLines() != Integer.MAX_VALUE || getMinLines() != 0
+                || getMaxWidth() != Integer.MAX_VALUE || getMinWidth() != 0
+                || getLineSpacingMultiplier() != 1f || getLineSpacingExtra() != 0f
+                || !getIncludeFontPadding() || getMovementMethod() != null
+                || (getText().length() == 0 && getHint() != null)) {
+            return false;
+        }
+        for (Drawable drawable : getCompoundDrawables()) {
+            if (drawable != null) {
+                return false;
+            }
+        }
+        TextPaint paint = getPaint();
+        return paint.getTextSize() == appearancePaint.getTextSize()
+                && paint.getTextScaleX() == appearancePaint.getTextScaleX()
+                && paint.getTextSkewX() == appearancePaint.getTextSkewX()
+                && paint.isFakeBoldText() == appearancePaint.isFakeBoldText()
+                && paint.getTextLocale().equals(appearancePaint.getTextLocale())
+                && orDefault(paint.getTypeface()).equals(orDefault(appearancePaint.getTypeface()));
+    }
+
+    private static Typeface orDefault(Typeface typeface) {
+        return typeface != null ? typeface : Typeface.DEFAULT;
+    }
+
+    /** Returns the default text appearance style in the theme of the specified context. */
+    static int getDefaultAppearance(Context context) {
+        return resolveAppearance(context, android.R.attr.textAppearanceMedium);
+    }
+
+    /** Returns the text appearance style the specified theme attribute refers to. */
+    static int resolveAppearance(Context context, int attr) {
+        TypedValue value = new TypedValue();
+        context.getTheme().resolveAttribute(attr, value, true);
+        return value.resourceId;
+    }
+}
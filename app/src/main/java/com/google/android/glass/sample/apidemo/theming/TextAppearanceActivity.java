@@ -16,6 +16,7 @@
 
 package com.google.android.glass.sample.apidemo.theming;
 
+import com.google.android.glass.sample.apidemo.metrics.FrameMonitor;
 import com.google.android.glass.widget.CardScrollView;
 
 import android.app.Activity;
@@ -27,11 +28,13 @@ import android.os.Bundle;
 public final class TextAppearanceActivity extends Activity {
 
     private CardScrollView mCardScroller;
+    private FrameMonitor mFrameMonitor;
 
     @Override
     protected void onCreate(Bundle bundle) {
         super.onCreate(bundle);
         mCardScroller = new CardScrollView(this);
+        mFrameMonitor = new FrameMonitor(this, mCardScroller);
         mCardScroller.setAdapter(new TextAppearanceAdapter(this));
         setContentView(mCardScroller);
     }
@@ -40,10 +43,12 @@ public final class TextAppearanceActivity extends Activity {
     protected void onResume() {
         super.onResume();
         mCardScroller.activate();
+        mFrameMonitor.start();
     }
 
     @Override
     protected void onPause() {
+        mFrameMonitor.stop();
         mCardScroller.deactivate();
         super.onPause();
     }
@@ -16,10 +16,11 @@
 
 package com.google.android.glass.sample.apidemo.theming;
 
-import com.google.android.glass.widget.CardScrollAdapter;
 import com.google.android.glass.sample.apidemo.R;
+import com.google.android.glass.widget.CardScrollAdapter;
 
 import android.content.Context;
+import android.content.res.Resources;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -27,18 +28,33 @@ import android.widget.AdapterView;
 
 /**
  * Adapter class that displays examples of the default textAppearance styles on Glass.
+ * <p>
+ * Each card has its own layout and view type, so that a recycled view always has the right
+ * layout. The texts are drawn by {@link CachedTextView}s whose layouts are built in the
+ * background as soon as the adapter is created, so that the cards are measured without laying
+ * their text out.
  */
 public class TextAppearanceAdapter extends CardScrollAdapter {
 
     enum TextAppearanceLayout {
-        LARGE(R.layout.text_appearances_large),
-        MEDIUM(R.layout.text_appearances_medium),
-        SMALL(R.layout.text_appearances_small);
+        LARGE(R.layout.text_appearances_large, R.string.text_large,
+                android.R.attr.textAppearanceLarge, R.string.text_large_specification),
+        MEDIUM(R.layout.text_appearances_medium, R.string.text_medium,
+                android.R.attr.textAppearanceMedium, R.string.text_medium_specification),
+        SMALL(R.layout.text_appearances_small, R.string.text_small,
+                android.R.attr.textAppearanceSmall, R.string.text_small_specification);
 
         private final int mResid;
+        private final int mTextResid;
+        private final int mAppearanceAttr;
+        private final int mSpecificationResid;
 
-        TextAppearanceLayout(int resid) {
+        TextAppearanceLayout(int resid, int textResid, int appearanceAttr,
+                int specificationResid) {
             mResid = resid;
+            mTextResid = textResid;
+            mAppearanceAttr = appearanceAttr;
+            mSpecificationResid = specificationResid;
         }
 
         int getResourceID() {
@@ -46,10 +62,13 @@ public class TextAppearanceAdapter extends CardScrollAdapter {
         }
     }
 
-    private LayoutInflater mInflater;
+    private final LayoutInflater mInflater;
+    private final TextLayoutCache mLayoutCache;
 
     public TextAppearanceAdapter(Context context) {
         mInflater = LayoutInflater.from(context);
+        mLayoutCache = new TextLayoutCache(context);
+        prefetchLayouts(context);
     }
 
     @Override
@@ -62,15 +81,28 @@ public class TextAppearanceAdapter extends CardScrollAdapter {
         return TextAppearanceLayout.values()[position];
     }
 
+    @Override
+    public int getViewTypeCount() {
+        return TextAppearanceLayout.values().length;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return getItem(position).ordinal();
+    }
+
     @Override
     public View getView(int position, View convertView, ViewGroup parent) {
-        View view = null;
-        // Because cards in this example are static, a non-null convertView
-        // can be reused unconditionally.
+        // Because cards in this example are static, a non-null convertView, which has the same
+        // view type, can be reused unconditionally.
         if (convertView != null) {
-            view = convertView;
-        } else {
-            view = mInflater.inflate(getItem(position).getResourceID(), null);
+            return convertView;
+        }
+        ViewGroup view = (ViewGroup) mInflater.inflate(getItem(position).getResourceID(), null);
+        for (int i = 0; i < view.getChildCount(); i++) {
+            if (view.getChildAt(i) instanceof CachedTextView) {
+                ((CachedTextView) view.getChildAt(i)).setLayoutCache(mLayoutCache);
+            }
         }
         return view;
     }
@@ -84,4 +116,23 @@ public class TextAppearanceAdapter extends CardScrollAdapter {
         }
         return AdapterView.INVALID_POSITION;
     }
+
+    /** Returns the cache the texts of the cards are laid out with. */
+    TextLayoutCache getLayoutCache() {
+        return mLayoutCache;
+    }
+
+    /** Lays out the texts of all the cards in the background, at the width of a card. */
+    private void prefetchLayouts(Context context) {
+        Resources resources = context.getResources();
+        int width = resources.getDimensionPixelSize(R.dimen.card_width)
+                - 2 * resources.getDimensionPixelSize(R.dimen.card_margin);
+        int specificationAppearance = CachedTextView.getDefaultAppearance(context);
+        for (TextAppearanceLayout layout : TextAppearanceLayout.values()) {
+            mLayoutCache.prefetch(resources.getText(layout.mTextResid),
+                    CachedTextView.resolveAppearance(context, layout.mAppearanceAttr), width);
+            mLayoutCache.prefetch(resources.getText(layout.mSpecificationResid),
+                    specificationAppearance, width);
+        }
+    }
 }
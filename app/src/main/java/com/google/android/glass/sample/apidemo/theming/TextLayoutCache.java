@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.theming;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.os.AsyncTask;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.SparseArray;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the {@link StaticLayout}s of texts drawn with a text appearance style at a given width,
+ * so that the text of a card is measured once, possibly in the background before the card is
+ * shown, instead of in every measure pass.
+ * <p>
+ * Layouts are built in the background by {@link #prefetch}, or on the calling thread by
+ * {@link #get} if they are not cached yet. Every method but the building itself is called on the
+ * main thread; the cache holds at most {@link #MAX_LAYOUTS} layouts.
+ * <p>
+ * Only the attributes of a text appearance that change how the text is laid out, plus its color,
+ * are resolved; {@link CachedTextView} draws the layouts with its own paint, which carries the
+ * others, like the shadow.
+ */
+public class TextLayoutCache {
+
+    /** Maximum number of layouts kept, the least recently used being evicted first. */
+    public static final int MAX_LAYOUTS = 32;
+
+    /** Text appearance attributes, sorted by id as {@link Context#obtainStyledAttributes} needs. */
+    private static final int[] APPEARANCE_ATTRS = {
+        android.R.attr.textSize,
+        android.R.attr.textStyle,
+        android.R.attr.textColor,
+        android.R.attr.fontFamily,
+    };
+    private static final int APPEARANCE_TEXT_SIZE = 0;
+    private static final int APPEARANCE_TEXT_STYLE = 1;
+    private static final int APPEARANCE_TEXT_COLOR = 2;
+    private static final int APPEARANCE_FONT_FAMILY = 3;
+
+    /** Identifies a layout. */
+    private static final class Key {
+        final String text;
+        final int appearanceResId;
+        final int width;
+
+        Key(CharSequence text, int appearanceResId, int width) {
+            this.text = text.toString();
+            this.appearanceResId = appearanceResId;
+            this.width = width;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return text.equals(other.text) && appearanceResId == other.appearanceResId
+                    && width == other.width;
+        }
+
+        @Override
+        public int hashCode() {
+            return (text.hashCode() * 31 + appearanceResId) * 31 + width;
+        }
+    }
+
+    private final Context mContext;
+
+    /** Paints by text appearance style. */
+    private final SparseArray<TextPaint> mPaints = new SparseArray<TextPaint>();
+
+    /** Layouts in access order, guarded by itself since they are also added in the background. */
+    private final Map<Key, StaticLayout> mLayouts =
+            new LinkedHashMap<Key, StaticLayout>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, StaticLayout> eldest) {
+                    return size() > MAX_LAYOUTS;
+                }
+            };
+
+    private int mHitCount;
+    private int mMissCount;
+
+    /** Initializes a new cache resolving text appearance styles with the specified context. */
+    public TextLayoutCache(Context context) {
+        mContext = context;
+    }
+
+    /** Builds the layout of the specified text in the background, unless it is cached. */
+    public void prefetch(final CharSequence text, int appearanceResId, final int width) {
+        final Key key = new Key(text, appearanceResId, width);
+        synchronized (mLayouts) {
+            if (mLayouts.containsKey(key)) {
+                return;
+            }
+        }
+        // Each layout gets its own paint, which it keeps to draw the text.
+        final TextPaint paint = new TextPaint(getPaint(appearanceResId));
+        AsyncTask.SERIAL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                StaticLayout layout = build(text, paint, width);
+                synchronized (mLayouts) {
+                    if (!mLayouts.containsKey(key)) {
+                        mLayouts.put(key, layout);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the layout of the specified text drawn with the specified text appearance style
+     * and wrapped at the specified width, building it now if it is not cached.
+     */
+    public StaticLayout get(CharSequence text, int appearanceResId, int width) {
+        Key key = new Key(text, appearanceResId, width);
+        StaticLayout layout;
+        synchronized (mLayouts) {
+            layout = mLayouts.get(key);
+        }
+        if (layout != null) {
+            mHitCount++;
+            return layout;
+        }
+
+        mMissCount++;
+        layout = build(text, new TextPaint(getPaint(appearanceResId)), width);
+        synchronized (mLayouts) {
+            mLayouts.put(key, layout);
+        }
+        return layout;
+    }
+
+    /** Returns the number of calls to {@link #get} that found their layout cached. */
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    /** Returns the number of calls to {@link #get} that had to build their layout. */
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    /** Forgets all the layouts. */
+    public void clear() {
+        synchronized (mLayouts) {
+            mLayouts.clear();
+        }
+    }
+
+    /**
+     * Returns the paint of the specified text appearance style, resolving it once. Besides the
+     * color, it only has the attributes that change how the text is laid out.
+     */
+    TextPaint getPaint(int appearanceResId) {
+        TextPaint paint = mPaints.get(appearanceResId);
+        if (paint != null) {
+            return paint;
+        }
+
+        paint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+        TypedArray appearance =
+                mContext.obtainStyledAttributes(appearanceResId, APPEARANCE_ATTRS);
+        paint.setTextSize(appearance.getDimension(APPEARANCE_TEXT_SIZE, paint.getTextSize()));
+        int style = appearance.getInt(APPEARANCE_TEXT_STYLE, Typeface.NORMAL);
+        String fontFamily = appearance.getString(APPEARANCE_FONT_FAMILY);
+        paint.setTypeface(fontFamily != null
+                ? Typeface.create(fontFamily, style) : Typeface.defaultFromStyle(style));
+        ColorStateList color = appearance.getColorStateList(APPEARANCE_TEXT_COLOR);
+        paint.setColor(color != null ? color.getDefaultColor() : Color.WHITE);
+        appearance.recycle();
+
+        mPaints.put(appearanceResId, paint);
+        return paint;
+    }
+
+    private static StaticLayout build(CharSequence text, TextPaint paint, int width) {
+        return new StaticLayout(text, paint, Math.max(0, width), Layout.Alignment.ALIGN_NORMAL,
+                1f /* spacingMult */, 0f /* spacingAdd */, true /* includePad */);
+    }
+}
@@ -16,44 +16,41 @@
 
 package com.google.android.glass.sample.apidemo.touchpad;
 
-import com.google.android.glass.sample.apidemo.R;
+import com.google.android.glass.sample.apidemo.Demo;
+import com.google.android.glass.sample.apidemo.DemoLauncher;
+import com.google.android.glass.sample.apidemo.DemoRegistry;
 import com.google.android.glass.sample.apidemo.card.CardAdapter;
+import com.google.android.glass.sample.apidemo.metrics.FrameMonitor;
 import com.google.android.glass.widget.CardBuilder;
-import com.google.android.glass.widget.CardScrollAdapter;
 import com.google.android.glass.widget.CardScrollView;
 
 import android.app.Activity;
 import android.content.Context;
-import android.content.Intent;
 import android.os.Bundle;
-import android.util.Log;
-import android.view.View;
-import android.widget.AdapterView;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Lets the user select which gesture detector demo they want to run.
+ * Lets the user select which gesture detector demo they want to run, among the ones listed in
+ * {@link DemoRegistry#GESTURE_DEMOS}.
  */
 public class SelectGestureDemoActivity extends Activity {
 
-    private static final String TAG = SelectGestureDemoActivity.class.getSimpleName();
-
-    // Index of the gesture detector demos.
-    private static final int DISCRETE = 0;
-    private static final int CONTINUOUS = 1;
-
     private CardScrollView mCardScroller;
+    private FrameMonitor mFrameMonitor;
 
     @Override
     protected void onCreate(Bundle bundle) {
         super.onCreate(bundle);
 
         mCardScroller = new CardScrollView(this);
+        mFrameMonitor = new FrameMonitor(this, mCardScroller);
         mCardScroller.setAdapter(new CardAdapter(createCards(this)));
         setContentView(mCardScroller);
-        setCardScrollerListener();
+        // The gesture demos start silently, as they always have.
+        new DemoLauncher(this, DemoRegistry.GESTURE_DEMOS, false /* playSounds */)
+                .attach(mCardScroller);
     }
 
     /**
@@ -61,51 +58,22 @@ public class SelectGestureDemoActivity extends Activity {
      */
     private List<CardBuilder> createCards(Context context) {
         ArrayList<CardBuilder> cards = new ArrayList<CardBuilder>();
-        cards.add(DISCRETE, new CardBuilder(context, CardBuilder.Layout.TEXT)
-                .setText(R.string.discrete_gestures));
-        cards.add(CONTINUOUS, new CardBuilder(context, CardBuilder.Layout.TEXT)
-                .setText(R.string.continuous_gestures));
+        for (Demo demo : DemoRegistry.GESTURE_DEMOS) {
+            cards.add(demo.newCard(context));
+        }
         return cards;
     }
 
-    /**
-     * Sets the click listener that invokes a gesture detector demo based on the card that is
-     * selected.
-     */
-    private void setCardScrollerListener() {
-        mCardScroller.setOnItemClickListener(new AdapterView.OnItemClickListener() {
-
-            @Override
-            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-                Log.d(TAG, "Clicked view at position " + position + ", row-id " + id);
-                switch (position) {
-                    case DISCRETE:
-                        startActivity(new Intent(SelectGestureDemoActivity.this,
-                                DiscreteGesturesActivity.class));
-                        break;
-
-                    case CONTINUOUS:
-                        startActivity(new Intent(SelectGestureDemoActivity.this,
-                                ContinuousGesturesActivity.class));
-                        break;
-
-                    // TODO(hyunyoungs): Add other demos.
-
-                    default:
-                        Log.d(TAG, "Don't show anything");
-              }
-            }
-        });
-    }
-
     @Override
     protected void onResume() {
         super.onResume();
         mCardScroller.activate();
+        mFrameMonitor.start();
     }
 
     @Override
     protected void onPause() {
+        mFrameMonitor.stop();
         mCardScroller.deactivate();
         super.onPause();
     }
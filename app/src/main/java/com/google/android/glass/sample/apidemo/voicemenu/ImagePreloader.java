@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.voicemenu;
+
+import com.google.android.glass.sample.apidemo.image.ImageLoader;
+
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+
+/**
+ * Decodes a set of images that may be asked for soon, such as those selectable by voice, in the
+ * background and holds them until they are released.
+ * <p>
+ * Images are decoded at display size by an {@link ImageLoader}, and held in a cache bounded in
+ * bytes, so that they stay decoded even if the shared cache of the loader evicts them; the loader
+ * never decodes into a bitmap it handed out. Images asked for before they are preloaded, or that
+ * failed to, are decoded on the calling thread. Every method is called on the main thread.
+ */
+public class ImagePreloader {
+
+    private static final String TAG = ImagePreloader.class.getSimpleName();
+
+    private final ImageLoader mImageLoader;
+    private final int[] mResIds;
+    private final int mWidth;
+    private final int mHeight;
+    private final LruCache<Integer, Bitmap> mHeld;
+
+    /** Incremented on release, so that the loads started before are ignored. */
+    private int mGeneration;
+    private int mPendingCount;
+    private long mPreloadStartMillis;
+
+    private int mHitCount;
+    private int mMissCount;
+
+    /**
+     * Initializes a new preloader.
+     *
+     * @param imageLoader loader decoding the images
+     * @param resIds drawable resources of the images
+     * @param width width the images are displayed at
+     * @param height height the images are displayed at
+     * @param maxBytes maximum number of bytes held by the decoded images
+     */
+    public ImagePreloader(ImageLoader imageLoader, int[] resIds, int width, int height,
+            int maxBytes) {
+        mImageLoader = imageLoader;
+        mResIds = resIds;
+        mWidth = width;
+        mHeight = height;
+        mHeld = new LruCache<Integer, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(Integer resId, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+    }
+
+    /** Starts decoding the images that are not held yet, unless they are being decoded. */
+    public void preload() {
+        if (mPendingCount > 0) {
+            return;
+        }
+        // Counts them all first, since the images already decoded are reported right away.
+        for (int resId : mResIds) {
+            if (mHeld.get(resId) == null) {
+                mPendingCount++;
+            }
+        }
+        mPreloadStartMillis = SystemClock.uptimeMillis();
+        final int generation = mGeneration;
+        for (int resId : mResIds) {
+            if (mHeld.get(resId) != null) {
+                continue;
+            }
+            mImageLoader.load(resId, mWidth, mHeight, new ImageLoader.Callback() {
+                @Override
+                public void onImageLoaded(int resId, Bitmap bitmap) {
+                    if (generation == mGeneration) {
+                        onPreloaded(resId, bitmap);
+                    }
+                }
+            });
+        }
+    }
+
+    /** Returns the specified image, decoding it now if it is not held. */
+    public Bitmap get(int resId) {
+        Bitmap bitmap = mHeld.get(resId);
+        if (bitmap != null) {
+            mHitCount++;
+            return bitmap;
+        }
+        mMissCount++;
+        bitmap = mImageLoader.getOrDecode(resId, mWidth, mHeight);
+        if (bitmap != null) {
+            mHeld.put(resId, bitmap);
+        }
+        return bitmap;
+    }
+
+    /** Stops holding the images, and ignores the decodes in progress. */
+    public void release() {
+        mGeneration++;
+        mPendingCount = 0;
+        mHeld.evictAll();
+    }
+
+    /** Returns the number of bytes held by the decoded images. */
+    public int getBytesHeld() {
+        return mHeld.size();
+    }
+
+    /** Returns the number of images asked for that were held. */
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    /** Returns the number of images asked for that had to be decoded on the spot. */
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    /** Logs the memory held and the hits and misses of the preloader. */
+    public void logStats() {
+        Log.i(TAG, String.format("%d KB held, hit/miss %d/%d", getBytesHeld() / 1024,
+                mHitCount, mMissCount));
+    }
+
+    private void onPreloaded(int resId, Bitmap bitmap) {
+        if (bitmap != null) {
+            mHeld.put(resId, bitmap);
+        }
+        if (--mPendingCount == 0) {
+            Log.i(TAG, String.format("Preloaded %d images in %d ms, %d KB held", mResIds.length,
+                    SystemClock.uptimeMillis() - mPreloadStartMillis, getBytesHeld() / 1024));
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.voicemenu;
+
+import android.view.Menu;
+import android.view.MenuItem;
+
+import java.util.Arrays;
+
+/**
+ * Matches recognized speech against a set of command phrases offline, tolerating a few
+ * recognition errors.
+ * <p>
+ * Phrases are compiled into a trie of lowercase letters and digits, words being separated by
+ * single spaces, and text is matched to the phrase at the smallest edit distance from it. The
+ * edit distance is computed one row per trie node while walking down the trie, so phrases sharing
+ * a prefix share its rows, and a branch is abandoned as soon as none of its phrases can be within
+ * the current bound. The bound starts at zero edits and grows by one until a phrase matches, and
+ * only the cells of each row within the bound of the diagonal are computed. Nodes are stored in
+ * parallel arrays, so that tens of thousands of phrases, for example one per row of a table, take
+ * a few bytes per character.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public class VoiceCommandMatcher {
+
+    /** A command matching some text. */
+    public static final class Match {
+
+        private final int mCommandId;
+        private final int mDistance;
+        private final float mScore;
+
+        Match(int commandId, int distance, float score) {
+            mCommandId = commandId;
+            mDistance = distance;
+            mScore = score;
+        }
+
+        /** Returns the ID the command was added with. */
+        public int getCommandId() {
+            return mCommandId;
+        }
+
+        /** Returns the number of characters to insert, delete or replace to get the phrase. */
+        public int getDistance() {
+            return mDistance;
+        }
+
+        /**
+         * Returns how close the text is to the phrase, from {@code 0} for nothing in common to
+         * {@code 1} for an exact match.
+         */
+        public float getScore() {
+            return mScore;
+        }
+    }
+
+    private static final int NONE = -1;
+    private static final int ROOT = 0;
+
+    private final int mMaxDistance;
+
+    // Nodes of the trie, the children of a node being linked from its first child.
+    private char[] mLabels = new char[64];
+    private int[] mFirstChildren = new int[64];
+    private int[] mNextSiblings = new int[64];
+    private int[] mCommandIds = new int[64];
+    private int mNodeCount;
+    private int mCommandCount;
+    private int mMaxDepth;
+
+    /** Normalized phrase or text being matched. */
+    private char[] mText = new char[64];
+    private int mTextLength;
+
+    /** Rows of the edit distance matrix, one per depth in the trie. */
+    private int[][] mRows = new int[0][];
+
+    private int mBestCommandId;
+    private int mBestDistance;
+    private int mBestDepth;
+
+    /**
+     * Initializes a new matcher, matching text to phrases at most the specified number of edits
+     * away.
+     */
+    public VoiceCommandMatcher(int maxDistance) {
+        mMaxDistance = maxDistance;
+        mNodeCount = 1;
+        mFirstChildren[ROOT] = NONE;
+        mNextSiblings[ROOT] = NONE;
+        mCommandIds[ROOT] = NONE;
+    }
+
+    /**
+     * Returns a matcher for the titles of the items of the specified menu and its sub menus, the
+     * items opening a sub menu excepted.
+     */
+    public static VoiceCommandMatcher forMenu(Menu menu, int maxDistance) {
+        VoiceCommandMatcher matcher = new VoiceCommandMatcher(maxDistance);
+        matcher.addMenu(menu);
+        return matcher;
+    }
+
+    /** Returns the number of distinct phrases added. */
+    public int getCommandCount() {
+        return mCommandCount;
+    }
+
+    /** Returns the number of nodes of the trie, including its root. */
+    public int getNodeCount() {
+        return mNodeCount;
+    }
+
+    /** Adds the titles of the items of the specified menu, with the IDs of the items. */
+    public void addMenu(Menu menu) {
+        for (int i = 0; i < menu.size(); i++) {
+            MenuItem item = menu.getItem(i);
+            if (item.hasSubMenu()) {
+                addMenu(item.getSubMenu());
+            } else if (item.getTitle() != null) {
+                add(item.getTitle(), item.getItemId());
+            }
+        }
+    }
+
+    /**
+     * Adds a command phrase, replacing the command of any phrase that only differs from it by
+     * case or punctuation. Phrases without letters or digits are ignored.
+     */
+    public void add(CharSequence phrase, int commandId) {
+        normalize(phrase);
+        if (mTextLength == 0) {
+            return;
+        }
+        int node = ROOT;
+        for (int i = 0; i < mTextLength; i++) {
+            node = getOrAddChild(node, mText[i]);
+        }
+        if (mCommandIds[node] == NONE) {
+            mCommandCount++;
+        }
+        mCommandIds[node] = commandId;
+        mMaxDepth = Math.max(mMaxDepth, mTextLength);
+    }
+
+    /**
+     * Returns the command whose phrase is closest to the specified text, or {@code null} if none
+     * is within the maximum distance. If several phrases are as close, one of them is returned.
+     */
+    public Match match(CharSequence text) {
+        normalize(text);
+        if (mTextLength == 0) {
+            return null;
+        }
+        if (mRows.length <= mMaxDepth || mRows[0].length <= mTextLength) {
+            mRows = new int[mMaxDepth + 1][mText.length + 1];
+        }
+        int[] first = mRows[0];
+        for (int i = 0; i <= mTextLength; i++) {
+            first[i] = i;
+        }
+
+        // The tighter the bound, the fewer branches are walked.
+        mBestCommandId = NONE;
+        for (int limit = 0; limit <= mMaxDistance && mBestCommandId == NONE; limit++) {
+            mBestDistance = limit + 1;
+            for (int child = mFirstChildren[ROOT]; child != NONE && mBestDistance > 0;
+                    child = mNextSiblings[child]) {
+                search(child, 1);
+            }
+        }
+        if (mBestCommandId == NONE) {
+            return null;
+        }
+        float score = 1f - (float) mBestDistance / Math.max(mBestDepth, mTextLength);
+        return new Match(mBestCommandId, mBestDistance, score);
+    }
+
+    /** Computes the row of the specified node, then visits its children unless none can win. */
+    private void search(int node, int depth) {
+        // Cells further than the bound from the diagonal are over it, so they are not computed;
+        // the cells next to the band are set to the bound plus one instead.
+        int bound = mBestDistance - 1;
+        int from = Math.max(1, depth - bound);
+        int to = Math.min(mTextLength, depth + bound);
+        if (from > to) {
+            return;
+        }
+        int[] previous = mRows[depth - 1];
+        int[] row = mRows[depth];
+        char label = mLabels[node];
+        row[from - 1] = from == 1 ? depth : bound + 1;
+        if (to < mTextLength) {
+            row[to + 1] = bound + 1;
+        }
+        int min = Integer.MAX_VALUE;
+        for (int i = from; i <= to; i++) {
+            int distance = Math.min(row[i - 1], previous[i]) + 1;
+            distance = Math.min(distance, previous[i - 1] + (mText[i - 1] == label ? 0 : 1));
+            row[i] = distance;
+            min = Math.min(min, distance);
+        }
+
+        if (mCommandIds[node] != NONE && to == mTextLength && row[mTextLength] < mBestDistance) {
+            mBestCommandId = mCommandIds[node];
+            mBestDistance = row[mTextLength];
+            mBestDepth = depth;
+        }
+        // The minimum of a row never decreases going down the trie, so no child can beat it.
+        if (min >= mBestDistance) {
+            return;
+        }
+        for (int child = mFirstChildren[node]; child != NONE && mBestDistance > 0;
+                child = mNextSiblings[child]) {
+            search(child, depth + 1);
+        }
+    }
+
+    private int getOrAddChild(int node, char label) {
+        int last = NONE;
+        for (int child = mFirstChildren[node]; child != NONE; child = mNextSiblings[child]) {
+            if (mLabels[child] == label) {
+                return child;
+            }
+            last = child;
+        }
+
+        if (mNodeCount == mLabels.length) {
+            int capacity = mNodeCount * 2;
+            mLabels = Arrays.copyOf(mLabels, capacity);
+            mFirstChildren = Arrays.copyOf(mFirstChildren, capacity);
+            mNextSiblings = Arrays.copyOf(mNextSiblings, capacity);
+            mCommandIds = Arrays.copyOf(mCommandIds, capacity);
+        }
+        int child = mNodeCount++;
+        mLabels[child] = label;
+        mFirstChildren[child] = NONE;
+        mNextSiblings[child] = NONE;
+        mCommandIds[child] = NONE;
+        if (last == NONE) {
+            mFirstChildren[node] = child;
+        } else {
+            mNextSiblings[last] = child;
+        }
+        return child;
+    }
+
+    /**
+     * Copies the specified text to the text buffer as lowercase words of letters and digits
+     * separated by single spaces.
+     */
+    private void normalize(CharSequence text) {
+        int length = text.length();
+        if (mText.length < length) {
+            mText = new char[Math.max(length, mText.length * 2)];
+        }
+        mTextLength = 0;
+        boolean space = false;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && mTextLength > 0) {
+                    mText[mTextLength++] = ' ';
+                }
+                space = false;
+                mText[mTextLength++] = Character.toLowerCase(c);
+            } else {
+                space = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.voicemenu;
+
+import android.util.SparseArray;
+import android.view.MenuItem;
+
+/**
+ * Routes the voice commands selected in a menu to the commands registered for their item ID,
+ * with a table lookup instead of a {@code switch} over every ID.
+ */
+public class VoiceCommandRouter {
+
+    /** Handles a voice command. */
+    public interface Command {
+        void execute(MenuItem item);
+    }
+
+    private final SparseArray<Command> mCommands = new SparseArray<Command>();
+
+    /** Registers the command handling the menu item of the specified ID, replacing any other. */
+    public VoiceCommandRouter register(int itemId, Command command) {
+        mCommands.put(itemId, command);
+        return this;
+    }
+
+    /** Returns whether a command is registered for the menu item of the specified ID. */
+    public boolean hasCommand(int itemId) {
+        return mCommands.get(itemId) != null;
+    }
+
+    /**
+     * Executes the command registered for the specified menu item, returning whether there was
+     * one.
+     */
+    public boolean dispatch(MenuItem item) {
+        Command command = mCommands.get(item.getItemId());
+        if (command == null) {
+            return false;
+        }
+        command.execute(item);
+        return true;
+    }
+}
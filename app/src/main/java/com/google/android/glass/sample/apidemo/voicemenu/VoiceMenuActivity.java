@@ -19,42 +19,115 @@ package com.google.android.glass.sample.apidemo.voicemenu;
 import com.google.android.glass.media.Sounds;
 import com.google.android.glass.sample.apidemo.R;
 import com.google.android.glass.sample.apidemo.card.CardAdapter;
+import com.google.android.glass.sample.apidemo.card.CardModel;
+import com.google.android.glass.sample.apidemo.image.ImageLoader;
+import com.google.android.glass.sample.apidemo.metrics.FrameMonitor;
+import com.google.android.glass.sample.apidemo.metrics.LatencyHistogram;
+import com.google.android.glass.touchpad.Gesture;
+import com.google.android.glass.touchpad.GestureDetector;
 import com.google.android.glass.view.WindowUtils;
 import com.google.android.glass.widget.CardBuilder;
 import com.google.android.glass.widget.CardScrollView;
 
 import android.app.Activity;
 import android.content.Context;
+import android.content.Intent;
+import android.graphics.Bitmap;
+import android.graphics.drawable.ColorDrawable;
 import android.media.AudioManager;
 import android.os.Bundle;
 import android.os.PowerManager;
+import android.os.SystemClock;
+import android.speech.RecognizerIntent;
+import android.util.Log;
+import android.view.Choreographer;
 import android.view.Menu;
 import android.view.MenuItem;
+import android.view.MotionEvent;
 import android.view.SubMenu;
 import android.view.View;
 import android.view.WindowManager;
 import android.widget.AdapterView;
+import android.widget.PopupMenu;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * An activity that demonstrates the voice menu API.
+ * <p>
+ * Tapping with two fingers reads a command from the speech recognizer instead, which is matched
+ * offline against the titles of the voice menu by a {@link VoiceCommandMatcher}, so that a
+ * command is still picked if a few characters were misrecognized.
  */
 public final class VoiceMenuActivity extends Activity {
 
-   private CardScrollView mCardScroller;
+    private static final String TAG = VoiceMenuActivity.class.getSimpleName();
 
-   private int mPicture = 0;
-   private boolean mVoiceMenuEnabled = true;
+    // Voice commands and the images they show.
+    private static final int[] COMMAND_IDS = {
+        R.id.menu_designer,
+        R.id.menu_coder1,
+        R.id.menu_coder2,
+        R.id.menu_coder3,
+        R.id.menu_coder4,
+        R.id.menu_coder5,
+        R.id.menu_product,
+    };
+    private static final int[] IMAGES = {
+        R.drawable.designer,
+        R.drawable.codemonkey1,
+        R.drawable.codemonkey2,
+        R.drawable.codemonkey3,
+        R.drawable.codemonkey4,
+        R.drawable.codemonkey5,
+        R.drawable.product,
+    };
+
+    /** Enough for all the images at the size of the card. */
+    private static final int MAX_PRELOADED_BYTES = 4 * 1024 * 1024;
+
+    /** Request code of the speech recognizer activity. */
+    private static final int SPEECH_REQUEST = 1;
+
+    /** Most characters a spoken command may differ by from the title of its menu item. */
+    private static final int MAX_COMMAND_DISTANCE = 2;
+
+    private CardScrollView mCardScroller;
+    private FrameMonitor mFrameMonitor;
+
+    private final int[] mImageSize = new int[2];
+
+    private final VoiceCommandRouter mRouter = new VoiceCommandRouter();
+    private Menu mCommandMenu;
+    private VoiceCommandMatcher mCommandMatcher;
+    private GestureDetector mGestureDetector;
+    private final LatencyHistogram mCommandLatencies = new LatencyHistogram();
+
+    private ImageLoader mImageLoader;
+    private ImagePreloader mImagePreloader;
+    private CardBuilder mCard;
+    private CardAdapter mAdapter;
+    private VoiceMenuState mMenuState;
+    private int mImageResId = IMAGES[0];
+    private int mImageItemId = COMMAND_IDS[0];
 
     @Override
     protected void onCreate(Bundle bundle) {
         super.onCreate(bundle);
 
+        mImageLoader = ImageLoader.getInstance(this);
+        CardModel.computeImageTileSize(
+                getResources(), CardBuilder.Layout.TEXT, 1 /* imageCount */, mImageSize);
+        mImagePreloader = new ImagePreloader(
+                mImageLoader, IMAGES, mImageSize[0], mImageSize[1], MAX_PRELOADED_BYTES);
+
         // Requests a voice menu on this activity. As for any other window feature,
         // be sure to request this before setContentView() is called
         getWindow().requestFeature(WindowUtils.FEATURE_VOICE_COMMANDS);
+        mMenuState = new VoiceMenuState(getWindow(), getMenuInflater(), R.menu.voice_menu);
+        // Picking the image already shown would do nothing.
+        mMenuState.setItemVisible(mImageItemId, false);
 
         // Ensure screen stays on during demo.
         getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
@@ -62,38 +135,84 @@ public final class VoiceMenuActivity extends Activity {
         // Sets up a singleton card scroller as content of this activity. Clicking
         // on the card toggles the voice menu on and off.
         mCardScroller = new CardScrollView(this);
-        mCardScroller.setAdapter(new CardAdapter(createCards(this)));
+        mFrameMonitor = new FrameMonitor(this, mCardScroller);
+        mAdapter = new CardAdapter(createCards(this));
+        mCardScroller.setAdapter(mAdapter);
         mCardScroller.setOnItemClickListener(new AdapterView.OnItemClickListener() {
             @Override
             public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
                 // Plays sound.
                 AudioManager am = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
                 am.playSoundEffect(Sounds.TAP);
-                // Toggles voice menu. Invalidates menu to flag change.
-                mVoiceMenuEnabled = !mVoiceMenuEnabled;
-                getWindow().invalidatePanelMenu(WindowUtils.FEATURE_VOICE_COMMANDS);
+                // Toggles voice menu. The menu state invalidates the menu to flag change.
+                mMenuState.setEnabled(!mMenuState.isEnabled());
             }
         });
         setContentView(mCardScroller);
+
+        for (int i = 0; i < COMMAND_IDS.length; i++) {
+            mRouter.register(COMMAND_IDS[i], new ShowImageCommand(IMAGES[i]));
+        }
+
+        // Spoken commands are matched against a copy of the voice menu, which the window owns.
+        mCommandMenu = new PopupMenu(this, mCardScroller).getMenu();
+        getMenuInflater().inflate(R.menu.voice_menu, mCommandMenu);
+        mCommandMatcher = VoiceCommandMatcher.forMenu(mCommandMenu, MAX_COMMAND_DISTANCE);
+        mGestureDetector = new GestureDetector(this).setBaseListener(
+                new GestureDetector.BaseListener() {
+                    @Override
+                    public boolean onGesture(Gesture gesture) {
+                        if (gesture == Gesture.TWO_TAP) {
+                            startSpeechRecognizer();
+                            return true;
+                        }
+                        return false;
+                    }
+                });
+    }
+
+    /**
+     * Overridden so that the gesture detector sees the motion events before the card scroller,
+     * which would handle a two-finger tap as a tap.
+     */
+    @Override
+    public boolean dispatchGenericMotionEvent(MotionEvent event) {
+        return mGestureDetector.onMotionEvent(event) || super.dispatchGenericMotionEvent(event);
+    }
+
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        if (requestCode != SPEECH_REQUEST) {
+            super.onActivityResult(requestCode, resultCode, data);
+            return;
+        }
+        if (resultCode == RESULT_OK && data != null) {
+            dispatchSpokenCommand(data.getStringArrayListExtra(RecognizerIntent.EXTRA_RESULTS));
+        }
     }
 
     @Override
     protected void onResume() {
         super.onResume();
         mCardScroller.activate();
+        mFrameMonitor.start();
     }
 
     @Override
     protected void onPause() {
+        mFrameMonitor.stop();
         mCardScroller.deactivate();
+        // The images are preloaded again the next time the voice menu opens.
+        mImagePreloader.logStats();
+        mImagePreloader.release();
+        mMenuState.endSession();
         super.onPause();
     }
 
     @Override
     public boolean onCreatePanelMenu(int featureId, Menu menu) {
         if (featureId == WindowUtils.FEATURE_VOICE_COMMANDS) {
-            getMenuInflater().inflate(R.menu.voice_menu, menu);
-            return true;
+            return mMenuState.onCreatePanelMenu(menu);
         }
         // Good practice to pass through, for options menu.
         return super.onCreatePanelMenu(featureId, menu);
@@ -103,7 +222,12 @@ public final class VoiceMenuActivity extends Activity {
     public boolean onPreparePanel(int featureId, View view, Menu menu) {
         if (featureId == WindowUtils.FEATURE_VOICE_COMMANDS) {
             // Dynamically decides between enabling/disabling voice menu.
-            return mVoiceMenuEnabled;
+            boolean enabled = mMenuState.onPreparePanel(menu);
+            // The user is about to pick an image, so decode them all while they speak.
+            if (enabled) {
+                mImagePreloader.preload();
+            }
+            return enabled;
         }
         // Good practice to pass through, for options menu.
         return super.onPreparePanel(featureId, view, menu);
@@ -112,44 +236,112 @@ public final class VoiceMenuActivity extends Activity {
     @Override
     public boolean onMenuItemSelected(int featureId, MenuItem item) {
         if (featureId == WindowUtils.FEATURE_VOICE_COMMANDS) {
-            switch (item.getItemId()) {
-                case R.id.menu_designer: mPicture = 0; break;
-                case R.id.menu_coder1:   mPicture = 1; break;
-                case R.id.menu_coder2:   mPicture = 2; break;
-                case R.id.menu_coder3:   mPicture = 3; break;
-                case R.id.menu_coder4:   mPicture = 4; break;
-                case R.id.menu_coder5:   mPicture = 5; break;
-                case R.id.menu_product:  mPicture = 6; break;
-                default: return true;  // No change.
-            }
-            mCardScroller.setAdapter(new CardAdapter(createCards(this)));
+            // Items without a command, such as the one opening a sub menu, change nothing.
+            mRouter.dispatch(item);
             return true;
         }
         return super.onMenuItemSelected(featureId, item);
     }
 
+    /** Starts the speech recognizer to get a command. */
+    private void startSpeechRecognizer() {
+        AudioManager am = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
+        am.playSoundEffect(Sounds.TAP);
+        Intent intent = new Intent(RecognizerIntent.ACTION_RECOGNIZE_SPEECH)
+                .putExtra(RecognizerIntent.EXTRA_PROMPT, getString(R.string.voice_menu_prompt));
+        startActivityForResult(intent, SPEECH_REQUEST);
+    }
+
     /**
-     * Creates a singleton card list to display as activity content.
+     * Executes the command of the first recognition result, from the most to the least likely,
+     * that matches an item of the voice menu.
+     */
+    private void dispatchSpokenCommand(List<String> results) {
+        for (int i = 0; results != null && i < results.size(); i++) {
+            VoiceCommandMatcher.Match match = mCommandMatcher.match(results.get(i));
+            if (match != null) {
+                Log.d(TAG, String.format("\"%s\" matched with %d edits", results.get(i),
+                        match.getDistance()));
+                mRouter.dispatch(mCommandMenu.findItem(match.getCommandId()));
+                return;
+            }
+        }
+        AudioManager am = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
+        am.playSoundEffect(Sounds.DISALLOWED);
+    }
+
+    /**
+     * Creates a singleton card list to display as activity content. The card shows a placeholder
+     * until its image is loaded in the background, unless it is in the memory cache already.
      */
     private List<CardBuilder> createCards(Context context) {
         ArrayList<CardBuilder> cards = new ArrayList<CardBuilder>();
-        CardBuilder card = new CardBuilder(context, CardBuilder.Layout.TEXT)
-                .addImage(getImageResource())
+        mCard = new CardBuilder(context, CardBuilder.Layout.TEXT)
                 .setText(R.string.voice_menu_explanation);
-        cards.add(card);
+        Bitmap image = mImageLoader.get(mImageResId, mImageSize[0], mImageSize[1]);
+        if (image != null) {
+            mCard.addImage(image);
+        } else {
+            mCard.addImage(new ColorDrawable(getResources().getColor(R.color.image_placeholder)));
+            mImageLoader.load(mImageResId, mImageSize[0], mImageSize[1],
+                    new ImageLoader.Callback() {
+                        @Override
+                        public void onImageLoaded(int resId, Bitmap bitmap) {
+                            // A voice command may have shown another image meanwhile.
+                            if (bitmap != null && resId == mImageResId) {
+                                mCard.clearImages();
+                                mCard.addImage(bitmap);
+                                mAdapter.notifyDataSetChanged();
+                            }
+                        }
+                    });
+        }
+        cards.add(mCard);
         return cards;
     }
 
-    /** Returns current image resource. */
-    private int getImageResource() {
-        switch (mPicture) {
-            case 1:  return R.drawable.codemonkey1;
-            case 2:  return R.drawable.codemonkey2;
-            case 3:  return R.drawable.codemonkey3;
-            case 4:  return R.drawable.codemonkey4;
-            case 5:  return R.drawable.codemonkey5;
-            case 6:  return R.drawable.product;
-            default: return R.drawable.designer;
+    /** Shows an image on the card, only rebinding the card in place. */
+    private final class ShowImageCommand implements VoiceCommandRouter.Command {
+
+        private final int mResId;
+
+        ShowImageCommand(int resId) {
+            mResId = resId;
+        }
+
+        @Override
+        public void execute(MenuItem item) {
+            long commandMillis = SystemClock.uptimeMillis();
+            if (mResId == mImageResId) {
+                return;
+            }
+            mImageResId = mResId;
+            mMenuState.setItemVisible(mImageItemId, true);
+            mImageItemId = item.getItemId();
+            mMenuState.setItemVisible(mImageItemId, false);
+            // The image is usually preloaded; it is decoded now otherwise.
+            Bitmap bitmap = mImagePreloader.get(mResId);
+            mCard.clearImages();
+            mCard.addImage(bitmap);
+            mAdapter.notifyDataSetChanged();
+            measureRedraw(commandMillis);
         }
     }
+
+    /** Records the time from a voice command to the end of the frame showing its effect. */
+    private void measureRedraw(final long commandMillis) {
+        Choreographer.getInstance().postFrameCallback(new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                // Runs once the frame started by this callback is drawn.
+                mCardScroller.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        mCommandLatencies.record(SystemClock.uptimeMillis() - commandMillis);
+                        Log.i(TAG, "Voice command to redrawn card: " + mCommandLatencies);
+                    }
+                });
+            }
+        });
+    }
 }
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.glass.sample.apidemo.voicemenu;
+
+import com.google.android.glass.sample.apidemo.HandlerScheduler;
+import com.google.android.glass.sample.apidemo.Scheduler;
+import com.google.android.glass.view.WindowUtils;
+
+import android.util.Log;
+import android.util.SparseBooleanArray;
+import android.view.Menu;
+import android.view.MenuInflater;
+import android.view.MenuItem;
+import android.view.SubMenu;
+import android.view.Window;
+
+import java.util.ArrayList;
+
+/**
+ * State of a voice menu: whether it is enabled and which of its items are hidden.
+ * <p>
+ * The menu resource is inflated once, and the items it holds are remembered so that the menu can
+ * be rebuilt with plain {@link Menu#add} calls when the window clears it after an invalidation.
+ * State changes only update the items in {@link #onPreparePanel}, and the invalidations they ask
+ * for are debounced by {@link #DEBOUNCE_MILLIS}, then skipped if the state went back to what the
+ * panel shows, for example after a double tap.
+ * <p>
+ * The numbers of inflations, rebuilds and invalidations of a session are logged by
+ * {@link #endSession}. Every method is called on the main thread.
+ */
+public class VoiceMenuState {
+
+    private static final String TAG = VoiceMenuState.class.getSimpleName();
+
+    /** How long the state has to stay unchanged before the panel is invalidated. */
+    public static final long DEBOUNCE_MILLIS = 100;
+
+    /** An item of the inflated menu, with the items of its sub menu if it has one. */
+    private static final class Item {
+        final int groupId;
+        final int itemId;
+        final int order;
+        final CharSequence title;
+        final ArrayList<Item> subItems;
+
+        Item(MenuItem item) {
+            groupId = item.getGroupId();
+            itemId = item.getItemId();
+            order = item.getOrder();
+            title = item.getTitle();
+            subItems = item.hasSubMenu() ? snapshot(item.getSubMenu()) : null;
+        }
+    }
+
+    private final Window mWindow;
+    private final MenuInflater mInflater;
+    private final int mMenuResId;
+
+    /** The scheduler invalidations are debounced on. */
+    private final Scheduler mScheduler;
+
+    private ArrayList<Item> mItems;
+
+    private boolean mEnabled = true;
+    private final SparseBooleanArray mHiddenItems = new SparseBooleanArray();
+
+    // State shown by the panel when it was last prepared.
+    private boolean mPreparedEnabled = true;
+    private final SparseBooleanArray mPreparedHiddenItems = new SparseBooleanArray();
+
+    private int mInflationCount;
+    private int mRebuildCount;
+    private int mInvalidationCount;
+    private int mSkippedInvalidationCount;
+
+    private final Runnable mInvalidate = new Runnable() {
+
+        @Override
+        public void run() {
+            // Skip the invalidation if the panel was prepared with the current state already.
+            if (isPrepared()) {
+                mSkippedInvalidationCount++;
+                return;
+            }
+            mInvalidationCount++;
+            invalidatePanel();
+        }
+    };
+
+    /** Initializes a new state for the voice menu of the specified window. */
+    public VoiceMenuState(Window window, MenuInflater inflater, int menuResId) {
+        this(window, inflater, menuResId, HandlerScheduler.getMain());
+    }
+
+    /** Initializes a new state debouncing invalidations on the specified scheduler. */
+    VoiceMenuState(Window window, MenuInflater inflater, int menuResId, Scheduler scheduler) {
+        mWindow = window;
+        mInflater = inflater;
+        mMenuResId = menuResId;
+        mScheduler = scheduler;
+    }
+
+    /** Returns whether the voice menu is enabled. */
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /** Enables or disables the voice menu. */
+    public void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+        scheduleInvalidation();
+    }
+
+    /** Shows or hides the item of the specified ID. */
+    public void setItemVisible(int itemId, boolean visible) {
+        if (visible) {
+            mHiddenItems.delete(itemId);
+        } else {
+            mHiddenItems.put(itemId, true);
+        }
+        scheduleInvalidation();
+    }
+
+    /** Fills the voice menu, inflating it the first time only; called by the activity. */
+    public boolean onCreatePanelMenu(Menu menu) {
+        if (mItems == null) {
+            mInflater.inflate(mMenuResId, menu);
+            mItems = snapshot(menu);
+            mInflationCount++;
+        } else {
+            rebuild(menu, mItems);
+            mRebuildCount++;
+        }
+        // The items are all visible again; hidden ones are hidden again while preparing.
+        mPreparedHiddenItems.clear();
+        return true;
+    }
+
+    /**
+     * Shows or hides the items of the voice menu whose state changed, returning whether the menu
+     * is enabled; called by the activity.
+     */
+    public boolean onPreparePanel(Menu menu) {
+        for (int i = 0; i < mPreparedHiddenItems.size(); i++) {
+            int itemId = mPreparedHiddenItems.keyAt(i);
+            if (!mHiddenItems.get(itemId)) {
+                setVisible(menu, itemId, true);
+            }
+        }
+        for (int i = 0; i < mHiddenItems.size(); i++) {
+            int itemId = mHiddenItems.keyAt(i);
+            if (!mPreparedHiddenItems.get(itemId)) {
+                setVisible(menu, itemId, false);
+            }
+        }
+        mPreparedHiddenItems.clear();
+        for (int i = 0; i < mHiddenItems.size(); i++) {
+            mPreparedHiddenItems.put(mHiddenItems.keyAt(i), true);
+        }
+        mPreparedEnabled = mEnabled;
+        return mEnabled;
+    }
+
+    /** Returns the number of times the menu resource was inflated. */
+    public int getInflationCount() {
+        return mInflationCount;
+    }
+
+    /** Returns the number of times the menu was rebuilt from the remembered items. */
+    public int getRebuildCount() {
+        return mRebuildCount;
+    }
+
+    /** Returns the number of times the panel was invalidated. */
+    public int getInvalidationCount() {
+        return mInvalidationCount;
+    }
+
+    /** Returns the number of invalidations skipped since the state went back to what is shown. */
+    public int getSkippedInvalidationCount() {
+        return mSkippedInvalidationCount;
+    }
+
+    /** Logs and resets the counts of the session. */
+    public void endSession() {
+        Log.i(TAG, String.format("%d inflations, %d rebuilds, %d invalidations, %d skipped",
+                mInflationCount, mRebuildCount, mInvalidationCount, mSkippedInvalidationCount));
+        mInflationCount = 0;
+        mRebuildCount = 0;
+        mInvalidationCount = 0;
+        mSkippedInvalidationCount = 0;
+    }
+
+    /** Asks the window to create and prepare the voice menu again. */
+    void invalidatePanel() {
+        mWindow.invalidatePanelMenu(WindowUtils.FEATURE_VOICE_COMMANDS);
+    }
+
+    private void scheduleInvalidation() {
+        mScheduler.removeCallbacks(mInvalidate);
+        mScheduler.postDelayed(mInvalidate, DEBOUNCE_MILLIS);
+    }
+
+    /** Returns whether the panel was prepared with the current state. */
+    private boolean isPrepared() {
+        if (mEnabled != mPreparedEnabled || mHiddenItems.size() != mPreparedHiddenItems.size()) {
+            return false;
+        }
+        for (int i = 0; i < mHiddenItems.size(); i++) {
+            if (!mPreparedHiddenItems.get(mHiddenItems.keyAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void setVisible(Menu menu, int itemId, boolean visible) {
+        MenuItem item = menu.findItem(itemId);
+        if (item != null) {
+            item.setVisible(visible);
+        }
+    }
+
+    private static ArrayList<Item> snapshot(Menu menu) {
+        ArrayList<Item> items = new ArrayList<Item>(menu.size());
+        for (int i = 0; i < menu.size(); i++) {
+            items.add(new Item(menu.getItem(i)));
+        }
+        return items;
+    }
+
+    private static void rebuild(Menu menu, ArrayList<Item> items) {
+        for (Item item : items) {
+            if (item.subItems != null) {
+                SubMenu subMenu =
+                        menu.addSubMenu(item.groupId, item.itemId, item.order, item.title);
+                rebuild(subMenu, item.subItems);
+            } else {
+                menu.add(item.groupId, item.itemId, item.order, item.title);
+            }
+        }
+    }
+}